@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.benchmarks;
+
+import java.io.File;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the Hop benchmarks. All the regular JMH command line options are supported. Unless another
+ * result file is given the results are written as JSON to <code>
+ * target/benchmark-results/hop-&lt;version&gt;.json</code> so that the results of different
+ * releases can be compared.
+ *
+ * <p>Usage: java -jar hop-benchmarks.jar [JMH options] [benchmark regexp]
+ */
+public class HopBenchmarks {
+
+  /** The folder the results are written to by default */
+  public static final String RESULTS_FOLDER = "target/benchmark-results";
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      builder.include("org\\.apache\\.hop\\.benchmarks\\..*");
+    }
+    if (commandLineOptions.getResult().hasValue()) {
+      builder.result(commandLineOptions.getResult().get());
+    } else {
+      File folder = new File(RESULTS_FOLDER);
+      if (!folder.exists() && !folder.mkdirs()) {
+        throw new IllegalStateException("Unable to create folder " + folder.getAbsolutePath());
+      }
+      builder.result(new File(folder, "hop-" + getVersion() + ".json").getPath());
+    }
+    if (!commandLineOptions.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+
+    new Runner(builder.build()).run();
+  }
+
+  /**
+   * Gets the version of the benchmarks jar
+   *
+   * @return the version of Hop we're benchmarking, "dev" when running from the IDE
+   */
+  public static String getVersion() {
+    String version = HopBenchmarks.class.getPackage().getImplementationVersion();
+    return version == null ? "dev" : version;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.benchmarks.hash;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.hash.ILongHashIndex;
+import org.apache.hop.core.hash.LongHashIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Builds and probes the long/long hash indexes used by the integer pair mode of Stream Lookup: the
+ * chained {@link LongHashIndex} and the open addressing indexes on and off the Java heap.
+ *
+ * <p>Run it with <code>-prof gc</code> to see the heap footprint: the index is sized up front, so
+ * the <code>gc.alloc.rate.norm</code> of {@link #build()} is the number of bytes on the heap for
+ * {@link #KEYS} keys. The off-heap index allocates {@link ILongHashIndex#getMemorySize()} bytes of
+ * direct memory instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xmx2g", "-XX:MaxDirectMemorySize=2g"})
+@State(Scope.Thread)
+public class HashIndexBenchmark {
+
+  /** The number of keys in an index */
+  public static final int KEYS = 1_000_000;
+
+  /** The number of lookups done by a single probe operation */
+  public static final int PROBES = 1000;
+
+  @Param({"chained", "open", "offHeap"})
+  public String index;
+
+  private long[] keys;
+  private long[] values;
+  private long[] probes;
+
+  private LongHashIndex chainedIndex;
+  private ILongHashIndex openIndex;
+
+  @Setup
+  public void setUp() throws HopValueException {
+    Random random = new Random(42L);
+    keys = new long[KEYS];
+    values = new long[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      // Technical keys of a dimension: mostly increasing with gaps
+      //
+      keys[i] = i * 3L + random.nextInt(3);
+      values[i] = random.nextLong();
+    }
+    probes = new long[PROBES];
+    for (int i = 0; i < PROBES; i++) {
+      // One in four lookups misses
+      //
+      probes[i] = random.nextInt(4) == 0 ? -1L - i : keys[random.nextInt(KEYS)];
+    }
+
+    if ("chained".equals(index)) {
+      chainedIndex = buildChained();
+    } else {
+      openIndex = buildOpen();
+    }
+  }
+
+  private LongHashIndex buildChained() throws HopValueException {
+    LongHashIndex chained = new LongHashIndex(KEYS * 2);
+    for (int i = 0; i < KEYS; i++) {
+      chained.put(keys[i], values[i]);
+    }
+    return chained;
+  }
+
+  private ILongHashIndex buildOpen() {
+    ILongHashIndex open = ILongHashIndex.create(KEYS, "offHeap".equals(index));
+    open.putAll(keys, values, KEYS);
+    return open;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3, batchSize = 1)
+  @Measurement(iterations = 5, batchSize = 1)
+  public Object build() throws HopValueException {
+    if ("chained".equals(index)) {
+      return buildChained();
+    }
+    return buildOpen();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PROBES)
+  public void probe(Blackhole blackhole) throws HopValueException {
+    if (chainedIndex != null) {
+      for (long probe : probes) {
+        blackhole.consume(chainedIndex.get(probe));
+      }
+    } else {
+      for (long probe : probes) {
+        blackhole.consume(openIndex.get(probe, Long.MIN_VALUE));
+      }
+    }
+  }
+}
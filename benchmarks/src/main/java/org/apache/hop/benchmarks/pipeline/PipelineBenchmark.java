@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.benchmarks.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.RowProducer;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pushes rows through a chain of Dummy transforms running in the local pipeline engine. Every row
+ * goes through {@code BaseTransform.putRow} and {@code BaseTransform.getRow} once for every
+ * transform in the chain, the throughput is the number of rows the pipeline accepts per second.
+ *
+ * <p>A new pipeline is started for every iteration and it's finished after the iteration so that
+ * the rows still in the buffers are processed before the next iteration starts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+  @Param({"1", "4"})
+  public int nrDummies;
+
+  @Param({"10000"})
+  public String rowSetSize;
+
+  /** Hand over whole batches of rows between the transforms which support it */
+  @Param({"false", "true"})
+  public boolean batchProcessing;
+
+  private PipelineMeta pipelineMeta;
+  private LocalPipelineEngine pipeline;
+  private RowProducer producer;
+  private IRowMeta rowMeta;
+  private Object[] row;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() throws HopException {
+    HopEnvironment.init();
+
+    pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("benchmark");
+    TransformMeta previous = new TransformMeta("Injector", new InjectorMeta());
+    pipelineMeta.addTransform(previous);
+    for (int i = 1; i <= nrDummies; i++) {
+      TransformMeta dummy = new TransformMeta("Dummy " + i, new DummyMeta());
+      pipelineMeta.addTransform(dummy);
+      pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, dummy));
+      previous = dummy;
+    }
+
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    row = new Object[] {1L, "name"};
+  }
+
+  @Setup(Level.Iteration)
+  public void startPipeline() throws HopException {
+    pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    LocalPipelineRunConfiguration config =
+        (LocalPipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
+    config.setRowSetSize(rowSetSize);
+    config.setBatchProcessing(batchProcessing);
+    pipeline.prepareExecution();
+    producer = pipeline.addRowProducer("Injector", 0);
+    pipeline.startThreads();
+  }
+
+  @TearDown(Level.Iteration)
+  public void finishPipeline() {
+    producer.finished();
+    pipeline.waitUntilFinished();
+    if (pipeline.getErrors() > 0) {
+      throw new IllegalStateException("The benchmark pipeline finished with errors");
+    }
+  }
+
+  @Benchmark
+  public void putRow() throws HopException {
+    producer.putRow(rowMeta, row);
+  }
+}
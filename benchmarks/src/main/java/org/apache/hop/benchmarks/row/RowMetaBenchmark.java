@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.benchmarks.row;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.FrozenRowMeta;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The row operations done for every row by sorting, grouping, lookup and copying transforms:
+ * comparing rows, hashing rows, cloning rows and reading values. Every operation is measured on a
+ * regular row layout and on the frozen copy of it the row sets of a running pipeline hand out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RowMetaBenchmark {
+
+  @Param({"mutable", "frozen"})
+  public String layout;
+
+  private IRowMeta rowMeta;
+  private Object[] row1;
+  private Object[] row2;
+  private int[] keys;
+
+  @Setup
+  public void setUp() {
+    rowMeta = createRowMeta();
+    if ("frozen".equals(layout)) {
+      rowMeta = FrozenRowMeta.freeze(rowMeta);
+    }
+    row1 = createRow(1L);
+    row2 = createRow(2L);
+    keys = new int[] {1, 0};
+  }
+
+  /**
+   * Creates a row layout with one field of every common data type.
+   *
+   * @return the row layout
+   */
+  public static IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaNumber("amount"));
+    rowMeta.addValueMeta(new ValueMetaDate("created"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("active"));
+    rowMeta.addValueMeta(new ValueMetaBigNumber("total"));
+    return rowMeta;
+  }
+
+  /**
+   * Creates a row matching the layout of {@link #createRowMeta()}.
+   *
+   * @param id the id of the row
+   * @return the row
+   */
+  public static Object[] createRow(long id) {
+    return new Object[] {
+      id,
+      "Customer name " + (id % 10),
+      id * 1.5,
+      new Date(1_700_000_000_000L + id * 1000L),
+      id % 2 == 0,
+      BigDecimal.valueOf(id * 100L, 2)
+    };
+  }
+
+  @Benchmark
+  public int compareAllFields() throws HopValueException {
+    return rowMeta.compare(row1, row2);
+  }
+
+  @Benchmark
+  public int compareKeys() throws HopValueException {
+    return rowMeta.compare(row1, row2, keys);
+  }
+
+  @Benchmark
+  public int hashCodeRow() throws HopValueException {
+    return rowMeta.hashCode(row1);
+  }
+
+  @Benchmark
+  public Object[] cloneRow() throws HopValueException {
+    return rowMeta.cloneRow(row1);
+  }
+
+  @Benchmark
+  public String getString() throws HopValueException {
+    return rowMeta.getString(row1, 1);
+  }
+
+  @Benchmark
+  public int indexOfValue() {
+    return rowMeta.indexOfValue("total");
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.benchmarks.row;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.codec.IRowReader;
+import org.apache.hop.core.row.codec.IRowWriter;
+import org.apache.hop.core.row.codec.RowCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes and reads rows in the fixed width format of {@link IRowMeta#writeData(DataOutputStream,
+ * Object[])} and in the binary row format of {@link RowCodec}, used by the temporary files of
+ * sorting and grouping transforms. Every operation handles a batch of {@link #ROWS} rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RowSerializationBenchmark {
+
+  /** The number of rows written or read by a single operation */
+  public static final int ROWS = 1000;
+
+  private IRowMeta rowMeta;
+  private Object[][] rows;
+  private ByteArrayOutputStream buffer;
+  private byte[] serialized;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() throws Exception {
+    rowMeta = RowMetaBenchmark.createRowMeta();
+    rows = new Object[ROWS][];
+    for (int i = 0; i < ROWS; i++) {
+      rows[i] = RowMetaBenchmark.createRow(i);
+    }
+    buffer = new ByteArrayOutputStream(ROWS * 128);
+    serialized = writeRows();
+    encoded = encodeRows();
+  }
+
+  private byte[] writeRows() throws Exception {
+    buffer.reset();
+    DataOutputStream outputStream = new DataOutputStream(buffer);
+    for (Object[] row : rows) {
+      rowMeta.writeData(outputStream, row);
+    }
+    outputStream.flush();
+    return buffer.toByteArray();
+  }
+
+  private byte[] encodeRows() throws Exception {
+    buffer.reset();
+    try (IRowWriter writer = RowCodec.createWriter(rowMeta, buffer)) {
+      for (Object[] row : rows) {
+        writer.writeRow(row);
+      }
+    }
+    return buffer.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] writeData() throws Exception {
+    return writeRows();
+  }
+
+  @Benchmark
+  public Object[] readData() throws Exception {
+    DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(serialized));
+    Object[] row = null;
+    for (int i = 0; i < ROWS; i++) {
+      row = rowMeta.readData(inputStream);
+    }
+    return row;
+  }
+
+  @Benchmark
+  public byte[] writeBinaryRows() throws Exception {
+    return encodeRows();
+  }
+
+  @Benchmark
+  public Object[] readBinaryRows() throws Exception {
+    Object[] row = null;
+    try (IRowReader reader = RowCodec.createReader(rowMeta, new ByteArrayInputStream(encoded))) {
+      for (int i = 0; i < ROWS; i++) {
+        row = reader.readRow();
+      }
+    }
+    return row;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.benchmarks.rowset;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hop.core.BlockingBatchingRowSet;
+import org.apache.hop.core.BlockingRowSet;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.ManagedBlockingRowSet;
+import org.apache.hop.core.RingBufferRowSet;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moves rows through the row set implementations with the topologies found in pipelines: a single
+ * hop (1:1), a transform distributing rows over several copies (1:N) and several copies feeding a
+ * single transform (N:1). The throughput of the producers and the consumers is reported separately.
+ *
+ * <p>Rows are written and read with a short timeout, like the transforms do, so that a thread never
+ * blocks past the end of an iteration when the other side of the hop has stopped.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowSetBenchmark {
+
+  /** The number of copies on the "N" side of the 1:N and N:1 topologies */
+  public static final int FAN = 3;
+
+  private static final long TIMEOUT_MS = 1L;
+
+  @State(Scope.Group)
+  public static class Hops {
+    @Param({
+      "RingBufferRowSet",
+      "BlockingRowSet",
+      "BlockingBatchingRowSet",
+      "ManagedBlockingRowSet"
+    })
+    public String rowSetType;
+
+    @Param({"10000"})
+    public int rowSetSize;
+
+    public IRowSet[] rowSets;
+    public IRowMeta rowMeta;
+    public Object[] row;
+
+    /** Gives every thread on the "N" side of a topology its own row set */
+    public final AtomicInteger nextIndex = new AtomicInteger();
+
+    /** The row set to use next on the "1" side of a topology, only used by a single thread */
+    public int roundRobin;
+
+    @Setup
+    public void setUp() {
+      rowSets = new IRowSet[FAN];
+      rowMeta = new RowMeta();
+      rowMeta.addValueMeta(new ValueMetaInteger("id"));
+      rowMeta.addValueMeta(new ValueMetaString("name"));
+      row = new Object[] {1L, "name"};
+      for (int i = 0; i < FAN; i++) {
+        rowSets[i] = createRowSet(rowSetType, rowSetSize);
+        rowSets[i].setRowMeta(rowMeta);
+      }
+    }
+
+    public IRowSet nextRowSet() {
+      roundRobin = (roundRobin + 1) % FAN;
+      return rowSets[roundRobin];
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Copy {
+    public int index;
+
+    @Setup
+    public void setUp(Hops hops) {
+      index = hops.nextIndex.getAndIncrement() % FAN;
+    }
+  }
+
+  public static IRowSet createRowSet(String rowSetType, int size) {
+    switch (rowSetType) {
+      case "RingBufferRowSet":
+        return new RingBufferRowSet(size);
+      case "BlockingRowSet":
+        return new BlockingRowSet(size);
+      case "BlockingBatchingRowSet":
+        return new BlockingBatchingRowSet(size);
+      case "ManagedBlockingRowSet":
+        return new ManagedBlockingRowSet(size);
+      default:
+        throw new IllegalArgumentException("Unknown row set type: " + rowSetType);
+    }
+  }
+
+  @Benchmark
+  @Group("oneToOne")
+  @GroupThreads(1)
+  public boolean oneToOnePut(Hops hops) {
+    return hops.rowSets[0].putRowWait(hops.rowMeta, hops.row, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("oneToOne")
+  @GroupThreads(1)
+  public Object[] oneToOneGet(Hops hops) {
+    return hops.rowSets[0].getRowWait(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("oneToMany")
+  @GroupThreads(1)
+  public boolean oneToManyPut(Hops hops) {
+    return hops.nextRowSet().putRowWait(hops.rowMeta, hops.row, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("oneToMany")
+  @GroupThreads(FAN)
+  public Object[] oneToManyGet(Hops hops, Copy copy) {
+    return hops.rowSets[copy.index].getRowWait(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("manyToOne")
+  @GroupThreads(FAN)
+  public boolean manyToOnePut(Hops hops, Copy copy) {
+    return hops.rowSets[copy.index].putRowWait(
+        hops.rowMeta, hops.row, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("manyToOne")
+  @GroupThreads(1)
+  public Object[] manyToOneGet(Hops hops) {
+    return hops.nextRowSet().getRowWait(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+}
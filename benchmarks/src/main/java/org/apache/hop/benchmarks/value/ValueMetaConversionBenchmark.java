@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.benchmarks.value;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The conversions between strings and numbers or dates done by transforms reading and writing text
+ * files, with the conversion masks they typically use. The shared variants convert with the same
+ * value metadata from several threads, like the copies of a transform do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueMetaConversionBenchmark {
+
+  private IValueMeta stringMeta;
+  private IValueMeta integerMeta;
+  private IValueMeta numberMeta;
+  private IValueMeta dateMeta;
+
+  private Long integerValue;
+  private Double numberValue;
+  private Date dateValue;
+  private String integerString;
+  private String numberString;
+  private String dateString;
+
+  /** Value metadata used by all benchmark threads at the same time */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    private final ValueMetaConversionBenchmark metadata = new ValueMetaConversionBenchmark();
+
+    @Setup
+    public void setUp() throws HopValueException {
+      metadata.setUp();
+    }
+  }
+
+  @Setup
+  public void setUp() throws HopValueException {
+    stringMeta = new ValueMetaString("string");
+    integerMeta = new ValueMetaInteger("integer");
+    integerMeta.setConversionMask("#");
+    numberMeta = new ValueMetaNumber("number");
+    numberMeta.setConversionMask("#.##");
+    numberMeta.setDecimalSymbol(".");
+    numberMeta.setGroupingSymbol(",");
+    dateMeta = new ValueMetaDate("date");
+    dateMeta.setConversionMask("yyyy/MM/dd HH:mm:ss.SSS");
+
+    integerValue = 1234567L;
+    numberValue = 12345.67;
+    dateValue = new Date(1_700_000_000_000L);
+    integerString = integerMeta.getString(integerValue);
+    numberString = numberMeta.getString(numberValue);
+    dateString = dateMeta.getString(dateValue);
+  }
+
+  @Benchmark
+  public Object stringToInteger() throws HopValueException {
+    return integerMeta.convertData(stringMeta, integerString);
+  }
+
+  @Benchmark
+  public String integerToString() throws HopValueException {
+    return integerMeta.getString(integerValue);
+  }
+
+  @Benchmark
+  public Object stringToNumber() throws HopValueException {
+    return numberMeta.convertData(stringMeta, numberString);
+  }
+
+  @Benchmark
+  public String numberToString() throws HopValueException {
+    return numberMeta.getString(numberValue);
+  }
+
+  @Benchmark
+  public Object stringToDate() throws HopValueException {
+    return dateMeta.convertData(stringMeta, dateString);
+  }
+
+  @Benchmark
+  public String dateToString() throws HopValueException {
+    return dateMeta.getString(dateValue);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object stringToNumberShared(Shared shared) throws HopValueException {
+    return shared.metadata.stringToNumber();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object stringToDateShared(Shared shared) throws HopValueException {
+    return shared.metadata.stringToDate();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String dateToStringShared(Shared shared) throws HopValueException {
+    return shared.metadata.dateToString();
+  }
+}
@@ -20,163 +20,337 @@ package org.apache.hop.core;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hop.core.row.IRowMeta;
 
 /**
- * Contains a buffer of rows. Instead of passing rows along the chain immediately we will batch them
- * up to lower locking overhead. The row set will start in accepting mode (accepting = true) It will
- * remain there until the buffer is full. Then it will switch to delivering mode (accepting = false)
- * It will remain there until the buffer is empty.
+ * Contains a buffer of rows. Instead of passing rows along the chain one by one we batch them up to
+ * lower the hand-over overhead: the producer and the consumer only exchange whole batches.
  *
- * <p>When the row set is done and no more rows will be entering the row set we will switch to
- * delivering mode.
+ * <p>A batch is handed over to the consumer when:
+ *
+ * <ul>
+ *   <li>it reaches the target batch size,
+ *   <li>the first row in the batch is older than the maximum latency (see {@link
+ *       Const#HOP_BATCHING_ROWSET_MAX_LATENCY}). The consumer takes over such a batch by itself
+ *       when the producer goes idle so rows never get stuck in a partially filled batch,
+ *   <li>the row set is flagged as done.
+ * </ul>
+ *
+ * <p>The target batch size adapts to the observed row rate: fast producers fill large batches while
+ * slow producers get small batches which keeps the latency low.
+ *
+ * <p>Just like the other row sets this one is meant to be used by a single producing and a single
+ * consuming thread.
  */
 public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
-  private BlockingQueue<Object[][]> putArray;
-  private BlockingQueue<Object[][]> getArray;
+  /** The largest batch we'll ever create */
+  private static final int MAX_BATCH_SIZE = 1000;
 
-  private int putIndex;
-  private int getIndex;
+  /** The flag in the state of a batch which indicates that it was handed over to the consumer */
+  private static final int SEALED = Integer.MIN_VALUE;
+
+  /** A batch of rows. The state contains the number of rows and the sealed flag. */
+  private static final class Batch {
+    private final Object[][] rows;
+    private final AtomicInteger state;
+    private volatile long firstRowNanos;
+
+    private Batch(int capacity) {
+      rows = new Object[capacity][];
+      state = new AtomicInteger(0);
+    }
+  }
+
+  private final Batch[] batches;
+  private final BlockingQueue<Batch> freeBatches;
+  private final BlockingQueue<Batch> fullBatches;
+  private final AtomicInteger queuedRows;
 
-  private Object[][] inputBuffer;
-  private Object[][] outputBuffer;
+  private final int batchCapacity;
+  private final long maxLatencyNanos;
+  private final int timeoutPut;
+  private final int timeoutGet;
 
-  private int size;
+  /** The batch the producer is filling */
+  private volatile Batch openBatch;
 
-  private final int BATCHSIZE = 2;
+  /** The target batch size, adjusted by the producer based on the observed row rate */
+  private int targetBatchSize;
+
+  /** The batch the consumer is reading from */
+  private Batch outputBatch;
+
+  private int outputCount;
+  private int getIndex;
 
   /**
-   * Create new non-blocking-queue with maxSize capacity.
+   * Create new batching row set with a total capacity of maxSize rows.
    *
-   * @param maxSize
+   * @param maxSize the maximum number of rows kept in this row set
    */
   public BlockingBatchingRowSet(int maxSize) {
     super();
 
-    // create a fixed sized queue for max performance
-    //
-    putArray = new ArrayBlockingQueue<>(BATCHSIZE, true);
-    getArray = new ArrayBlockingQueue<>(BATCHSIZE, true);
+    batchCapacity = Math.max(1, Math.min(maxSize / 2, MAX_BATCH_SIZE));
+    int nrBatches = Math.max(2, maxSize / batchCapacity);
 
-    size = maxSize / BATCHSIZE; // each buffer's size
-    Object[][] buffer;
-    for (int i = 0; i < BATCHSIZE; i++) {
-      buffer = new Object[size][];
-      putArray.offer(buffer);
+    batches = new Batch[nrBatches];
+    freeBatches = new ArrayBlockingQueue<>(nrBatches);
+    fullBatches = new ArrayBlockingQueue<>(nrBatches);
+    for (int i = 0; i < nrBatches; i++) {
+      batches[i] = new Batch(batchCapacity);
+      freeBatches.offer(batches[i]);
     }
-    outputBuffer = null;
-    putIndex = getIndex = size;
+    queuedRows = new AtomicInteger(0);
+    targetBatchSize = batchCapacity;
+
+    maxLatencyNanos =
+        TimeUnit.MILLISECONDS.toNanos(
+            Math.max(
+                1,
+                Const.toInt(
+                    System.getProperty(Const.HOP_BATCHING_ROWSET_MAX_LATENCY),
+                    Const.BATCHING_ROWSET_MAX_LATENCY_MILLIS)));
+    timeoutGet =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_GET_TIMEOUT), Const.TIMEOUT_GET_MILLIS);
+    timeoutPut =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_PUT_TIMEOUT), Const.TIMEOUT_PUT_MILLIS);
   }
 
   @Override
   public boolean putRow(IRowMeta rowMeta, Object[] rowData) {
-
-    return putRowWait(rowMeta, rowData, Const.TIMEOUT_PUT_MILLIS, TimeUnit.MILLISECONDS);
+    return putRowWait(rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS);
   }
 
-  /** We need to wait until */
   @Override
   public boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu) {
-
     this.rowMeta = rowMeta;
 
-    // If we're not accepting we block until we do
-    //
-    if (inputBuffer == null) {
-      try {
-        inputBuffer = putArray.poll(time, tu);
-      } catch (InterruptedException e) {
-        return false;
-      }
-      if (inputBuffer == null) {
-        return false;
-      }
-      putIndex = 0;
-    }
-    inputBuffer[putIndex++] = rowData;
-    if (putIndex == size) {
-      try {
-        getArray.offer(inputBuffer, time, tu);
-        inputBuffer = null;
-      } catch (InterruptedException e) {
-        return false;
+    Batch batch = openBatch;
+    if (batch != null) {
+      int count = batch.state.get();
+      if ((count & SEALED) == 0) {
+        batch.rows[count] = rowData;
+        if (batch.state.compareAndSet(count, count + 1)) {
+          count++;
+          // Only look at the clock every couple of rows
+          //
+          if (count >= targetBatchSize
+              || ((count & 0x3F) == 0
+                  && System.nanoTime() - batch.firstRowNanos >= maxLatencyNanos)) {
+            flush(batch, count);
+          }
+          return true;
+        }
+        batch.rows[count] = null;
       }
+
+      // The consumer took over the batch because we were idle for a while.
+      // Lower the target batch size to reflect the slow rate.
+      //
+      targetBatchSize = Math.max(1, (targetBatchSize + (batch.state.get() & ~SEALED)) / 2);
+      openBatch = null;
     }
 
+    // Start a new batch: this is where we block if the buffer is full.
+    //
+    try {
+      batch = freeBatches.poll(time, tu);
+    } catch (InterruptedException e) {
+      return false;
+    }
+    if (batch == null) {
+      return false;
+    }
+    batch.rows[0] = rowData;
+    batch.firstRowNanos = System.nanoTime();
+    batch.state.set(1);
+    openBatch = batch;
+    if (targetBatchSize <= 1) {
+      flush(batch, 1);
+    }
     return true;
   }
 
-  // default getRow with wait time = 100ms
-  //
-  /*
-   * (non-Javadoc)
-   *
-   * @see org.apache.hop.core.RowSetInterface#getRow()
+  /**
+   * The producer hands over a batch to the consumer. Nothing happens if the consumer already took
+   * the batch. The target batch size is adjusted so that a batch fills in about half of the maximum
+   * latency at the current row rate.
    */
+  private void flush(Batch batch, int count) {
+    if (!batch.state.compareAndSet(count, count | SEALED)) {
+      return;
+    }
+    long elapsed = Math.max(1L, System.nanoTime() - batch.firstRowNanos);
+    long wanted = count * (maxLatencyNanos / 2) / elapsed;
+    targetBatchSize =
+        (int) Math.max(1L, Math.min(batchCapacity, (targetBatchSize + wanted + 1) / 2));
+
+    queuedRows.addAndGet(count);
+    fullBatches.offer(batch);
+    openBatch = null;
+  }
+
   @Override
   public Object[] getRow() {
-    return getRowWait(Const.TIMEOUT_GET_MILLIS, TimeUnit.MILLISECONDS);
+    return getRowWait(timeoutGet, TimeUnit.MILLISECONDS);
   }
 
-  /*
-   * (non-Javadoc)
-   *
-   * @see org.apache.hop.core.RowSetInterface#getRowImmediate()
-   */
   @Override
   public Object[] getRowImmediate() {
-
-    return getRow();
+    return getRowWait(0, TimeUnit.MILLISECONDS);
   }
 
   @Override
   public Object[] getRowWait(long timeout, TimeUnit tu) {
-    if (outputBuffer == null) {
-      try {
-        outputBuffer = getArray.poll(timeout, tu);
-      } catch (InterruptedException e) {
-        return null;
-      }
-      if (outputBuffer == null) {
-        return null;
+    if (outputBatch == null && !nextOutputBatch(timeout, tu)) {
+      return null;
+    }
+
+    int index = getIndex;
+    Object[] row = outputBatch.rows[index];
+    outputBatch.rows[index++] = null; // prevent any hold-up to GC
+    getIndex = index;
+    if (index >= outputCount) {
+      recycle(outputBatch);
+      outputBatch = null;
+    }
+    return row;
+  }
+
+  /**
+   * Wait for the next batch of rows. If the producer keeps a batch to itself for longer than the
+   * maximum latency we take it over.
+   *
+   * @return true if a new output batch is available.
+   */
+  private boolean nextOutputBatch(long timeout, TimeUnit tu) {
+    long deadline = deadline(timeout, tu);
+    try {
+      while (true) {
+        Batch batch = fullBatches.poll();
+        if (batch == null) {
+          batch = takeOverOpenBatch();
+        }
+        if (batch == null) {
+          long now = System.nanoTime();
+          long remaining = deadline - now;
+          if (remaining <= 0) {
+            return false;
+          }
+          // Wake up in time to take over a lingering batch of the producer
+          //
+          Batch open = openBatch;
+          int openState = open == null ? 0 : open.state.get();
+          if ((openState & SEALED) == 0 && openState > 0) {
+            remaining =
+                Math.min(remaining, Math.max(1L, open.firstRowNanos + maxLatencyNanos - now));
+          }
+          batch = fullBatches.poll(remaining, TimeUnit.NANOSECONDS);
+          if (batch == null) {
+            continue;
+          }
+        }
+        outputBatch = batch;
+        outputCount = batch.state.get() & ~SEALED;
+        getIndex = 0;
+        return true;
       }
-      getIndex = 0;
+    } catch (InterruptedException e) {
+      return false;
     }
+  }
 
-    Object[] row = outputBuffer[getIndex];
-    outputBuffer[getIndex++] = null; // prevent any hold-up to GC
-    if (getIndex == size) {
-      putArray.offer(outputBuffer);
-      outputBuffer = null;
+  private static long deadline(long time, TimeUnit tu) {
+    long now = System.nanoTime();
+    long nanos = tu.toNanos(Math.max(0, time));
+    // Avoid overflow for "wait forever" style timeouts
+    //
+    if (nanos > Long.MAX_VALUE - now) {
+      return Long.MAX_VALUE;
     }
+    return now + nanos;
+  }
 
-    return row;
+  /**
+   * Take over the batch the producer is filling if the first row in it is older than the maximum
+   * latency or if the row set is done.
+   */
+  private Batch takeOverOpenBatch() {
+    Batch batch = openBatch;
+    if (batch == null) {
+      return null;
+    }
+    // All batches that were handed over before this one are in the queue by now.
+    //
+    Batch queued = fullBatches.poll();
+    if (queued != null) {
+      return queued;
+    }
+    int count = batch.state.get();
+    if ((count & SEALED) != 0 || count == 0) {
+      return null;
+    }
+    if (!done.get() && System.nanoTime() - batch.firstRowNanos < maxLatencyNanos) {
+      return null;
+    }
+    if (!batch.state.compareAndSet(count, count | SEALED)) {
+      return null;
+    }
+    queuedRows.addAndGet(count);
+    return batch;
+  }
+
+  /**
+   * Give a batch back to the producer. The batch stays sealed until the producer starts filling it
+   * again: the producer might still see it as its open batch if we took it over.
+   */
+  private void recycle(Batch batch) {
+    queuedRows.addAndGet(-(batch.state.get() & ~SEALED));
+    freeBatches.offer(batch);
   }
 
   @Override
   public int size() {
-    // does BlockingQueue.size() grab a lock? If so, frequent call to this method
-    // may stress the locking system
-    return size - getIndex + size * getArray.size();
+    Batch batch = outputBatch;
+    int partial = 0;
+    if (batch != null) {
+      partial = getIndex;
+    }
+    return Math.max(0, queuedRows.get() - partial);
   }
 
   @Override
   public void setDone() {
-    super.setDone();
-    if (putIndex > 0 && putIndex < size && inputBuffer != null) {
-      inputBuffer[putIndex] = null; // signal the end of buffer
-      for (int i = putIndex + 1; i < size; i++) {
-        inputBuffer[i] = null;
+    // Hand over the last (partial) batch before flagging that we're done.
+    //
+    Batch batch = openBatch;
+    if (batch != null) {
+      int count = batch.state.get();
+      if ((count & SEALED) == 0 && count > 0) {
+        flush(batch, count);
       }
-      getArray.offer(inputBuffer);
     }
-    putArray.clear();
+    super.setDone();
   }
 
   @Override
   public void clear() {
-    putArray.clear();
-    getArray.clear();
+    fullBatches.clear();
+    freeBatches.clear();
+    for (Batch batch : batches) {
+      for (int i = 0; i < batch.rows.length; i++) {
+        batch.rows[i] = null;
+      }
+      batch.state.set(0);
+      freeBatches.offer(batch);
+    }
+    queuedRows.set(0);
+    openBatch = null;
+    outputBatch = null;
+    getIndex = 0;
+    targetBatchSize = batchCapacity;
     done.set(false);
   }
 }
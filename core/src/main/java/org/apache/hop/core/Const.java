@@ -107,6 +107,9 @@ public class Const {
   /** Sleep time waiting when buffer is full (the default) */
   public static final int TIMEOUT_PUT_MILLIS = 50;
 
+  /** The maximum time a row can wait in a partially filled batch of a batching row set */
+  public static final int BATCHING_ROWSET_MAX_LATENCY_MILLIS = 10;
+
   /** print update every ... lines */
   public static final int ROWS_UPDATE = 50000;
 
@@ -402,6 +405,12 @@ public class Const {
   /** The default log line timeout in minutes : 12 hours */
   public static final int MAX_LOG_LINE_TIMEOUT_MINUTES = 12 * 60;
 
+  /** The default number of logging events waiting for an asynchronous logging event listener */
+  public static final int ASYNC_LOGGING_QUEUE_SIZE = 10000;
+
+  /** The default sample rate of asynchronous logging event listeners on a busy queue */
+  public static final int ASYNC_LOGGING_SAMPLE_RATE = 10;
+
   /** UI-agnostic flag for warnings */
   public static final int WARNING = 1;
 
@@ -493,6 +502,45 @@ public class Const {
           "The maximum age (in minutes) of a log line while being kept internally by Hop. Set to 0 to keep all rows indefinitely (default)")
   public static final String HOP_MAX_LOG_TIMEOUT_IN_MINUTES = "HOP_MAX_LOG_TIMEOUT_IN_MINUTES";
 
+  /**
+   * System wide flag to hand logging events over to the logging event listeners (console, log files,
+   * logging plugins) on a separate writer thread per listener. (default = N)
+   */
+  @Variable(
+      scope = VariableScope.APPLICATION,
+      value = "N",
+      description =
+          "Set this variable to 'Y' to write the console, log files and logging plugins on a separate writer thread per listener. Threads that log no longer wait for the disk or the console.")
+  public static final String HOP_ASYNC_LOGGING = "HOP_ASYNC_LOGGING";
+
+  /** The maximum number of logging events waiting for the writer thread of a listener */
+  @Variable(
+      scope = VariableScope.APPLICATION,
+      value = "10000",
+      description =
+          "The maximum number of logging events waiting for the writer thread of an asynchronous logging event listener.")
+  public static final String HOP_ASYNC_LOGGING_QUEUE_SIZE = "HOP_ASYNC_LOGGING_QUEUE_SIZE";
+
+  /**
+   * What to do with a logging event when the queue of an asynchronous listener is full: BLOCK, DROP
+   * or SAMPLE. (default = BLOCK)
+   */
+  @Variable(
+      scope = VariableScope.APPLICATION,
+      value = "BLOCK",
+      description =
+          "What to do when the queue of an asynchronous logging event listener is full: BLOCK waits for room, DROP discards the event and SAMPLE only keeps one in every HOP_ASYNC_LOGGING_SAMPLE_RATE events once the queue is 3/4 full. Errors are never dropped.")
+  public static final String HOP_ASYNC_LOGGING_OVERFLOW_POLICY =
+      "HOP_ASYNC_LOGGING_OVERFLOW_POLICY";
+
+  /** With the SAMPLE overflow policy, keep one in every this many events on a busy queue */
+  @Variable(
+      scope = VariableScope.APPLICATION,
+      value = "10",
+      description =
+          "With the SAMPLE overflow policy, keep one in every this many logging events while the queue of an asynchronous listener is 3/4 full.")
+  public static final String HOP_ASYNC_LOGGING_SAMPLE_RATE = "HOP_ASYNC_LOGGING_SAMPLE_RATE";
+
   /**
    * System wide flag to determine whether standard error will be redirected to Hop logging
    * facilities. Will redirect if the value is equal ignoring case to the string "Y"
@@ -580,6 +628,17 @@ public class Const {
           "The maximum number of logging registry entries kept in memory for logging purposes")
   public static final String HOP_MAX_LOGGING_REGISTRY_SIZE = "HOP_MAX_LOGGING_REGISTRY_SIZE";
 
+  /**
+   * A variable to configure the number of minutes after which the logging registry entries of a
+   * finished pipeline or workflow are purged. Set to 0 to keep them until the registry is full.
+   */
+  @Variable(
+      value = "1440",
+      description =
+          "The number of minutes after which the logging registry entries of a finished pipeline or workflow are purged. Set to 0 to only purge them when the logging registry is full.")
+  public static final String HOP_LOGGING_REGISTRY_MAX_AGE_MINUTES =
+      "HOP_LOGGING_REGISTRY_MAX_AGE_MINUTES";
+
   /** A variable to configure the hop log tab refresh delay. */
   @Variable(
       scope = VariableScope.APPLICATION,
@@ -653,13 +712,72 @@ public class Const {
           "The name of the variable that optionally contains an alternative rowset put timeout (in ms). This only makes a difference for extremely short lived pipelines.")
   public static final String HOP_ROWSET_PUT_TIMEOUT = "HOP_ROWSET_PUT_TIMEOUT";
 
-  /** Set this variable to Y if you want to test a more efficient batching row set. (default = N) */
+  /**
+   * Set this variable to Y if you want to use the batching row set which hands over rows in batches
+   * rather than one by one. (default = N)
+   *
+   * <p>It isn't the default because the default lock-free row set already hands over whole batches
+   * between transforms which process batches, while the batching row set would split them up into
+   * rows again. The lock-free row set also resizes with the traffic and parks virtual threads. The
+   * batching row set only helps transforms which pass rows one by one, at the cost of holding back
+   * a row for up to {@link #HOP_BATCHING_ROWSET_MAX_LATENCY}.
+   */
   @Variable(
       value = "N",
       description =
-          "Set this variable to 'Y' if you want to test a more efficient batching row set.")
+          "Set this variable to 'Y' to use the batching row set which hands over rows in batches rather than one by one. This lowers the overhead for hops between transforms which pass a lot of rows one by one, but a row can wait for up to HOP_BATCHING_ROWSET_MAX_LATENCY. It is off by default: the default row set already hands over whole batches between transforms which process batches.")
   public static final String HOP_BATCHING_ROWSET = "HOP_BATCHING_ROWSET";
 
+  /**
+   * The maximum time (in ms) a row can wait in a partially filled batch of the batching row set
+   * before it is handed over to the next transform.
+   */
+  @Variable(
+      value = "10",
+      description =
+          "The maximum time (in ms) a row can wait in a partially filled batch of the batching row set before it is handed over to the next transform.")
+  public static final String HOP_BATCHING_ROWSET_MAX_LATENCY = "HOP_BATCHING_ROWSET_MAX_LATENCY";
+
+  /**
+   * Set this variable to N if you want to disable the lock-free row set which is used by default
+   * for hops with a single producing and a single consuming transform copy. (default = Y)
+   */
+  @Variable(
+      value = "Y",
+      description =
+          "Set this variable to 'N' to disable the lock-free row set which is used by default for hops between single transform copies.")
+  public static final String HOP_LOCK_FREE_ROWSET = "HOP_LOCK_FREE_ROWSET";
+
+  /**
+   * The percentage of the maximum heap size which all pipelines running in this JVM can reserve
+   * together for their sort buffers, group buffers and row sets. (default = 70)
+   */
+  @Variable(
+      value = "70",
+      description =
+          "The percentage of the maximum heap size which all pipelines running in this JVM can reserve together for sorting, grouping and row buffers. Transforms spill to disk or shrink their buffers when the budget is used up.")
+  public static final String HOP_MEMORY_BUDGET_PERCENTAGE = "HOP_MEMORY_BUDGET_PERCENTAGE";
+
+  /**
+   * Time one in every this many rows of a transform to report the time it spends processing rows
+   * and waiting for rows. Set to 0 to disable the timing. (default = 64)
+   */
+  @Variable(
+      value = "64",
+      description =
+          "Time one in every this many rows of a transform to measure the time it spends processing rows, waiting for input rows and waiting for room in its output buffers. The value is rounded up to a power of 2. Set to 0 to disable the timing.")
+  public static final String HOP_TRANSFORM_TIMING_SAMPLE_RATE = "HOP_TRANSFORM_TIMING_SAMPLE_RATE";
+
+  /**
+   * The interval (in ms) at which a running pipeline looks for the transforms which limit its
+   * throughput. Set to 0 to disable the analysis. (default = 1000)
+   */
+  @Variable(
+      value = "1000",
+      description =
+          "The interval (in ms) at which a running pipeline samples its buffers to find the transforms which limit its throughput. Set to 0 to disable the bottleneck analysis.")
+  public static final String HOP_BOTTLENECK_ANALYSIS_INTERVAL = "HOP_BOTTLENECK_ANALYSIS_INTERVAL";
+
   /**
    * Set this variable to limit max number of files the Text File Output transform can have open at
    * one time.
@@ -680,6 +798,16 @@ public class Const {
           "This project variable is used by the Text File Output transform. It defines the max number of milliseconds between flushes of files opened by the transform.")
   public static final String HOP_FILE_OUTPUT_MAX_STREAM_LIFE = "HOP_FILE_OUTPUT_MAX_STREAM_LIFE";
 
+  /**
+   * The maximum number of temporary files the Sort Rows transform merges at once. More files are
+   * first merged into larger ones. (default = 128)
+   */
+  @Variable(
+      value = "128",
+      description =
+          "The maximum number of temporary files the Sort Rows transform reads at the same time when merging sorted rows. When there are more files, they are first merged into larger files in extra passes.")
+  public static final String HOP_SORT_MAX_MERGE_FILES = "HOP_SORT_MAX_MERGE_FILES";
+
   /** Set this variable to Y to disable standard Hop logging to the console. (stdout) */
   @Variable(
       value = "N",
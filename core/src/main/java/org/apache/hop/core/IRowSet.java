@@ -19,6 +19,7 @@ package org.apache.hop.core;
 
 import java.util.concurrent.TimeUnit;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBatch;
 
 public interface IRowSet {
 
@@ -136,4 +137,54 @@ public interface IRowSet {
 
   /** Clear this rowset: remove all rows and remove the "done" flag. */
   void clear();
+
+  /**
+   * @return true if this row set can carry whole batches of rows from the producer to the consumer
+   *     with {@link #putBatchWait(IRowMeta, RowBatch, long, TimeUnit)}.
+   */
+  default boolean supportsBatches() {
+    return false;
+  }
+
+  /**
+   * Put a whole batch of rows in the row set. The batch is handed over as a whole: the producer
+   * should not touch it anymore once this method returns true. Only call this method if {@link
+   * #supportsBatches()} returns true.
+   *
+   * @param rowMeta The metadata of the rows in the batch
+   * @param batch the batch of rows
+   * @param time The number of units of time to wait for room in the buffer
+   * @param tu The unit of time
+   * @return true if the batch was put in the row set, false if we timed out.
+   */
+  default boolean putBatchWait(IRowMeta rowMeta, RowBatch batch, long time, TimeUnit tu) {
+    throw new UnsupportedOperationException(
+        "Row set " + getName() + " can't carry batches of rows");
+  }
+
+  /**
+   * Get the next batch of rows. Row sets which don't carry batches gather the rows which are
+   * available into a new batch.
+   *
+   * @param maxRows The maximum number of rows to gather in a new batch
+   * @param timeout The number of units of time to wait for the first row
+   * @param tu The unit of time
+   * @return a batch of at least one row or null if no row arrived in time.
+   */
+  default RowBatch getBatchWait(int maxRows, long timeout, TimeUnit tu) {
+    Object[] row = getRowWait(timeout, tu);
+    if (row == null) {
+      return null;
+    }
+    RowBatch batch = new RowBatch(getRowMeta().size(), maxRows);
+    batch.addRow(row);
+    while (batch.size() < maxRows) {
+      row = getRowImmediate();
+      if (row == null) {
+        break;
+      }
+      batch.addRow(row);
+    }
+    return batch;
+  }
 }
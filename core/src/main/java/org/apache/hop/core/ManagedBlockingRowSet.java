@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * A bounded row set for transforms which run as tasks on a fork/join pool instead of in a thread of
+ * their own. A scheduler should only run a transform when it can make progress (see {@link
+ * #isFull()}), but a transform can still end up waiting for rows or for room in the middle of
+ * processing a row. Such waits are reported to the fork/join pool with {@link
+ * ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}: the pool can then add a spare worker so
+ * that the transform we're waiting for gets to run.
+ */
+public class ManagedBlockingRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
+  private final BlockingQueue<Object[]> queue;
+  private final int capacity;
+
+  private final int timeoutPut;
+  private final int timeoutGet;
+
+  /**
+   * Create a new row set
+   *
+   * @param maxSize the maximum number of rows in the row set
+   */
+  public ManagedBlockingRowSet(int maxSize) {
+    super();
+    capacity = Math.max(1, maxSize);
+    queue = new ArrayBlockingQueue<>(capacity, false);
+
+    timeoutGet =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_GET_TIMEOUT), Const.TIMEOUT_GET_MILLIS);
+    timeoutPut =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_PUT_TIMEOUT), Const.TIMEOUT_PUT_MILLIS);
+  }
+
+  @Override
+  public boolean putRow(IRowMeta rowMeta, Object[] rowData) {
+    return putRowWait(rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu) {
+    this.rowMeta = rowMeta;
+    if (rowData == null) {
+      return false;
+    }
+    if (queue.offer(rowData)) {
+      return true;
+    }
+    Putter putter = new Putter(rowData, tu.toNanos(time));
+    try {
+      ForkJoinPool.managedBlock(putter);
+    } catch (InterruptedException e) {
+      return false;
+    }
+    return putter.added;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait(timeoutGet, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return queue.poll();
+  }
+
+  @Override
+  public Object[] getRowWait(long timeout, TimeUnit tu) {
+    Object[] row = queue.poll();
+    if (row != null || timeout <= 0) {
+      return row;
+    }
+    if (isDone()) {
+      // No more rows are coming: don't keep the worker waiting
+      //
+      return queue.poll();
+    }
+    Taker taker = new Taker(tu.toNanos(timeout));
+    try {
+      ForkJoinPool.managedBlock(taker);
+    } catch (InterruptedException e) {
+      return null;
+    }
+    return taker.row;
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  /**
+   * @return true if there is no more room for rows in this row set
+   */
+  public boolean isFull() {
+    return queue.size() >= capacity;
+  }
+
+  @Override
+  public void clear() {
+    queue.clear();
+    done.set(false);
+  }
+
+  private final class Putter implements ForkJoinPool.ManagedBlocker {
+    private final Object[] rowData;
+    private final long nanos;
+    private boolean added;
+
+    private Putter(Object[] rowData, long nanos) {
+      this.rowData = rowData;
+      this.nanos = nanos;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (!added) {
+        added = queue.offer(rowData, nanos, TimeUnit.NANOSECONDS);
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (!added) {
+        added = queue.offer(rowData);
+      }
+      return added;
+    }
+  }
+
+  private final class Taker implements ForkJoinPool.ManagedBlocker {
+    private final long nanos;
+    private Object[] row;
+
+    private Taker(long nanos) {
+      this.nanos = nanos;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (row == null) {
+        row = queue.poll(nanos, TimeUnit.NANOSECONDS);
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (row == null) {
+        row = queue.poll();
+      }
+      return row != null || isDone();
+    }
+  }
+}
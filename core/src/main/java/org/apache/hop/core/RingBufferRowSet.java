@@ -0,0 +1,542 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBatch;
+
+/**
+ * A lock-free row set for hops with exactly one producing thread and one consuming thread (1:1
+ * hops). Rows are kept in a ring buffer. The producer only ever writes the head index and the
+ * consumer only ever writes the tail index so no lock is needed to hand over a row.
+ *
+ * <p>The head and tail indexes live in their own cache lines to prevent false sharing between the
+ * two threads. Each side also keeps a cached copy of the index of the other side so that it only
+ * needs to look at the shared cache line of the other thread when the buffer appears full or empty.
+ *
+ * <p>When the buffer is full (or empty) the waiting side first spins for a short while, then yields
+ * and finally parks until the other side signals progress or the timeout expires. In parking mode
+ * the waiting side parks straight away and stays parked until it is woken up or times out. This
+ * suits virtual threads: a spinning virtual thread keeps its carrier thread busy while a parked one
+ * frees it up for another transform.
+ *
+ * <p>Whole batches of rows can be handed over as well. A batch takes up a single entry in the ring
+ * but counts for all of its rows against the capacity. Consumers which read rows one by one get the
+ * rows of the batch one after the other.
+ *
+ * <p>The capacity can be changed while rows are passing through, up to the maximum capacity given
+ * when the row set was created. The row set keeps track of the time both sides spent waiting for
+ * each other so that the capacity can be tuned to the observed traffic.
+ *
+ * <p>IMPORTANT: this row set is only safe to use when there is at most one thread calling the
+ * putRow methods and at most one thread calling the getRow methods at any given time.
+ */
+public class RingBufferRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
+
+  /** The number of busy spins before we start yielding the CPU. Spinning is pointless on 1 CPU. */
+  private static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+  /** The number of yields before we start parking the thread */
+  private static final int YIELD_TRIES = 16;
+
+  /**
+   * The maximum time a waiting thread stays parked before checking the buffer again. This is a
+   * safety net for the (rare) case where a wake-up signal is missed. In parking mode the indexes
+   * are published with a full fence so no wake-up signal can be missed.
+   */
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  /** Padding in longs between the indexes: 128 bytes covers adjacent cache line prefetching */
+  private static final int PAD = 16;
+
+  /** Slot of the index of the next row to write (owned by the producer) */
+  private static final int PRODUCER_INDEX = PAD;
+
+  /** Slot of the producer's cached view of the consumer index */
+  private static final int PRODUCER_CACHED_CONSUMER_INDEX = PAD + 1;
+
+  /** Slot of the index of the next row to read (owned by the consumer) */
+  private static final int CONSUMER_INDEX = 2 * PAD;
+
+  /** Slot of the consumer's cached view of the producer index */
+  private static final int CONSUMER_CACHED_PRODUCER_INDEX = 2 * PAD + 1;
+
+  private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+  /** The entries in the ring: either a row (Object[]) or a batch of rows (RowBatch) */
+  private final Object[] buffer;
+
+  private final int mask;
+  private final int maxCapacity;
+
+  /** The maximum number of rows in the buffer, can change over time */
+  private volatile int capacity;
+
+  /** The time the producer spent waiting for room (written by the producer only) */
+  private volatile long putWaitNanos;
+
+  /** The time the consumer spent waiting for rows (written by the consumer only) */
+  private volatile long getWaitNanos;
+
+  /** The head and tail indexes, separated from each other and from other fields by padding */
+  private final long[] sequences;
+
+  private volatile Thread waitingProducer;
+  private volatile Thread waitingConsumer;
+
+  private final int timeoutPut;
+  private final int timeoutGet;
+
+  /** Park right away when waiting instead of spinning and yielding first */
+  private final boolean parking;
+
+  /** The batch the consumer is reading rows from. It stays in the buffer until it is read. */
+  private RowBatch pendingBatch;
+
+  private int pendingIndex;
+
+  /**
+   * Create a new lock-free single producer, single consumer row set.
+   *
+   * @param maxSize the maximum number of rows kept in the buffer
+   */
+  public RingBufferRowSet(int maxSize) {
+    this(maxSize, false);
+  }
+
+  /**
+   * Create a new lock-free single producer, single consumer row set.
+   *
+   * @param maxSize the maximum number of rows kept in the buffer
+   * @param parking true to park waiting threads right away instead of spinning first
+   */
+  public RingBufferRowSet(int maxSize, boolean parking) {
+    this(maxSize, maxSize, parking);
+  }
+
+  /**
+   * Create a new lock-free single producer, single consumer row set which can grow.
+   *
+   * @param maxSize the initial maximum number of rows kept in the buffer
+   * @param maxCapacity the maximum number of rows the buffer can grow to
+   * @param parking true to park waiting threads right away instead of spinning first
+   */
+  public RingBufferRowSet(int maxSize, int maxCapacity, boolean parking) {
+    super();
+    this.parking = parking;
+
+    capacity = Math.max(1, maxSize);
+    this.maxCapacity = Math.max(capacity, maxCapacity);
+    int bufferSize = Integer.highestOneBit(this.maxCapacity);
+    if (bufferSize < this.maxCapacity) {
+      bufferSize <<= 1;
+    }
+    buffer = new Object[bufferSize];
+    mask = bufferSize - 1;
+    sequences = new long[3 * PAD];
+
+    timeoutGet =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_GET_TIMEOUT), Const.TIMEOUT_GET_MILLIS);
+    timeoutPut =
+        Const.toInt(System.getProperty(Const.HOP_ROWSET_PUT_TIMEOUT), Const.TIMEOUT_PUT_MILLIS);
+  }
+
+  @Override
+  public boolean putRow(IRowMeta rowMeta, Object[] rowData) {
+    return putRowWait(rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public boolean putRowWait(IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu) {
+    this.rowMeta = rowMeta;
+    if (rowData == null) {
+      return false;
+    }
+
+    return publish(rowData, 1, time, tu);
+  }
+
+  @Override
+  public boolean supportsBatches() {
+    return true;
+  }
+
+  @Override
+  public boolean putBatchWait(IRowMeta rowMeta, RowBatch batch, long time, TimeUnit tu) {
+    this.rowMeta = rowMeta;
+    if (batch == null) {
+      return false;
+    }
+    if (batch.isEmpty()) {
+      return true;
+    }
+    return publish(batch, batch.size(), time, tu);
+  }
+
+  /** Put a row or a batch in the ring, taking up the given number of rows of the capacity. */
+  private boolean publish(Object entry, int nrRows, long time, TimeUnit tu) {
+    long index = (long) SEQUENCES.get(sequences, PRODUCER_INDEX);
+    if (!hasRoom(index, (long) SEQUENCES.get(sequences, PRODUCER_CACHED_CONSUMER_INDEX), nrRows)
+        && !waitForSpace(index, nrRows, time, tu)) {
+      return false;
+    }
+
+    buffer[(int) index & mask] = entry;
+    if (parking) {
+      // A full fence makes sure we see a consumer which is about to park
+      //
+      SEQUENCES.setVolatile(sequences, PRODUCER_INDEX, index + nrRows);
+    } else {
+      SEQUENCES.setRelease(sequences, PRODUCER_INDEX, index + nrRows);
+    }
+
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+    return true;
+  }
+
+  /**
+   * There is room for the given number of rows if they fit in the capacity. A batch which is larger
+   * than the capacity is accepted when the buffer is empty.
+   */
+  private boolean hasRoom(long index, long consumerIndex, int nrRows) {
+    return index - consumerIndex + nrRows <= capacity || index == consumerIndex;
+  }
+
+  /**
+   * Wait until the consumer has made room for the given number of rows.
+   *
+   * @return true if there is room in the buffer, false if we timed out or were interrupted.
+   */
+  private boolean waitForSpace(long index, int nrRows, long time, TimeUnit tu) {
+    long start = System.nanoTime();
+    long deadline = deadline(start, time, tu);
+    int tries = parking ? SPIN_TRIES + YIELD_TRIES : 0;
+    while (true) {
+      long consumerIndex = (long) SEQUENCES.getAcquire(sequences, CONSUMER_INDEX);
+      SEQUENCES.set(sequences, PRODUCER_CACHED_CONSUMER_INDEX, consumerIndex);
+      if (hasRoom(index, consumerIndex, nrRows)) {
+        putWaitNanos += System.nanoTime() - start;
+        return true;
+      }
+      long now = System.nanoTime();
+      long remaining = deadline - now;
+      if (remaining <= 0) {
+        putWaitNanos += now - start;
+        return false;
+      }
+      if (tries < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+        Thread.yield();
+      } else {
+        waitingProducer = Thread.currentThread();
+        if (!hasRoom(index, (long) SEQUENCES.getVolatile(sequences, CONSUMER_INDEX), nrRows)) {
+          LockSupport.parkNanos(this, parking ? remaining : Math.min(remaining, MAX_PARK_NANOS));
+        }
+        waitingProducer = null;
+        if (Thread.interrupted()) {
+          putWaitNanos += System.nanoTime() - start;
+          return false;
+        }
+      }
+      tries++;
+    }
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait(timeoutGet, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return getRowWait(0, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public Object[] getRowWait(long timeout, TimeUnit tu) {
+    if (pendingBatch != null) {
+      return nextPendingRow();
+    }
+
+    long index = (long) SEQUENCES.get(sequences, CONSUMER_INDEX);
+    if (index >= (long) SEQUENCES.get(sequences, CONSUMER_CACHED_PRODUCER_INDEX)
+        && !waitForRows(index, timeout, tu)) {
+      return null;
+    }
+
+    int slot = (int) index & mask;
+    Object entry = buffer[slot];
+    if (entry instanceof RowBatch batch) {
+      // Hand out the rows of the batch one by one.
+      // The batch keeps its room in the buffer until the last row is read.
+      //
+      pendingBatch = batch;
+      pendingIndex = 0;
+      return nextPendingRow();
+    }
+
+    buffer[slot] = null; // prevent any hold-up to GC
+    release(index + 1);
+    return (Object[]) entry;
+  }
+
+  private Object[] nextPendingRow() {
+    RowBatch batch = pendingBatch;
+    Object[] row = batch.getRow(pendingIndex++);
+    if (pendingIndex >= batch.size()) {
+      releasePendingBatch();
+    }
+    return row;
+  }
+
+  /** Remove the batch we're reading rows from out of the buffer */
+  private void releasePendingBatch() {
+    long index = (long) SEQUENCES.get(sequences, CONSUMER_INDEX);
+    buffer[(int) index & mask] = null;
+    int nrRows = pendingBatch.size();
+    pendingBatch = null;
+    pendingIndex = 0;
+    release(index + nrRows);
+  }
+
+  /** Publish the new consumer index and wake up the producer if it's waiting for room. */
+  private void release(long newIndex) {
+    if (parking) {
+      SEQUENCES.setVolatile(sequences, CONSUMER_INDEX, newIndex);
+    } else {
+      SEQUENCES.setRelease(sequences, CONSUMER_INDEX, newIndex);
+    }
+
+    Thread producer = waitingProducer;
+    if (producer != null) {
+      LockSupport.unpark(producer);
+    }
+  }
+
+  /**
+   * Get the next batch of rows. A batch which was put in the row set as a whole is handed over as
+   * is. Rows which were put one by one are gathered into a new batch.
+   */
+  @Override
+  public RowBatch getBatchWait(int maxRows, long timeout, TimeUnit tu) {
+    if (pendingBatch != null) {
+      // Hand out the rows of the batch which were not read yet
+      //
+      RowBatch batch = pendingBatch;
+      boolean[] selection = new boolean[batch.size()];
+      for (int r = pendingIndex; r < selection.length; r++) {
+        selection[r] = true;
+      }
+      releasePendingBatch();
+      batch.filter(selection);
+      return batch;
+    }
+
+    long index = (long) SEQUENCES.get(sequences, CONSUMER_INDEX);
+    if (index >= (long) SEQUENCES.get(sequences, CONSUMER_CACHED_PRODUCER_INDEX)
+        && !waitForRows(index, timeout, tu)) {
+      return null;
+    }
+
+    int slot = (int) index & mask;
+    Object entry = buffer[slot];
+    if (entry instanceof RowBatch batch) {
+      buffer[slot] = null; // prevent any hold-up to GC
+      release(index + batch.size());
+      return batch;
+    }
+
+    RowBatch batch = new RowBatch(rowMeta.size(), Math.max(1, maxRows));
+    long available = (long) SEQUENCES.get(sequences, CONSUMER_CACHED_PRODUCER_INDEX);
+    while (index < available && batch.size() < maxRows) {
+      slot = (int) index & mask;
+      if (!(buffer[slot] instanceof Object[] row)) {
+        break;
+      }
+      buffer[slot] = null; // prevent any hold-up to GC
+      batch.addRow(row);
+      index++;
+    }
+    release(index);
+    return batch;
+  }
+
+  /**
+   * Wait until the producer has published at least one more row.
+   *
+   * @return true if a row is available, false if we timed out or were interrupted.
+   */
+  private boolean waitForRows(long index, long timeout, TimeUnit tu) {
+    long start = System.nanoTime();
+    long deadline = deadline(start, timeout, tu);
+    int tries = parking ? SPIN_TRIES + YIELD_TRIES : 0;
+    while (true) {
+      long producerIndex = (long) SEQUENCES.getAcquire(sequences, PRODUCER_INDEX);
+      SEQUENCES.set(sequences, CONSUMER_CACHED_PRODUCER_INDEX, producerIndex);
+      if (index < producerIndex) {
+        getWaitNanos += System.nanoTime() - start;
+        return true;
+      }
+      long now = System.nanoTime();
+      long remaining = deadline - now;
+      if (remaining <= 0 || done.get()) {
+        // Once done is flagged no more rows will arrive: check one last time to be sure.
+        //
+        producerIndex = (long) SEQUENCES.getAcquire(sequences, PRODUCER_INDEX);
+        SEQUENCES.set(sequences, CONSUMER_CACHED_PRODUCER_INDEX, producerIndex);
+        getWaitNanos += now - start;
+        return index < producerIndex;
+      }
+      if (tries < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+        Thread.yield();
+      } else {
+        waitingConsumer = Thread.currentThread();
+        if (index >= (long) SEQUENCES.getVolatile(sequences, PRODUCER_INDEX) && !done.get()) {
+          LockSupport.parkNanos(this, parking ? remaining : Math.min(remaining, MAX_PARK_NANOS));
+        }
+        waitingConsumer = null;
+        if (Thread.interrupted()) {
+          getWaitNanos += System.nanoTime() - start;
+          return false;
+        }
+      }
+      tries++;
+    }
+  }
+
+  private static long deadline(long now, long time, TimeUnit tu) {
+    long nanos = tu.toNanos(Math.max(0, time));
+    // Avoid overflow for "wait forever" style timeouts
+    //
+    if (nanos > Long.MAX_VALUE - now) {
+      return Long.MAX_VALUE;
+    }
+    return now + nanos;
+  }
+
+  @Override
+  public void setDone() {
+    super.setDone();
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  /**
+   * Gets capacity
+   *
+   * @return the maximum number of rows kept in the buffer at this time
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Change the maximum number of rows kept in the buffer. This can be done while rows are passing
+   * through. When the buffer shrinks the rows which are in the buffer stay there: the producer
+   * waits until there is room again under the new capacity.
+   *
+   * @param capacity the new capacity, limited to the range 1 to the maximum capacity
+   */
+  public void setCapacity(int capacity) {
+    int previous = this.capacity;
+    this.capacity = Math.max(1, Math.min(maxCapacity, capacity));
+    if (this.capacity > previous) {
+      Thread producer = waitingProducer;
+      if (producer != null) {
+        LockSupport.unpark(producer);
+      }
+    }
+  }
+
+  /**
+   * Gets maxCapacity
+   *
+   * @return the maximum number of rows the buffer can grow to
+   */
+  public int getMaxCapacity() {
+    return maxCapacity;
+  }
+
+  /**
+   * @return the total number of rows put into this row set so far
+   */
+  public long getNrRowsPut() {
+    return (long) SEQUENCES.getAcquire(sequences, PRODUCER_INDEX);
+  }
+
+  /**
+   * @return the total number of rows taken from this row set so far
+   */
+  public long getNrRowsTaken() {
+    return (long) SEQUENCES.getAcquire(sequences, CONSUMER_INDEX);
+  }
+
+  /**
+   * @return the total time in nanoseconds the producer spent waiting for room in the buffer
+   */
+  public long getPutWaitNanos() {
+    return putWaitNanos;
+  }
+
+  /**
+   * @return the total time in nanoseconds the consumer spent waiting for rows
+   */
+  public long getGetWaitNanos() {
+    return getWaitNanos;
+  }
+
+  @Override
+  public int size() {
+    // Read the consumer index first: the producer index can only grow in the meantime.
+    // A single batch can be larger than the capacity.
+    //
+    long consumerIndex = (long) SEQUENCES.getAcquire(sequences, CONSUMER_INDEX);
+    long producerIndex = (long) SEQUENCES.getAcquire(sequences, PRODUCER_INDEX);
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, producerIndex - consumerIndex));
+  }
+
+  /**
+   * Remove all rows and the done flag. Just like for the other row sets this is not meant to be
+   * called while rows are still being produced or consumed.
+   */
+  @Override
+  public void clear() {
+    long producerIndex = (long) SEQUENCES.getAcquire(sequences, PRODUCER_INDEX);
+    for (long i = (long) SEQUENCES.get(sequences, CONSUMER_INDEX); i < producerIndex; i++) {
+      buffer[(int) i & mask] = null;
+    }
+    pendingBatch = null;
+    pendingIndex = 0;
+    SEQUENCES.set(sequences, CONSUMER_CACHED_PRODUCER_INDEX, producerIndex);
+    SEQUENCES.set(sequences, PRODUCER_CACHED_CONSUMER_INDEX, producerIndex);
+    SEQUENCES.setRelease(sequences, CONSUMER_INDEX, producerIndex);
+    done.set(false);
+  }
+}
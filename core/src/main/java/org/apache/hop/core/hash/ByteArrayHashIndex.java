@@ -17,6 +17,7 @@
 
 package org.apache.hop.core.hash;
 
+import java.util.Arrays;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.RowMeta;
@@ -64,7 +65,7 @@ public class ByteArrayHashIndex {
   }
 
   public byte[] get(byte[] key) throws HopValueException {
-    int hashCode = generateHashCode(key, keyRowMeta);
+    int hashCode = hashKey(key);
 
     int indexPointer = hashCode & (index.length - 1);
     ByteArrayHashIndexEntry check = index[indexPointer];
@@ -79,7 +80,7 @@ public class ByteArrayHashIndex {
   }
 
   public void put(byte[] key, byte[] value) throws HopValueException {
-    int hashCode = generateHashCode(key, keyRowMeta);
+    int hashCode = hashKey(key);
     int indexPointer = hashCode & (index.length - 1);
 
     // First see if there is an entry on that pointer...
@@ -206,6 +207,24 @@ public class ByteArrayHashIndex {
     }
   }
 
+  /**
+   * Keys are equal when their bytes are equal so the hash code is calculated from the bytes as
+   * well, without decoding the key. This works for every encoding of the keys.
+   */
+  private static int hashKey(byte[] key) {
+    int hashCode = Arrays.hashCode(key);
+    return hashCode ^ (hashCode >>> 16);
+  }
+
+  /**
+   * Gets keyRowMeta
+   *
+   * @return value of keyRowMeta
+   */
+  public IRowMeta getKeyRowMeta() {
+    return keyRowMeta;
+  }
+
   public static int generateHashCode(byte[] key, IRowMeta rowMeta) throws HopValueException {
     Object[] rowData = RowMeta.getRow(rowMeta, key);
     return rowMeta.hashCode(rowData);
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import java.util.Arrays;
+
+/**
+ * A hash index of byte array keys and values, like {@link ByteArrayHashIndex}, without an object
+ * per entry. The keys and values are appended to pages of memory and an open addressing table with
+ * linear probing points to them. Optionally both are stored outside of the Java heap.
+ *
+ * <p>A slot of the table holds the address of the entry, the hash code and the length of the key,
+ * so most mismatches are found without reading the entry. An entry is the length of the value
+ * followed by the bytes of the key and the value. Values can be null, to use the index as a set.
+ *
+ * <p>The index is not thread-safe while it is being built. Once the last entry is added, any number
+ * of threads can read from it concurrently.
+ */
+public class ByteArrayOpenHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.75f;
+
+  /** The number of bytes of a slot: entry address + 1, hash code and key length */
+  private static final int SLOT_SIZE = 16;
+
+  /** Entries are appended to pages of 64KB */
+  private static final int ENTRY_PAGE_SHIFT = 16;
+
+  /** The length of a null value */
+  private static final int NULL_VALUE = -1;
+
+  private final boolean offHeap;
+  private final MemoryPages entries;
+  private long entriesSize;
+
+  private MemoryPages table;
+  private int mask;
+  private int size;
+  private int resizeThreshold;
+
+  /**
+   * Create a new byte array hash index
+   *
+   * @param expectedSize the number of keys expected in the index
+   * @param offHeap true to store the table and the entries outside of the Java heap
+   */
+  public ByteArrayOpenHashIndex(int expectedSize, boolean offHeap) {
+    this.offHeap = offHeap;
+    this.entries = new MemoryPages(ENTRY_PAGE_SHIFT, offHeap);
+    allocate(ILongHashIndex.capacityFor(expectedSize, STANDARD_LOAD_FACTOR));
+  }
+
+  /** Create a new byte array hash index on the Java heap */
+  public ByteArrayOpenHashIndex() {
+    this(STANDARD_INDEX_SIZE, false);
+  }
+
+  private void allocate(int capacity) {
+    long bytes = (long) capacity * SLOT_SIZE;
+    table = new MemoryPages(MemoryPages.pageShiftFor(bytes), offHeap);
+    table.ensureCapacity(bytes);
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * STANDARD_LOAD_FACTOR);
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Add a key to the index, replacing the value of the key if it was already added.
+   *
+   * @param key the key to add
+   * @param value the value of the key, can be null
+   * @return true if the key is new, false if the value of an existing key was replaced
+   */
+  public boolean put(byte[] key, byte[] value) {
+    return insert(key, value, true);
+  }
+
+  /**
+   * Add a key to the index unless it was already added.
+   *
+   * @param key the key to add
+   * @param value the value of the key, can be null
+   * @return true if the key is new, false if the index was left untouched
+   */
+  public boolean putIfAbsent(byte[] key, byte[] value) {
+    return insert(key, value, false);
+  }
+
+  private boolean insert(byte[] key, byte[] value, boolean replace) {
+    int hashCode = hashKey(key);
+    long slotAddress = findSlot(key, hashCode);
+    long entryReference = table.getLong(slotAddress);
+    if (entryReference != 0L && !replace) {
+      return false;
+    }
+
+    // Entries are never updated in place: the new value can have a different length
+    //
+    table.putLong(slotAddress, appendEntry(key, value) + 1);
+    if (entryReference != 0L) {
+      return false;
+    }
+    table.putInt(slotAddress + Long.BYTES, hashCode);
+    table.putInt(slotAddress + Long.BYTES + Integer.BYTES, key.length);
+    if (++size > resizeThreshold) {
+      grow();
+    }
+    return true;
+  }
+
+  private long appendEntry(byte[] key, byte[] value) {
+    long address = entriesSize;
+    int valueLength = value == null ? 0 : value.length;
+    long end = address + Integer.BYTES + key.length + valueLength;
+    entries.ensureCapacity(end);
+    entries.putInt(address, value == null ? NULL_VALUE : value.length);
+    entries.putBytes(address + Integer.BYTES, key);
+    if (value != null) {
+      entries.putBytes(address + Integer.BYTES + key.length, value);
+    }
+
+    // Keep the entries aligned so that the length of the value never spans two pages
+    //
+    entriesSize = (end + 3) & ~3L;
+    return address;
+  }
+
+  /**
+   * Look up the value of a key.
+   *
+   * @param key the key to look up
+   * @return a copy of the value of the key or null if the key is not in the index or its value is
+   *     null
+   */
+  public byte[] get(byte[] key) {
+    long slotAddress = findSlot(key, hashKey(key));
+    long entryReference = table.getLong(slotAddress);
+    if (entryReference == 0L) {
+      return null;
+    }
+    long address = entryReference - 1;
+    int valueLength = entries.getInt(address);
+    if (valueLength == NULL_VALUE) {
+      return null;
+    }
+    return entries.getBytes(address + Integer.BYTES + key.length, valueLength);
+  }
+
+  /**
+   * @param key the key to look up
+   * @return true if the key is in the index
+   */
+  public boolean containsKey(byte[] key) {
+    return table.getLong(findSlot(key, hashKey(key))) != 0L;
+  }
+
+  /**
+   * @return the number of bytes allocated by the table and the entries of the index
+   */
+  public long getMemorySize() {
+    return table.getCapacity() + entries.getCapacity();
+  }
+
+  /**
+   * Find the slot of a key or the empty slot where it needs to go.
+   *
+   * @return the address of the slot
+   */
+  private long findSlot(byte[] key, int hashCode) {
+    MemoryPages slots = table;
+    int slot = hashCode & mask;
+    while (true) {
+      long slotAddress = (long) slot * SLOT_SIZE;
+      long entryReference = slots.getLong(slotAddress);
+      if (entryReference == 0L
+          || (slots.getInt(slotAddress + Long.BYTES) == hashCode
+              && slots.getInt(slotAddress + Long.BYTES + Integer.BYTES) == key.length
+              && entries.equalsBytes(entryReference - 1 + Integer.BYTES, key))) {
+        return slotAddress;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void grow() {
+    MemoryPages oldTable = table;
+    int oldCapacity = mask + 1;
+    allocate(ILongHashIndex.capacityFor(size, STANDARD_LOAD_FACTOR));
+    for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+      long oldAddress = (long) oldSlot * SLOT_SIZE;
+      long entryReference = oldTable.getLong(oldAddress);
+      if (entryReference != 0L) {
+        int hashCode = oldTable.getInt(oldAddress + Long.BYTES);
+        int slot = hashCode & mask;
+        while (table.getLong((long) slot * SLOT_SIZE) != 0L) {
+          slot = (slot + 1) & mask;
+        }
+        long address = (long) slot * SLOT_SIZE;
+        table.putLong(address, entryReference);
+        table.putInt(address + Long.BYTES, hashCode);
+        table.putInt(
+            address + Long.BYTES + Integer.BYTES,
+            oldTable.getInt(oldAddress + Long.BYTES + Integer.BYTES));
+      }
+    }
+  }
+
+  /**
+   * Keys are equal when their bytes are equal so the hash code is calculated from the bytes as
+   * well, without decoding the key.
+   */
+  private static int hashKey(byte[] key) {
+    int hashCode = Arrays.hashCode(key);
+    return hashCode ^ (hashCode >>> 16);
+  }
+}
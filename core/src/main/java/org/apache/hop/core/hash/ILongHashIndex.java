@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+/**
+ * A hash index mapping primitive long keys to primitive long values. Unlike {@link LongHashIndex}
+ * the implementations don't create an object per entry: keys and values are stored next to each
+ * other in a single open addressing table using linear probing.
+ *
+ * <p>The implementations are not thread-safe while they are being built. Once the last entry is
+ * added, any number of threads can read from the index concurrently.
+ */
+public interface ILongHashIndex {
+
+  /** The largest number of slots in a hash table */
+  int MAXIMUM_CAPACITY = 1 << 30;
+
+  /**
+   * Create a new index.
+   *
+   * @param expectedSize the number of keys expected in the index, avoids resizing the index
+   * @param offHeap true if the table needs to be stored outside of the Java heap
+   * @return the new index
+   */
+  static ILongHashIndex create(int expectedSize, boolean offHeap) {
+    if (offHeap) {
+      return new OffHeapLongHashIndex(expectedSize);
+    }
+    return new LongOpenHashIndex(expectedSize);
+  }
+
+  /**
+   * @return the number of keys in the index
+   */
+  int getSize();
+
+  /**
+   * @return true if there are no keys in the index
+   */
+  boolean isEmpty();
+
+  /**
+   * Add a key to the index, replacing the value of the key if it was already added.
+   *
+   * @param key the key to add
+   * @param value the value of the key
+   * @return true if the key is new, false if the value of an existing key was replaced
+   */
+  boolean put(long key, long value);
+
+  /**
+   * Add a key to the index unless it was already added.
+   *
+   * @param key the key to add
+   * @param value the value of the key
+   * @return true if the key is new, false if the index was left untouched
+   */
+  boolean putIfAbsent(long key, long value);
+
+  /**
+   * Add a batch of keys to the index, growing the table only once.
+   *
+   * @param keys the keys to add
+   * @param values the values of the keys
+   * @param count the number of keys to add from the start of the arrays
+   */
+  void putAll(long[] keys, long[] values, int count);
+
+  /**
+   * Look up the value of a key.
+   *
+   * @param key the key to look up
+   * @param defaultValue the value to return if the key is not in the index
+   * @return the value of the key or the default value
+   */
+  long get(long key, long defaultValue);
+
+  /**
+   * @param key the key to look up
+   * @return true if the key is in the index
+   */
+  boolean containsKey(long key);
+
+  /**
+   * @return the number of bytes allocated by the table of the index
+   */
+  long getMemorySize();
+
+  /**
+   * Spread the bits of a key over the lower bits used to address the hash table. Consecutive keys,
+   * like the technical keys of a dimension, then don't end up in long runs of occupied slots.
+   *
+   * @param key the key to hash
+   * @return the hash code of the key
+   */
+  static int hash(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  /**
+   * Calculate the number of slots to use for a number of keys.
+   *
+   * @param size the number of keys
+   * @param loadFactor the maximum fraction of the slots in use
+   * @return the number of slots, a power of 2
+   */
+  static int capacityFor(long size, float loadFactor) {
+    long needed = (long) Math.ceil(Math.max(size, 1L) / (double) loadFactor) + 1;
+    if (needed > MAXIMUM_CAPACITY) {
+      throw new IllegalStateException(
+          "A hash index can't hold more than "
+              + (long) (MAXIMUM_CAPACITY * loadFactor)
+              + " keys, "
+              + size
+              + " requested");
+    }
+    return Math.max(16, Integer.highestOneBit((int) needed - 1) << 1);
+  }
+}
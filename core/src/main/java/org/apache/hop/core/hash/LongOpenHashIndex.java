@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+/**
+ * A long/long hash index backed by a single long array. The key of a slot is stored at an even
+ * position, the value right after it, so a lookup usually touches a single cache line. An entry
+ * takes 16 bytes divided by the load factor, compared to about 60 bytes in {@link LongHashIndex}.
+ *
+ * <p>Key 0 marks an empty slot in the table, so it is kept in separate fields.
+ */
+public class LongOpenHashIndex implements ILongHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.75f;
+
+  /** Keys at even positions, values at odd positions */
+  private long[] table;
+
+  private int mask;
+  private int size;
+  private int resizeThreshold;
+
+  private boolean hasZeroKey;
+  private long zeroKeyValue;
+
+  /**
+   * Create a new long/long hash index
+   *
+   * @param expectedSize the number of keys expected in the index
+   */
+  public LongOpenHashIndex(int expectedSize) {
+    allocate(ILongHashIndex.capacityFor(expectedSize, STANDARD_LOAD_FACTOR));
+  }
+
+  /** Create a new long/long hash index */
+  public LongOpenHashIndex() {
+    this(STANDARD_INDEX_SIZE);
+  }
+
+  private void allocate(int capacity) {
+    table = new long[capacity * 2];
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * STANDARD_LOAD_FACTOR);
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean put(long key, long value) {
+    return insert(key, value, true);
+  }
+
+  @Override
+  public boolean putIfAbsent(long key, long value) {
+    return insert(key, value, false);
+  }
+
+  @Override
+  public void putAll(long[] keys, long[] values, int count) {
+    ensureCapacity((long) size + count);
+    for (int i = 0; i < count; i++) {
+      insert(keys[i], values[i], true);
+    }
+  }
+
+  private boolean insert(long key, long value, boolean replace) {
+    if (key == 0L) {
+      if (hasZeroKey) {
+        if (replace) {
+          zeroKeyValue = value;
+        }
+        return false;
+      }
+      hasZeroKey = true;
+      zeroKeyValue = value;
+      size++;
+      return true;
+    }
+
+    int slot = ILongHashIndex.hash(key) & mask;
+    while (true) {
+      int position = slot << 1;
+      long slotKey = table[position];
+      if (slotKey == 0L) {
+        table[position] = key;
+        table[position + 1] = value;
+        if (++size > resizeThreshold) {
+          ensureCapacity(size);
+        }
+        return true;
+      }
+      if (slotKey == key) {
+        if (replace) {
+          table[position + 1] = value;
+        }
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public long get(long key, long defaultValue) {
+    if (key == 0L) {
+      return hasZeroKey ? zeroKeyValue : defaultValue;
+    }
+    long[] slots = table;
+    int slot = ILongHashIndex.hash(key) & mask;
+    while (true) {
+      int position = slot << 1;
+      long slotKey = slots[position];
+      if (slotKey == key) {
+        return slots[position + 1];
+      }
+      if (slotKey == 0L) {
+        return defaultValue;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public boolean containsKey(long key) {
+    if (key == 0L) {
+      return hasZeroKey;
+    }
+    int slot = ILongHashIndex.hash(key) & mask;
+    while (true) {
+      long slotKey = table[slot << 1];
+      if (slotKey == key) {
+        return true;
+      }
+      if (slotKey == 0L) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public long getMemorySize() {
+    return (long) table.length * Long.BYTES;
+  }
+
+  /**
+   * Grow the table so that it holds the given number of keys without exceeding the load factor.
+   *
+   * @param expectedSize the number of keys
+   */
+  private void ensureCapacity(long expectedSize) {
+    int capacity = ILongHashIndex.capacityFor(expectedSize, STANDARD_LOAD_FACTOR);
+    if (capacity <= mask + 1) {
+      return;
+    }
+    long[] oldTable = table;
+    allocate(capacity);
+    for (int position = 0; position < oldTable.length; position += 2) {
+      long key = oldTable[position];
+      if (key != 0L) {
+        int slot = ILongHashIndex.hash(key) & mask;
+        while (table[slot << 1] != 0L) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot << 1] = key;
+        table[(slot << 1) + 1] = oldTable[position + 1];
+      }
+    }
+  }
+}
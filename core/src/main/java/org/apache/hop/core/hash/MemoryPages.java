@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A block of memory larger than a single byte buffer can address, made of pages of the same size.
+ * The pages are either regular heap buffers or direct buffers allocated outside of the Java heap.
+ * Direct memory is released when the pages are garbage collected and is limited by the <code>
+ * -XX:MaxDirectMemorySize</code> option of the JVM.
+ *
+ * <p>Longs and ints are always read and written within a single page: the callers align them on
+ * their own size.
+ */
+final class MemoryPages {
+
+  /** The largest page: 128MB */
+  static final int MAXIMUM_PAGE_SHIFT = 27;
+
+  private final boolean offHeap;
+  private final int pageShift;
+  private final long pageMask;
+
+  private ByteBuffer[] pages;
+  private int pageCount;
+
+  /**
+   * @param pageShift the size of a page as a power of 2
+   * @param offHeap true to allocate the pages outside of the Java heap
+   */
+  MemoryPages(int pageShift, boolean offHeap) {
+    this.offHeap = offHeap;
+    this.pageShift = pageShift;
+    this.pageMask = (1L << pageShift) - 1;
+    this.pages = new ByteBuffer[4];
+  }
+
+  /**
+   * Calculate the page size to use for a block of memory of a fixed size: a single page if the
+   * block is small enough.
+   *
+   * @param size the size of the block of memory
+   * @return the page size as a power of 2
+   */
+  static int pageShiftFor(long size) {
+    int shift = 64 - Long.numberOfLeadingZeros(Math.max(size, 8L) - 1);
+    return Math.min(shift, MAXIMUM_PAGE_SHIFT);
+  }
+
+  /**
+   * Allocate pages until the given number of bytes can be addressed. New memory is zeroed.
+   *
+   * @param size the number of bytes
+   */
+  void ensureCapacity(long size) {
+    while (getCapacity() < size) {
+      if (pageCount == pages.length) {
+        pages = Arrays.copyOf(pages, pages.length * 2);
+      }
+      int pageSize = 1 << pageShift;
+      ByteBuffer page =
+          offHeap ? ByteBuffer.allocateDirect(pageSize) : ByteBuffer.allocate(pageSize);
+      pages[pageCount++] = page.order(ByteOrder.nativeOrder());
+    }
+  }
+
+  /**
+   * @return the number of bytes allocated
+   */
+  long getCapacity() {
+    return (long) pageCount << pageShift;
+  }
+
+  long getLong(long address) {
+    return pages[(int) (address >>> pageShift)].getLong((int) (address & pageMask));
+  }
+
+  void putLong(long address, long value) {
+    pages[(int) (address >>> pageShift)].putLong((int) (address & pageMask), value);
+  }
+
+  int getInt(long address) {
+    return pages[(int) (address >>> pageShift)].getInt((int) (address & pageMask));
+  }
+
+  void putInt(long address, int value) {
+    pages[(int) (address >>> pageShift)].putInt((int) (address & pageMask), value);
+  }
+
+  /**
+   * Copy bytes into the memory, possibly across pages.
+   *
+   * @param address the address to write to
+   * @param bytes the bytes to copy
+   */
+  void putBytes(long address, byte[] bytes) {
+    int offset = 0;
+    while (offset < bytes.length) {
+      ByteBuffer page = pages[(int) (address >>> pageShift)];
+      int position = (int) (address & pageMask);
+      int length = Math.min(bytes.length - offset, page.capacity() - position);
+      page.put(position, bytes, offset, length);
+      offset += length;
+      address += length;
+    }
+  }
+
+  /**
+   * Copy bytes out of the memory, possibly across pages.
+   *
+   * @param address the address to read from
+   * @param length the number of bytes to copy
+   * @return the bytes
+   */
+  byte[] getBytes(long address, int length) {
+    byte[] bytes = new byte[length];
+    int offset = 0;
+    while (offset < length) {
+      ByteBuffer page = pages[(int) (address >>> pageShift)];
+      int position = (int) (address & pageMask);
+      int chunk = Math.min(length - offset, page.capacity() - position);
+      page.get(position, bytes, offset, chunk);
+      offset += chunk;
+      address += chunk;
+    }
+    return bytes;
+  }
+
+  /**
+   * Compare bytes in the memory with the given bytes without copying them.
+   *
+   * @param address the address of the bytes in memory
+   * @param bytes the bytes to compare with
+   * @return true if all the bytes are equal
+   */
+  boolean equalsBytes(long address, byte[] bytes) {
+    int offset = 0;
+    while (offset < bytes.length) {
+      ByteBuffer page = pages[(int) (address >>> pageShift)];
+      int position = (int) (address & pageMask);
+      int chunk = Math.min(bytes.length - offset, page.capacity() - position);
+      if (page.hasArray()) {
+        int start = page.arrayOffset() + position;
+        if (!Arrays.equals(page.array(), start, start + chunk, bytes, offset, offset + chunk)) {
+          return false;
+        }
+      } else {
+        for (int i = 0; i < chunk; i++) {
+          if (page.get(position + i) != bytes[offset + i]) {
+            return false;
+          }
+        }
+      }
+      offset += chunk;
+      address += chunk;
+    }
+    return true;
+  }
+}
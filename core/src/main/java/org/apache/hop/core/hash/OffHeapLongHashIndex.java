@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+/**
+ * A long/long hash index with its table stored outside of the Java heap, in pages of direct memory.
+ * It has the same layout as {@link LongOpenHashIndex} but isn't limited by the size of a single
+ * array and doesn't add to the work of the garbage collector. Use it for lookups of hundreds of
+ * millions of keys.
+ *
+ * <p>Key 0 marks an empty slot in the table, so it is kept in separate fields.
+ */
+public class OffHeapLongHashIndex implements ILongHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.75f;
+
+  /** The number of bytes of a slot: the key followed by the value */
+  private static final int SLOT_SIZE = 16;
+
+  private MemoryPages table;
+
+  private int mask;
+  private int size;
+  private int resizeThreshold;
+
+  private boolean hasZeroKey;
+  private long zeroKeyValue;
+
+  /**
+   * Create a new off-heap long/long hash index
+   *
+   * @param expectedSize the number of keys expected in the index
+   */
+  public OffHeapLongHashIndex(int expectedSize) {
+    allocate(ILongHashIndex.capacityFor(expectedSize, STANDARD_LOAD_FACTOR));
+  }
+
+  /** Create a new off-heap long/long hash index */
+  public OffHeapLongHashIndex() {
+    this(STANDARD_INDEX_SIZE);
+  }
+
+  private void allocate(int capacity) {
+    long bytes = (long) capacity * SLOT_SIZE;
+    table = new MemoryPages(MemoryPages.pageShiftFor(bytes), true);
+    table.ensureCapacity(bytes);
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * STANDARD_LOAD_FACTOR);
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean put(long key, long value) {
+    return insert(key, value, true);
+  }
+
+  @Override
+  public boolean putIfAbsent(long key, long value) {
+    return insert(key, value, false);
+  }
+
+  @Override
+  public void putAll(long[] keys, long[] values, int count) {
+    ensureCapacity((long) size + count);
+    for (int i = 0; i < count; i++) {
+      insert(keys[i], values[i], true);
+    }
+  }
+
+  private boolean insert(long key, long value, boolean replace) {
+    if (key == 0L) {
+      if (hasZeroKey) {
+        if (replace) {
+          zeroKeyValue = value;
+        }
+        return false;
+      }
+      hasZeroKey = true;
+      zeroKeyValue = value;
+      size++;
+      return true;
+    }
+
+    int slot = ILongHashIndex.hash(key) & mask;
+    while (true) {
+      long address = (long) slot * SLOT_SIZE;
+      long slotKey = table.getLong(address);
+      if (slotKey == 0L) {
+        table.putLong(address, key);
+        table.putLong(address + Long.BYTES, value);
+        if (++size > resizeThreshold) {
+          ensureCapacity(size);
+        }
+        return true;
+      }
+      if (slotKey == key) {
+        if (replace) {
+          table.putLong(address + Long.BYTES, value);
+        }
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public long get(long key, long defaultValue) {
+    if (key == 0L) {
+      return hasZeroKey ? zeroKeyValue : defaultValue;
+    }
+    MemoryPages slots = table;
+    int slot = ILongHashIndex.hash(key) & mask;
+    while (true) {
+      long address = (long) slot * SLOT_SIZE;
+      long slotKey = slots.getLong(address);
+      if (slotKey == key) {
+        return slots.getLong(address + Long.BYTES);
+      }
+      if (slotKey == 0L) {
+        return defaultValue;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public boolean containsKey(long key) {
+    if (key == 0L) {
+      return hasZeroKey;
+    }
+    int slot = ILongHashIndex.hash(key) & mask;
+    while (true) {
+      long slotKey = table.getLong((long) slot * SLOT_SIZE);
+      if (slotKey == key) {
+        return true;
+      }
+      if (slotKey == 0L) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public long getMemorySize() {
+    return table.getCapacity();
+  }
+
+  /**
+   * Grow the table so that it holds the given number of keys without exceeding the load factor. The
+   * old pages are released by the garbage collector.
+   *
+   * @param expectedSize the number of keys
+   */
+  private void ensureCapacity(long expectedSize) {
+    int capacity = ILongHashIndex.capacityFor(expectedSize, STANDARD_LOAD_FACTOR);
+    if (capacity <= mask + 1) {
+      return;
+    }
+    MemoryPages oldTable = table;
+    int oldCapacity = mask + 1;
+    allocate(capacity);
+    for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+      long oldAddress = (long) oldSlot * SLOT_SIZE;
+      long key = oldTable.getLong(oldAddress);
+      if (key != 0L) {
+        int slot = ILongHashIndex.hash(key) & mask;
+        while (table.getLong((long) slot * SLOT_SIZE) != 0L) {
+          slot = (slot + 1) & mask;
+        }
+        long address = (long) slot * SLOT_SIZE;
+        table.putLong(address, key);
+        table.putLong(address + Long.BYTES, oldTable.getLong(oldAddress + Long.BYTES));
+      }
+    }
+  }
+}
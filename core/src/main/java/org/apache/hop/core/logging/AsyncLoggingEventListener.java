@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands logging events over to another listener on a dedicated writer thread. The threads that log
+ * put events in a bounded queue. The writer thread takes them out in batches and passes every
+ * batch to {@link IHopLoggingEventListener#eventsAdded(List)}, so the wrapped listener can flush
+ * once per batch.
+ *
+ * <p>When the queue is full the {@link LogOverflowPolicy} decides whether the logging thread waits
+ * or the event is dropped. Errors are never dropped.
+ *
+ * <p>After {@link #close()} the events go to the wrapped listener on the logging thread. The
+ * wrapped listener is still only called by one thread at a time.
+ */
+public class AsyncLoggingEventListener implements IHopLoggingEventListener {
+
+  /** The maximum number of events passed to the wrapped listener at once */
+  public static final int MAX_BATCH_SIZE = 512;
+
+  private static final long POLL_TIMEOUT_MILLIS = 100L;
+
+  private final IHopLoggingEventListener listener;
+  private final BlockingQueue<HopLoggingEvent> queue;
+  private final LogOverflowPolicy overflowPolicy;
+  private final int sampleRate;
+  private final int sampleThreshold;
+  private final Thread writerThread;
+
+  /** The number of events accepted in the queue */
+  private final AtomicLong acceptedEvents = new AtomicLong();
+
+  /** The number of events handed to the wrapped listener */
+  private final AtomicLong writtenEvents = new AtomicLong();
+
+  private final LongAdder droppedEvents = new LongAdder();
+  private final AtomicLong sampleCounter = new AtomicLong();
+
+  /** The number of logging threads which checked that we're open and are adding to the queue */
+  private final AtomicInteger producers = new AtomicInteger();
+
+  /** Held while calling the wrapped listener */
+  private final Object listenerLock = new Object();
+
+  private volatile boolean closed;
+
+  /**
+   * @param listener the listener to hand the events to
+   * @param queueSize the maximum number of events waiting for the writer thread
+   * @param overflowPolicy what to do with an event when the queue is full
+   * @param sampleRate with {@link LogOverflowPolicy#SAMPLE}, keep one in every this many events
+   */
+  public AsyncLoggingEventListener(
+      IHopLoggingEventListener listener,
+      int queueSize,
+      LogOverflowPolicy overflowPolicy,
+      int sampleRate) {
+    this.listener = listener;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+    this.overflowPolicy = overflowPolicy == null ? LogOverflowPolicy.BLOCK : overflowPolicy;
+    this.sampleRate = Math.max(1, sampleRate);
+    this.sampleThreshold = Math.max(1, queueSize) * 3 / 4;
+
+    writerThread = new Thread(this::writeEvents, "Hop logging: " + listener.getClass().getName());
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  @Override
+  public void eventAdded(HopLoggingEvent event) {
+    // The wrapped listener may log itself, it can't wait for its own queue.
+    //
+    if (Thread.currentThread() == writerThread) {
+      listener.eventAdded(event);
+      return;
+    }
+
+    // The writer thread only stops once no logging thread is between this check and the queue.
+    //
+    producers.incrementAndGet();
+    try {
+      if (!closed) {
+        enqueue(event);
+        return;
+      }
+    } finally {
+      producers.decrementAndGet();
+    }
+
+    synchronized (listenerLock) {
+      listener.eventAdded(event);
+    }
+  }
+
+  private void enqueue(HopLoggingEvent event) {
+    boolean mustKeep = event.getLevel() == LogLevel.ERROR;
+    switch (overflowPolicy) {
+      case DROP:
+        if (queue.offer(event)) {
+          acceptedEvents.incrementAndGet();
+          return;
+        }
+        if (!mustKeep) {
+          droppedEvents.increment();
+          return;
+        }
+        break;
+      case SAMPLE:
+        if (!mustKeep && queue.size() >= sampleThreshold) {
+          if (sampleCounter.incrementAndGet() % sampleRate != 0) {
+            droppedEvents.increment();
+            return;
+          }
+        }
+        break;
+      default:
+        break;
+    }
+    put(event);
+  }
+
+  private void put(HopLoggingEvent event) {
+    try {
+      queue.put(event);
+      acceptedEvents.incrementAndGet();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      droppedEvents.increment();
+    }
+  }
+
+  private void writeEvents() {
+    List<HopLoggingEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    try {
+      while (true) {
+        HopLoggingEvent event = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (event == null) {
+          if (closed) {
+            break;
+          }
+          continue;
+        }
+        batch.add(event);
+        queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        write(batch);
+      }
+    } catch (InterruptedException e) {
+      // Stop taking new events and write what is left
+      //
+      closed = true;
+    }
+    writeRemainingEvents(batch);
+  }
+
+  /**
+   * Write the events which are left once we're closed. Logging threads which saw us open can still
+   * be waiting for room in the queue, so keep writing until they're done. Logging threads which saw
+   * us closed wait for the listener lock, their events come after these.
+   */
+  private void writeRemainingEvents(List<HopLoggingEvent> batch) {
+    synchronized (listenerLock) {
+      while (producers.get() > 0) {
+        if (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+          write(batch);
+        } else {
+          LockSupport.parkNanos(100_000L);
+        }
+      }
+      while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+        write(batch);
+      }
+    }
+  }
+
+  private void write(List<HopLoggingEvent> batch) {
+    synchronized (listenerLock) {
+      try {
+        listener.eventsAdded(batch);
+      } catch (Exception e) {
+        // A listener that fails can't report it through logging either
+        //
+        HopLogStore.OriginalSystemErr.println(
+            "Error writing logging events to " + listener.getClass().getName() + " : " + e);
+      } finally {
+        writtenEvents.addAndGet(batch.size());
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Wait until the wrapped listener received all the events which were accepted before this call.
+   */
+  public void flush() {
+    if (Thread.currentThread() == writerThread) {
+      return;
+    }
+    long target = acceptedEvents.get();
+    while (writtenEvents.get() < target && writerThread.isAlive()) {
+      LockSupport.parkNanos(100_000L);
+    }
+  }
+
+  /**
+   * Write the remaining events and stop the writer thread. Events added afterwards are handed to
+   * the wrapped listener on the logging thread.
+   */
+  public void close() {
+    closed = true;
+    if (Thread.currentThread() == writerThread) {
+      return;
+    }
+    try {
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return The wrapped listener
+   */
+  public IHopLoggingEventListener getListener() {
+    return listener;
+  }
+
+  public LogOverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * @return The number of events which were dropped because the queue was full
+   */
+  public long getDroppedEvents() {
+    return droppedEvents.sum();
+  }
+
+  /**
+   * @return The number of events handed to the wrapped listener
+   */
+  public long getWrittenEvents() {
+    return writtenEvents.get();
+  }
+
+  /**
+   * @return The number of events waiting for the writer thread
+   */
+  public int getQueuedEvents() {
+    return queue.size();
+  }
+}
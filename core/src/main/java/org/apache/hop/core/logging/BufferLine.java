@@ -25,6 +25,9 @@ public class BufferLine {
   private int nr;
   private HopLoggingEvent event;
 
+  /** The line was removed from the buffer but is still in a slot of the ring */
+  boolean removed;
+
   public BufferLine(HopLoggingEvent event) {
     this.event = event;
     this.nr = sequence.incrementAndGet();
@@ -17,6 +17,8 @@
 
 package org.apache.hop.core.logging;
 
+import java.util.List;
+
 public class ConsoleLoggingEventListener implements IHopLoggingEventListener {
 
   private HopLogLayout layout;
@@ -38,4 +40,20 @@ public class ConsoleLoggingEventListener implements IHopLoggingEventListener {
       HopLogStore.OriginalSystemOut.flush();
     }
   }
+
+  /** Print a batch of events and flush the console once. */
+  @Override
+  public void eventsAdded(List<HopLoggingEvent> events) {
+    for (HopLoggingEvent event : events) {
+      String logText = layout.format(event);
+
+      if (event.getLevel() == LogLevel.ERROR) {
+        HopLogStore.OriginalSystemErr.println(logText);
+      } else {
+        HopLogStore.OriginalSystemOut.println(logText);
+      }
+    }
+    HopLogStore.OriginalSystemErr.flush();
+    HopLogStore.OriginalSystemOut.flush();
+  }
 }
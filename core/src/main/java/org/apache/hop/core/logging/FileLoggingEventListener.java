@@ -17,6 +17,7 @@
 
 package org.apache.hop.core.logging;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import org.apache.commons.vfs2.FileObject;
@@ -78,29 +79,26 @@ public class FileLoggingEventListener implements IHopLoggingEventListener {
 
   @Override
   public void eventAdded(HopLoggingEvent event) {
+    try {
+      if (writeEvent(event)) {
+        outputStream.flush();
+      }
+    } catch (Exception e) {
+      exception =
+          new HopException("Unable to write to logging event to file '" + filename + "'", e);
+    }
+  }
 
+  /** Write a batch of events and flush the file once. */
+  @Override
+  public void eventsAdded(List<HopLoggingEvent> events) {
     try {
-      Object messageObject = event.getMessage();
-      if (messageObject instanceof LogMessage) {
-        boolean logToFile = false;
-
-        if (logChannelId == null) {
-          logToFile = true;
-        } else {
-          LogMessage message = (LogMessage) messageObject;
-          // This should be fast enough cause cached.
-          List<String> logChannelChildren =
-              LoggingRegistry.getInstance().getLogChannelChildren(logChannelId);
-          // This could be non-optimal, consider keeping the list sorted in the logging registry
-          logToFile = Const.indexOfString(message.getLogChannelId(), logChannelChildren) >= 0;
-        }
-
-        if (logToFile) {
-          String logText = layout.format(event);
-          outputStream.write(logText.getBytes());
-          outputStream.write(Const.CR.getBytes());
-          outputStream.flush();
-        }
+      boolean written = false;
+      for (HopLoggingEvent event : events) {
+        written |= writeEvent(event);
+      }
+      if (written) {
+        outputStream.flush();
       }
     } catch (Exception e) {
       exception =
@@ -108,6 +106,35 @@ public class FileLoggingEventListener implements IHopLoggingEventListener {
     }
   }
 
+  /**
+   * @return true if the event was written to the file
+   */
+  private boolean writeEvent(HopLoggingEvent event) throws IOException {
+    Object messageObject = event.getMessage();
+    if (messageObject instanceof LogMessage) {
+      boolean logToFile = false;
+
+      if (logChannelId == null) {
+        logToFile = true;
+      } else {
+        LogMessage message = (LogMessage) messageObject;
+        // This should be fast enough cause cached.
+        List<String> logChannelChildren =
+            LoggingRegistry.getInstance().getLogChannelChildren(logChannelId);
+        // This could be non-optimal, consider keeping the list sorted in the logging registry
+        logToFile = Const.indexOfString(message.getLogChannelId(), logChannelChildren) >= 0;
+      }
+
+      if (logToFile) {
+        String logText = layout.format(event);
+        outputStream.write(logText.getBytes());
+        outputStream.write(Const.CR.getBytes());
+        return true;
+      }
+    }
+    return false;
+  }
+
   public void close() throws HopException {
     try {
       if (outputStream != null) {
@@ -152,9 +152,30 @@ public class HopLogStore {
     } else {
       store = new HopLogStore(maxSize, maxLogTimeoutMinutes, redirectStdOut, redirectStdErr);
     }
+    store.configureAsyncListeners();
     initialized.set(true);
   }
 
+  /**
+   * Hand the logging events to the console, log files and logging plugins on a writer thread per
+   * listener if this is enabled with {@link Const#HOP_ASYNC_LOGGING}.
+   */
+  private void configureAsyncListeners() {
+    if (EnvUtil.getSystemProperty(Const.HOP_ASYNC_LOGGING, "N").equalsIgnoreCase("Y")) {
+      appender.enableAsyncListeners(
+          Const.toInt(
+              EnvUtil.getSystemProperty(Const.HOP_ASYNC_LOGGING_QUEUE_SIZE),
+              Const.ASYNC_LOGGING_QUEUE_SIZE),
+          LogOverflowPolicy.lookupCode(
+              EnvUtil.getSystemProperty(Const.HOP_ASYNC_LOGGING_OVERFLOW_POLICY)),
+          Const.toInt(
+              EnvUtil.getSystemProperty(Const.HOP_ASYNC_LOGGING_SAMPLE_RATE),
+              Const.ASYNC_LOGGING_SAMPLE_RATE));
+    } else {
+      appender.disableAsyncListeners();
+    }
+  }
+
   public static HopLogStore getInstance() {
     if (store == null) {
       throw new RuntimeException("Central Log Store is not initialized!!!");
@@ -228,13 +249,14 @@ public class HopLogStore {
       //
       bufferAppender.removeChannelFromBuffer(id);
 
-      // Also remove the item from the registry.
-      //
-      registry.getMap().remove(id);
       metricsRegistry.getSnapshotLists().remove(id);
       metricsRegistry.getSnapshotMaps().remove(id);
     }
 
+    // Also remove the items from the registry.
+    //
+    registry.removeIncludingChildren(parentLogChannelId);
+
     // Now discard the general lines if this is required
     //
     if (includeGeneralMessages) {
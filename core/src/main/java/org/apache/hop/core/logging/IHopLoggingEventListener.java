@@ -17,6 +17,20 @@
 
 package org.apache.hop.core.logging;
 
+import java.util.List;
+
 public interface IHopLoggingEventListener {
   void eventAdded(HopLoggingEvent event);
+
+  /**
+   * Receive a batch of logging events, oldest first. Asynchronous logging hands events over in
+   * batches so that a listener can write them out with a single flush.
+   *
+   * @param events the logging events
+   */
+  default void eventsAdded(List<HopLoggingEvent> events) {
+    for (HopLoggingEvent event : events) {
+      eventAdded(event);
+    }
+  }
 }
@@ -17,18 +17,22 @@
 
 package org.apache.hop.core.logging;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.hop.core.Const;
 
+/**
+ * Collects the logging events of a log channel for a LogChannelFileWriter. The threads that log
+ * only add events to a lock-free queue, the events are formatted and written on the thread of the
+ * file writer.
+ */
 public class LogChannelFileWriterBuffer {
 
   private HopLogLayout layout;
 
   private String logChannelId;
 
-  private final List<HopLoggingEvent> buffer = Collections.synchronizedList(new LinkedList<>());
+  private final Queue<HopLoggingEvent> buffer = new ConcurrentLinkedQueue<>();
 
   public LogChannelFileWriterBuffer(String logChannelId) {
     this.logChannelId = logChannelId;
@@ -36,20 +40,15 @@ public class LogChannelFileWriterBuffer {
   }
 
   public void addEvent(HopLoggingEvent event) {
-    synchronized (buffer) {
-      buffer.add(event);
-    }
+    buffer.add(event);
   }
 
   public StringBuffer getBuffer() {
     StringBuffer stringBuffer = new StringBuffer(1000);
 
-    synchronized (buffer) {
-      for (HopLoggingEvent event : buffer) {
-        stringBuffer.append(layout.format(event)).append(Const.CR);
-      }
-
-      buffer.clear();
+    HopLoggingEvent event;
+    while ((event = buffer.poll()) != null) {
+      stringBuffer.append(layout.format(event)).append(Const.CR);
     }
 
     return stringBuffer;
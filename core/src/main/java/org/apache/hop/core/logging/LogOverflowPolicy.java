@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.logging;
+
+import org.apache.hop.metadata.api.IEnumHasCode;
+
+/** What an asynchronous logging event listener does with an event when its queue is full. */
+public enum LogOverflowPolicy implements IEnumHasCode {
+  /** Wait until the writer thread made room in the queue. No event is lost. */
+  BLOCK("BLOCK"),
+  /** Discard the event and count it. */
+  DROP("DROP"),
+  /**
+   * Once the queue is 3/4 full, only keep one in every N events and count the others as dropped.
+   * The kept events wait for room in the queue.
+   */
+  SAMPLE("SAMPLE");
+
+  private final String code;
+
+  LogOverflowPolicy(String code) {
+    this.code = code;
+  }
+
+  @Override
+  public String getCode() {
+    return code;
+  }
+
+  /**
+   * @param code the code to look for
+   * @return the overflow policy or BLOCK if nothing matches.
+   */
+  public static LogOverflowPolicy lookupCode(String code) {
+    return IEnumHasCode.lookupCode(LogOverflowPolicy.class, code, BLOCK);
+  }
+}
@@ -18,21 +18,49 @@
 package org.apache.hop.core.logging;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.apache.hop.core.Const;
 
-/** This class keeps the last N lines in a buffer */
+/**
+ * This class keeps the last N lines in a buffer.
+ *
+ * <p>The lines are kept in a ring: adding a line to a full buffer drops the oldest line without
+ * moving the others. Every log channel also keeps the list of its own lines, so the lines of a few
+ * channels are found without looking at the lines of all the other channels. Removed lines are only
+ * marked as such and leave the ring when it is compacted.
+ */
 public class LoggingBuffer {
+  private static final int MINIMUM_RING_SIZE = 1024;
+
   private String name;
 
-  private List<BufferLine> buffer;
+  /** The lines, oldest first, starting at slot {@link #first}. The size is a power of 2. */
+  private BufferLine[] ring;
+
+  private int first;
+
+  /** The number of slots in use, including removed lines */
+  private int count;
+
+  /** The number of lines which aren't removed */
+  private volatile int nrLines;
+
+  /** The lines per log channel ID */
+  private final Map<String, ChannelLines> channels;
+
+  /** The channels of general logging objects */
+  private final Set<ChannelLines> generalChannels;
+
   private ReadWriteLock lock = new ReentrantReadWriteLock();
 
   private int bufferSize;
@@ -41,14 +69,24 @@ public class LoggingBuffer {
 
   private List<IHopLoggingEventListener> eventListeners;
 
+  /** Hand events to listeners added from now on on a writer thread per listener */
+  private volatile boolean asyncListeners;
+
+  private int asyncQueueSize = Const.ASYNC_LOGGING_QUEUE_SIZE;
+
+  private LogOverflowPolicy asyncOverflowPolicy = LogOverflowPolicy.BLOCK;
+
+  private int asyncSampleRate = Const.ASYNC_LOGGING_SAMPLE_RATE;
+
+  private Thread shutdownHook;
+
   private LoggingRegistry loggingRegistry = LoggingRegistry.getInstance();
 
   public LoggingBuffer(int bufferSize) {
     this.bufferSize = bufferSize;
-    // The buffer overflow protection allows it to be overflowed for 1 item within a single thread.
-    // Considering a possible high contention, let's set it's max overflow size to be 10%.
-    // Anyway, even an overflow goes higher than 10%, it wouldn't cost us too much.
-    buffer = new ArrayList<>((int) (bufferSize * 1.1));
+    ring = new BufferLine[MINIMUM_RING_SIZE];
+    channels = new HashMap<>();
+    generalChannels = Collections.newSetFromMap(new IdentityHashMap<>());
     layout = new HopLogLayout(true);
     eventListeners = new CopyOnWriteArrayList<>();
   }
@@ -60,11 +98,13 @@ public class LoggingBuffer {
   public int getLastBufferLineNr() {
     lock.readLock().lock();
     try {
-      if (buffer.size() > 0) {
-        return buffer.get(buffer.size() - 1).getNr();
-      } else {
-        return 0;
+      for (int i = count - 1; i >= 0; i--) {
+        BufferLine line = lineAt(i);
+        if (!line.removed) {
+          return line.getNr();
+        }
       }
+      return 0;
     } finally {
       lock.readLock().unlock();
     }
@@ -79,24 +119,60 @@ public class LoggingBuffer {
    */
   public List<HopLoggingEvent> getLogBufferFromTo(
       List<String> channelId, boolean includeGeneral, int from, int to) {
+    List<BufferLine> lines = new ArrayList<>();
     lock.readLock().lock();
     try {
-      Stream<BufferLine> bufferStream =
-          buffer.stream().filter(line -> line.getNr() > from && line.getNr() <= to);
-      if (channelId != null) {
-        bufferStream =
-            bufferStream.filter(
-                line -> {
-                  String logChannelId = getLogChId(line);
-                  return includeGeneral
-                      ? isGeneral(logChannelId) || channelId.contains(logChannelId)
-                      : channelId.contains(logChannelId);
-                });
+      if (channelId == null) {
+        // The line numbers go up in the ring: skip to the first line after "from"
+        //
+        int low = 0;
+        int high = count;
+        while (low < high) {
+          int mid = (low + high) >>> 1;
+          if (lineAt(mid).getNr() <= from) {
+            low = mid + 1;
+          } else {
+            high = mid;
+          }
+        }
+        for (int i = low; i < count; i++) {
+          BufferLine line = lineAt(i);
+          if (line.getNr() > to) {
+            break;
+          }
+          if (!line.removed) {
+            lines.add(line);
+          }
+        }
+      } else {
+        // Only look at the lines of the requested channels
+        //
+        Set<ChannelLines> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String id : channelId) {
+          ChannelLines channelLines = channels.get(id);
+          if (channelLines != null) {
+            selected.add(channelLines);
+          }
+        }
+        if (includeGeneral) {
+          selected.addAll(generalChannels);
+        }
+        for (ChannelLines channelLines : selected) {
+          channelLines.collect(from, to, lines);
+        }
+        if (selected.size() > 1) {
+          lines.sort(Comparator.comparingInt(BufferLine::getNr));
+        }
       }
-      return bufferStream.map(BufferLine::getEvent).collect(Collectors.toList());
     } finally {
       lock.readLock().unlock();
     }
+
+    List<HopLoggingEvent> events = new ArrayList<>(lines.size());
+    for (BufferLine line : lines) {
+      events.add(line.getEvent());
+    }
+    return events;
   }
 
   /**
@@ -152,10 +228,17 @@ public class LoggingBuffer {
     if (event.getMessage() instanceof LogMessage) {
       lock.writeLock().lock();
       try {
-        buffer.add(new BufferLine(event));
-        while (bufferSize > 0 && buffer.size() > bufferSize) {
-          buffer.remove(0);
+        // The line number is taken under the lock: the numbers go up in the ring
+        //
+        BufferLine line = new BufferLine(event);
+        if (count == ring.length) {
+          resizeRing();
         }
+        ring[(first + count) & (ring.length - 1)] = line;
+        count++;
+        nrLines++;
+        getChannelLines(getLogChId(line)).add(line);
+        trim();
       } finally {
         lock.writeLock().unlock();
       }
@@ -185,7 +268,12 @@ public class LoggingBuffer {
   public void clear() {
     lock.writeLock().lock();
     try {
-      buffer.clear();
+      ring = new BufferLine[MINIMUM_RING_SIZE];
+      first = 0;
+      count = 0;
+      nrLines = 0;
+      channels.clear();
+      generalChannels.clear();
     } finally {
       lock.writeLock().unlock();
     }
@@ -203,14 +291,20 @@ public class LoggingBuffer {
    *     means: no limit
    */
   public void setMaxNrLines(int maxNrLines) {
-    this.bufferSize = maxNrLines;
+    lock.writeLock().lock();
+    try {
+      this.bufferSize = maxNrLines;
+      trim();
+    } finally {
+      lock.writeLock().unlock();
+    }
   }
 
   /**
    * @return the nrLines
    */
   public int getNrLines() {
-    return buffer.size();
+    return nrLines;
   }
 
   /**
@@ -221,43 +315,40 @@ public class LoggingBuffer {
   public void removeChannelFromBuffer(String id) {
     lock.writeLock().lock();
     try {
-      buffer.removeIf(line -> id.equals(getLogChId(line)));
+      ChannelLines channelLines = channels.remove(id);
+      if (channelLines != null) {
+        removeChannelLines(channelLines);
+        skipRemovedLines();
+      }
     } finally {
       lock.writeLock().unlock();
     }
   }
 
   public int size() {
-    return buffer.size();
+    return nrLines;
   }
 
   public void removeGeneralMessages() {
     lock.writeLock().lock();
     try {
-      buffer.removeIf(line -> isGeneral(getLogChId(line)));
+      for (ChannelLines channelLines : generalChannels) {
+        channels.remove(channelLines.logChannelId);
+        removeChannelLines(channelLines);
+      }
+      generalChannels.clear();
+      skipRemovedLines();
     } finally {
       lock.writeLock().unlock();
     }
   }
 
   public void removeBufferLinesBefore(long minTimeBoundary) {
-    // Using HashSet even though BufferLine does not implement hashcode and equals,
-    // we just need to remove the exact objects we have found and put in the set.
-    Set<BufferLine> linesToRemove = new HashSet<>();
     lock.writeLock().lock();
     try {
-      for (BufferLine bufferLine : buffer) {
-        if (bufferLine.getEvent().timeStamp < minTimeBoundary) {
-          linesToRemove.add(bufferLine);
-        } else {
-          break;
-        }
+      while (count > 0 && ring[first].getEvent().timeStamp < minTimeBoundary) {
+        removeOldestLine();
       }
-      // removeAll should run fast against a HashSet,
-      // since ArrayList.batchRemove check for each element of a collection given if it is in the
-      // ArrayList.
-      // Thus, removeAll should run in a linear time.
-      buffer.removeAll(linesToRemove);
     } finally {
       lock.writeLock().unlock();
     }
@@ -268,20 +359,246 @@ public class LoggingBuffer {
     eventListeners.forEach(event -> event.eventAdded(loggingEvent));
   }
 
+  /**
+   * Add a listener which receives every logging event. With asynchronous listeners enabled, the
+   * listener receives the events in batches on its own writer thread. This also applies to the
+   * listeners of logging plugins which add themselves when they are initialized.
+   *
+   * @param listener the listener to add
+   */
   public void addLoggingEventListener(IHopLoggingEventListener listener) {
+    if (asyncListeners && !(listener instanceof AsyncLoggingEventListener)) {
+      synchronized (this) {
+        if (shutdownHook == null) {
+          // Write what is still queued when the JVM exits
+          //
+          shutdownHook = new Thread(this::flushLoggingEventListeners, "Hop logging shutdown");
+          Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+      }
+      listener =
+          new AsyncLoggingEventListener(
+              listener, asyncQueueSize, asyncOverflowPolicy, asyncSampleRate);
+    }
     eventListeners.add(listener);
   }
 
+  /**
+   * Remove a listener. An asynchronous listener first receives the events still in its queue.
+   *
+   * @param listener the listener to remove
+   */
   public void removeLoggingEventListener(IHopLoggingEventListener listener) {
-    eventListeners.remove(listener);
+    if (eventListeners.remove(listener)) {
+      return;
+    }
+    for (IHopLoggingEventListener eventListener : eventListeners) {
+      if (eventListener instanceof AsyncLoggingEventListener asyncListener
+          && asyncListener.getListener() == listener) {
+        eventListeners.remove(asyncListener);
+        asyncListener.close();
+        return;
+      }
+    }
+  }
+
+  /** Wait until the asynchronous listeners received all the events logged so far. */
+  public void flushLoggingEventListeners() {
+    for (IHopLoggingEventListener eventListener : eventListeners) {
+      if (eventListener instanceof AsyncLoggingEventListener asyncListener) {
+        asyncListener.flush();
+      }
+    }
+  }
+
+  /**
+   * @return The number of logging events the asynchronous listeners dropped because their queue
+   *     was full
+   */
+  public long getDroppedLoggingEvents() {
+    long dropped = 0;
+    for (IHopLoggingEventListener eventListener : eventListeners) {
+      if (eventListener instanceof AsyncLoggingEventListener asyncListener) {
+        dropped += asyncListener.getDroppedEvents();
+      }
+    }
+    return dropped;
+  }
+
+  /**
+   * Hand the logging events to listeners added from now on on a writer thread per listener.
+   *
+   * @param queueSize the maximum number of events waiting for the writer thread of a listener
+   * @param overflowPolicy what to do with an event when the queue of a listener is full
+   * @param sampleRate with {@link LogOverflowPolicy#SAMPLE}, keep one in every this many events
+   */
+  public void enableAsyncListeners(int queueSize, LogOverflowPolicy overflowPolicy, int sampleRate) {
+    this.asyncQueueSize = queueSize;
+    this.asyncOverflowPolicy = overflowPolicy;
+    this.asyncSampleRate = sampleRate;
+    this.asyncListeners = true;
+  }
+
+  /** Hand the logging events to listeners added from now on on the thread that logs. */
+  public void disableAsyncListeners() {
+    this.asyncListeners = false;
+  }
+
+  public boolean isAsyncListeners() {
+    return asyncListeners;
   }
 
   private boolean isGeneral(String logChannelId) {
+    if (logChannelId == null) {
+      return false;
+    }
     ILoggingObject loggingObject = loggingRegistry.getLoggingObject(logChannelId);
     return loggingObject != null && LoggingObjectType.GENERAL.equals(loggingObject.getObjectType());
   }
 
+  /** Get the line at an index in the ring, 0 being the oldest line */
+  private BufferLine lineAt(int index) {
+    return ring[(first + index) & (ring.length - 1)];
+  }
+
+  private ChannelLines getChannelLines(String logChannelId) {
+    ChannelLines channelLines = channels.get(logChannelId);
+    if (channelLines == null) {
+      channelLines = new ChannelLines(logChannelId);
+      channels.put(logChannelId, channelLines);
+      if (isGeneral(logChannelId)) {
+        generalChannels.add(channelLines);
+      }
+    }
+    return channelLines;
+  }
+
+  /** Drop the oldest lines until the buffer holds no more than the maximum number of lines */
+  private void trim() {
+    while (bufferSize > 0 && nrLines > bufferSize) {
+      removeOldestLine();
+    }
+  }
+
+  /** Drop the oldest line: it is also the oldest line of its channel */
+  private void removeOldestLine() {
+    BufferLine line = ring[first];
+    ring[first] = null;
+    first = (first + 1) & (ring.length - 1);
+    count--;
+    nrLines--;
+
+    String logChannelId = getLogChId(line);
+    ChannelLines channelLines = channels.get(logChannelId);
+    channelLines.removeFirst();
+    if (channelLines.isEmpty()) {
+      channels.remove(logChannelId);
+      generalChannels.remove(channelLines);
+    }
+    skipRemovedLines();
+  }
+
+  private void removeChannelLines(ChannelLines channelLines) {
+    generalChannels.remove(channelLines);
+    nrLines -= channelLines.markRemoved();
+  }
+
+  /** Make sure the oldest line in the ring isn't a removed line */
+  private void skipRemovedLines() {
+    while (count > 0 && ring[first].removed) {
+      ring[first] = null;
+      first = (first + 1) & (ring.length - 1);
+      count--;
+    }
+  }
+
+  /**
+   * Make room in a full ring. The removed lines are dropped and the ring doubles in size if it is
+   * still more than half full.
+   */
+  private void resizeRing() {
+    int size = nrLines > ring.length / 2 ? ring.length * 2 : ring.length;
+    BufferLine[] newRing = new BufferLine[size];
+    int index = 0;
+    for (int i = 0; i < count; i++) {
+      BufferLine line = lineAt(i);
+      if (!line.removed) {
+        newRing[index++] = line;
+      }
+    }
+    ring = newRing;
+    first = 0;
+    count = index;
+  }
+
   private static String getLogChId(BufferLine bufferLine) {
     return ((LogMessage) bufferLine.getEvent().getMessage()).getLogChannelId();
   }
+
+  /** The lines of a single log channel, oldest first */
+  private static final class ChannelLines {
+    private final String logChannelId;
+    private BufferLine[] lines;
+    private int start;
+    private int end;
+
+    private ChannelLines(String logChannelId) {
+      this.logChannelId = logChannelId;
+      this.lines = new BufferLine[8];
+    }
+
+    private void add(BufferLine line) {
+      if (end == lines.length) {
+        int size = end - start;
+        BufferLine[] newLines = size < lines.length / 2 ? lines : new BufferLine[lines.length * 2];
+        System.arraycopy(lines, start, newLines, 0, size);
+        if (newLines == lines) {
+          Arrays.fill(lines, size, end, null);
+        }
+        lines = newLines;
+        start = 0;
+        end = size;
+      }
+      lines[end++] = line;
+    }
+
+    private void removeFirst() {
+      lines[start++] = null;
+      if (start == end) {
+        start = 0;
+        end = 0;
+      }
+    }
+
+    private boolean isEmpty() {
+      return start == end;
+    }
+
+    /**
+     * @return the number of lines marked as removed
+     */
+    private int markRemoved() {
+      for (int i = start; i < end; i++) {
+        lines[i].removed = true;
+      }
+      return end - start;
+    }
+
+    /** Add the lines numbered after "from" up to and including "to" */
+    private void collect(int from, int to, List<BufferLine> result) {
+      int low = start;
+      int high = end;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (lines[mid].getNr() <= from) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      for (int i = low; i < end && lines[i].getNr() <= to; i++) {
+        result.add(lines[i]);
+      }
+    }
+  }
 }
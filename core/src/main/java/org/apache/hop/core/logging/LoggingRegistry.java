@@ -22,33 +22,76 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.util.EnvUtil;
 
+/**
+ * Keeps the logging objects of the running and recently finished pipelines, workflows and their
+ * children by log channel ID.
+ *
+ * <p>The registry is bounded. A hierarchy which is marked as finished with {@link
+ * #markFinished(String)} is purged as a whole once it is older than {@link
+ * Const#HOP_LOGGING_REGISTRY_MAX_AGE_MINUTES}. When the registry holds more than {@link
+ * Const#HOP_MAX_LOGGING_REGISTRY_SIZE} objects, the oldest finished hierarchies are purged first,
+ * then the oldest hierarchies. Hierarchies which write to a log channel file writer are kept.
+ */
 public class LoggingRegistry {
   private static LoggingRegistry registry = new LoggingRegistry();
   private Map<String, ILoggingObject> map;
   private Map<String, LogChannelFileWriterBuffer> fileWriterBuffers;
-  private Map<String, List<String>> childrenMap;
+
+  /** The log channel IDs of the direct children per parent log channel ID */
+  private Map<String, Set<String>> childrenMap;
+
+  /** The parent log channel ID per child log channel ID */
+  private Map<String, String> parentMap;
+
+  /** The log channels without a registered parent, oldest first */
+  private final Set<String> roots;
+
+  /** The finished log channels with the time they finished, oldest first */
+  private final LinkedHashMap<String, Long> finished;
+
   private Date lastModificationTime;
   private int maxSize;
+  private long maxAgeMillis;
   private final int DEFAULT_MAX_SIZE = 10000;
+  private final int DEFAULT_MAX_AGE_MINUTES = 1440;
+
+  /** Protects the walks up the hierarchy against a log channel which is its own ancestor */
+  private static final int MAX_DEPTH = 1000;
+
+  private final AtomicLong hierarchiesPurgedByAge = new AtomicLong();
+  private final AtomicLong hierarchiesPurgedBySize = new AtomicLong();
+  private final AtomicLong objectsPurged = new AtomicLong();
 
   private final Object syncObject = new Object();
 
   private LoggingRegistry() {
     this.map = new ConcurrentHashMap<>();
     this.childrenMap = new ConcurrentHashMap<>();
+    this.parentMap = new ConcurrentHashMap<>();
     this.fileWriterBuffers = new ConcurrentHashMap<>();
+    this.roots = new LinkedHashSet<>();
+    this.finished = new LinkedHashMap<>();
 
     this.lastModificationTime = new Date();
     this.maxSize =
-        Const.toInt(EnvUtil.getSystemProperty("HOP_MAX_LOGGING_REGISTRY_SIZE"), DEFAULT_MAX_SIZE);
+        Const.toInt(
+            EnvUtil.getSystemProperty(Const.HOP_MAX_LOGGING_REGISTRY_SIZE), DEFAULT_MAX_SIZE);
+    this.maxAgeMillis =
+        Const.toInt(
+                EnvUtil.getSystemProperty(Const.HOP_LOGGING_REGISTRY_MAX_AGE_MINUTES),
+                DEFAULT_MAX_AGE_MINUTES)
+            * 60000L;
   }
 
   public static LoggingRegistry getInstance() {
@@ -80,10 +123,13 @@ public class LoggingRegistry {
           if (foundParentLogChannelId != null
               && foundParentLogChannelId.equals(sourceParentLogChannelId)
               && foundLogChannelId != null) {
+            // It's running again
+            this.finished.remove(foundLogChannelId);
             return foundLogChannelId;
           }
         }
         if (foundParent == null && loggingSourceParent == null && foundLogChannelId != null) {
+          this.finished.remove(foundLogChannelId);
           return foundLogChannelId;
         }
       }
@@ -93,57 +139,138 @@ public class LoggingRegistry {
 
       this.map.put(logChannelId, loggingSource);
 
+      String parentLogChannelId = null;
       if (loggingSource.getParent() != null) {
-        String parentLogChannelId = loggingSource.getParent().getLogChannelId();
-        if (parentLogChannelId != null) {
-          List<String> parentChildren =
-              this.childrenMap.computeIfAbsent(parentLogChannelId, k -> new ArrayList<>());
-          parentChildren.add(logChannelId);
-        }
+        parentLogChannelId = loggingSource.getParent().getLogChannelId();
+      }
+      if (parentLogChannelId != null) {
+        this.childrenMap
+            .computeIfAbsent(
+                parentLogChannelId, k -> Collections.synchronizedSet(new LinkedHashSet<>()))
+            .add(logChannelId);
+        this.parentMap.put(logChannelId, parentLogChannelId);
+      }
+      if (parentLogChannelId == null || !this.map.containsKey(parentLogChannelId)) {
+        this.roots.add(logChannelId);
       }
 
       this.lastModificationTime = new Date();
       loggingSource.setRegistrationDate(this.lastModificationTime);
 
-      if ((this.maxSize > 0) && (this.map.size() > this.maxSize)) {
-        List<ILoggingObject> all = new ArrayList<>(this.map.values());
-        Collections.sort(
-            all,
-            (o1, o2) -> {
-              if ((o1 == null) && (o2 != null)) {
-                return -1;
-              }
-              if ((o1 != null) && (o2 == null)) {
-                return 1;
-              }
-              if ((o1 == null) && (o2 == null)) {
-                return 0;
-              }
-              if (o1.getRegistrationDate() == null && o2.getRegistrationDate() != null) {
-                return -1;
-              }
-              if (o1.getRegistrationDate() != null && o2.getRegistrationDate() == null) {
-                return 1;
-              }
-              if (o1.getRegistrationDate() == null && o2.getRegistrationDate() == null) {
-                return 0;
-              }
-              return (o1.getRegistrationDate().compareTo(o2.getRegistrationDate()));
-            });
-        int cutCount = this.maxSize < 1000 ? this.maxSize : 1000;
-        Set<String> channelsNotToRemove = getLogChannelFileWriterBufferIds();
-        for (int i = 0; i < cutCount; i++) {
-          ILoggingObject toRemove = all.get(i);
-          if (!channelsNotToRemove.contains(toRemove.getLogChannelId())) {
-            this.map.remove(toRemove.getLogChannelId());
+      purge(this.lastModificationTime.getTime());
+
+      return logChannelId;
+    }
+  }
+
+  /**
+   * Mark the hierarchy of a log channel as finished. It will be purged from the registry once it's
+   * older than the maximum age, or earlier when the registry is full.
+   *
+   * @param logChannelId the log channel ID of the finished pipeline or workflow
+   */
+  public void markFinished(String logChannelId) {
+    if (logChannelId == null) {
+      return;
+    }
+    synchronized (this.syncObject) {
+      if (this.map.containsKey(logChannelId)) {
+        this.finished.remove(logChannelId);
+        this.finished.put(logChannelId, System.currentTimeMillis());
+      }
+    }
+  }
+
+  /**
+   * Purge the finished hierarchies which are too old and the oldest hierarchies when the registry
+   * is full.
+   *
+   * @param now the current time in ms
+   */
+  void purge(long now) {
+    synchronized (this.syncObject) {
+      if (this.maxAgeMillis > 0) {
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : this.finished.entrySet()) {
+          if (now - entry.getValue() < this.maxAgeMillis) {
+            break;
           }
+          expired.add(entry.getKey());
         }
+        if (!expired.isEmpty()) {
+          Set<String> channelsNotToRemove = getLogChannelFileWriterBufferIds();
+          for (String logChannelId : expired) {
+            if (!channelsNotToRemove.contains(logChannelId)
+                && removeHierarchy(logChannelId) > 0) {
+              this.hierarchiesPurgedByAge.incrementAndGet();
+            }
+          }
+        }
+      }
+
+      if (this.maxSize > 0 && this.map.size() > this.maxSize) {
+        // Make some room so that we don't purge on every registration
+        //
+        int targetSize = this.maxSize - Math.max(1, Math.min(this.maxSize / 10, 1000));
+        Set<String> channelsNotToRemove = getLogChannelFileWriterBufferIds();
+
+        // The finished hierarchies go first, then the oldest ones
+        //
+        purgeBySize(this.finished.keySet(), targetSize, channelsNotToRemove);
+        purgeBySize(this.roots, targetSize, channelsNotToRemove);
         removeOrphans();
       }
-      return logChannelId;
     }
   }
 
+  private void purgeBySize(Set<String> candidates, int targetSize, Set<String> channelsNotToRemove) {
+    List<String> victims = new ArrayList<>();
+    int size = this.map.size();
+    for (String logChannelId : candidates) {
+      if (size <= targetSize) {
+        break;
+      }
+      if (!channelsNotToRemove.contains(logChannelId)) {
+        victims.add(logChannelId);
+        size -= getLogChannelChildren(logChannelId).size();
+      }
+    }
+    for (String logChannelId : victims) {
+      if (removeHierarchy(logChannelId) > 0) {
+        this.hierarchiesPurgedBySize.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Remove a log channel and all its children from the registry.
+   *
+   * @param logChannelId the log channel to remove
+   * @return the number of logging objects removed
+   */
+  private int removeHierarchy(String logChannelId) {
+    String parentLogChannelId = this.parentMap.get(logChannelId);
+    if (parentLogChannelId != null) {
+      Set<String> siblings = this.childrenMap.get(parentLogChannelId);
+      if (siblings != null) {
+        siblings.remove(logChannelId);
+      }
+    }
+
+    int removed = 0;
+    for (String id : getLogChannelChildren(logChannelId)) {
+      if (this.map.remove(id) != null) {
+        removed++;
+      }
+      this.childrenMap.remove(id);
+      this.parentMap.remove(id);
+      this.roots.remove(id);
+      this.finished.remove(id);
+    }
+    this.objectsPurged.addAndGet(removed);
+    return removed;
+  }
+
   public ILoggingObject findExistingLoggingSource(ILoggingObject loggingObject) {
     ILoggingObject found = null;
     for (ILoggingObject verify : this.map.values()) {
@@ -173,28 +300,49 @@ public class LoggingRegistry {
   }
 
   private List<String> getLogChannelChildren(List<String> children, String parentLogChannelId) {
-    synchronized (this.syncObject) {
-      List<String> list = this.childrenMap.get(parentLogChannelId);
-      if (list == null) {
-        // Don't do anything, just return the input.
-        return children;
-      }
-
-      Iterator<String> kids = list.iterator();
-      while (kids.hasNext()) {
-        String logChannelId = kids.next();
+    Set<String> set = this.childrenMap.get(parentLogChannelId);
+    if (set == null) {
+      // Don't do anything, just return the input.
+      return children;
+    }
 
-        // Add the children recursively
-        getLogChannelChildren(children, logChannelId);
+    String[] kids;
+    synchronized (set) {
+      kids = set.toArray(new String[0]);
+    }
+    for (String logChannelId : kids) {
+      // Add the children recursively
+      getLogChannelChildren(children, logChannelId);
 
-        // Also add the current parent
-        children.add(logChannelId);
-      }
+      // Also add the current parent
+      children.add(logChannelId);
     }
 
     return children;
   }
 
+  /**
+   * @param parentLogChannelId the parent log channel ID
+   * @return the log channel IDs of the direct children of the parent, in order of registration
+   */
+  public List<String> getLogChannelDirectChildren(String parentLogChannelId) {
+    Set<String> set = parentLogChannelId == null ? null : this.childrenMap.get(parentLogChannelId);
+    if (set == null) {
+      return new ArrayList<>();
+    }
+    synchronized (set) {
+      return new ArrayList<>(set);
+    }
+  }
+
+  /**
+   * @param logChannelId the log channel ID
+   * @return the log channel ID of the parent or null if it has no parent
+   */
+  public String getLogChannelParent(String logChannelId) {
+    return logChannelId == null ? null : this.parentMap.get(logChannelId);
+  }
+
   public Date getLastModificationTime() {
     return this.lastModificationTime;
   }
@@ -236,24 +384,25 @@ public class LoggingRegistry {
    *
    * @return ro parent-child relations map
    */
-  Map<String, List<String>> dumpChildren() {
+  Map<String, Set<String>> dumpChildren() {
     return Collections.unmodifiableMap(this.childrenMap);
   }
 
   public void removeIncludingChildren(String logChannelId) {
-    synchronized (this.map) {
-      List<String> children = getLogChannelChildren(logChannelId);
-      for (String child : children) {
-        this.map.remove(child);
-      }
-      this.map.remove(logChannelId);
-      removeOrphans();
+    synchronized (this.syncObject) {
+      removeHierarchy(logChannelId);
     }
   }
 
   public void removeOrphans() {
-    // Remove all orphaned children
-    this.childrenMap.keySet().retainAll(this.map.keySet());
+    synchronized (this.syncObject) {
+      // Remove all orphaned children
+      Set<String> logChannelIds = this.map.keySet();
+      this.childrenMap.keySet().retainAll(logChannelIds);
+      this.parentMap.keySet().retainAll(logChannelIds);
+      this.roots.retainAll(logChannelIds);
+      this.finished.keySet().retainAll(logChannelIds);
+    }
   }
 
   public void registerLogChannelFileWriterBuffer(LogChannelFileWriterBuffer fileWriterBuffer) {
@@ -261,9 +410,18 @@ public class LoggingRegistry {
   }
 
   public LogChannelFileWriterBuffer getLogChannelFileWriterBuffer(String id) {
-    for (String bufferId : this.fileWriterBuffers.keySet()) {
-      if (getLogChannelChildren(bufferId).contains(id)) {
-        return this.fileWriterBuffers.get(bufferId);
+    if (this.fileWriterBuffers.isEmpty()) {
+      return null;
+    }
+    // Look for a buffer of the channel itself or one of its parents
+    //
+    int depth = 0;
+    for (String logChannelId = id;
+        logChannelId != null && depth < MAX_DEPTH;
+        logChannelId = this.parentMap.get(logChannelId), depth++) {
+      LogChannelFileWriterBuffer buffer = this.fileWriterBuffers.get(logChannelId);
+      if (buffer != null) {
+        return buffer;
       }
     }
     return null;
@@ -272,23 +430,33 @@ public class LoggingRegistry {
   protected Set<String> getLogChannelFileWriterBufferIds() {
     Set<String> bufferIds = this.fileWriterBuffers.keySet();
 
-    // Changed to a set as a band-aid. This stuff really should be done
-    // using a proper LRU cache.
     Set<String> ids = new HashSet<>();
     for (String id : bufferIds) {
       ids.addAll(getLogChannelChildren(id));
     }
 
+    // Also keep the parents of a buffer
+    //
+    for (String id : bufferIds) {
+      int depth = 0;
+      for (String parentId = this.parentMap.get(id);
+          parentId != null && depth < MAX_DEPTH;
+          parentId = this.parentMap.get(parentId), depth++) {
+        ids.add(parentId);
+      }
+    }
+
     ids.addAll(bufferIds);
     return ids;
   }
 
   public void removeLogChannelFileWriterBuffer(String id) {
-    Set<String> bufferIds = this.fileWriterBuffers.keySet();
+    Iterator<String> bufferIds = this.fileWriterBuffers.keySet().iterator();
+    List<String> children = getLogChannelChildren(id);
 
-    for (String bufferId : bufferIds) {
-      if (getLogChannelChildren(id).contains(bufferId)) {
-        this.fileWriterBuffers.remove(bufferId);
+    while (bufferIds.hasNext()) {
+      if (children.contains(bufferIds.next())) {
+        bufferIds.remove();
       }
     }
   }
@@ -297,16 +465,86 @@ public class LoggingRegistry {
     synchronized (this.syncObject) {
       map.clear();
       childrenMap.clear();
+      parentMap.clear();
+      roots.clear();
+      finished.clear();
       fileWriterBuffers.clear();
     }
   }
 
   /**
-   * Gets childrenMap
+   * Gets childrenMap: the log channel IDs of the direct children per parent log channel ID
    *
    * @return value of childrenMap
    */
-  public Map<String, List<String>> getChildrenMap() {
+  public Map<String, Set<String>> getChildrenMap() {
     return childrenMap;
   }
+
+  /**
+   * @return the number of logging objects in the registry
+   */
+  public int getRegistrySize() {
+    return this.map.size();
+  }
+
+  /**
+   * @return the number of finished hierarchies waiting to be purged
+   */
+  public int getNrFinishedHierarchies() {
+    synchronized (this.syncObject) {
+      return this.finished.size();
+    }
+  }
+
+  /**
+   * @return the number of finished hierarchies purged because they were too old
+   */
+  public long getHierarchiesPurgedByAge() {
+    return this.hierarchiesPurgedByAge.get();
+  }
+
+  /**
+   * @return the number of hierarchies purged because the registry was full
+   */
+  public long getHierarchiesPurgedBySize() {
+    return this.hierarchiesPurgedBySize.get();
+  }
+
+  /**
+   * @return the number of logging objects purged or removed from the registry
+   */
+  public long getObjectsPurged() {
+    return this.objectsPurged.get();
+  }
+
+  /**
+   * @return the maximum number of logging objects in the registry, 0 or lower means unlimited
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @param maxSize the maximum number of logging objects in the registry, 0 or lower means
+   *     unlimited
+   */
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the age in ms after which a finished hierarchy is purged, 0 or lower means never
+   */
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  /**
+   * @param maxAgeMillis the age in ms after which a finished hierarchy is purged, 0 or lower means
+   *     never
+   */
+  public void setMaxAgeMillis(long maxAgeMillis) {
+    this.maxAgeMillis = maxAgeMillis;
+  }
 }
@@ -116,6 +116,26 @@ public class Metrics implements IMetrics {
       new Metrics(MetricsSnapshotType.START, "METRIC_PIPELINE_INIT", "Initialize a pipeline");
   public static Metrics METRIC_PIPELINE_INIT_STOP =
       new Metrics(MetricsSnapshotType.STOP, "METRIC_PIPELINE_INIT", "Initialize a pipeline");
+  public static Metrics METRIC_PIPELINE_VIRTUAL_THREADS =
+      new Metrics(
+          MetricsSnapshotType.MAX,
+          "METRIC_PIPELINE_VIRTUAL_THREADS",
+          "Number of transforms running on virtual threads");
+  public static Metrics METRIC_PIPELINE_CARRIER_THREADS =
+      new Metrics(
+          MetricsSnapshotType.MAX,
+          "METRIC_PIPELINE_CARRIER_THREADS",
+          "Number of carrier threads of the virtual threads");
+  public static Metrics METRIC_PIPELINE_CARRIER_THREAD_CPU_TIME =
+      new Metrics(
+          MetricsSnapshotType.SUM,
+          "METRIC_PIPELINE_CARRIER_THREAD_CPU_TIME",
+          "CPU time consumed by the carrier threads (ms)");
+  public static Metrics METRIC_PIPELINE_CARRIER_THREAD_USAGE =
+      new Metrics(
+          MetricsSnapshotType.MAX,
+          "METRIC_PIPELINE_CARRIER_THREAD_USAGE",
+          "Carrier thread usage (%)");
   public static Metrics METRIC_TRANSFORM_EXECUTION_START =
       new Metrics(MetricsSnapshotType.START, "METRIC_TRANSFORM_EXECUTION", "Execute a transform");
   public static Metrics METRIC_TRANSFORM_EXECUTION_STOP =
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.hop.core.exception.HopEofException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.exception.HopPluginException;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.value.ValueMetaFactory;
+
+/**
+ * Row metadata which can't be changed after it's created. The value metadata is kept in an array
+ * and the name to index lookups are calculated up front so that reading the metadata doesn't need
+ * any locking. This makes it cheap to share between the threads of a running pipeline: the row sets
+ * of the hops carry a frozen copy of the layout of the rows once the first row is written.
+ *
+ * <p>All methods changing the layout throw an {@link UnsupportedOperationException}. Use {@link
+ * #clone()} to get a regular {@link RowMeta} which can be changed.
+ */
+public class FrozenRowMeta extends RowMeta {
+
+  private final IValueMeta[] valueMetas;
+  private final List<IValueMeta> valueMetaView;
+
+  /** The index of the first value with a given name */
+  private final Map<String, Integer> nameIndexes;
+
+  /** The index of the first value with a given lower case name */
+  private final Map<String, Integer> lowerCaseNameIndexes;
+
+  /** The indexes of the values which need a real clone of their data when cloning a row */
+  private final int[] realCloneIndexes;
+
+  private FrozenRowMeta(IValueMeta[] valueMetas) {
+    super();
+    this.valueMetas = valueMetas;
+    this.valueMetaView = Collections.unmodifiableList(Arrays.asList(valueMetas));
+    this.nameIndexes = new HashMap<>();
+    this.lowerCaseNameIndexes = new HashMap<>();
+
+    List<Integer> realClones = new ArrayList<>();
+    for (int i = 0; i < valueMetas.length; i++) {
+      String name = valueMetas[i].getName();
+      if (name != null) {
+        nameIndexes.putIfAbsent(name, i);
+        lowerCaseNameIndexes.putIfAbsent(name.toLowerCase(), i);
+      }
+      if (valueMetas[i].requiresRealClone()) {
+        realClones.add(i);
+      }
+    }
+    this.realCloneIndexes = realClones.stream().mapToInt(Integer::intValue).toArray();
+
+    // The methods we don't override read the list of the parent class
+    //
+    this.valueMetaList = valueMetaView;
+    this.needRealClone = realClones;
+  }
+
+  /**
+   * Create a frozen copy of the given row metadata. The value metadata is cloned so that later
+   * changes to the source don't affect the frozen copy.
+   *
+   * @param rowMeta the row metadata to freeze
+   * @return the frozen copy or the given row metadata if it was frozen already
+   */
+  public static FrozenRowMeta freeze(IRowMeta rowMeta) {
+    if (rowMeta instanceof FrozenRowMeta frozenRowMeta) {
+      return frozenRowMeta;
+    }
+    List<IValueMeta> sourceList = rowMeta.getValueMetaList();
+    IValueMeta[] valueMetas = new IValueMeta[sourceList.size()];
+    try {
+      for (int i = 0; i < valueMetas.length; i++) {
+        valueMetas[i] = ValueMetaFactory.cloneValueMeta(sourceList.get(i));
+      }
+    } catch (HopPluginException e) {
+      throw new RuntimeException("Unable to freeze row metadata " + rowMeta, e);
+    }
+    return new FrozenRowMeta(valueMetas);
+  }
+
+  @Override
+  public List<IValueMeta> getValueMetaList() {
+    return valueMetaView;
+  }
+
+  @Override
+  public int size() {
+    return valueMetas.length;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return valueMetas.length == 0;
+  }
+
+  @Override
+  public IValueMeta getValueMeta(int index) {
+    if (index >= 0 && index < valueMetas.length) {
+      return valueMetas[index];
+    }
+    return null;
+  }
+
+  @Override
+  public int indexOfValue(String valueName) {
+    if (valueName == null) {
+      return -1;
+    }
+    Integer index = nameIndexes.get(valueName);
+    if (index == null) {
+      index = lowerCaseNameIndexes.get(valueName.toLowerCase());
+    }
+    return index == null ? -1 : index;
+  }
+
+  @Override
+  public IValueMeta searchValueMeta(String valueName) {
+    int index = indexOfValue(valueName);
+    return index < 0 ? null : valueMetas[index];
+  }
+
+  @Override
+  public String[] getFieldNames() {
+    String[] names = new String[valueMetas.length];
+    for (int i = 0; i < valueMetas.length; i++) {
+      String name = valueMetas[i].getName();
+      names[i] = name == null ? "" : name;
+    }
+    return names;
+  }
+
+  @Override
+  public Object[] cloneRow(Object[] objects, Object[] newObjects) throws HopValueException {
+    for (int i : realCloneIndexes) {
+      newObjects[i] = valueMetas[i].cloneValueData(objects[i]);
+    }
+    return newObjects;
+  }
+
+  @Override
+  public String getString(Object[] row) throws HopValueException {
+    StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < valueMetas.length; i++) {
+      if (i > 0) {
+        buffer.append(", ");
+      }
+      buffer.append("[");
+      buffer.append(getString(row, i));
+      buffer.append("]");
+    }
+    return buffer.toString();
+  }
+
+  @Override
+  public int compare(Object[] rowData1, Object[] rowData2, int[] fieldnrs)
+      throws HopValueException {
+    for (int fieldnr : fieldnrs) {
+      int cmp = valueMetas[fieldnr].compare(rowData1[fieldnr], rowData2[fieldnr]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public boolean equals(Object[] rowData1, Object[] rowData2, int[] fieldnrs)
+      throws HopValueException {
+    return compare(rowData1, rowData2, fieldnrs) == 0;
+  }
+
+  @Override
+  public int compare(Object[] rowData1, Object[] rowData2, int[] fieldnrs1, int[] fieldnrs2)
+      throws HopValueException {
+    int len = Math.min(fieldnrs1.length, fieldnrs2.length);
+    for (int i = 0; i < len; i++) {
+      int cmp = valueMetas[fieldnrs1[i]].compare(rowData1[fieldnrs1[i]], rowData2[fieldnrs2[i]]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public int compare(
+      Object[] rowData1, IRowMeta rowMeta2, Object[] rowData2, int[] fieldnrs1, int[] fieldnrs2)
+      throws HopValueException {
+    int len = Math.min(fieldnrs1.length, fieldnrs2.length);
+    for (int i = 0; i < len; i++) {
+      IValueMeta valueMeta2 = rowMeta2.getValueMeta(fieldnrs2[i]);
+      int cmp =
+          valueMetas[fieldnrs1[i]].compare(
+              rowData1[fieldnrs1[i]], valueMeta2, rowData2[fieldnrs2[i]]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public int compare(Object[] rowData1, Object[] rowData2) throws HopValueException {
+    for (int i = 0; i < valueMetas.length; i++) {
+      int cmp = valueMetas[i].compare(rowData1[i], rowData2[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public int convertedValuesHashCode(Object[] rowData) throws HopValueException {
+    if (rowData == null) {
+      return 0;
+    }
+    int result = 1;
+    for (int i = 0; i < rowData.length; i++) {
+      result = 31 * result + valueMetas[i].hashCode();
+    }
+    return result;
+  }
+
+  @Override
+  public void writeData(DataOutputStream outputStream, Object[] data) throws HopFileException {
+    for (int i = 0; i < valueMetas.length; i++) {
+      valueMetas[i].writeData(outputStream, data[i]);
+    }
+
+    // Write a marker flag for empty rows to be able to detect an EOF on the other end
+    //
+    if (valueMetas.length == 0) {
+      try {
+        outputStream.writeBoolean(true);
+      } catch (IOException e) {
+        throw new HopFileException("Error writing marker flag", e);
+      }
+    }
+  }
+
+  @Override
+  public Object[] readData(DataInputStream inputStream)
+      throws HopFileException, SocketTimeoutException {
+    Object[] data = new Object[valueMetas.length];
+    for (int i = 0; i < valueMetas.length; i++) {
+      data[i] = valueMetas[i].readData(inputStream);
+    }
+    if (valueMetas.length == 0) {
+      try {
+        inputStream.readBoolean();
+      } catch (EOFException e) {
+        throw new HopEofException(e);
+      } catch (SocketTimeoutException e) {
+        throw e;
+      } catch (IOException e) {
+        throw new HopFileException(
+            this + " : Unable to read the marker flag data from input stream", e);
+      }
+    }
+    return data;
+  }
+
+  @Override
+  public void setValueMetaList(List<IValueMeta> valueMetaList) {
+    throw frozen();
+  }
+
+  @Override
+  public void addValueMeta(IValueMeta meta) {
+    throw frozen();
+  }
+
+  @Override
+  public void addValueMeta(int index, IValueMeta meta) {
+    throw frozen();
+  }
+
+  @Override
+  public void setValueMeta(int index, IValueMeta valueMeta) {
+    throw frozen();
+  }
+
+  @Override
+  public void addRowMeta(IRowMeta rowMeta) {
+    throw frozen();
+  }
+
+  @Override
+  public void mergeRowMeta(IRowMeta r, String originTransformName) {
+    throw frozen();
+  }
+
+  @Override
+  public void clear() {
+    throw frozen();
+  }
+
+  @Override
+  public void removeValueMeta(String valueName) {
+    throw frozen();
+  }
+
+  @Override
+  public void removeValueMeta(int index) {
+    throw frozen();
+  }
+
+  private UnsupportedOperationException frozen() {
+    return new UnsupportedOperationException(
+        "This row metadata can't be changed, use a clone instead: " + this);
+  }
+}
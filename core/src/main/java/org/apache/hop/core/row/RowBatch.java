@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import java.util.Arrays;
+
+/**
+ * A batch of rows stored column by column. Every column is a vector of values together with a
+ * bitmap which flags the null values. The row metadata is not part of the batch: it travels
+ * alongside, just like it does for single rows.
+ *
+ * <p>A batch is owned by one thread at a time. Once it is handed over to a row set the producer
+ * should no longer touch it: the consumer is free to modify it in place.
+ */
+public class RowBatch {
+  /** The default maximum number of rows in a batch */
+  public static final int DEFAULT_MAX_SIZE = 1024;
+
+  /** The values, indexed as [column][row] */
+  private Object[][] columns;
+
+  /** The null bitmaps, indexed as [column][row/64] */
+  private long[][] nulls;
+
+  private int nrColumns;
+  private int size;
+  private int capacity;
+
+  /**
+   * Create a new empty batch.
+   *
+   * @param nrColumns the number of columns in the batch
+   * @param capacity the initial number of rows the batch can hold without growing
+   */
+  public RowBatch(int nrColumns, int capacity) {
+    this.nrColumns = nrColumns;
+    this.capacity = Math.max(1, capacity);
+    this.size = 0;
+    this.columns = new Object[Math.max(nrColumns, 1)][];
+    this.nulls = new long[Math.max(nrColumns, 1)][];
+    for (int c = 0; c < nrColumns; c++) {
+      columns[c] = new Object[this.capacity];
+      nulls[c] = newBitmap(this.capacity);
+    }
+  }
+
+  private static long[] newBitmap(int capacity) {
+    return new long[(capacity + 63) >>> 6];
+  }
+
+  /**
+   * @return the number of rows in this batch
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if there are no rows in this batch
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the number of columns in this batch
+   */
+  public int getNrColumns() {
+    return nrColumns;
+  }
+
+  /**
+   * @return the number of rows this batch can hold before it needs to grow
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private void ensureCapacity(int wanted) {
+    if (wanted <= capacity) {
+      return;
+    }
+    int newCapacity = Math.max(wanted, capacity * 2);
+    for (int c = 0; c < nrColumns; c++) {
+      columns[c] = Arrays.copyOf(columns[c], newCapacity);
+      nulls[c] = Arrays.copyOf(nulls[c], (newCapacity + 63) >>> 6);
+    }
+    capacity = newCapacity;
+  }
+
+  /**
+   * Add a row at the end of the batch. Values beyond the number of columns are ignored, missing
+   * values are considered to be null.
+   *
+   * @param row the row to add
+   */
+  public void addRow(Object[] row) {
+    ensureCapacity(size + 1);
+    int rowNr = size++;
+    int n = Math.min(nrColumns, row.length);
+    for (int c = 0; c < n; c++) {
+      columns[c][rowNr] = row[c];
+      if (row[c] == null) {
+        setNullBit(c, rowNr);
+      }
+    }
+    for (int c = n; c < nrColumns; c++) {
+      setNullBit(c, rowNr);
+    }
+  }
+
+  /**
+   * Materialize a row of this batch.
+   *
+   * @param rowNr the row number
+   * @return a new (over-allocated) row with the values of the given row
+   */
+  public Object[] getRow(int rowNr) {
+    Object[] row = RowDataUtil.allocateRowData(nrColumns);
+    getRow(rowNr, row);
+    return row;
+  }
+
+  /**
+   * Copy the values of a row into an existing array. This allows a transform to evaluate rows one
+   * by one with a single re-usable array.
+   *
+   * @param rowNr the row number
+   * @param target the array to copy the values into, at least the number of columns long
+   */
+  public void getRow(int rowNr, Object[] target) {
+    for (int c = 0; c < nrColumns; c++) {
+      target[c] = columns[c][rowNr];
+    }
+  }
+
+  public Object getValue(int column, int rowNr) {
+    return columns[column][rowNr];
+  }
+
+  public void setValue(int column, int rowNr, Object value) {
+    columns[column][rowNr] = value;
+    if (value == null) {
+      setNullBit(column, rowNr);
+    } else {
+      nulls[column][rowNr >>> 6] &= ~(1L << rowNr);
+    }
+  }
+
+  /**
+   * @return true if the value in the given column and row is null
+   */
+  public boolean isNull(int column, int rowNr) {
+    return (nulls[column][rowNr >>> 6] & (1L << rowNr)) != 0;
+  }
+
+  private void setNullBit(int column, int rowNr) {
+    nulls[column][rowNr >>> 6] |= 1L << rowNr;
+  }
+
+  /**
+   * Gives direct access to the values of a column. Only the first {@link #size()} entries are
+   * valid. If you change values directly in the vector, call {@link #updateNulls(int)} afterwards.
+   *
+   * @param column the column index
+   * @return the vector of values of the column
+   */
+  public Object[] getColumn(int column) {
+    return columns[column];
+  }
+
+  /**
+   * Gives direct access to the null bitmap of a column: bit (rowNr % 64) of word (rowNr / 64) is
+   * set when the value is null.
+   *
+   * @param column the column index
+   * @return the null bitmap of the column
+   */
+  public long[] getNullBitmap(int column) {
+    return nulls[column];
+  }
+
+  /**
+   * Rebuild the null bitmap of a column after the values were changed directly in the vector.
+   *
+   * @param column the column index
+   */
+  public void updateNulls(int column) {
+    Object[] values = columns[column];
+    long[] bitmap = nulls[column];
+    Arrays.fill(bitmap, 0L);
+    for (int r = 0; r < size; r++) {
+      if (values[r] == null) {
+        bitmap[r >>> 6] |= 1L << r;
+      }
+    }
+  }
+
+  /**
+   * Add a new column at the end of the batch with only null values.
+   *
+   * @return the index of the new column
+   */
+  public int addColumn() {
+    if (nrColumns == columns.length) {
+      int newLength = Math.max(4, columns.length * 2);
+      columns = Arrays.copyOf(columns, newLength);
+      nulls = Arrays.copyOf(nulls, newLength);
+    }
+    int column = nrColumns++;
+    columns[column] = new Object[capacity];
+    long[] bitmap = newBitmap(capacity);
+    for (int r = 0; r < size; r++) {
+      bitmap[r >>> 6] |= 1L << r;
+    }
+    nulls[column] = bitmap;
+    return column;
+  }
+
+  /**
+   * Add a new column at the end of the batch with the same value in every row.
+   *
+   * @param value the value to put in all rows
+   * @return the index of the new column
+   */
+  public int addColumn(Object value) {
+    int column = addColumn();
+    if (value != null) {
+      Arrays.fill(columns[column], 0, size, value);
+      Arrays.fill(nulls[column], 0L);
+    }
+    return column;
+  }
+
+  /**
+   * Re-arrange the columns of the batch: column i of the result is column indexes[i] of the current
+   * batch. Columns can be removed, re-ordered or duplicated this way without touching the rows. A
+   * column which is selected more than once is copied so that the vectors stay independent.
+   *
+   * @param indexes the indexes of the columns to keep, in the new order
+   */
+  public void selectColumns(int[] indexes) {
+    Object[][] newColumns = new Object[Math.max(indexes.length, 1)][];
+    long[][] newNulls = new long[Math.max(indexes.length, 1)][];
+    boolean[] used = new boolean[nrColumns];
+    for (int i = 0; i < indexes.length; i++) {
+      int index = indexes[i];
+      if (used[index]) {
+        newColumns[i] = columns[index].clone();
+        newNulls[i] = nulls[index].clone();
+      } else {
+        newColumns[i] = columns[index];
+        newNulls[i] = nulls[index];
+        used[index] = true;
+      }
+    }
+    columns = newColumns;
+    nulls = newNulls;
+    nrColumns = indexes.length;
+  }
+
+  /**
+   * Only keep the rows which are flagged in the selection, in their original order.
+   *
+   * @param selection a flag per row: true to keep the row
+   */
+  public void filter(boolean[] selection) {
+    int kept = 0;
+    for (int r = 0; r < size; r++) {
+      if (selection[r]) {
+        if (kept != r) {
+          for (int c = 0; c < nrColumns; c++) {
+            columns[c][kept] = columns[c][r];
+          }
+        }
+        kept++;
+      }
+    }
+    truncate(kept);
+  }
+
+  /**
+   * Split this batch in two: the rows which are flagged in the selection stay, the other rows are
+   * moved to a new batch. Both keep the original order of the rows.
+   *
+   * @param selection a flag per row: true to keep the row in this batch
+   * @return a new batch with the rows which were not selected
+   */
+  public RowBatch split(boolean[] selection) {
+    RowBatch rejected = new RowBatch(nrColumns, Math.max(1, size));
+    int kept = 0;
+    for (int r = 0; r < size; r++) {
+      if (selection[r]) {
+        if (kept != r) {
+          for (int c = 0; c < nrColumns; c++) {
+            columns[c][kept] = columns[c][r];
+          }
+        }
+        kept++;
+      } else {
+        int target = rejected.size++;
+        for (int c = 0; c < nrColumns; c++) {
+          rejected.columns[c][target] = columns[c][r];
+        }
+      }
+    }
+    for (int c = 0; c < nrColumns; c++) {
+      rejected.updateNulls(c);
+    }
+    truncate(kept);
+    return rejected;
+  }
+
+  private void truncate(int newSize) {
+    for (int c = 0; c < nrColumns; c++) {
+      Arrays.fill(columns[c], newSize, size, null); // prevent any hold-up to GC
+    }
+    size = newSize;
+    for (int c = 0; c < nrColumns; c++) {
+      updateNulls(c);
+    }
+  }
+
+  /** Remove all rows from the batch, keep the columns. */
+  public void clear() {
+    truncate(0);
+  }
+}
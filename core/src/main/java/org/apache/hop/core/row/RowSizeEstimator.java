@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+/**
+ * Estimates how much heap memory a row takes up based on the metadata of the row. The estimate is
+ * rough: it's meant to compare rows of different widths and to keep buffers within a memory budget,
+ * not to measure memory usage precisely.
+ */
+public class RowSizeEstimator {
+
+  /** The estimated size of a row of which we don't know the layout */
+  public static final long DEFAULT_ROW_SIZE = 256L;
+
+  /** The object header and length of the row array */
+  private static final long ROW_OVERHEAD = 16L;
+
+  /** A reference to a value in the row array */
+  private static final long REFERENCE_SIZE = 8L;
+
+  /** The number of characters we assume for a string of unknown length */
+  private static final int DEFAULT_STRING_LENGTH = 32;
+
+  /** The number of bytes we assume for binary data of unknown length */
+  private static final int DEFAULT_BINARY_LENGTH = 256;
+
+  private RowSizeEstimator() {
+    // Static methods only
+  }
+
+  /**
+   * Estimate the size of a row with the given layout.
+   *
+   * @param rowMeta the layout of the row, can be null
+   * @return the estimated size in bytes
+   */
+  public static long estimateRowSize(IRowMeta rowMeta) {
+    if (rowMeta == null) {
+      return DEFAULT_ROW_SIZE;
+    }
+    long size = ROW_OVERHEAD;
+    for (IValueMeta valueMeta : rowMeta.getValueMetaList()) {
+      size += REFERENCE_SIZE + estimateValueSize(valueMeta);
+    }
+    return size;
+  }
+
+  /**
+   * Estimate the size of a single value, not counting the reference to it.
+   *
+   * @param valueMeta the metadata of the value
+   * @return the estimated size in bytes
+   */
+  public static long estimateValueSize(IValueMeta valueMeta) {
+    int length = valueMeta.getLength();
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_STRING:
+        // String object, array header and the characters (Latin-1 compact strings)
+        return 40L + (length > 0 ? length : DEFAULT_STRING_LENGTH);
+      case IValueMeta.TYPE_INTEGER, IValueMeta.TYPE_NUMBER, IValueMeta.TYPE_BOOLEAN:
+        return 16L;
+      case IValueMeta.TYPE_DATE:
+        return 24L;
+      case IValueMeta.TYPE_TIMESTAMP:
+        return 32L;
+      case IValueMeta.TYPE_BIGNUMBER:
+        return 64L;
+      case IValueMeta.TYPE_BINARY:
+        return 16L + (length > 0 ? length : DEFAULT_BINARY_LENGTH);
+      default:
+        return 64L;
+    }
+  }
+}
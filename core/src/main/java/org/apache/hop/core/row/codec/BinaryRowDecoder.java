@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+/**
+ * Decodes rows in the binary row format described in {@link RowCodec} from a buffer. The decoder
+ * needs to use a dictionary when the encoder did.
+ *
+ * <p>A decoder is not thread-safe.
+ */
+public class BinaryRowDecoder {
+  private final IValueMeta[] valueMetas;
+  private final int[] encodings;
+  private final List<String> dictionary;
+
+  private byte[] buffer;
+  private int position;
+  private int limit;
+
+  /**
+   * @param rowMeta the layout of the rows
+   * @param useDictionary true if the rows were encoded with a dictionary
+   */
+  public BinaryRowDecoder(IRowMeta rowMeta, boolean useDictionary) {
+    this.valueMetas = rowMeta.getValueMetaList().toArray(new IValueMeta[0]);
+    this.encodings = RowCodec.getEncodings(valueMetas);
+    this.dictionary = useDictionary ? new ArrayList<>() : null;
+  }
+
+  /**
+   * Start decoding the rows in a buffer, with an empty dictionary.
+   *
+   * @param buffer the buffer with the encoded rows
+   * @param offset the position of the first row in the buffer
+   * @param length the number of bytes of encoded rows
+   */
+  public void setBuffer(byte[] buffer, int offset, int length) {
+    this.buffer = buffer;
+    this.position = offset;
+    this.limit = offset + length;
+    if (dictionary != null) {
+      dictionary.clear();
+    }
+  }
+
+  /**
+   * @return true if there are more bytes to decode in the buffer
+   */
+  public boolean hasRemaining() {
+    return position < limit;
+  }
+
+  /**
+   * Decode a single row encoded with {@link BinaryRowEncoder#encodeRow(Object[])}.
+   *
+   * @param data the encoded row
+   * @return the row
+   * @throws HopFileException in case the data is not a valid row
+   */
+  public Object[] decodeRow(byte[] data) throws HopFileException {
+    setBuffer(data, 0, data.length);
+    return decode();
+  }
+
+  /**
+   * Decode the next row in the buffer.
+   *
+   * @return the row
+   * @throws HopFileException in case the data is not a valid row
+   */
+  public Object[] decode() throws HopFileException {
+    int nrFields = valueMetas.length;
+    int bitmapLength = (nrFields + 7) >>> 3;
+    checkRemaining(bitmapLength);
+    int bitmap = position;
+    position += bitmapLength;
+
+    Object[] row = new Object[nrFields];
+    for (int i = 0; i < nrFields; i++) {
+      if ((buffer[bitmap + (i >>> 3)] & (1 << (i & 7))) == 0) {
+        row[i] = decodeValue(i);
+      }
+    }
+    return row;
+  }
+
+  private Object decodeValue(int index) throws HopFileException {
+    switch (encodings[index]) {
+      case RowCodec.ENCODING_STRING:
+        return readString();
+      case RowCodec.ENCODING_INTEGER:
+        return unzigzag(readVarLong());
+      case RowCodec.ENCODING_NUMBER:
+        return Double.longBitsToDouble(readLong());
+      case RowCodec.ENCODING_DATE:
+        return new Date(unzigzag(readVarLong()));
+      case RowCodec.ENCODING_BIGNUMBER:
+        int scale = (int) unzigzag(readVarLong());
+        return new BigDecimal(new BigInteger(readBytes()), scale);
+      case RowCodec.ENCODING_BOOLEAN:
+        checkRemaining(1);
+        return buffer[position++] != 0;
+      case RowCodec.ENCODING_BYTES:
+        return readBytes();
+      case RowCodec.ENCODING_INDEX:
+        return (int) unzigzag(readVarLong());
+      default:
+        return readSerialized(valueMetas[index]);
+    }
+  }
+
+  private String readString() throws HopFileException {
+    long entry = readVarLong();
+    if (entry > 0) {
+      if (dictionary == null || entry > dictionary.size()) {
+        throw new HopFileException("Invalid reference to string " + entry + " in row data");
+      }
+      return dictionary.get((int) entry - 1);
+    }
+    int length = readLength();
+    String string = new String(buffer, position, length, StandardCharsets.UTF_8);
+    position += length;
+    if (dictionary != null
+        && length <= RowCodec.MAX_DICTIONARY_STRING_BYTES
+        && dictionary.size() < RowCodec.MAX_DICTIONARY_SIZE) {
+      dictionary.add(string);
+    }
+    return string;
+  }
+
+  private Object readSerialized(IValueMeta valueMeta) throws HopFileException {
+    int length = readLength();
+    DataInputStream inputStream =
+        new DataInputStream(new ByteArrayInputStream(buffer, position, length));
+    position += length;
+    try {
+      return valueMeta.readData(inputStream);
+    } catch (SocketTimeoutException e) {
+      throw new HopFileException(e);
+    }
+  }
+
+  private byte[] readBytes() throws HopFileException {
+    int length = readLength();
+    byte[] bytes = new byte[length];
+    System.arraycopy(buffer, position, bytes, 0, length);
+    position += length;
+    return bytes;
+  }
+
+  private int readLength() throws HopFileException {
+    long length = readVarLong();
+    if (length > limit - position) {
+      throw new HopFileException("Invalid length " + length + " in row data");
+    }
+    return (int) length;
+  }
+
+  private long readLong() throws HopFileException {
+    checkRemaining(8);
+    long value = 0L;
+    for (int i = 0; i < 8; i++) {
+      value = (value << 8) | (buffer[position++] & 0xFF);
+    }
+    return value;
+  }
+
+  private long readVarLong() throws HopFileException {
+    long value = 0L;
+    for (int shift = 0; shift < 64; shift += 7) {
+      checkRemaining(1);
+      byte b = buffer[position++];
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new HopFileException("Invalid variable length integer in row data");
+  }
+
+  private void checkRemaining(int length) throws HopFileException {
+    if (position + length > limit) {
+      throw new HopFileException("Unexpected end of row data");
+    }
+  }
+
+  static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1L);
+  }
+}
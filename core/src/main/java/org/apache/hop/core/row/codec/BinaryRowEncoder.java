@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+/**
+ * Encodes rows in the binary row format described in {@link RowCodec}, appending them to a buffer.
+ * An encoder without a dictionary always encodes the same row to the same bytes, which makes it
+ * suitable to build keys of hash indexes with {@link #encodeRow(Object[])}.
+ *
+ * <p>An encoder is not thread-safe.
+ */
+public class BinaryRowEncoder {
+  private final IValueMeta[] valueMetas;
+  private final int[] encodings;
+  private final Map<String, Integer> dictionary;
+
+  private byte[] buffer;
+  private int position;
+
+  private ByteArrayOutputStream serializedBuffer;
+  private DataOutputStream serializedStream;
+
+  /**
+   * @param rowMeta the layout of the rows
+   * @param useDictionary true to encode strings which occur more than once as a reference
+   */
+  public BinaryRowEncoder(IRowMeta rowMeta, boolean useDictionary) {
+    this(rowMeta, useDictionary, new byte[256]);
+  }
+
+  /**
+   * @param rowMeta the layout of the rows
+   * @param useDictionary true to encode strings which occur more than once as a reference
+   * @param buffer the buffer to start encoding in, replaced by a larger one when needed
+   */
+  public BinaryRowEncoder(IRowMeta rowMeta, boolean useDictionary, byte[] buffer) {
+    this.valueMetas = rowMeta.getValueMetaList().toArray(new IValueMeta[0]);
+    this.encodings = RowCodec.getEncodings(valueMetas);
+    this.dictionary = useDictionary ? new HashMap<>() : null;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Append a row to the buffer.
+   *
+   * @param row the row to encode
+   * @throws HopFileException in case a value can't be encoded
+   */
+  public void encode(Object[] row) throws HopFileException {
+    int nrFields = valueMetas.length;
+    int bitmapLength = (nrFields + 7) >>> 3;
+    ensureCapacity(bitmapLength);
+    int bitmap = position;
+    Arrays.fill(buffer, bitmap, bitmap + bitmapLength, (byte) 0);
+    position += bitmapLength;
+
+    for (int i = 0; i < nrFields; i++) {
+      Object value = row[i];
+      if (value == null) {
+        buffer[bitmap + (i >>> 3)] |= (byte) (1 << (i & 7));
+      } else {
+        try {
+          encodeValue(i, value);
+        } catch (ClassCastException e) {
+          throw new HopFileException(
+              valueMetas[i]
+                  + " : the data type of "
+                  + value.getClass().getName()
+                  + " object ["
+                  + value
+                  + "] does not correspond to value meta ["
+                  + valueMetas[i].toStringMeta()
+                  + "]",
+              e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Encode a single row.
+   *
+   * @param row the row to encode
+   * @return a new array with the encoded row
+   * @throws HopFileException in case a value can't be encoded
+   */
+  public byte[] encodeRow(Object[] row) throws HopFileException {
+    reset();
+    encode(row);
+    return Arrays.copyOf(buffer, position);
+  }
+
+  /** Start with an empty buffer and an empty dictionary. */
+  public void reset() {
+    position = 0;
+    if (dictionary != null) {
+      dictionary.clear();
+    }
+  }
+
+  /**
+   * Gets buffer
+   *
+   * @return value of buffer, the encoded rows are found in the first {@link #size()} bytes
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * @return the number of bytes of encoded rows in the buffer
+   */
+  public int size() {
+    return position;
+  }
+
+  private void encodeValue(int index, Object value) throws HopFileException {
+    switch (encodings[index]) {
+      case RowCodec.ENCODING_STRING:
+        writeString((String) value);
+        break;
+      case RowCodec.ENCODING_INTEGER:
+        writeVarLong(zigzag((Long) value));
+        break;
+      case RowCodec.ENCODING_NUMBER:
+        writeLong(Double.doubleToLongBits((Double) value));
+        break;
+      case RowCodec.ENCODING_DATE:
+        writeVarLong(zigzag(((Date) value).getTime()));
+        break;
+      case RowCodec.ENCODING_BIGNUMBER:
+        BigDecimal bigDecimal = (BigDecimal) value;
+        writeVarLong(zigzag(bigDecimal.scale()));
+        writeBytes(bigDecimal.unscaledValue().toByteArray());
+        break;
+      case RowCodec.ENCODING_BOOLEAN:
+        ensureCapacity(1);
+        buffer[position++] = (byte) (((Boolean) value) ? 1 : 0);
+        break;
+      case RowCodec.ENCODING_BYTES:
+        writeBytes((byte[]) value);
+        break;
+      case RowCodec.ENCODING_INDEX:
+        writeVarLong(zigzag((Integer) value));
+        break;
+      default:
+        writeSerialized(valueMetas[index], value);
+        break;
+    }
+  }
+
+  private void writeString(String string) {
+    if (dictionary != null) {
+      Integer entry = dictionary.get(string);
+      if (entry != null) {
+        writeVarLong(entry + 1L);
+        return;
+      }
+    }
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(0L);
+    writeBytes(bytes);
+    if (dictionary != null
+        && bytes.length <= RowCodec.MAX_DICTIONARY_STRING_BYTES
+        && dictionary.size() < RowCodec.MAX_DICTIONARY_SIZE) {
+      dictionary.put(string, dictionary.size());
+    }
+  }
+
+  private void writeSerialized(IValueMeta valueMeta, Object value) throws HopFileException {
+    if (serializedBuffer == null) {
+      serializedBuffer = new ByteArrayOutputStream();
+      serializedStream = new DataOutputStream(serializedBuffer);
+    }
+    serializedBuffer.reset();
+    valueMeta.writeData(serializedStream, value);
+    try {
+      serializedStream.flush();
+    } catch (IOException e) {
+      throw new HopFileException(valueMeta + " : Unable to serialize value", e);
+    }
+    writeBytes(serializedBuffer.toByteArray());
+  }
+
+  private void writeBytes(byte[] bytes) {
+    writeVarLong(bytes.length);
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  private void writeLong(long value) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[position++] = (byte) (value >>> shift);
+    }
+  }
+
+  private void writeVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0L) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+  }
+
+  private void ensureCapacity(int extra) {
+    if (position + extra > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+    }
+  }
+
+  static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+}
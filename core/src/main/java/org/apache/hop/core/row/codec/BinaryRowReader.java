@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * Reads rows in the binary row format described in {@link RowCodec}. A block of rows is read from
+ * the stream at a time into a pooled buffer, so the stream doesn't need to be buffered.
+ */
+public class BinaryRowReader implements IRowReader {
+  private final InputStream inputStream;
+  private final BinaryRowDecoder decoder;
+
+  private byte[] block;
+  private int rowsLeft;
+  private boolean finished;
+  private boolean closed;
+
+  /**
+   * Create a reader and read the header of the stream.
+   *
+   * @param rowMeta the layout of the rows
+   * @param inputStream the stream to read from, closed when the reader is closed
+   * @throws HopFileException in case the stream doesn't start with a valid header
+   */
+  public BinaryRowReader(IRowMeta rowMeta, InputStream inputStream) throws HopFileException {
+    this.inputStream = inputStream;
+    this.decoder = new BinaryRowDecoder(rowMeta, true);
+    try {
+      for (byte magic : RowCodec.MAGIC) {
+        if (inputStream.read() != magic) {
+          throw new HopFileException("The stream doesn't contain rows in the binary row format");
+        }
+      }
+      int version = inputStream.read();
+      if (version < 1 || version > RowCodec.VERSION) {
+        throw new HopFileException(
+            "Version " + version + " of the binary row format is not supported");
+      }
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read the row format header", e);
+    }
+    this.block = RowBufferPool.acquire();
+  }
+
+  @Override
+  public Object[] readRow() throws HopFileException {
+    while (rowsLeft == 0) {
+      if (finished || !readBlock()) {
+        return null;
+      }
+    }
+    rowsLeft--;
+    return decoder.decode();
+  }
+
+  private boolean readBlock() throws HopFileException {
+    try {
+      int nrRows = readVarInt(true);
+      if (nrRows <= 0) {
+        finished = true;
+        return false;
+      }
+      int length = readVarInt(false);
+      if (length > block.length) {
+        block = new byte[length];
+      }
+      int read = 0;
+      while (read < length) {
+        int count = inputStream.read(block, read, length - read);
+        if (count < 0) {
+          throw new HopFileException("Unexpected end of a block of rows");
+        }
+        read += count;
+      }
+      decoder.setBuffer(block, 0, length);
+      rowsLeft = nrRows;
+      return true;
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read a block of rows", e);
+    }
+  }
+
+  private int readVarInt(boolean endAllowed) throws IOException, HopFileException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = inputStream.read();
+      if (b < 0) {
+        if (endAllowed && shift == 0) {
+          return -1;
+        }
+        throw new HopFileException("Unexpected end of the row input stream");
+      }
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new HopFileException("Invalid block header in the row input stream");
+  }
+
+  @Override
+  public void close() throws HopFileException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    RowBufferPool.release(block);
+    block = null;
+    try {
+      inputStream.close();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to close the row input stream", e);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * Writes rows in the binary row format described in {@link RowCodec}. The rows are encoded in a
+ * pooled buffer and written to the stream a block at a time, so the stream doesn't need to be
+ * buffered.
+ */
+public class BinaryRowWriter implements IRowWriter {
+  private final OutputStream outputStream;
+  private final BinaryRowEncoder encoder;
+  private final byte[] header = new byte[10];
+
+  private int nrRows;
+  private boolean closed;
+
+  /**
+   * Create a writer and write the header of the stream.
+   *
+   * @param rowMeta the layout of the rows
+   * @param outputStream the stream to write to, closed when the writer is closed
+   * @throws HopFileException in case the header can't be written
+   */
+  public BinaryRowWriter(IRowMeta rowMeta, OutputStream outputStream) throws HopFileException {
+    this.outputStream = outputStream;
+    this.encoder = new BinaryRowEncoder(rowMeta, true, RowBufferPool.acquire());
+    try {
+      outputStream.write(RowCodec.MAGIC);
+      outputStream.write(RowCodec.VERSION);
+    } catch (IOException e) {
+      throw new HopFileException("Unable to write the row format header", e);
+    }
+  }
+
+  @Override
+  public void writeRow(Object[] row) throws HopFileException {
+    encoder.encode(row);
+    nrRows++;
+    if (encoder.size() >= RowCodec.BLOCK_SIZE) {
+      writeBlock();
+    }
+  }
+
+  private void writeBlock() throws HopFileException {
+    if (nrRows == 0) {
+      return;
+    }
+    try {
+      int length = putVarInt(header, 0, nrRows);
+      length = putVarInt(header, length, encoder.size());
+      outputStream.write(header, 0, length);
+      outputStream.write(encoder.getBuffer(), 0, encoder.size());
+    } catch (IOException e) {
+      throw new HopFileException("Unable to write a block of rows", e);
+    }
+    encoder.reset();
+    nrRows = 0;
+  }
+
+  @Override
+  public void flush() throws HopFileException {
+    writeBlock();
+    try {
+      outputStream.flush();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to flush rows to the output stream", e);
+    }
+  }
+
+  @Override
+  public void close() throws HopFileException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      writeBlock();
+      // A block without rows marks the end of the stream
+      //
+      outputStream.write(0);
+      outputStream.close();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to close the row output stream", e);
+    } finally {
+      RowBufferPool.release(encoder.getBuffer());
+    }
+  }
+
+  private static int putVarInt(byte[] bytes, int offset, int value) {
+    while ((value & ~0x7F) != 0) {
+      bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    bytes[offset++] = (byte) value;
+    return offset;
+  }
+}
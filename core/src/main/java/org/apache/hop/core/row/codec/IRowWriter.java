@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import org.apache.hop.core.exception.HopFileException;
+
+/** Writes rows with the same layout to a stream, one after the other. */
+public interface IRowWriter extends AutoCloseable {
+
+  /**
+   * Write a row.
+   *
+   * @param row the row to write, with the layout given when creating the writer
+   * @throws HopFileException in case the row can't be written
+   */
+  void writeRow(Object[] row) throws HopFileException;
+
+  /**
+   * Write the rows which are still buffered and flush the stream.
+   *
+   * @throws HopFileException in case the rows can't be written
+   */
+  void flush() throws HopFileException;
+
+  /**
+   * Write the rows which are still buffered and close the stream.
+   *
+   * @throws HopFileException in case the rows can't be written or the stream can't be closed
+   */
+  @Override
+  void close() throws HopFileException;
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import org.apache.hop.core.exception.HopEofException;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * Reads rows with {@link IRowMeta#readData(DataInputStream)}, the format of Hop 2.9 and earlier.
+ */
+public class LegacyRowReader implements IRowReader {
+  private final IRowMeta rowMeta;
+  private final DataInputStream inputStream;
+
+  public LegacyRowReader(IRowMeta rowMeta, InputStream inputStream) {
+    this.rowMeta = rowMeta;
+    this.inputStream = new DataInputStream(inputStream);
+  }
+
+  @Override
+  public Object[] readRow() throws HopFileException {
+    try {
+      return rowMeta.readData(inputStream);
+    } catch (HopEofException e) {
+      return null;
+    } catch (SocketTimeoutException e) {
+      throw new HopFileException("Timeout while reading a row from the input stream", e);
+    }
+  }
+
+  @Override
+  public void close() throws HopFileException {
+    try {
+      inputStream.close();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to close the row input stream", e);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * Writes rows with {@link IRowMeta#writeData(DataOutputStream, Object[])}, the format of Hop 2.9
+ * and earlier.
+ */
+public class LegacyRowWriter implements IRowWriter {
+  private final IRowMeta rowMeta;
+  private final DataOutputStream outputStream;
+
+  public LegacyRowWriter(IRowMeta rowMeta, OutputStream outputStream) {
+    this.rowMeta = rowMeta;
+    this.outputStream =
+        new DataOutputStream(new BufferedOutputStream(outputStream, RowCodec.BLOCK_SIZE));
+  }
+
+  @Override
+  public void writeRow(Object[] row) throws HopFileException {
+    rowMeta.writeData(outputStream, row);
+  }
+
+  @Override
+  public void flush() throws HopFileException {
+    try {
+      outputStream.flush();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to flush rows to the output stream", e);
+    }
+  }
+
+  @Override
+  public void close() throws HopFileException {
+    try {
+      outputStream.close();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to close the row output stream", e);
+    }
+  }
+}
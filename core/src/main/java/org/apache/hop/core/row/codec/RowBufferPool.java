@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of the buffers used to encode and decode blocks of rows. Transforms writing and reading
+ * temporary files open and close many streams: reusing the buffers avoids allocating a large array
+ * for each of them.
+ */
+public class RowBufferPool {
+
+  /** The size of the pooled buffers: a block plus room for the row which completes it */
+  public static final int BUFFER_SIZE = RowCodec.BLOCK_SIZE + RowCodec.BLOCK_SIZE / 4;
+
+  /** The maximum number of buffers kept in the pool */
+  private static final int MAX_POOLED_BUFFERS = 64;
+
+  private static final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger nrBuffers = new AtomicInteger();
+
+  private RowBufferPool() {
+    // Static methods only
+  }
+
+  /**
+   * Take a buffer from the pool or allocate a new one if the pool is empty.
+   *
+   * @return a buffer of {@link #BUFFER_SIZE} bytes
+   */
+  public static byte[] acquire() {
+    byte[] buffer = buffers.poll();
+    if (buffer == null) {
+      return new byte[BUFFER_SIZE];
+    }
+    nrBuffers.decrementAndGet();
+    return buffer;
+  }
+
+  /**
+   * Give a buffer back to the pool. Buffers of another size than {@link #BUFFER_SIZE} are ignored,
+   * as well as buffers given back when the pool is full.
+   *
+   * @param buffer the buffer which is no longer used, can be null
+   */
+  public static void release(byte[] buffer) {
+    if (buffer == null || buffer.length != BUFFER_SIZE) {
+      return;
+    }
+    if (nrBuffers.incrementAndGet() > MAX_POOLED_BUFFERS) {
+      nrBuffers.decrementAndGet();
+      return;
+    }
+    buffers.offer(buffer);
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+/**
+ * Creates the readers and writers of rows in the binary row format, a compact alternative to the
+ * fixed width encoding of {@link IRowMeta#writeData(java.io.DataOutputStream, Object[])}.
+ *
+ * <p>A stream starts with a header: the bytes <code>HRW</code> followed by the version of the
+ * format. Then follow blocks of rows, each starting with the number of rows and the number of bytes
+ * in the block. A block with 0 rows ends the stream. Every row in a block consists of:
+ *
+ * <ul>
+ *   <li>A bitmap with a bit set for every field which is null
+ *   <li>The values which are not null:
+ *       <ul>
+ *         <li>Integers, dates and indexes as zigzag encoded variable length integers
+ *         <li>Numbers as the 8 bytes of the double
+ *         <li>Strings as a reference to a string which occurred before in the same block or as
+ *             length prefixed UTF-8
+ *         <li>Big numbers as the scale and the length prefixed unscaled value
+ *         <li>Booleans as a single byte
+ *         <li>Binary data and binary strings as length prefixed bytes
+ *         <li>Any other value as the length prefixed output of {@link
+ *             IValueMeta#writeData(java.io.DataOutputStream, Object)}
+ *       </ul>
+ * </ul>
+ *
+ * <p>All lengths are variable length integers. Streams written with {@link
+ * IRowMeta#writeData(java.io.DataOutputStream, Object[])} by older versions can still be read with
+ * {@link #createReader(IRowMeta, InputStream)}: a row in that format can never start with the
+ * header.
+ */
+public class RowCodec {
+
+  /** The current version of the binary row format */
+  public static final int VERSION = 1;
+
+  /** The number of bytes of encoded rows after which a block is written */
+  public static final int BLOCK_SIZE = 64 * 1024;
+
+  /** The header at the start of every stream in the binary row format */
+  static final byte[] MAGIC = {'H', 'R', 'W'};
+
+  /** The maximum number of strings in the dictionary of a block */
+  static final int MAX_DICTIONARY_SIZE = 4096;
+
+  /** Only strings up to this number of UTF-8 bytes are added to the dictionary */
+  static final int MAX_DICTIONARY_STRING_BYTES = 64;
+
+  static final int ENCODING_STRING = 0;
+  static final int ENCODING_INTEGER = 1;
+  static final int ENCODING_NUMBER = 2;
+  static final int ENCODING_DATE = 3;
+  static final int ENCODING_BIGNUMBER = 4;
+  static final int ENCODING_BOOLEAN = 5;
+  static final int ENCODING_BYTES = 6;
+  static final int ENCODING_INDEX = 7;
+  static final int ENCODING_SERIALIZED = 8;
+
+  private RowCodec() {
+    // Static methods only
+  }
+
+  /**
+   * Create a writer of rows in the binary row format.
+   *
+   * @param rowMeta the layout of the rows
+   * @param outputStream the stream to write to, closed when the writer is closed
+   * @return the writer
+   * @throws HopFileException in case the header can't be written
+   */
+  public static IRowWriter createWriter(IRowMeta rowMeta, OutputStream outputStream)
+      throws HopFileException {
+    return new BinaryRowWriter(rowMeta, outputStream);
+  }
+
+  /**
+   * Create a writer of rows in the format of {@link IRowMeta#writeData(java.io.DataOutputStream,
+   * Object[])}, for readers which don't support the binary row format.
+   *
+   * @param rowMeta the layout of the rows
+   * @param outputStream the stream to write to, closed when the writer is closed
+   * @return the writer
+   */
+  public static IRowWriter createLegacyWriter(IRowMeta rowMeta, OutputStream outputStream) {
+    return new LegacyRowWriter(rowMeta, outputStream);
+  }
+
+  /**
+   * Create a reader of rows. The format of the rows is detected: both the binary row format and the
+   * format of {@link IRowMeta#writeData(java.io.DataOutputStream, Object[])} can be read.
+   *
+   * @param rowMeta the layout of the rows
+   * @param inputStream the stream to read from, closed when the reader is closed
+   * @return the reader
+   * @throws HopFileException in case the start of the stream can't be read
+   */
+  public static IRowReader createReader(IRowMeta rowMeta, InputStream inputStream)
+      throws HopFileException {
+    InputStream stream = new BufferedInputStream(inputStream, BLOCK_SIZE);
+    int first;
+    try {
+      stream.mark(1);
+      first = stream.read();
+      stream.reset();
+    } catch (IOException e) {
+      throw new HopFileException("Unable to read the start of the row input stream", e);
+    }
+    if (first == MAGIC[0]) {
+      return new BinaryRowReader(rowMeta, stream);
+    }
+    return new LegacyRowReader(rowMeta, stream);
+  }
+
+  /**
+   * Determine how the values of the given fields are encoded.
+   *
+   * @param valueMetas the fields
+   * @return the encoding of every field
+   */
+  static int[] getEncodings(IValueMeta[] valueMetas) {
+    int[] encodings = new int[valueMetas.length];
+    for (int i = 0; i < valueMetas.length; i++) {
+      encodings[i] = getEncoding(valueMetas[i]);
+    }
+    return encodings;
+  }
+
+  private static int getEncoding(IValueMeta valueMeta) {
+    switch (valueMeta.getStorageType()) {
+      case IValueMeta.STORAGE_TYPE_BINARY_STRING:
+        return ENCODING_BYTES;
+      case IValueMeta.STORAGE_TYPE_INDEXED:
+        return ENCODING_INDEX;
+      default:
+        break;
+    }
+    switch (valueMeta.getType()) {
+      case IValueMeta.TYPE_STRING:
+        return ENCODING_STRING;
+      case IValueMeta.TYPE_INTEGER:
+        return ENCODING_INTEGER;
+      case IValueMeta.TYPE_NUMBER:
+        return ENCODING_NUMBER;
+      case IValueMeta.TYPE_DATE:
+        return ENCODING_DATE;
+      case IValueMeta.TYPE_BIGNUMBER:
+        return ENCODING_BIGNUMBER;
+      case IValueMeta.TYPE_BOOLEAN:
+        return ENCODING_BOOLEAN;
+      case IValueMeta.TYPE_BINARY:
+        return ENCODING_BYTES;
+      default:
+        return ENCODING_SERIALIZED;
+    }
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.codec;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.Collator;
+import java.text.RuleBasedCollator;
+import java.util.Arrays;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaBase;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+
+/**
+ * Encodes the key fields of a row into a normalized key: a byte array which sorts with a plain
+ * unsigned byte comparison ({@link #compare(byte[], byte[])}) in the same order as {@link
+ * IRowMeta#compare(Object[], Object[], int[])} sorts the rows. Encoding the keys once per row
+ * avoids the type checks, conversions and collation work of every single comparison.
+ *
+ * <p>The encoding of every key field is prefix-free, which keeps the order of the fields intact
+ * when they're concatenated:
+ *
+ * <ul>
+ *   <li>A null marker: 0 for null, 1 for a value. Null sorts first.
+ *   <li>Integers and dates: the 8 bytes of the long value with the sign bit flipped.
+ *   <li>Numbers: the 8 bytes of the double in the order of {@link Double#compare(double, double)}.
+ *   <li>Strings: the UTF-16 characters, the case folded code points when case insensitive, or the
+ *       collation key when the collator is enabled. Zero bytes are escaped as 0x00 0xFF and the
+ *       value ends with 0x00 0x00.
+ *   <li>Big numbers: the sign, the decimal exponent and the significant digits.
+ *   <li>Binaries: the length followed by the bytes.
+ * </ul>
+ *
+ * For a descending key all the bytes of the field, the null marker included, are inverted. Like
+ * with {@link IValueMeta#compare(Object, Object)} nulls then sort last.
+ *
+ * <p>With the collator enabled the order is the one of {@link java.text.CollationKey}, which only
+ * differs from {@link Collator#compare(String, String)} for ignorable non-characters like U+FFFF.
+ *
+ * <p>Only the standard value types without a custom comparator can be encoded. Use {@link
+ * #create(IRowMeta, int[])} to find out and fall back to the row comparison when it returns null.
+ * An encoder is not thread-safe.
+ */
+public class SortKeyEncoder {
+  private static final byte NULL_MARKER = 0;
+  private static final byte VALUE_MARKER = 1;
+
+  private final IValueMeta[] keyMetas;
+  private final int[] keyIndexes;
+  private final Collator[] collators;
+
+  private byte[] buffer;
+  private int position;
+
+  private SortKeyEncoder(IValueMeta[] keyMetas, int[] keyIndexes, Collator[] collators) {
+    this.keyMetas = keyMetas;
+    this.keyIndexes = keyIndexes;
+    this.collators = collators;
+    this.buffer = new byte[64];
+  }
+
+  /**
+   * Create an encoder for the given key fields.
+   *
+   * @param rowMeta the layout of the rows, including the sort order of the keys
+   * @param keyIndexes the indexes of the key fields in the rows
+   * @return the encoder or null if one of the key fields can't be encoded
+   */
+  public static SortKeyEncoder create(IRowMeta rowMeta, int[] keyIndexes) {
+    IValueMeta[] keyMetas = new IValueMeta[keyIndexes.length];
+    Collator[] collators = new Collator[keyIndexes.length];
+    for (int i = 0; i < keyIndexes.length; i++) {
+      IValueMeta keyMeta = rowMeta.getValueMeta(keyIndexes[i]);
+      if (!canEncode(keyMeta)) {
+        return null;
+      }
+      keyMetas[i] = keyMeta;
+      if (keyMeta.getType() == IValueMeta.TYPE_STRING && !keyMeta.isCollatorDisabled()) {
+        // Every encoder gets its own collator with the same rules and strength
+        collators[i] = (Collator) ((ValueMetaBase) keyMeta).getCollator().clone();
+      }
+    }
+    return new SortKeyEncoder(keyMetas, keyIndexes.clone(), collators);
+  }
+
+  /**
+   * @param valueMeta the value metadata of a key field
+   * @return true if the values can be encoded into a normalized key
+   */
+  public static boolean canEncode(IValueMeta valueMeta) {
+    Class<?> valueMetaClass = valueMeta.getClass();
+    if (valueMeta instanceof ValueMetaBase valueMetaBase && valueMetaBase.getComparator() != null) {
+      return false;
+    }
+    if (valueMetaClass == ValueMetaString.class) {
+      return valueMeta.isCollatorDisabled()
+          || ((ValueMetaBase) valueMeta).getCollator() instanceof RuleBasedCollator;
+    }
+    return valueMetaClass == ValueMetaInteger.class
+        || valueMetaClass == ValueMetaNumber.class
+        || valueMetaClass == ValueMetaDate.class
+        || valueMetaClass == ValueMetaTimestamp.class
+        || valueMetaClass == ValueMetaBigNumber.class
+        || valueMetaClass == ValueMetaBoolean.class
+        || valueMetaClass == ValueMetaBinary.class;
+  }
+
+  /**
+   * Compare two normalized keys.
+   *
+   * @return a negative number, zero or a positive number if the first key sorts before, the same as
+   *     or after the second key
+   */
+  public static int compare(byte[] key1, byte[] key2) {
+    return Arrays.compareUnsigned(key1, key2);
+  }
+
+  /**
+   * Encode the key fields of a row.
+   *
+   * @param row the row
+   * @return a new array with the normalized key
+   * @throws HopValueException in case a key value can't be converted
+   */
+  public byte[] encode(Object[] row) throws HopValueException {
+    position = 0;
+    for (int i = 0; i < keyMetas.length; i++) {
+      IValueMeta keyMeta = keyMetas[i];
+      Object value = row[keyIndexes[i]];
+      int start = position;
+      if (keyMeta.isNull(value)) {
+        append(NULL_MARKER);
+      } else {
+        append(VALUE_MARKER);
+        encodeValue(i, keyMeta, value);
+      }
+      if (keyMeta.isSortedDescending()) {
+        for (int b = start; b < position; b++) {
+          buffer[b] = (byte) ~buffer[b];
+        }
+      }
+    }
+    return Arrays.copyOf(buffer, position);
+  }
+
+  private void encodeValue(int keyNr, IValueMeta keyMeta, Object value) throws HopValueException {
+    switch (keyMeta.getType()) {
+      case IValueMeta.TYPE_STRING:
+        encodeString(keyNr, keyMeta, keyMeta.getString(value));
+        break;
+      case IValueMeta.TYPE_INTEGER:
+        appendLong(keyMeta.getInteger(value) ^ Long.MIN_VALUE);
+        break;
+      case IValueMeta.TYPE_NUMBER:
+        long bits = Double.doubleToLongBits(keyMeta.getNumber(value));
+        appendLong(bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+        break;
+      case IValueMeta.TYPE_DATE:
+        appendLong(keyMeta.getDate(value).getTime() ^ Long.MIN_VALUE);
+        break;
+      case IValueMeta.TYPE_TIMESTAMP:
+        Timestamp timestamp = ((ValueMetaTimestamp) keyMeta).getTimestamp(value);
+        appendLong(timestamp.getTime() ^ Long.MIN_VALUE);
+        appendInt(timestamp.getNanos());
+        break;
+      case IValueMeta.TYPE_BIGNUMBER:
+        encodeBigNumber(keyMeta.getBigNumber(value));
+        break;
+      case IValueMeta.TYPE_BOOLEAN:
+        append(keyMeta.getBoolean(value) ? (byte) 1 : (byte) 0);
+        break;
+      case IValueMeta.TYPE_BINARY:
+        // Shorter binaries sort first, then the bytes are compared as signed values
+        byte[] bytes = keyMeta.getBinary(value);
+        appendInt(bytes.length ^ Integer.MIN_VALUE);
+        ensureCapacity(bytes.length);
+        for (byte b : bytes) {
+          buffer[position++] = (byte) (b ^ 0x80);
+        }
+        break;
+      default:
+        throw new HopValueException(
+            keyMeta + " : Sort keys can not be encoded for data type : " + keyMeta.getType());
+    }
+  }
+
+  private void encodeString(int keyNr, IValueMeta keyMeta, String string) {
+    if (keyMeta.isIgnoreWhitespace()) {
+      string = string.trim();
+    }
+    if (collators[keyNr] != null) {
+      for (byte b : collators[keyNr].getCollationKey(string).toByteArray()) {
+        appendEscaped(b);
+      }
+    } else if (keyMeta.isCaseInsensitive()) {
+      // The same folding as String.compareToIgnoreCase(), which compares whole code points
+      for (int i = 0; i < string.length(); ) {
+        int codePoint = string.codePointAt(i);
+        i += Character.charCount(codePoint);
+        codePoint = Character.toLowerCase(Character.toUpperCase(codePoint));
+        appendEscaped((byte) (codePoint >>> 16));
+        appendEscaped((byte) (codePoint >>> 8));
+        appendEscaped((byte) codePoint);
+      }
+    } else {
+      for (int i = 0; i < string.length(); i++) {
+        char c = string.charAt(i);
+        appendEscaped((byte) (c >>> 8));
+        appendEscaped((byte) c);
+      }
+    }
+    append((byte) 0);
+    append((byte) 0);
+  }
+
+  private void encodeBigNumber(BigDecimal bigNumber) {
+    int signum = bigNumber.signum();
+    if (signum == 0) {
+      append((byte) 2);
+      return;
+    }
+    append(signum < 0 ? (byte) 1 : (byte) 3);
+
+    // The value is 0.<digits> * 10^exponent, larger exponents are larger numbers
+    BigDecimal normalized = bigNumber.abs().stripTrailingZeros();
+    String digits = normalized.unscaledValue().toString();
+    int exponent = digits.length() - normalized.scale();
+
+    int start = position;
+    appendInt(exponent ^ Integer.MIN_VALUE);
+    ensureCapacity(digits.length() + 1);
+    for (int i = 0; i < digits.length(); i++) {
+      buffer[position++] = (byte) digits.charAt(i);
+    }
+    buffer[position++] = 0;
+
+    // Larger negative numbers sort first
+    if (signum < 0) {
+      for (int b = start; b < position; b++) {
+        buffer[b] = (byte) ~buffer[b];
+      }
+    }
+  }
+
+  private void appendEscaped(byte b) {
+    append(b);
+    if (b == 0) {
+      append((byte) 0xFF);
+    }
+  }
+
+  private void appendLong(long value) {
+    appendInt((int) (value >>> 32));
+    appendInt((int) value);
+  }
+
+  private void appendInt(int value) {
+    ensureCapacity(4);
+    buffer[position++] = (byte) (value >>> 24);
+    buffer[position++] = (byte) (value >>> 16);
+    buffer[position++] = (byte) (value >>> 8);
+    buffer[position++] = (byte) value;
+  }
+
+  private void append(byte b) {
+    ensureCapacity(1);
+    buffer[position++] = b;
+  }
+
+  private void ensureCapacity(int extra) {
+    if (position + extra > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+    }
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * A hand-written parser and formatter for date masks which only consist of fixed width numeric
+ * fields and separators, like <code>yyyy/MM/dd HH:mm:ss.SSS</code>, <code>yyyy-MM-dd</code> or
+ * <code>yyyyMMdd</code>. It gives the same results as the {@link SimpleDateFormat} it was compiled
+ * from, without the locking, regular expressions and locale lookups.
+ *
+ * <p>Only values the fast path can handle exactly the same way are converted: the methods return
+ * null for everything else (values of a different width, out of range fields, dates before the
+ * Gregorian calendar or around a daylight saving time switch, ...) and the caller falls back to the
+ * date format. Instances are immutable and can be shared between threads.
+ */
+final class FastDateMask {
+
+  private static final int FIELD_LITERAL = 0;
+  private static final int FIELD_YEAR = 1;
+  private static final int FIELD_MONTH = 2;
+  private static final int FIELD_DAY = 3;
+  private static final int FIELD_HOUR = 4;
+  private static final int FIELD_MINUTE = 5;
+  private static final int FIELD_SECOND = 6;
+  private static final int FIELD_MILLISECOND = 7;
+
+  /** Avoid the switch between the Julian and the Gregorian calendar */
+  private static final int MIN_YEAR = 1600;
+
+  private static final int MAX_YEAR = 9999;
+
+  /** The field of every character in the formatted date */
+  private final int[] fields;
+
+  /** The literal characters of the mask, the other positions are not used */
+  private final char[] literals;
+
+  /** Which fields are part of the mask */
+  private final boolean[] hasField;
+
+  private final ZoneRules zoneRules;
+
+  private FastDateMask(int[] fields, char[] literals, ZoneRules zoneRules) {
+    this.fields = fields;
+    this.literals = literals;
+    this.zoneRules = zoneRules;
+    this.hasField = new boolean[FIELD_MILLISECOND + 1];
+    for (int field : fields) {
+      hasField[field] = true;
+    }
+  }
+
+  /**
+   * Compile the fast path for a date format.
+   *
+   * @param dateFormat the date format to compile
+   * @return the fast path or null if the date format has features the fast path doesn't support
+   */
+  static FastDateMask compile(SimpleDateFormat dateFormat) {
+    if (dateFormat == null
+        || dateFormat.getCalendar().getClass() != GregorianCalendar.class
+        || !(dateFormat.getNumberFormat() instanceof DecimalFormat decimalFormat)
+        || decimalFormat.getDecimalFormatSymbols().getZeroDigit() != '0') {
+      return null;
+    }
+    TimeZone timeZone = dateFormat.getTimeZone();
+    ZoneId zoneId;
+    try {
+      zoneId = timeZone.toZoneId();
+      if (!TimeZone.getTimeZone(zoneId).hasSameRules(timeZone)) {
+        return null;
+      }
+    } catch (Exception e) {
+      return null;
+    }
+
+    String pattern = dateFormat.toPattern();
+    List<Integer> fieldList = new ArrayList<>();
+    StringBuilder literalList = new StringBuilder();
+    boolean[] seen = new boolean[FIELD_MILLISECOND + 1];
+    int i = 0;
+    while (i < pattern.length()) {
+      char c = pattern.charAt(i);
+      int count = 1;
+      while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+        count++;
+      }
+      int field;
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+        field = letterField(c, count);
+        if (field == FIELD_LITERAL || seen[field]) {
+          return null;
+        }
+        seen[field] = true;
+      } else if (c == '\'') {
+        // Quoted text
+        return null;
+      } else {
+        field = FIELD_LITERAL;
+      }
+      for (int n = 0; n < count; n++) {
+        fieldList.add(field);
+        literalList.append(c);
+      }
+      i += count;
+    }
+    if (fieldList.isEmpty()) {
+      return null;
+    }
+
+    int[] fields = fieldList.stream().mapToInt(Integer::intValue).toArray();
+    return new FastDateMask(fields, literalList.toString().toCharArray(), zoneId.getRules());
+  }
+
+  private static int letterField(char letter, int count) {
+    switch (letter) {
+      case 'y':
+        return count == 4 ? FIELD_YEAR : FIELD_LITERAL;
+      case 'M':
+        return count == 2 ? FIELD_MONTH : FIELD_LITERAL;
+      case 'd':
+        return count == 2 ? FIELD_DAY : FIELD_LITERAL;
+      case 'H':
+        return count == 2 ? FIELD_HOUR : FIELD_LITERAL;
+      case 'm':
+        return count == 2 ? FIELD_MINUTE : FIELD_LITERAL;
+      case 's':
+        return count == 2 ? FIELD_SECOND : FIELD_LITERAL;
+      case 'S':
+        return count == 3 ? FIELD_MILLISECOND : FIELD_LITERAL;
+      default:
+        return FIELD_LITERAL;
+    }
+  }
+
+  /**
+   * Parse a date.
+   *
+   * @param string the string to parse
+   * @return the date or null if the string needs to be parsed by the date format
+   */
+  Date parse(String string) {
+    if (string.length() != fields.length) {
+      return null;
+    }
+    int[] values = new int[FIELD_MILLISECOND + 1];
+    for (int i = 0; i < fields.length; i++) {
+      char c = string.charAt(i);
+      int field = fields[i];
+      if (field == FIELD_LITERAL) {
+        if (c != literals[i]) {
+          return null;
+        }
+      } else if (c >= '0' && c <= '9') {
+        values[field] = values[field] * 10 + (c - '0');
+      } else {
+        return null;
+      }
+    }
+    int year = hasField[FIELD_YEAR] ? values[FIELD_YEAR] : 1970;
+    int month = hasField[FIELD_MONTH] ? values[FIELD_MONTH] : 1;
+    int day = hasField[FIELD_DAY] ? values[FIELD_DAY] : 1;
+    int hour = values[FIELD_HOUR];
+    int minute = values[FIELD_MINUTE];
+    int second = values[FIELD_SECOND];
+    int millisecond = values[FIELD_MILLISECOND];
+    if (year < MIN_YEAR
+        || year > MAX_YEAR
+        || month < 1
+        || month > 12
+        || day < 1
+        || day > lengthOfMonth(year, month)
+        || hour > 23
+        || minute > 59
+        || second > 59) {
+      return null;
+    }
+
+    LocalDateTime localDateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+    List<ZoneOffset> offsets = zoneRules.getValidOffsets(localDateTime);
+    if (offsets.size() != 1) {
+      // In a gap or an overlap of a daylight saving time switch
+      return null;
+    }
+    long epochSecond = localDateTime.toEpochSecond(offsets.get(0));
+    return new Date(epochSecond * 1000L + millisecond);
+  }
+
+  /**
+   * Format a date.
+   *
+   * @param date the date to format
+   * @return the formatted date or null if the date needs to be formatted by the date format
+   */
+  String format(Date date) {
+    long time = date.getTime();
+    ZoneOffset offset = zoneRules.getOffset(Instant.ofEpochMilli(time));
+    long epochSecond = Math.floorDiv(time, 1000L);
+    int millisecond = (int) Math.floorMod(time, 1000L);
+    LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, offset);
+    int year = localDateTime.getYear();
+    if (year < MIN_YEAR || year > MAX_YEAR) {
+      return null;
+    }
+
+    char[] chars = new char[fields.length];
+    for (int i = fields.length - 1; i >= 0; ) {
+      int field = fields[i];
+      int value;
+      switch (field) {
+        case FIELD_LITERAL -> {
+          chars[i] = literals[i];
+          i--;
+          continue;
+        }
+        case FIELD_YEAR -> value = year;
+        case FIELD_MONTH -> value = localDateTime.getMonthValue();
+        case FIELD_DAY -> value = localDateTime.getDayOfMonth();
+        case FIELD_HOUR -> value = localDateTime.getHour();
+        case FIELD_MINUTE -> value = localDateTime.getMinute();
+        case FIELD_SECOND -> value = localDateTime.getSecond();
+        default -> value = millisecond;
+      }
+      // Write the digits of the field from right to left
+      //
+      while (i >= 0 && fields[i] == field) {
+        chars[i] = (char) ('0' + value % 10);
+        value /= 10;
+        i--;
+      }
+    }
+    return new String(chars);
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+        return leap ? 29 : 28;
+      case 4, 6, 9, 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+}
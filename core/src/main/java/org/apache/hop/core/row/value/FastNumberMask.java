@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * A hand-written parser for plain decimal numbers like <code>-1234.56</code>, compiled from a
+ * {@link DecimalFormat} with a simple mask like <code>#.#</code>, <code>0.00</code> or <code>
+ * ####0;-####0</code>. It gives the same results as the decimal format, without the locking and the
+ * allocation of parse positions and digit lists.
+ *
+ * <p>Only numbers the fast path can handle exactly the same way are parsed: the methods return null
+ * for everything else (grouping symbols, exponents, too many digits, ...) and the caller falls back
+ * to the decimal format. Instances are immutable and can be shared between threads.
+ */
+final class FastNumberMask {
+
+  /** The number of digits which always fit in the mantissa of a double */
+  private static final int MAX_DOUBLE_DIGITS = 15;
+
+  /** The number of digits which always fit in a long */
+  private static final int MAX_LONG_DIGITS = 18;
+
+  /** The powers of ten which can be represented exactly by a double */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final String positivePrefix;
+  private final String negativePrefix;
+  private final char decimalSeparator;
+
+  private FastNumberMask(String positivePrefix, String negativePrefix, char decimalSeparator) {
+    this.positivePrefix = positivePrefix;
+    this.negativePrefix = negativePrefix;
+    this.decimalSeparator = decimalSeparator;
+  }
+
+  /**
+   * Compile the fast path for a decimal format.
+   *
+   * @param decimalFormat the decimal format to compile
+   * @return the fast path or null if the decimal format has features the fast path doesn't support
+   */
+  static FastNumberMask compile(DecimalFormat decimalFormat) {
+    if (decimalFormat == null
+        || decimalFormat.isParseBigDecimal()
+        || decimalFormat.isParseIntegerOnly()
+        || decimalFormat.getMultiplier() != 1) {
+      return null;
+    }
+    String pattern = decimalFormat.toPattern();
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == 'E' || c == '%' || c == '\u2030' || c == '\u00A4' || c == '\'') {
+        // Exponents, percentages, currencies and quoted text
+        return null;
+      }
+    }
+    DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+    String positivePrefix = decimalFormat.getPositivePrefix();
+    String negativePrefix = decimalFormat.getNegativePrefix();
+    char decimalSeparator = symbols.getDecimalSeparator();
+    if (symbols.getZeroDigit() != '0'
+        || !decimalFormat.getPositiveSuffix().isEmpty()
+        || !decimalFormat.getNegativeSuffix().isEmpty()
+        || positivePrefix.startsWith(negativePrefix)
+        || isDigit(decimalSeparator)
+        || decimalSeparator == symbols.getGroupingSeparator()
+        || containsNumberCharacter(positivePrefix, decimalSeparator)
+        || containsNumberCharacter(negativePrefix, decimalSeparator)) {
+      return null;
+    }
+    return new FastNumberMask(positivePrefix, negativePrefix, decimalSeparator);
+  }
+
+  private static boolean containsNumberCharacter(String prefix, char decimalSeparator) {
+    for (int i = 0; i < prefix.length(); i++) {
+      char c = prefix.charAt(i);
+      if (isDigit(c) || c == decimalSeparator) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Parse a number.
+   *
+   * @param string the string to parse
+   * @return the number or null if the string needs to be parsed by the decimal format
+   */
+  Double parseNumber(String string) {
+    boolean negative = string.startsWith(negativePrefix);
+    int position;
+    if (negative) {
+      position = negativePrefix.length();
+    } else if (string.startsWith(positivePrefix)) {
+      position = positivePrefix.length();
+    } else {
+      return null;
+    }
+
+    long mantissa = 0L;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean fraction = false;
+    int length = string.length();
+    for (int i = position; i < length; i++) {
+      char c = string.charAt(i);
+      if (isDigit(c)) {
+        if (mantissa != 0L || c != '0') {
+          if (++digits > MAX_DOUBLE_DIGITS) {
+            return null;
+          }
+        }
+        mantissa = mantissa * 10 + (c - '0');
+        if (fraction) {
+          fractionDigits++;
+        }
+      } else if (c == decimalSeparator && !fraction) {
+        fraction = true;
+      } else {
+        return null;
+      }
+    }
+    if (length == position
+        || (fraction && length == position + 1)
+        || fractionDigits >= POWERS_OF_TEN.length) {
+      return null;
+    }
+
+    // Both the mantissa and the power of ten are exact, so is the correctly rounded division
+    //
+    double value = mantissa / POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parse an integer.
+   *
+   * @param string the string to parse
+   * @return the integer or null if the string needs to be parsed by the decimal format
+   */
+  Long parseInteger(String string) {
+    boolean negative = string.startsWith(negativePrefix);
+    int position;
+    if (negative) {
+      position = negativePrefix.length();
+    } else if (string.startsWith(positivePrefix)) {
+      position = positivePrefix.length();
+    } else {
+      return null;
+    }
+
+    int length = string.length();
+    if (length == position || length - position > MAX_LONG_DIGITS) {
+      return null;
+    }
+    long value = 0L;
+    for (int i = position; i < length; i++) {
+      char c = string.charAt(i);
+      if (!isDigit(c)) {
+        return null;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return negative ? -value : value;
+  }
+}
@@ -208,6 +208,12 @@ public class ValueMetaBase implements IValueMeta {
   @JsonIgnore protected DecimalFormat decimalFormat;
   @JsonIgnore protected boolean decimalFormatChanged;
 
+  /** The date format used by the conversions, usable from several threads at the same time */
+  @JsonIgnore private volatile DateConversion dateConversion;
+
+  /** The decimal format used by the conversions, usable from several threads at the same time */
+  @JsonIgnore private volatile NumberConversion numberConversion;
+
   @JsonIgnore protected IValueMeta storageMetadata;
   @JsonIgnore protected boolean identicalFormat;
 
@@ -610,6 +616,8 @@ public class ValueMetaBase implements IValueMeta {
       ValueMetaBase valueMeta = (ValueMetaBase) super.clone();
       valueMeta.dateFormat = null;
       valueMeta.decimalFormat = null;
+      valueMeta.dateConversion = null;
+      valueMeta.numberConversion = null;
       if (dateFormatLocale != null) {
         valueMeta.dateFormatLocale = (Locale) dateFormatLocale.clone();
       }
@@ -933,6 +941,22 @@ public class ValueMetaBase implements IValueMeta {
     }
   }
 
+  /**
+   * @return the collator used to compare strings when the collator is not disabled
+   */
+  @JsonIgnore
+  public Collator getCollator() {
+    return collator;
+  }
+
+  /**
+   * @return the comparator used instead of the type comparison or null if there is none
+   */
+  @JsonIgnore
+  public Comparator<Object> getComparator() {
+    return comparator;
+  }
+
   /**
    * @get the collatorStrength
    */
@@ -1042,12 +1066,18 @@ public class ValueMetaBase implements IValueMeta {
 
   // DATE + STRING
 
-  protected synchronized String convertDateToString(Date date) {
+  protected String convertDateToString(Date date) {
     if (date == null) {
       return null;
     }
 
-    return getDateFormat().format(date);
+    DateConversion conversion = getDateConversion(false);
+    if (conversion == null) {
+      synchronized (this) {
+        return getDateFormat().format(date);
+      }
+    }
+    return conversion.format(date);
   }
 
   protected static SimpleDateFormat compatibleDateFormat =
@@ -1063,7 +1093,7 @@ public class ValueMetaBase implements IValueMeta {
         : compatibleDateFormat.format(date));
   }
 
-  public synchronized Date convertStringToDate(String string) throws HopValueException {
+  public Date convertStringToDate(String string) throws HopValueException {
     string = Const.trimToType(string, getTrimType()); // see if trimming needs
     // to be performed before
     // conversion
@@ -1072,9 +1102,23 @@ public class ValueMetaBase implements IValueMeta {
       return null;
     }
 
+    DateConversion conversion = getDateConversion(true);
+    if (conversion == null) {
+      synchronized (this) {
+        return parseDate(getDateFormat(TYPE_DATE), string);
+      }
+    }
+    Date date = conversion.parseFast(string);
+    if (date != null) {
+      return date;
+    }
+    return parseDate(conversion.getFormat(), string);
+  }
+
+  private Date parseDate(SimpleDateFormat format, String string) throws HopValueException {
     try {
       ParsePosition pp = new ParsePosition(0);
-      Date result = getDateFormat(TYPE_DATE).parse(string, pp);
+      Date result = format.parse(string, pp);
       if (pp.getErrorIndex() >= 0) {
         // error happen
         throw new ParseException(string, pp.getErrorIndex());
@@ -1129,7 +1173,7 @@ public class ValueMetaBase implements IValueMeta {
     return new Date(number.longValue());
   }
 
-  public synchronized String convertNumberToString(Double number) throws HopValueException {
+  public String convertNumberToString(Double number) throws HopValueException {
     if (number == null) {
       if (!outputPaddingEnabled || length < 1) {
         return null;
@@ -1147,9 +1191,17 @@ public class ValueMetaBase implements IValueMeta {
       }
     }
 
-    try {
-      DecimalFormat format = getDecimalFormat(false);
+    NumberConversion conversion = getNumberConversion();
+    if (conversion == null) {
+      synchronized (this) {
+        return formatNumber(getDecimalFormat(false), number);
+      }
+    }
+    return formatNumber(conversion.getFormat(), number);
+  }
 
+  private String formatNumber(DecimalFormat format, Double number) throws HopValueException {
+    try {
       // When conversion masks are different, we must ensure the number precision is not lost
       if (this.conversionMask != null
           && storageMetadata != null
@@ -1170,7 +1222,7 @@ public class ValueMetaBase implements IValueMeta {
     return Double.toString(number);
   }
 
-  protected synchronized Double convertStringToNumber(String string) throws HopValueException {
+  protected Double convertStringToNumber(String string) throws HopValueException {
     string = Const.trimToType(string, getTrimType()); // see if trimming needs
     // to be performed before
     // conversion
@@ -1179,8 +1231,21 @@ public class ValueMetaBase implements IValueMeta {
       return null;
     }
 
+    NumberConversion conversion = getNumberConversion();
+    if (conversion == null) {
+      synchronized (this) {
+        return parseNumber(getDecimalFormat(false), string);
+      }
+    }
+    Double number = conversion.parseNumberFast(string);
+    if (number != null) {
+      return number;
+    }
+    return parseNumber(conversion.getFormat(), string);
+  }
+
+  private Double parseNumber(DecimalFormat format, String string) throws HopValueException {
     try {
-      DecimalFormat format = getDecimalFormat(false);
       Number number;
       if (lenientStringToNumber) {
         number = format.parse(string);
@@ -1307,6 +1372,50 @@ public class ValueMetaBase implements IValueMeta {
     return decimalFormat;
   }
 
+  /**
+   * Get the date format to convert values with from any thread without locking.
+   *
+   * @param parsing true to get the date format for parsing, false for formatting
+   * @return the date conversion or null if the values need to be converted with the shared date
+   *     format
+   */
+  private DateConversion getDateConversion(boolean parsing) {
+    if (conversionMetadata != null) {
+      return null;
+    }
+    DateConversion conversion = dateConversion;
+    if (conversion != null && conversion.source == dateFormat && !dateFormatChanged) {
+      return conversion;
+    }
+    synchronized (this) {
+      SimpleDateFormat format = parsing ? getDateFormat(TYPE_DATE) : getDateFormat();
+      conversion = new DateConversion(format);
+      dateConversion = conversion;
+      return conversion;
+    }
+  }
+
+  /**
+   * Get the decimal format to convert values with from any thread without locking.
+   *
+   * @return the number conversion or null if the values need to be converted with the shared
+   *     decimal format
+   */
+  private NumberConversion getNumberConversion() {
+    if (conversionMetadata != null) {
+      return null;
+    }
+    NumberConversion conversion = numberConversion;
+    if (conversion != null && conversion.source == decimalFormat && !decimalFormatChanged) {
+      return conversion;
+    }
+    synchronized (this) {
+      conversion = new NumberConversion(getDecimalFormat(false));
+      numberConversion = conversion;
+      return conversion;
+    }
+  }
+
   @Override
   @JsonIgnore
   public String getFormatMask() {
@@ -1454,7 +1563,7 @@ public class ValueMetaBase implements IValueMeta {
     return numberPattern.toString();
   }
 
-  protected synchronized String convertIntegerToString(Long integer) throws HopValueException {
+  protected String convertIntegerToString(Long integer) throws HopValueException {
     if (integer == null) {
       if (!outputPaddingEnabled || length < 1) {
         return null;
@@ -1472,8 +1581,14 @@ public class ValueMetaBase implements IValueMeta {
       }
     }
 
+    NumberConversion conversion = getNumberConversion();
     try {
-      return getDecimalFormat(false).format(integer);
+      if (conversion == null) {
+        synchronized (this) {
+          return getDecimalFormat(false).format(integer);
+        }
+      }
+      return conversion.getFormat().format(integer);
     } catch (Exception e) {
       throw new HopValueException(this + " : couldn't convert Long to String ", e);
     }
@@ -1487,7 +1602,7 @@ public class ValueMetaBase implements IValueMeta {
     return Long.toString(integer);
   }
 
-  protected synchronized Long convertStringToInteger(String string) throws HopValueException {
+  protected Long convertStringToInteger(String string) throws HopValueException {
     string = Const.trimToType(string, getTrimType()); // see if trimming needs
     // to be performed before
     // conversion
@@ -1496,13 +1611,27 @@ public class ValueMetaBase implements IValueMeta {
       return null;
     }
 
+    NumberConversion conversion = getNumberConversion();
+    if (conversion == null) {
+      synchronized (this) {
+        return parseInteger(getDecimalFormat(false), string);
+      }
+    }
+    Long integer = conversion.parseIntegerFast(string);
+    if (integer != null) {
+      return integer;
+    }
+    return parseInteger(conversion.getFormat(), string);
+  }
+
+  private Long parseInteger(DecimalFormat format, String string) throws HopValueException {
     try {
       Number number;
       if (lenientStringToNumber) {
-        number = Long.valueOf(getDecimalFormat(false).parse(string).longValue());
+        number = Long.valueOf(format.parse(string).longValue());
       } else {
         ParsePosition parsePosition = new ParsePosition(0);
-        number = getDecimalFormat(false).parse(string, parsePosition);
+        number = format.parse(string, parsePosition);
 
         if (parsePosition.getIndex() < string.length()) {
           throw new HopValueException(
@@ -5774,4 +5903,69 @@ public class ValueMetaBase implements IValueMeta {
       return ValueMetaFactory.getIdForValueMeta(code);
     }
   }
+
+  /**
+   * A date format which values can be converted with from several threads at the same time. Every
+   * thread gets its own copy of the date format, common masks are converted by a fast path.
+   */
+  private static final class DateConversion {
+    private final SimpleDateFormat source;
+    private final FastDateMask fastMask;
+    private final ThreadLocal<SimpleDateFormat> formats;
+
+    private DateConversion(SimpleDateFormat source) {
+      this.source = source;
+      SimpleDateFormat template = (SimpleDateFormat) source.clone();
+      this.fastMask =
+          template.getClass() == SimpleDateFormat.class ? FastDateMask.compile(template) : null;
+      this.formats = ThreadLocal.withInitial(() -> (SimpleDateFormat) template.clone());
+    }
+
+    private SimpleDateFormat getFormat() {
+      return formats.get();
+    }
+
+    private Date parseFast(String string) {
+      return fastMask == null ? null : fastMask.parse(string);
+    }
+
+    private String format(Date date) {
+      if (fastMask != null) {
+        String string = fastMask.format(date);
+        if (string != null) {
+          return string;
+        }
+      }
+      return formats.get().format(date);
+    }
+  }
+
+  /**
+   * A decimal format which values can be converted with from several threads at the same time.
+   * Every thread gets its own copy of the decimal format, plain numbers are parsed by a fast path.
+   */
+  private static final class NumberConversion {
+    private final DecimalFormat source;
+    private final FastNumberMask fastMask;
+    private final ThreadLocal<DecimalFormat> formats;
+
+    private NumberConversion(DecimalFormat source) {
+      this.source = source;
+      DecimalFormat template = (DecimalFormat) source.clone();
+      this.fastMask = FastNumberMask.compile(template);
+      this.formats = ThreadLocal.withInitial(() -> (DecimalFormat) template.clone());
+    }
+
+    private DecimalFormat getFormat() {
+      return formats.get();
+    }
+
+    private Double parseNumberFast(String string) {
+      return fastMask == null ? null : fastMask.parseNumber(string);
+    }
+
+    private Long parseIntegerFast(String string) {
+      return fastMask == null ? null : fastMask.parseInteger(string);
+    }
+  }
 }
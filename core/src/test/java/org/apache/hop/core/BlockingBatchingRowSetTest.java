@@ -25,6 +25,8 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowMeta;
@@ -117,4 +119,95 @@ public class BlockingBatchingRowSetTest {
     assertNotNull(r);
     assertArrayEquals(rows.get(2), r);
   }
+
+  /** A partially filled batch is handed over when the producer goes idle. */
+  @Test
+  public void testIdleFlush() {
+    BlockingBatchingRowSet set = new BlockingBatchingRowSet(1000);
+    IRowMeta rm = createRowMetaInterface();
+
+    set.putRow(rm, new Object[] {1L});
+    set.putRow(rm, new Object[] {2L});
+    assertEquals(0, set.size());
+
+    // The producer doesn't send anything else: the consumer takes over the batch after the
+    // maximum latency
+    //
+    Object[] r = set.getRowWait(1, TimeUnit.SECONDS);
+    assertNotNull(r);
+    assertEquals(1L, r[0]);
+    assertEquals(1, set.size());
+    assertEquals(2L, set.getRowImmediate()[0]);
+    assertNull(set.getRowImmediate());
+
+    // The producer continues in a new batch
+    //
+    set.putRow(rm, new Object[] {3L});
+    set.setDone();
+    assertEquals(3L, set.getRowImmediate()[0]);
+    assertNull(set.getRowImmediate());
+  }
+
+  /** Push a lot of rows through the row set with a separate producer and consumer thread. */
+  @Test(timeout = 30000)
+  public void testProducerConsumer() throws Exception {
+    final BlockingBatchingRowSet set = new BlockingBatchingRowSet(100);
+    final IRowMeta rm = createRowMetaInterface();
+    final long nrRows = 500_000L;
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Thread producer =
+        new Thread(
+            () -> {
+              for (long i = 0; i < nrRows; i++) {
+                Object[] row = new Object[] {i};
+                while (!set.putRow(rm, row)) {
+                  // Wait for room in the buffer
+                }
+                if (i % 100_000 == 0) {
+                  // Go idle for a bit to make the consumer take over a partial batch
+                  try {
+                    Thread.sleep(50);
+                  } catch (InterruptedException e) {
+                    // Ignore
+                  }
+                }
+              }
+              set.setDone();
+            });
+
+    Thread consumer =
+        new Thread(
+            () -> {
+              try {
+                long expected = 0;
+                while (true) {
+                  Object[] row = set.getRow();
+                  if (row == null) {
+                    if (set.isDone()) {
+                      row = set.getRowImmediate();
+                      if (row == null) {
+                        break;
+                      }
+                    } else {
+                      continue;
+                    }
+                  }
+                  assertEquals(expected++, row[0]);
+                }
+                assertEquals(nrRows, expected);
+              } catch (Throwable e) {
+                failure.set(e);
+              }
+            });
+
+    consumer.start();
+    producer.start();
+    producer.join();
+    consumer.join();
+
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
 }
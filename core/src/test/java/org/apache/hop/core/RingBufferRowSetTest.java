@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBatch;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+/** Test class for the lock-free single producer, single consumer row set. */
+public class RingBufferRowSetTest {
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  private IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("ROWNR"));
+    return rowMeta;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    IRowSet set = new RingBufferRowSet(10);
+
+    assertFalse(set.isDone());
+    assertEquals(0, set.size());
+    assertNull(set.getRowImmediate());
+  }
+
+  @Test
+  public void testPutAndGetInOrder() {
+    IRowSet set = new RingBufferRowSet(3);
+    IRowMeta rowMeta = createRowMeta();
+
+    assertTrue(set.putRow(rowMeta, new Object[] {1L}));
+    assertTrue(set.putRow(rowMeta, new Object[] {2L}));
+    assertTrue(set.putRow(rowMeta, new Object[] {3L}));
+    assertEquals(3, set.size());
+    assertSame(rowMeta, set.getRowMeta());
+
+    // The capacity is 3 even though the ring itself is rounded up to 4 slots
+    //
+    assertFalse(set.putRowWait(rowMeta, new Object[] {4L}, 1, TimeUnit.MILLISECONDS));
+    assertEquals(3, set.size());
+
+    assertEquals(1L, set.getRow()[0]);
+    assertTrue(set.putRow(rowMeta, new Object[] {4L}));
+    assertEquals(2L, set.getRowImmediate()[0]);
+    assertEquals(3L, set.getRowWait(1, TimeUnit.MILLISECONDS)[0]);
+    assertEquals(4L, set.getRow()[0]);
+    assertEquals(0, set.size());
+    assertNull(set.getRowWait(1, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testChangeCapacity() {
+    RingBufferRowSet set = new RingBufferRowSet(2, 8, false);
+    IRowMeta rowMeta = createRowMeta();
+
+    assertEquals(2, set.getCapacity());
+    assertEquals(8, set.getMaxCapacity());
+    assertTrue(set.putRow(rowMeta, new Object[] {1L}));
+    assertTrue(set.putRow(rowMeta, new Object[] {2L}));
+    assertFalse(set.putRowWait(rowMeta, new Object[] {3L}, 5, TimeUnit.MILLISECONDS));
+    assertTrue(set.getPutWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+
+    // Grow: there is room for more rows right away
+    //
+    set.setCapacity(4);
+    assertTrue(set.putRow(rowMeta, new Object[] {3L}));
+    assertTrue(set.putRow(rowMeta, new Object[] {4L}));
+    assertEquals(4, set.size());
+
+    // Shrink: the rows stay but no new rows are accepted until there is room again
+    //
+    set.setCapacity(1);
+    assertFalse(set.putRowWait(rowMeta, new Object[] {5L}, 1, TimeUnit.MILLISECONDS));
+    for (long i = 1; i <= 4; i++) {
+      assertEquals(i, set.getRow()[0]);
+    }
+    assertTrue(set.putRow(rowMeta, new Object[] {5L}));
+    assertEquals(5L, set.getRow()[0]);
+    assertNull(set.getRowWait(5, TimeUnit.MILLISECONDS));
+    assertTrue(set.getGetWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+
+    assertEquals(5L, set.getNrRowsPut());
+    assertEquals(5L, set.getNrRowsTaken());
+
+    // The capacity stays within limits
+    //
+    set.setCapacity(100);
+    assertEquals(8, set.getCapacity());
+    set.setCapacity(0);
+    assertEquals(1, set.getCapacity());
+  }
+
+  @Test
+  public void testDoneAndClear() {
+    IRowSet set = new RingBufferRowSet(5);
+    IRowMeta rowMeta = createRowMeta();
+
+    set.putRow(rowMeta, new Object[] {1L});
+    set.setDone();
+    assertTrue(set.isDone());
+    assertEquals(1L, set.getRow()[0]);
+    assertNull(set.getRow());
+
+    set.putRow(rowMeta, new Object[] {2L});
+    set.clear();
+    assertFalse(set.isDone());
+    assertEquals(0, set.size());
+    assertNull(set.getRowImmediate());
+  }
+
+  @Test
+  public void testBatches() {
+    IRowSet set = new RingBufferRowSet(5);
+    IRowMeta rowMeta = createRowMeta();
+    assertTrue(set.supportsBatches());
+
+    RowBatch batch = new RowBatch(1, 3);
+    for (long i = 1; i <= 3; i++) {
+      batch.addRow(new Object[] {i});
+    }
+    assertTrue(set.putBatchWait(rowMeta, batch, 1, TimeUnit.MILLISECONDS));
+    assertEquals(3, set.size());
+
+    // A batch counts for all of its rows against the capacity
+    //
+    RowBatch second = new RowBatch(1, 3);
+    for (long i = 4; i <= 6; i++) {
+      second.addRow(new Object[] {i});
+    }
+    assertFalse(set.putBatchWait(rowMeta, second, 1, TimeUnit.MILLISECONDS));
+    assertTrue(set.putRow(rowMeta, new Object[] {4L}));
+
+    // Batches are handed over as is, rows are gathered into a new batch
+    //
+    assertSame(batch, set.getBatchWait(10, 1, TimeUnit.MILLISECONDS));
+    assertTrue(set.putBatchWait(rowMeta, second, 1, TimeUnit.MILLISECONDS));
+    RowBatch rows = set.getBatchWait(10, 1, TimeUnit.MILLISECONDS);
+    assertEquals(1, rows.size());
+    assertEquals(4L, rows.getValue(0, 0));
+
+    // Reading a batch row by row, then taking the rest as a batch
+    //
+    assertEquals(4L, set.getRow()[0]);
+    assertEquals(3, set.size()); // the batch keeps its room until it's read completely
+    RowBatch rest = set.getBatchWait(10, 1, TimeUnit.MILLISECONDS);
+    assertEquals(2, rest.size());
+    assertEquals(5L, rest.getValue(0, 0));
+    assertEquals(0, set.size());
+
+    // A batch larger than the capacity fits in an empty buffer
+    //
+    RowBatch large = new RowBatch(1, 10);
+    for (long i = 0; i < 10; i++) {
+      large.addRow(new Object[] {i});
+    }
+    assertTrue(set.putBatchWait(rowMeta, large, 1, TimeUnit.MILLISECONDS));
+    set.setDone();
+    for (long i = 0; i < 10; i++) {
+      assertEquals(i, set.getRow()[0]);
+    }
+    assertNull(set.getRow());
+  }
+
+  @Test
+  public void testNames() {
+    IRowSet set = new RingBufferRowSet(3);
+
+    set.setThreadNameFromToCopy("from", 0, "to", 0);
+    assertEquals("from.0 - to.0", set.getName());
+  }
+
+  /** Push a lot of rows through a tiny buffer with a separate producer and consumer thread. */
+  @Test(timeout = 30000)
+  public void testProducerConsumer() throws Exception {
+    runProducerConsumer(new RingBufferRowSet(7));
+  }
+
+  @Test(timeout = 30000)
+  public void testProducerConsumerParking() throws Exception {
+    runProducerConsumer(new RingBufferRowSet(7, true));
+  }
+
+  @Test(timeout = 30000)
+  public void testParkingWakeUp() throws Exception {
+    // A consumer waiting for a long time should be woken up by the producer
+    //
+    final IRowSet set = new RingBufferRowSet(10, true);
+    final IRowMeta rowMeta = createRowMeta();
+    final AtomicReference<Object[]> received = new AtomicReference<>();
+
+    Thread consumer = new Thread(() -> received.set(set.getRowWait(20, TimeUnit.SECONDS)));
+    consumer.start();
+    Thread.sleep(50);
+    long start = System.nanoTime();
+    set.putRow(rowMeta, new Object[] {42L});
+    consumer.join();
+
+    assertEquals(42L, received.get()[0]);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+  }
+
+  private void runProducerConsumer(final IRowSet set) throws Exception {
+    final IRowMeta rowMeta = createRowMeta();
+    final long nrRows = 1_000_000L;
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Thread producer =
+        new Thread(
+            () -> {
+              for (long i = 0; i < nrRows; i++) {
+                Object[] row = new Object[] {i};
+                while (!set.putRow(rowMeta, row)) {
+                  // Wait for room in the buffer
+                }
+              }
+              set.setDone();
+            });
+
+    Thread consumer =
+        new Thread(
+            () -> {
+              try {
+                long expected = 0;
+                while (true) {
+                  Object[] row = set.getRow();
+                  if (row == null) {
+                    if (set.isDone() && set.size() == 0) {
+                      row = set.getRowImmediate();
+                      if (row == null) {
+                        break;
+                      }
+                    } else {
+                      continue;
+                    }
+                  }
+                  assertEquals(expected++, row[0]);
+                }
+                assertEquals(nrRows, expected);
+              } catch (Throwable e) {
+                failure.set(e);
+              }
+            });
+
+    consumer.start();
+    producer.start();
+    producer.join();
+    consumer.join();
+
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests the byte array hash index on and off the Java heap against a regular hash map. */
+@RunWith(Parameterized.class)
+public class ByteArrayOpenHashIndexTest {
+
+  @Parameters(name = "offHeap={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] {{false}, {true}});
+  }
+
+  private final boolean offHeap;
+
+  public ByteArrayOpenHashIndexTest(boolean offHeap) {
+    this.offHeap = offHeap;
+  }
+
+  private static byte[] bytes(String string) {
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testPutAndGet() {
+    ByteArrayOpenHashIndex index = new ByteArrayOpenHashIndex(0, offHeap);
+    assertTrue(index.isEmpty());
+
+    assertTrue(index.put(bytes("one"), bytes("1")));
+    assertTrue(index.put(bytes(""), bytes("empty")));
+    assertTrue(index.put(bytes("null"), null));
+    assertFalse(index.put(bytes("one"), bytes("uno")));
+    assertEquals(3, index.getSize());
+
+    assertArrayEquals(bytes("uno"), index.get(bytes("one")));
+    assertArrayEquals(bytes("empty"), index.get(new byte[0]));
+    assertNull(index.get(bytes("null")));
+    assertTrue(index.containsKey(bytes("null")));
+    assertNull(index.get(bytes("two")));
+    assertFalse(index.containsKey(bytes("two")));
+
+    assertFalse(index.putIfAbsent(bytes("one"), bytes("eins")));
+    assertTrue(index.putIfAbsent(bytes("two"), bytes("2")));
+    assertArrayEquals(bytes("uno"), index.get(bytes("one")));
+    assertArrayEquals(bytes("2"), index.get(bytes("two")));
+  }
+
+  @Test
+  public void testSameResultsAsHashMap() {
+    Random random = new Random(42L);
+    ByteArrayOpenHashIndex index = new ByteArrayOpenHashIndex(16, offHeap);
+    Map<ByteBuffer, byte[]> map = new HashMap<>();
+    for (int i = 0; i < 50_000; i++) {
+      byte[] key = new byte[random.nextInt(12)];
+      random.nextBytes(key);
+      byte[] value = new byte[random.nextInt(40)];
+      random.nextBytes(value);
+      assertEquals(map.put(ByteBuffer.wrap(key), value) == null, index.put(key, value));
+    }
+    assertEquals(map.size(), index.getSize());
+    for (Map.Entry<ByteBuffer, byte[]> entry : map.entrySet()) {
+      assertArrayEquals(entry.getValue(), index.get(entry.getKey().array()));
+    }
+  }
+
+  @Test
+  public void testEntriesAcrossPages() {
+    // Entries larger than a page of memory
+    //
+    ByteArrayOpenHashIndex index = new ByteArrayOpenHashIndex(0, offHeap);
+    Random random = new Random(7L);
+    byte[][] keys = new byte[20][];
+    byte[][] values = new byte[20][];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new byte[10_000 + random.nextInt(100_000)];
+      random.nextBytes(keys[i]);
+      values[i] = new byte[random.nextInt(100_000)];
+      random.nextBytes(values[i]);
+      index.put(keys[i], values[i]);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      assertArrayEquals(values[i], index.get(keys[i]));
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests the on-heap and the off-heap long hash indexes against a regular hash map. */
+@RunWith(Parameterized.class)
+public class LongOpenHashIndexTest {
+
+  @Parameters(name = "offHeap={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] {{false}, {true}});
+  }
+
+  private final boolean offHeap;
+
+  public LongOpenHashIndexTest(boolean offHeap) {
+    this.offHeap = offHeap;
+  }
+
+  @Test
+  public void testPutAndGet() {
+    ILongHashIndex index = ILongHashIndex.create(0, offHeap);
+    assertTrue(index.isEmpty());
+
+    assertTrue(index.put(1L, 10L));
+    assertTrue(index.put(0L, 20L));
+    assertTrue(index.put(-1L, 30L));
+    assertFalse(index.put(1L, 11L));
+    assertEquals(3, index.getSize());
+
+    assertEquals(11L, index.get(1L, -99L));
+    assertEquals(20L, index.get(0L, -99L));
+    assertEquals(30L, index.get(-1L, -99L));
+    assertEquals(-99L, index.get(2L, -99L));
+    assertTrue(index.containsKey(0L));
+    assertFalse(index.containsKey(2L));
+
+    assertFalse(index.putIfAbsent(1L, 12L));
+    assertFalse(index.putIfAbsent(0L, 21L));
+    assertTrue(index.putIfAbsent(2L, 40L));
+    assertEquals(11L, index.get(1L, -99L));
+    assertEquals(20L, index.get(0L, -99L));
+    assertEquals(40L, index.get(2L, -99L));
+  }
+
+  @Test
+  public void testSameResultsAsHashMap() {
+    Random random = new Random(42L);
+    ILongHashIndex index = ILongHashIndex.create(16, offHeap);
+    Map<Long, Long> map = new HashMap<>();
+    for (int i = 0; i < 100_000; i++) {
+      // Sequential keys as well as random keys
+      //
+      long key = random.nextBoolean() ? i : random.nextLong() % 50_000;
+      long value = random.nextLong();
+      assertEquals(map.put(key, value) == null, index.put(key, value));
+    }
+    assertEquals(map.size(), index.getSize());
+    for (Map.Entry<Long, Long> entry : map.entrySet()) {
+      assertEquals(entry.getValue().longValue(), index.get(entry.getKey(), 0L));
+    }
+    for (int i = 0; i < 10_000; i++) {
+      long key = random.nextLong();
+      assertEquals(map.containsKey(key), index.containsKey(key));
+    }
+  }
+
+  @Test
+  public void testPutAll() {
+    int count = 10_000;
+    long[] keys = new long[count + 10];
+    long[] values = new long[count + 10];
+    for (int i = 0; i < count; i++) {
+      keys[i] = i * 1_000_003L;
+      values[i] = i;
+    }
+    ILongHashIndex index = ILongHashIndex.create(0, offHeap);
+    index.put(1L, 1L);
+    long memorySize = index.getMemorySize();
+    index.putAll(keys, values, count);
+
+    assertEquals(count + 1, index.getSize());
+    assertTrue(index.getMemorySize() > memorySize);
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, index.get(keys[i], -1L));
+    }
+    assertEquals(1L, index.get(1L, -1L));
+  }
+}
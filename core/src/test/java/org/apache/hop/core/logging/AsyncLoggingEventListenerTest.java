@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class AsyncLoggingEventListenerTest {
+
+  /**
+   * Collects the events, optionally waiting for a latch before the first batch. Remembers if it was
+   * ever called by two threads at once.
+   */
+  private static class CollectingListener implements IHopLoggingEventListener {
+    private final List<HopLoggingEvent> events = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch latch;
+    private final AtomicInteger callers = new AtomicInteger();
+    private volatile boolean concurrentCalls;
+
+    CollectingListener(CountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    public void eventAdded(HopLoggingEvent event) {
+      enter();
+      events.add(event);
+      callers.decrementAndGet();
+    }
+
+    @Override
+    public void eventsAdded(List<HopLoggingEvent> batch) {
+      enter();
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      batchSizes.add(batch.size());
+      events.addAll(batch);
+      callers.decrementAndGet();
+    }
+
+    private void enter() {
+      if (callers.incrementAndGet() > 1) {
+        concurrentCalls = true;
+      }
+    }
+  }
+
+  private static HopLoggingEvent event(int nr, LogLevel level) {
+    return new HopLoggingEvent("line " + nr, System.currentTimeMillis(), level);
+  }
+
+  @Test
+  public void testBlockKeepsAllEventsInOrder() {
+    CollectingListener listener = new CollectingListener(new CountDownLatch(0));
+    AsyncLoggingEventListener async =
+        new AsyncLoggingEventListener(listener, 16, LogOverflowPolicy.BLOCK, 10);
+
+    for (int i = 0; i < 1000; i++) {
+      async.eventAdded(event(i, LogLevel.BASIC));
+    }
+    async.flush();
+
+    assertEquals(1000, listener.events.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("line " + i, listener.events.get(i).getMessage());
+    }
+    assertEquals(0, async.getDroppedEvents());
+    assertEquals(1000, async.getWrittenEvents());
+    async.close();
+  }
+
+  @Test
+  public void testDropCountsDroppedEventsButKeepsErrors() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    CollectingListener listener = new CollectingListener(latch);
+    AsyncLoggingEventListener async =
+        new AsyncLoggingEventListener(listener, 4, LogOverflowPolicy.DROP, 10);
+
+    // The writer takes the first event and waits on the latch
+    //
+    async.eventAdded(event(0, LogLevel.BASIC));
+    while (async.getQueuedEvents() > 0) {
+      Thread.sleep(1);
+    }
+    for (int i = 1; i <= 10; i++) {
+      async.eventAdded(event(i, LogLevel.BASIC));
+    }
+    assertEquals(6, async.getDroppedEvents());
+
+    Thread errorThread = new Thread(() -> async.eventAdded(event(11, LogLevel.ERROR)));
+    errorThread.start();
+    latch.countDown();
+    errorThread.join();
+    async.close();
+
+    assertEquals(6, listener.events.size());
+    assertEquals("line 11", listener.events.get(5).getMessage());
+    assertEquals(6, async.getDroppedEvents());
+  }
+
+  @Test
+  public void testEventsAreHandedOverInBatches() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    CollectingListener listener = new CollectingListener(latch);
+    AsyncLoggingEventListener async =
+        new AsyncLoggingEventListener(listener, 1000, LogOverflowPolicy.BLOCK, 10);
+
+    async.eventAdded(event(0, LogLevel.BASIC));
+    while (async.getQueuedEvents() > 0) {
+      Thread.sleep(1);
+    }
+    for (int i = 1; i <= 100; i++) {
+      async.eventAdded(event(i, LogLevel.BASIC));
+    }
+    latch.countDown();
+    async.close();
+
+    assertEquals(101, listener.events.size());
+    assertEquals(List.of(1, 100), listener.batchSizes);
+  }
+
+  @Test
+  public void testCloseWritesEventsWaitingForTheQueue() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    CollectingListener listener = new CollectingListener(latch);
+    AsyncLoggingEventListener async =
+        new AsyncLoggingEventListener(listener, 1, LogOverflowPolicy.BLOCK, 10);
+
+    // The writer takes the first event and waits on the latch, the next one fills the queue
+    //
+    async.eventAdded(event(0, LogLevel.BASIC));
+    while (async.getQueuedEvents() > 0) {
+      Thread.sleep(1);
+    }
+    async.eventAdded(event(1, LogLevel.BASIC));
+
+    // These threads wait for room in the queue while we close
+    //
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 2; i < 6; i++) {
+      int nr = i;
+      Thread thread = new Thread(() -> async.eventAdded(event(nr, LogLevel.BASIC)));
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      while (thread.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+    }
+
+    Thread closeThread = new Thread(async::close);
+    closeThread.start();
+    latch.countDown();
+    closeThread.join();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(6, listener.events.size());
+    assertEquals(6, async.getWrittenEvents());
+
+    // Events after closing go straight to the listener
+    //
+    async.eventAdded(event(6, LogLevel.BASIC));
+    assertEquals(7, listener.events.size());
+    assertFalse(listener.concurrentCalls);
+  }
+
+  @Test
+  public void testCloseWhileLogging() throws Exception {
+    CollectingListener listener = new CollectingListener(new CountDownLatch(0));
+    AsyncLoggingEventListener async =
+        new AsyncLoggingEventListener(listener, 16, LogOverflowPolicy.BLOCK, 10);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 10000; i++) {
+                  async.eventAdded(event(i, LogLevel.BASIC));
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    async.close();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(40000, listener.events.size());
+    assertFalse(listener.concurrentCalls);
+  }
+
+  @Test
+  public void testLoggingBufferWrapsListeners() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(100);
+    loggingBuffer.enableAsyncListeners(100, LogOverflowPolicy.BLOCK, 10);
+    CollectingListener listener = new CollectingListener(new CountDownLatch(0));
+    loggingBuffer.addLoggingEventListener(listener);
+
+    for (int i = 0; i < 50; i++) {
+      loggingBuffer.addLogggingEvent(
+          new HopLoggingEvent(
+              new LogMessage("line " + i, "channel", LogLevel.BASIC),
+              System.currentTimeMillis(),
+              LogLevel.BASIC));
+    }
+
+    // Removing the listener hands it the remaining events
+    //
+    loggingBuffer.removeLoggingEventListener(listener);
+    assertEquals(50, listener.events.size());
+    assertEquals(0, loggingBuffer.getDroppedLoggingEvents());
+    assertTrue(listener.batchSizes.size() <= 50);
+  }
+}
@@ -17,6 +17,8 @@
 
 package org.apache.hop.core.logging;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Assert;
@@ -126,4 +128,97 @@ public class LoggingBufferTest {
     loggingBuffer.removeChannelFromBuffer(logChannelId);
     Assert.assertEquals(10, loggingBuffer.size());
   }
+
+  private static void addLines(LoggingBuffer loggingBuffer, String logChannelId, int lines) {
+    for (int i = 0; i < lines; i++) {
+      HopLoggingEvent event = new HopLoggingEvent();
+      event.setMessage(new LogMessage(logChannelId + "-" + i, logChannelId, LogLevel.BASIC));
+      event.setTimeStamp(i);
+      loggingBuffer.addLogggingEvent(event);
+    }
+  }
+
+  private static String message(HopLoggingEvent event) {
+    return ((LogMessage) event.getMessage()).getMessage();
+  }
+
+  @Test
+  public void testKeepsLastLines() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(1500);
+    addLines(loggingBuffer, "a", 5000);
+    Assert.assertEquals(1500, loggingBuffer.size());
+
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo((List<String>) null, true, 0, Integer.MAX_VALUE);
+    Assert.assertEquals(1500, events.size());
+    Assert.assertEquals("a-3500", message(events.get(0)));
+    Assert.assertEquals("a-4999", message(events.get(1499)));
+
+    loggingBuffer.setMaxNrLines(10);
+    Assert.assertEquals(10, loggingBuffer.size());
+    events = loggingBuffer.getLogBufferFromTo(Arrays.asList("a"), false, 0, Integer.MAX_VALUE);
+    Assert.assertEquals("a-4990", message(events.get(0)));
+
+    // No limit
+    //
+    loggingBuffer.setMaxNrLines(0);
+    addLines(loggingBuffer, "b", 3000);
+    Assert.assertEquals(3010, loggingBuffer.size());
+  }
+
+  @Test
+  public void testLinesOfChannels() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(0);
+    addLines(loggingBuffer, "start", 1);
+    int firstNr = loggingBuffer.getLastBufferLineNr();
+    for (int i = 0; i < 100; i++) {
+      addLines(loggingBuffer, "channel" + (i % 10), 1);
+    }
+
+    // Lines of two channels, in the order they were added
+    //
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo(
+            Arrays.asList("channel3", "channel7", "unknown"), false, firstNr + 20, firstNr + 60);
+    Assert.assertEquals(8, events.size());
+    Assert.assertEquals("channel3-0", message(events.get(0)));
+    Assert.assertEquals("channel7", ((LogMessage) events.get(1).getMessage()).getLogChannelId());
+    for (int i = 1; i < events.size(); i++) {
+      Assert.assertTrue(events.get(i - 1).getTimeStamp() <= events.get(i).getTimeStamp());
+    }
+
+    // Removed lines are no longer returned
+    //
+    loggingBuffer.removeChannelFromBuffer("channel3");
+    Assert.assertEquals(91, loggingBuffer.size());
+    events =
+        loggingBuffer.getLogBufferFromTo(
+            Arrays.asList("channel3", "channel7"), false, 0, Integer.MAX_VALUE);
+    Assert.assertEquals(10, events.size());
+    Assert.assertEquals(
+        91,
+        loggingBuffer.getLogBufferFromTo((List<String>) null, false, 0, Integer.MAX_VALUE).size());
+  }
+
+  @Test
+  public void testRemovedLinesAreCompacted() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer(100);
+    addLines(loggingBuffer, "long", 1);
+    for (int i = 0; i < 1000; i++) {
+      addLines(loggingBuffer, "short" + i, 50);
+      loggingBuffer.removeChannelFromBuffer("short" + i);
+    }
+    addLines(loggingBuffer, "last", 99);
+    Assert.assertEquals(100, loggingBuffer.size());
+    List<HopLoggingEvent> events =
+        loggingBuffer.getLogBufferFromTo((List<String>) null, false, 0, Integer.MAX_VALUE);
+    Assert.assertEquals("long-0", message(events.get(0)));
+    Assert.assertEquals("last-98", message(events.get(99)));
+
+    addLines(loggingBuffer, "last", 1);
+    Assert.assertTrue(
+        loggingBuffer
+            .getLogBufferFromTo(Arrays.asList("long"), false, 0, Integer.MAX_VALUE)
+            .isEmpty());
+  }
 }
@@ -20,7 +20,9 @@ package org.apache.hop.core.logging;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.List;
 import org.junit.Test;
 
 public class LoggingRegistryTest {
@@ -84,4 +86,96 @@ public class LoggingRegistryTest {
 
     assertNull(loggingRegistry.getLogChannelFileWriterBuffer(id));
   }
+
+  /** Register a pipeline with a few transforms, return the pipeline log channel ID */
+  private String registerHierarchy(LoggingRegistry loggingRegistry, String name, int nrChildren) {
+    String parentId =
+        loggingRegistry.registerLoggingSource(
+            new SimpleLoggingObject(name, LoggingObjectType.PIPELINE, null), true);
+    ILoggingObject parent = loggingRegistry.getLoggingObject(parentId);
+    for (int i = 0; i < nrChildren; i++) {
+      loggingRegistry.registerLoggingSource(
+          new SimpleLoggingObject(name + "-" + i, LoggingObjectType.TRANSFORM, parent), true);
+    }
+    return parentId;
+  }
+
+  @Test
+  public void testChildIndex() {
+    LoggingRegistry loggingRegistry = LoggingRegistry.getInstance();
+    String parentId = registerHierarchy(loggingRegistry, "index", 3);
+
+    List<String> children = loggingRegistry.getLogChannelDirectChildren(parentId);
+    assertEquals(3, children.size());
+    for (String childId : children) {
+      assertEquals(parentId, loggingRegistry.getLogChannelParent(childId));
+    }
+    assertEquals(4, loggingRegistry.getLogChannelChildren(parentId).size());
+
+    // A buffer of the parent is found for its children
+    //
+    loggingRegistry.registerLogChannelFileWriterBuffer(new LogChannelFileWriterBuffer(parentId));
+    assertNotNull(loggingRegistry.getLogChannelFileWriterBuffer(children.get(0)));
+    loggingRegistry.removeLogChannelFileWriterBuffer(parentId);
+    assertNull(loggingRegistry.getLogChannelFileWriterBuffer(children.get(0)));
+
+    loggingRegistry.removeIncludingChildren(parentId);
+    assertNull(loggingRegistry.getLoggingObject(parentId));
+    assertNull(loggingRegistry.getLoggingObject(children.get(0)));
+    assertNull(loggingRegistry.getLogChannelParent(children.get(0)));
+  }
+
+  @Test
+  public void testPurgeFinishedByAge() {
+    LoggingRegistry loggingRegistry = LoggingRegistry.getInstance();
+    long maxAgeMillis = loggingRegistry.getMaxAgeMillis();
+    try {
+      loggingRegistry.setMaxAgeMillis(60000L);
+      String finishedId = registerHierarchy(loggingRegistry, "finished", 2);
+      String runningId = registerHierarchy(loggingRegistry, "running", 2);
+      long purged = loggingRegistry.getHierarchiesPurgedByAge();
+
+      loggingRegistry.markFinished(finishedId);
+      loggingRegistry.purge(System.currentTimeMillis());
+      assertNotNull(loggingRegistry.getLoggingObject(finishedId));
+
+      loggingRegistry.purge(System.currentTimeMillis() + 60000L);
+      assertNull(loggingRegistry.getLoggingObject(finishedId));
+      assertTrue(loggingRegistry.getLogChannelDirectChildren(finishedId).isEmpty());
+      assertNotNull(loggingRegistry.getLoggingObject(runningId));
+      assertEquals(purged + 1, loggingRegistry.getHierarchiesPurgedByAge());
+
+      loggingRegistry.removeIncludingChildren(runningId);
+    } finally {
+      loggingRegistry.setMaxAgeMillis(maxAgeMillis);
+    }
+  }
+
+  @Test
+  public void testPurgeBySizeRemovesFinishedHierarchiesFirst() {
+    LoggingRegistry loggingRegistry = LoggingRegistry.getInstance();
+    int maxSize = loggingRegistry.getMaxSize();
+    try {
+      loggingRegistry.reset();
+      loggingRegistry.setMaxSize(20);
+      String oldestId = registerHierarchy(loggingRegistry, "oldest", 4);
+      String finishedId = registerHierarchy(loggingRegistry, "finished", 4);
+      loggingRegistry.markFinished(finishedId);
+      registerHierarchy(loggingRegistry, "third", 4);
+      registerHierarchy(loggingRegistry, "fourth", 4);
+      assertEquals(20, loggingRegistry.getRegistrySize());
+
+      // One more object gets the finished hierarchy purged
+      //
+      long purged = loggingRegistry.getHierarchiesPurgedBySize();
+      registerHierarchy(loggingRegistry, "fifth", 0);
+      assertNull(loggingRegistry.getLoggingObject(finishedId));
+      assertNotNull(loggingRegistry.getLoggingObject(oldestId));
+      assertEquals(16, loggingRegistry.getRegistrySize());
+      assertEquals(purged + 1, loggingRegistry.getHierarchiesPurgedBySize());
+    } finally {
+      loggingRegistry.reset();
+      loggingRegistry.setMaxSize(maxSize);
+    }
+  }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class FrozenRowMetaTest {
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  private IRowMeta rowMeta;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("Name"));
+    rowMeta.addValueMeta(new ValueMetaBinary("data"));
+  }
+
+  @Test
+  public void testFreeze() {
+    FrozenRowMeta frozen = FrozenRowMeta.freeze(rowMeta);
+    assertSame(frozen, FrozenRowMeta.freeze(frozen));
+    assertEquals(3, frozen.size());
+    assertFalse(frozen.isEmpty());
+    assertEquals(rowMeta, frozen);
+    assertEquals(rowMeta.hashCode(), frozen.hashCode());
+    assertArrayEquals(rowMeta.getFieldNames(), frozen.getFieldNames());
+
+    // Later changes to the source don't show up in the frozen copy
+    //
+    assertNotSame(rowMeta.getValueMeta(1), frozen.getValueMeta(1));
+    rowMeta.getValueMeta(1).setName("changed");
+    rowMeta.addValueMeta(new ValueMetaString("extra"));
+    assertEquals("Name", frozen.getValueMeta(1).getName());
+    assertEquals(3, frozen.size());
+    assertNull(frozen.getValueMeta(3));
+  }
+
+  @Test
+  public void testIndexOfValue() {
+    FrozenRowMeta frozen = FrozenRowMeta.freeze(rowMeta);
+    assertEquals(0, frozen.indexOfValue("id"));
+    assertEquals(1, frozen.indexOfValue("Name"));
+    assertEquals(1, frozen.indexOfValue("NAME"));
+    assertEquals(-1, frozen.indexOfValue("unknown"));
+    assertEquals(-1, frozen.indexOfValue(null));
+    assertEquals("data", frozen.searchValueMeta("Data").getName());
+    assertNull(frozen.searchValueMeta("unknown"));
+    assertTrue(frozen.exists(new ValueMetaString("name")));
+  }
+
+  @Test
+  public void testRowOperations() throws Exception {
+    FrozenRowMeta frozen = FrozenRowMeta.freeze(rowMeta);
+    Object[] row1 = new Object[] {1L, "a", new byte[] {1, 2}};
+    Object[] row2 = new Object[] {1L, "b", new byte[] {1, 2}};
+
+    assertEquals(rowMeta.compare(row1, row2), frozen.compare(row1, row2));
+    assertEquals(0, frozen.compare(row1, row2, new int[] {0}));
+    assertTrue(frozen.equals(row1, row2, new int[] {0}));
+    assertFalse(frozen.equals(row1, row2, new int[] {0, 1}));
+    assertEquals(
+        rowMeta.compare(row1, row2, new int[] {1}, new int[] {1}),
+        frozen.compare(row1, row2, new int[] {1}, new int[] {1}));
+    assertEquals(
+        rowMeta.compare(row1, rowMeta, row2, new int[] {1}, new int[] {1}),
+        frozen.compare(row1, rowMeta, row2, new int[] {1}, new int[] {1}));
+    assertEquals(rowMeta.hashCode(row1), frozen.hashCode(row1));
+    assertEquals(rowMeta.getString(row1), frozen.getString(row1));
+    assertEquals("a", frozen.getString(row1, 1));
+
+    // Only the binary data needs a real clone
+    //
+    Object[] clone = frozen.cloneRow(row1);
+    assertSame(row1[1], clone[1]);
+    assertNotSame(row1[2], clone[2]);
+    assertArrayEquals((byte[]) row1[2], (byte[]) clone[2]);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    frozen.writeData(new DataOutputStream(bytes), row1);
+    Object[] read =
+        rowMeta.readData(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(0, rowMeta.compare(row1, read));
+    read = frozen.readData(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(0, frozen.compare(row1, read));
+  }
+
+  @Test
+  public void testCloneCanBeChanged() {
+    FrozenRowMeta frozen = FrozenRowMeta.freeze(rowMeta);
+    RowMeta clone = frozen.clone();
+    assertFalse(clone instanceof FrozenRowMeta);
+    clone.addValueMeta(new ValueMetaString("extra"));
+    assertEquals(4, clone.size());
+    assertEquals(3, clone.indexOfValue("extra"));
+    assertEquals(3, frozen.size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testAddValueMeta() {
+    FrozenRowMeta.freeze(rowMeta).addValueMeta(new ValueMetaString("extra"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testRemoveValueMeta() {
+    FrozenRowMeta.freeze(rowMeta).removeValueMeta(0);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testValueMetaList() {
+    FrozenRowMeta.freeze(rowMeta).getValueMetaList().add(new ValueMetaString("extra"));
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RowBatchTest {
+
+  private RowBatch createBatch(int nrRows) {
+    RowBatch batch = new RowBatch(2, 4);
+    for (int i = 0; i < nrRows; i++) {
+      batch.addRow(new Object[] {(long) i, i % 3 == 0 ? null : "row" + i});
+    }
+    return batch;
+  }
+
+  @Test
+  public void testAddAndGetRows() {
+    RowBatch batch = createBatch(100);
+
+    assertEquals(100, batch.size());
+    assertEquals(2, batch.getNrColumns());
+    assertTrue(batch.getCapacity() >= 100);
+
+    Object[] row = batch.getRow(4);
+    assertTrue(row.length >= 2);
+    assertEquals(4L, row[0]);
+    assertEquals("row4", row[1]);
+
+    assertTrue(batch.isNull(1, 99));
+    assertFalse(batch.isNull(1, 98));
+    assertFalse(batch.isNull(0, 99));
+    assertEquals(98L, batch.getColumn(0)[98]);
+
+    // Short rows are padded with nulls
+    //
+    batch.addRow(new Object[] {100L});
+    assertTrue(batch.isNull(1, 100));
+  }
+
+  @Test
+  public void testSetValue() {
+    RowBatch batch = createBatch(3);
+
+    batch.setValue(1, 0, "filled");
+    assertFalse(batch.isNull(1, 0));
+    batch.setValue(0, 2, null);
+    assertTrue(batch.isNull(0, 2));
+
+    Object[] scratch = new Object[2];
+    batch.getRow(2, scratch);
+    assertArrayEquals(new Object[] {null, "row2"}, scratch);
+  }
+
+  @Test
+  public void testAddColumn() {
+    RowBatch batch = createBatch(70);
+
+    int empty = batch.addColumn();
+    int constant = batch.addColumn("constant");
+
+    assertEquals(2, empty);
+    assertEquals(3, constant);
+    assertEquals(4, batch.getNrColumns());
+    assertTrue(batch.isNull(empty, 69));
+    assertFalse(batch.isNull(constant, 69));
+    assertEquals("constant", batch.getValue(constant, 69));
+
+    // New rows fit in the new columns as well
+    //
+    batch.addRow(new Object[] {70L, "row70", "x", "y"});
+    assertEquals("y", batch.getValue(constant, 70));
+  }
+
+  @Test
+  public void testSelectColumns() {
+    RowBatch batch = createBatch(5);
+
+    batch.selectColumns(new int[] {1, 0, 0});
+
+    assertEquals(3, batch.getNrColumns());
+    assertEquals("row1", batch.getValue(0, 1));
+    assertEquals(1L, batch.getValue(1, 1));
+    assertEquals(1L, batch.getValue(2, 1));
+    assertTrue(batch.isNull(0, 3));
+    assertNotSame(batch.getColumn(1), batch.getColumn(2));
+  }
+
+  @Test
+  public void testFilterAndSplit() {
+    RowBatch batch = createBatch(130);
+
+    boolean[] selection = new boolean[batch.size()];
+    for (int i = 0; i < selection.length; i++) {
+      selection[i] = i % 2 == 0;
+    }
+    RowBatch odd = batch.split(selection);
+
+    assertEquals(65, batch.size());
+    assertEquals(65, odd.size());
+    for (int i = 0; i < 65; i++) {
+      long even = 2L * i;
+      assertEquals(even, batch.getValue(0, i));
+      assertEquals(even % 3 == 0, batch.isNull(1, i));
+      assertEquals(even + 1, odd.getValue(0, i));
+      assertEquals((even + 1) % 3 == 0, odd.isNull(1, i));
+    }
+
+    selection = new boolean[batch.size()];
+    selection[64] = true;
+    batch.filter(selection);
+    assertEquals(1, batch.size());
+    assertEquals(128L, batch.getValue(0, 0));
+    assertNull(batch.getColumn(0)[1]);
+
+    batch.clear();
+    assertTrue(batch.isEmpty());
+  }
+}
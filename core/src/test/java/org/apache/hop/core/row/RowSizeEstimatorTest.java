@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Test;
+
+public class RowSizeEstimatorTest {
+
+  @Test
+  public void testEstimateRowSize() {
+    assertEquals(RowSizeEstimator.DEFAULT_ROW_SIZE, RowSizeEstimator.estimateRowSize(null));
+
+    IRowMeta narrow = new RowMeta();
+    narrow.addValueMeta(new ValueMetaInteger("id"));
+    long narrowSize = RowSizeEstimator.estimateRowSize(narrow);
+    assertEquals(16L + 8L + 16L, narrowSize);
+
+    IRowMeta wide = narrow.clone();
+    wide.addValueMeta(new ValueMetaString("description", 1000, -1));
+    wide.addValueMeta(new ValueMetaString("name"));
+    long wideSize = RowSizeEstimator.estimateRowSize(wide);
+    assertEquals(narrowSize + 8L + 1040L + 8L + 72L, wideSize);
+    assertTrue(wideSize > narrowSize);
+  }
+}
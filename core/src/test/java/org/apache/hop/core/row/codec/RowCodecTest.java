@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hop.core.row.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.junit.Test;
+
+public class RowCodecTest {
+
+  private static IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaNumber("amount"));
+    rowMeta.addValueMeta(new ValueMetaDate("created"));
+    rowMeta.addValueMeta(new ValueMetaBigNumber("total"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("active"));
+    rowMeta.addValueMeta(new ValueMetaBinary("data"));
+    rowMeta.addValueMeta(new ValueMetaTimestamp("updated"));
+    IValueMeta lazy = new ValueMetaString("lazy");
+    lazy.setStorageType(IValueMeta.STORAGE_TYPE_BINARY_STRING);
+    lazy.setStorageMetadata(new ValueMetaString("lazy"));
+    rowMeta.addValueMeta(lazy);
+    return rowMeta;
+  }
+
+  private static Object[] createRow(long id) {
+    Timestamp timestamp = new Timestamp(1_700_000_000_000L + id);
+    timestamp.setNanos(123456789);
+    return new Object[] {
+      id - 500L,
+      "name "
+          + (id % 7)
+          + (id % 100 == 0 ? " with a very long text which is not in the dictionary" : ""),
+      id * -1.25,
+      new Date(1_700_000_000_000L - id * 1000L),
+      new BigDecimal("-" + id + ".0042"),
+      id % 2 == 0,
+      new byte[] {1, 2, (byte) id},
+      timestamp,
+      ("lazy " + id).getBytes()
+    };
+  }
+
+  private static Object[] createNullRow(int nrFields) {
+    return new Object[nrFields];
+  }
+
+  private static void assertRowEquals(IRowMeta rowMeta, Object[] expected, Object[] actual)
+      throws Exception {
+    for (int i = 0; i < rowMeta.size(); i++) {
+      if (expected[i] instanceof byte[] bytes) {
+        assertArrayEquals(bytes, (byte[]) actual[i]);
+      } else {
+        assertEquals(expected[i], actual[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testWriteAndReadBlocks() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    int nrRows = 10_000;
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (IRowWriter writer = RowCodec.createWriter(rowMeta, outputStream)) {
+      for (int i = 0; i < nrRows; i++) {
+        writer.writeRow(i % 10 == 0 ? createNullRow(rowMeta.size()) : createRow(i));
+      }
+    }
+    byte[] compact = outputStream.toByteArray();
+
+    try (IRowReader reader = RowCodec.createReader(rowMeta, new ByteArrayInputStream(compact))) {
+      assertTrue(reader instanceof BinaryRowReader);
+      for (int i = 0; i < nrRows; i++) {
+        Object[] expected = i % 10 == 0 ? createNullRow(rowMeta.size()) : createRow(i);
+        assertRowEquals(rowMeta, expected, reader.readRow());
+      }
+      assertNull(reader.readRow());
+      assertNull(reader.readRow());
+    }
+
+    // The rows span several blocks and take up a lot less space than in the legacy format
+    //
+    assertTrue(compact.length > RowCodec.BLOCK_SIZE);
+    ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(legacy);
+    for (int i = 0; i < nrRows; i++) {
+      rowMeta.writeData(
+          dataOutputStream, i % 10 == 0 ? createNullRow(rowMeta.size()) : createRow(i));
+    }
+    assertTrue(compact.length < legacy.size() * 3 / 4);
+  }
+
+  @Test
+  public void testReadLegacyFormat() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (IRowWriter writer = RowCodec.createLegacyWriter(rowMeta, outputStream)) {
+      for (int i = 0; i < 100; i++) {
+        writer.writeRow(createRow(i));
+      }
+    }
+
+    try (IRowReader reader =
+        RowCodec.createReader(rowMeta, new ByteArrayInputStream(outputStream.toByteArray()))) {
+      assertTrue(reader instanceof LegacyRowReader);
+      for (int i = 0; i < 100; i++) {
+        assertRowEquals(rowMeta, createRow(i), reader.readRow());
+      }
+      assertNull(reader.readRow());
+    }
+  }
+
+  @Test
+  public void testEmptyStreams() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    try (IRowReader reader =
+        RowCodec.createReader(rowMeta, new ByteArrayInputStream(new byte[0]))) {
+      assertNull(reader.readRow());
+    }
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    RowCodec.createWriter(rowMeta, outputStream).close();
+    try (IRowReader reader =
+        RowCodec.createReader(rowMeta, new ByteArrayInputStream(outputStream.toByteArray()))) {
+      assertNull(reader.readRow());
+    }
+
+    // Rows without fields are counted, not lost
+    //
+    IRowMeta noFields = new RowMeta();
+    outputStream = new ByteArrayOutputStream();
+    try (IRowWriter writer = RowCodec.createWriter(noFields, outputStream)) {
+      writer.writeRow(new Object[0]);
+      writer.writeRow(new Object[0]);
+    }
+    try (IRowReader reader =
+        RowCodec.createReader(noFields, new ByteArrayInputStream(outputStream.toByteArray()))) {
+      assertEquals(0, reader.readRow().length);
+      assertEquals(0, reader.readRow().length);
+      assertNull(reader.readRow());
+    }
+  }
+
+  @Test
+  public void testEncodeRow() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    BinaryRowEncoder encoder = new BinaryRowEncoder(rowMeta, false);
+    BinaryRowDecoder decoder = new BinaryRowDecoder(rowMeta, false);
+
+    byte[] first = encoder.encodeRow(createRow(42));
+    byte[] second = encoder.encodeRow(createRow(42));
+    assertArrayEquals(first, second);
+    assertRowEquals(rowMeta, createRow(42), decoder.decodeRow(first));
+
+    IRowMeta keyMeta = new RowMeta();
+    keyMeta.addValueMeta(new ValueMetaInteger("id"));
+    keyMeta.addValueMeta(new ValueMetaString("code"));
+    BinaryRowEncoder keyEncoder = new BinaryRowEncoder(keyMeta, false);
+    assertEquals(1 + 1 + 1 + 1 + 3, keyEncoder.encodeRow(new Object[] {-1L, "abc"}).length);
+    assertEquals(1, keyEncoder.encodeRow(new Object[] {null, null}).length);
+  }
+
+  @Test
+  public void testZigzag() {
+    for (long value : new long[] {0L, 1L, -1L, 63L, -64L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+      assertEquals(value, BinaryRowDecoder.unzigzag(BinaryRowEncoder.zigzag(value)));
+    }
+    assertEquals(1L, BinaryRowEncoder.zigzag(-1L));
+    assertEquals(2L, BinaryRowEncoder.zigzag(1L));
+  }
+}
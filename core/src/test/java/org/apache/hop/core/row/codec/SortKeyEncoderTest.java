@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.core.row.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Random;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaInternetAddress;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.junit.Test;
+
+public class SortKeyEncoderTest {
+
+  private static final String[] STRINGS = {
+    "", " ", "a", "A", "ab", "aB", "b", "B ", " b", "é", "E", "a\u0000", "\u0000", "z", "😀"
+  };
+
+  private static IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaNumber("amount"));
+    rowMeta.addValueMeta(new ValueMetaDate("created"));
+    rowMeta.addValueMeta(new ValueMetaTimestamp("updated"));
+    rowMeta.addValueMeta(new ValueMetaBigNumber("total"));
+    rowMeta.addValueMeta(new ValueMetaBoolean("active"));
+    rowMeta.addValueMeta(new ValueMetaBinary("data"));
+    return rowMeta;
+  }
+
+  private static Object[] createRow(Random random) {
+    Object[] row = new Object[8];
+    row[0] = STRINGS[random.nextInt(STRINGS.length)];
+    row[1] = (long) (random.nextInt(7) - 3) * (random.nextBoolean() ? 1 : Long.MAX_VALUE / 4);
+    row[2] = new double[] {-1e10, -2.5, -0.0, 0.0, 1.5, 3.0, Double.MAX_VALUE}[random.nextInt(7)];
+    row[3] = new Date((random.nextInt(5) - 2) * 86400000L);
+    Timestamp timestamp = new Timestamp((random.nextInt(3) - 1) * 1000L);
+    timestamp.setNanos(random.nextInt(3) * 500);
+    row[4] = timestamp;
+    row[5] =
+        new BigDecimal[] {
+          new BigDecimal("-100"),
+          new BigDecimal("-99.5"),
+          new BigDecimal("-0.001"),
+          BigDecimal.ZERO,
+          new BigDecimal("0.00"),
+          new BigDecimal("0.0010"),
+          new BigDecimal("1"),
+          new BigDecimal("1.000"),
+          new BigDecimal("10"),
+          new BigDecimal("123456789.123456789")
+        }[random.nextInt(10)];
+    row[6] = random.nextBoolean();
+    row[7] = new byte[][] {{}, {0}, {-1}, {1, 2}, {1, -2}, {127}}[random.nextInt(6)];
+    for (int i = 0; i < row.length; i++) {
+      if (random.nextInt(6) == 0) {
+        row[i] = null;
+      }
+    }
+    return row;
+  }
+
+  private static void assertSameOrder(IRowMeta rowMeta, int[] keys, long seed) throws Exception {
+    SortKeyEncoder encoder = SortKeyEncoder.create(rowMeta, keys);
+    assertNotNull(encoder);
+    Random random = new Random(seed);
+    for (int i = 0; i < 2000; i++) {
+      Object[] row1 = createRow(random);
+      Object[] row2 = createRow(random);
+      int expected = Integer.signum(rowMeta.compare(row1, row2, keys));
+      int actual =
+          Integer.signum(SortKeyEncoder.compare(encoder.encode(row1), encoder.encode(row2)));
+      assertEquals(rowMeta.getString(row1) + " <> " + rowMeta.getString(row2), expected, actual);
+    }
+  }
+
+  @Test
+  public void testAscending() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    for (int key = 0; key < rowMeta.size(); key++) {
+      assertSameOrder(rowMeta, new int[] {key}, key);
+    }
+    assertSameOrder(rowMeta, new int[] {6, 0, 5, 1}, 10L);
+  }
+
+  @Test
+  public void testDescending() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    for (IValueMeta valueMeta : rowMeta.getValueMetaList()) {
+      valueMeta.setSortedDescending(true);
+    }
+    for (int key = 0; key < rowMeta.size(); key++) {
+      assertSameOrder(rowMeta, new int[] {key}, key);
+    }
+    rowMeta.getValueMeta(0).setSortedDescending(false);
+    assertSameOrder(rowMeta, new int[] {6, 0, 5, 1}, 11L);
+  }
+
+  @Test
+  public void testStringOptions() throws Exception {
+    IRowMeta rowMeta = createRowMeta();
+    IValueMeta name = rowMeta.getValueMeta(0);
+
+    name.setCaseInsensitive(true);
+    assertSameOrder(rowMeta, new int[] {0, 1}, 20L);
+
+    name.setIgnoreWhitespace(true);
+    assertSameOrder(rowMeta, new int[] {0, 1}, 21L);
+
+    name.setCaseInsensitive(false);
+    name.setCollatorDisabled(false);
+    for (int strength = 0; strength <= 3; strength++) {
+      name.setCollatorStrength(strength);
+      assertSameOrder(rowMeta, new int[] {0, 1}, 22L + strength);
+    }
+
+    name.setSortedDescending(true);
+    assertSameOrder(rowMeta, new int[] {0, 1}, 30L);
+  }
+
+  @Test
+  public void testPrefixFree() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("first"));
+    rowMeta.addValueMeta(new ValueMetaString("second"));
+    SortKeyEncoder encoder = SortKeyEncoder.create(rowMeta, new int[] {0, 1});
+
+    byte[] key1 = encoder.encode(new Object[] {"a", "z"});
+    byte[] key2 = encoder.encode(new Object[] {"ab", "a"});
+    assertTrue(SortKeyEncoder.compare(key1, key2) < 0);
+    assertEquals(0, SortKeyEncoder.compare(key1, encoder.encode(new Object[] {"a", "z"})));
+  }
+
+  @Test
+  public void testUnsupportedType() {
+    IRowMeta rowMeta = createRowMeta();
+    rowMeta.addValueMeta(new ValueMetaInternetAddress("ip"));
+
+    assertNotNull(SortKeyEncoder.create(rowMeta, new int[] {0, 1}));
+    assertNull(SortKeyEncoder.create(rowMeta, new int[] {0, 8}));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import org.junit.Test;
+
+public class FastDateMaskTest {
+
+  private static final String[] MASKS = {
+    "yyyy/MM/dd HH:mm:ss.SSS",
+    "yyyy-MM-dd HH:mm:ss",
+    "yyyy-MM-dd",
+    "yyyyMMdd",
+    "yyyyMMddHHmmss",
+    "dd/MM/yyyy",
+    "HH:mm:ss"
+  };
+
+  private static final String[] TIME_ZONES = {"UTC", "Europe/Brussels", "America/New_York"};
+
+  private static SimpleDateFormat createFormat(String mask, String timeZone, boolean lenient) {
+    SimpleDateFormat format = new SimpleDateFormat(mask, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone(timeZone));
+    format.setLenient(lenient);
+    return format;
+  }
+
+  @Test
+  public void testSameResultsAsDateFormat() {
+    Random random = new Random(42L);
+    for (String mask : MASKS) {
+      for (String timeZone : TIME_ZONES) {
+        for (boolean lenient : new boolean[] {false, true}) {
+          SimpleDateFormat format = createFormat(mask, timeZone, lenient);
+          FastDateMask fastMask = FastDateMask.compile(format);
+          assertNotNull(mask, fastMask);
+
+          for (int i = 0; i < 2000; i++) {
+            // Dates between 1900 and 2100, including the daylight saving time switches
+            //
+            long time = -2_208_988_800_000L + (long) (random.nextDouble() * 6_311_390_400_000L);
+            Date date = new Date(time);
+
+            String expected = format.format(date);
+            String formatted = fastMask.format(date);
+            assertEquals(mask + " in " + timeZone, expected, formatted);
+
+            Date parsed = fastMask.parse(expected);
+            if (parsed != null) {
+              assertEquals(
+                  mask + " " + expected, format.parse(expected, new ParsePosition(0)), parsed);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFallBack() {
+    SimpleDateFormat format = createFormat("yyyy-MM-dd", "Europe/Brussels", false);
+    FastDateMask fastMask = FastDateMask.compile(format);
+
+    // Values the date format has to handle
+    //
+    assertNull(fastMask.parse("2024-1-5"));
+    assertNull(fastMask.parse("2024-02-30"));
+    assertNull(fastMask.parse("2024-13-01"));
+    assertNull(fastMask.parse("2024-01-15 12:00"));
+    assertNull(fastMask.parse("2024/01/15"));
+    assertNull(fastMask.parse("1200-01-15"));
+    assertEquals(format.parse("2024-02-29", new ParsePosition(0)), fastMask.parse("2024-02-29"));
+
+    // In the gap of the daylight saving time switch
+    //
+    FastDateMask timeMask =
+        FastDateMask.compile(createFormat("yyyy-MM-dd HH:mm", "Europe/Brussels", true));
+    assertNull(timeMask.parse("2024-03-31 02:30"));
+    assertNotNull(timeMask.parse("2024-03-31 03:30"));
+
+    // Masks the fast path doesn't support
+    //
+    assertNull(FastDateMask.compile(createFormat("yy-MM-dd", "UTC", false)));
+    assertNull(FastDateMask.compile(createFormat("yyyy-MMM-dd", "UTC", false)));
+    assertNull(FastDateMask.compile(createFormat("yyyy-MM-dd'T'HH:mm", "UTC", false)));
+    assertNull(FastDateMask.compile(createFormat("yyyy-MM-dd hh:mm a", "UTC", false)));
+    assertNull(FastDateMask.compile(new SimpleDateFormat("yyyy-MM-dd", new Locale("th", "TH"))));
+  }
+
+  @Test
+  public void testValueMetaConversions() throws Exception {
+    ValueMetaDate dateMeta = new ValueMetaDate("date");
+    dateMeta.setConversionMask("yyyy-MM-dd HH:mm:ss");
+    dateMeta.setDateFormatTimeZone(TimeZone.getTimeZone("UTC"));
+    Date date = dateMeta.convertStringToDate("2024-01-15 12:34:56");
+    assertEquals(1_705_322_096_000L, date.getTime());
+    assertEquals("2024-01-15 12:34:56", dateMeta.convertDateToString(date));
+
+    // Changing the mask is picked up by the conversions
+    //
+    dateMeta.setConversionMask("yyyyMMdd");
+    assertEquals("20240115", dateMeta.convertDateToString(date));
+    assertEquals(1_705_276_800_000L, dateMeta.convertStringToDate("20240115").getTime());
+
+    // Values the fast path doesn't handle still parse
+    //
+    dateMeta.setDateFormatLenient(true);
+    assertEquals(1_706_745_600_000L, dateMeta.convertStringToDate("20240132").getTime());
+  }
+}
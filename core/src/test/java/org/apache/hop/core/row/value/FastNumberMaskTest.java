@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParsePosition;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+public class FastNumberMaskTest {
+
+  private static final String[] MASKS = {
+    "#.#", "0.00", "#", "####0;-####0", "####0.0#########;-####0.0#########", " 0000.00;-0000.00"
+  };
+
+  private static DecimalFormat createFormat(String mask, char decimalSymbol) {
+    DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.US);
+    symbols.setDecimalSeparator(decimalSymbol);
+    symbols.setGroupingSeparator(decimalSymbol == '.' ? ',' : '.');
+    return new DecimalFormat(mask, symbols);
+  }
+
+  private static String randomNumber(Random random, char decimalSymbol) {
+    StringBuilder number = new StringBuilder();
+    if (random.nextBoolean()) {
+      number.append('-');
+    }
+    int digits = random.nextInt(12);
+    for (int i = 0; i < digits; i++) {
+      number.append((char) ('0' + random.nextInt(10)));
+    }
+    if (random.nextBoolean()) {
+      number.append(decimalSymbol);
+      int fraction = 1 + random.nextInt(8);
+      for (int i = 0; i < fraction; i++) {
+        number.append((char) ('0' + random.nextInt(10)));
+      }
+    }
+    return number.toString();
+  }
+
+  @Test
+  public void testSameResultsAsDecimalFormat() {
+    Random random = new Random(42L);
+    for (String mask : MASKS) {
+      for (char decimalSymbol : new char[] {'.', ','}) {
+        DecimalFormat format = createFormat(mask, decimalSymbol);
+        FastNumberMask fastMask = FastNumberMask.compile(format);
+        assertNotNull(mask, fastMask);
+
+        for (int i = 0; i < 5000; i++) {
+          String string = randomNumber(random, decimalSymbol);
+          if (mask.startsWith(" ") && !string.startsWith("-")) {
+            string = " " + string;
+          }
+          ParsePosition position = new ParsePosition(0);
+          Number expected = format.parse(string, position);
+          boolean complete = expected != null && position.getIndex() == string.length();
+
+          Double number = fastMask.parseNumber(string);
+          if (number != null) {
+            assertEquals(mask + " " + string, Boolean.TRUE, complete);
+            assertEquals(
+                mask + " " + string,
+                Double.doubleToLongBits(expected.doubleValue()),
+                Double.doubleToLongBits(number));
+          }
+          Long integer = fastMask.parseInteger(string);
+          if (integer != null) {
+            assertEquals(mask + " " + string, Boolean.TRUE, complete);
+            assertEquals(mask + " " + string, expected.longValue(), integer.longValue());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFallBack() {
+    FastNumberMask fastMask = FastNumberMask.compile(createFormat("#.#", '.'));
+    assertEquals(Double.valueOf(1234.5), fastMask.parseNumber("1234.5"));
+    assertEquals(Double.valueOf(-0.25), fastMask.parseNumber("-.25"));
+    assertEquals(Long.valueOf(-1234L), fastMask.parseInteger("-1234"));
+
+    // Numbers the decimal format has to handle
+    //
+    assertNull(fastMask.parseNumber("1,234.5"));
+    assertNull(fastMask.parseNumber("1.2.3"));
+    assertNull(fastMask.parseNumber("1e5"));
+    assertNull(fastMask.parseNumber(" 12"));
+    assertNull(fastMask.parseNumber("-"));
+    assertNull(fastMask.parseNumber("1234567890.1234567"));
+    assertNull(fastMask.parseInteger("12.5"));
+    assertNull(fastMask.parseInteger("1234567890123456789"));
+
+    // Masks the fast path doesn't support
+    //
+    assertNull(FastNumberMask.compile(createFormat("#.#%", '.')));
+    assertNull(FastNumberMask.compile(createFormat("0.0E0", '.')));
+    assertNull(FastNumberMask.compile(createFormat("¤#.##", '.')));
+    DecimalFormat bigDecimalFormat = createFormat("#.#", '.');
+    bigDecimalFormat.setParseBigDecimal(true);
+    assertNull(FastNumberMask.compile(bigDecimalFormat));
+  }
+
+  @Test
+  public void testValueMetaConversions() throws Exception {
+    ValueMetaNumber numberMeta = new ValueMetaNumber("number");
+    numberMeta.setConversionMask("#.##");
+    numberMeta.setDecimalSymbol(",");
+    numberMeta.setGroupingSymbol(".");
+    assertEquals(Double.valueOf(1234.56), numberMeta.convertStringToNumber("1234,56"));
+    assertEquals(Double.valueOf(-0.5), numberMeta.convertStringToNumber("-0,5"));
+    assertEquals("1234,56", numberMeta.convertNumberToString(1234.56));
+
+    ValueMetaInteger integerMeta = new ValueMetaInteger("integer");
+    integerMeta.setConversionMask("#");
+    assertEquals(Long.valueOf(-42L), integerMeta.convertStringToInteger("-42"));
+    assertEquals(Long.valueOf(12L), integerMeta.convertStringToInteger("12.7"));
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.core.compress.lz4;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream.BLOCKSIZE;
+import net.jpountz.lz4.LZ4FrameOutputStream.FLG;
+import org.apache.hop.core.compress.CompressionOutputStream;
+import org.apache.hop.core.compress.ICompressionProvider;
+
+public class Lz4CompressionOutputStream extends CompressionOutputStream {
+
+  public Lz4CompressionOutputStream(OutputStream out, ICompressionProvider provider)
+      throws IOException {
+    super(getDelegate(out), provider);
+  }
+
+  protected static LZ4FrameOutputStream getDelegate(OutputStream out) throws IOException {
+    if (out instanceof LZ4FrameOutputStream lz4OutputStream) {
+      return lz4OutputStream;
+    }
+    // Small blocks keep the buffers of many open streams, like the runs of a merge, cheap
+    return new LZ4FrameOutputStream(out, BLOCKSIZE.SIZE_64KB, FLG.Bits.BLOCK_INDEPENDENCE);
+  }
+}
@@ -33,6 +33,7 @@ import org.apache.hop.pipeline.engine.EngineMetrics;
 import org.apache.hop.pipeline.engine.IEngineComponent;
 import org.apache.hop.pipeline.engine.IEngineMetric;
 import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.apache.hop.pipeline.performance.BottleneckAnalysis;
 import org.apache.hop.workflow.WorkflowMeta;
 import org.apache.hop.workflow.engine.IWorkflowEngine;
 
@@ -94,7 +95,8 @@ public final class ExecutionStateBuilder {
             .withFailed(pipeline.getErrors() > 0)
             .withStatusDescription(pipeline.getStatusDescription())
             .withChildIds(
-                LoggingRegistry.getInstance().getChildrenMap().get(pipeline.getLogChannelId()))
+                LoggingRegistry.getInstance()
+                    .getLogChannelDirectChildren(pipeline.getLogChannelId()))
             .withContainerId(pipeline.getContainerId())
             .withExecutionEndDate(pipeline.getExecutionEndDate());
 
@@ -118,11 +120,25 @@ public final class ExecutionStateBuilder {
         addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_UPDATED);
         addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_BUFFER_IN);
         addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_BUFFER_OUT);
+        addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_BUSY_TIME);
+        addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_INPUT_WAIT_TIME);
+        addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_OUTPUT_WAIT_TIME);
+        addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_ROW_TIME_P50);
+        addMetric(componentMetrics, engineMetrics, component, Pipeline.METRIC_ROW_TIME_P99);
 
         builder.addMetrics(componentMetrics);
       }
     }
 
+    // Attach the latest analysis of the transforms limiting the throughput
+    //
+    if (pipeline instanceof Pipeline localPipeline) {
+      BottleneckAnalysis bottleneckAnalysis = localPipeline.getBottleneckAnalysis();
+      if (bottleneckAnalysis != null) {
+        bottleneckAnalysis.addDetails(builder.details);
+      }
+    }
+
     return builder;
   }
 
@@ -170,7 +186,7 @@ public final class ExecutionStateBuilder {
         .withFailed(result != null && !result.getResult())
         .withStatusDescription(workflow.getStatusDescription())
         .withChildIds(
-            LoggingRegistry.getInstance().getChildrenMap().get(workflow.getLogChannelId()))
+            LoggingRegistry.getInstance().getLogChannelDirectChildren(workflow.getLogChannelId()))
         .withContainerId(workflow.getContainerId())
         .withExecutionEndDate(workflow.getExecutionEndDate());
   }
@@ -30,8 +30,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
@@ -40,6 +42,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang.StringUtils;
@@ -54,6 +57,7 @@ import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.QueueRowSet;
 import org.apache.hop.core.Result;
 import org.apache.hop.core.ResultFile;
+import org.apache.hop.core.RingBufferRowSet;
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.exception.HopException;
@@ -101,8 +105,13 @@ import org.apache.hop.pipeline.engine.IEngineMetric;
 import org.apache.hop.pipeline.engine.IPipelineComponentRowsReceived;
 import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.apache.hop.pipeline.engines.EmptyPipelineRunConfiguration;
+import org.apache.hop.pipeline.memory.PipelineMemoryManager;
+import org.apache.hop.pipeline.performance.BottleneckAnalysis;
+import org.apache.hop.pipeline.performance.BottleneckAnalyzer;
 import org.apache.hop.pipeline.performance.PerformanceSnapShot;
+import org.apache.hop.pipeline.performance.TransformTimings;
 import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.FusedRunThread;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.ITransformData;
 import org.apache.hop.pipeline.transform.ITransformFinishedListener;
@@ -139,7 +148,13 @@ public abstract class Pipeline
   public static final String METRIC_NAME_REJECTED = "rejected";
   public static final String METRIC_NAME_BUFFER_IN = "buffer_in";
   public static final String METRIC_NAME_BUFFER_OUT = "buffer_out";
+  public static final String METRIC_NAME_BUFFER_SIZE_OUT = "buffer_size_out";
   public static final String METRIC_NAME_FLUSH_BUFFER = "flush_buffer";
+  public static final String METRIC_NAME_BUSY_TIME = "busy_time";
+  public static final String METRIC_NAME_INPUT_WAIT_TIME = "input_wait_time";
+  public static final String METRIC_NAME_OUTPUT_WAIT_TIME = "output_wait_time";
+  public static final String METRIC_NAME_ROW_TIME_P50 = "row_time_p50";
+  public static final String METRIC_NAME_ROW_TIME_P99 = "row_time_p99";
   public static final String METRIC_NAME_INIT = "init";
 
   /** The package name, used for internationalization of messages. */
@@ -254,6 +269,39 @@ public abstract class Pipeline
   /** Whether safe mode is enabled. */
   private boolean safeModeEnabled;
 
+  /** Whether batch capable transforms hand over whole batches of rows to each other. */
+  private boolean batchProcessing;
+
+  /** Whether the transforms run on virtual threads. */
+  private boolean virtualThreads;
+
+  /** Whether chains of fusable transforms run together in a single thread. */
+  private boolean fusingTransforms;
+
+  /** The chains of transforms which run together in a single thread. */
+  private List<List<TransformMeta>> fusedTransformChains = new ArrayList<>();
+
+  /** Whether the buffers of the hops are resized based on the traffic on them. */
+  private boolean adaptiveRowSets;
+
+  /** The maximum number of bytes the adaptive buffers can take up, 0 for a default. */
+  private long rowSetMemoryBudget;
+
+  /** The maximum number of bytes the transforms and hops can reserve, 0 for no limit. */
+  private long memoryBudget;
+
+  /** Keeps track of the memory the transforms and hops hold on to. */
+  private PipelineMemoryManager memoryManager;
+
+  /** Resizes the buffers of the hops while the pipeline runs. */
+  private RowSetSizeTuner rowSetSizeTuner;
+
+  /** The timer which runs the row set size tuner. */
+  private Timer rowSetSizeTunerTimer;
+
+  /** The carrier thread usage at the start of the transform threads, on virtual threads */
+  private VirtualThreads.CarrierThreadUsage carrierThreadUsageAtStart;
+
   /** Int value for storage pipeline statuses */
   private final AtomicInteger status;
 
@@ -296,6 +344,15 @@ public abstract class Pipeline
   /** The transform performance snapshot timer. */
   private Timer transformPerformanceSnapShotTimer;
 
+  /** Looks for the transforms limiting the throughput of the pipeline. */
+  private BottleneckAnalyzer bottleneckAnalyzer;
+
+  /** The bottleneck analyzer timer. */
+  private Timer bottleneckAnalyzerTimer;
+
+  /** The latest bottleneck analysis. */
+  private volatile BottleneckAnalysis bottleneckAnalysis;
+
   /** A list of started listeners attached to the pipeline. */
   private List<IExecutionStartedListener<IPipelineEngine<PipelineMeta>>> executionStartedListeners;
 
@@ -600,8 +657,33 @@ public abstract class Pipeline
     transforms = Collections.synchronizedList(new ArrayList<>());
     rowsets = new ArrayList<>();
 
+    // The memory the transforms and hops reserve is shared with all pipelines in this JVM
+    //
+    memoryManager =
+        new PipelineMemoryManager(
+            getPipelineMeta().getName(),
+            memoryBudget,
+            PipelineMemoryManager.getServerMemoryManager());
+
     List<TransformMeta> hopTransforms = pipelineMeta.getPipelineHopTransforms(false);
 
+    // See which transforms can run together in a single thread, passing rows directly
+    //
+    fusedTransformChains = new ArrayList<>();
+    if (fusingTransforms && pipelineMeta.getPipelineType() == PipelineMeta.PipelineType.Normal) {
+      fusedTransformChains =
+          new TransformFusionPlanner(pipelineMeta, this).findChains(hopTransforms);
+      if (log.isDetailed()) {
+        for (List<TransformMeta> chain : fusedTransformChains) {
+          log.logDetailed(
+              BaseMessages.getString(
+                  PKG,
+                  "Pipeline.Log.FusedTransforms",
+                  chain.stream().map(TransformMeta::getName).collect(Collectors.joining(", "))));
+        }
+      }
+    }
+
     if (log.isDetailed()) {
       log.logDetailed(
           BaseMessages.getString(
@@ -694,18 +776,11 @@ public abstract class Pipeline
             IRowSet rowSet;
             switch (pipelineMeta.getPipelineType()) {
               case Normal:
-                // This is a temporary patch until the batching rowset has proven
-                // to be working in all situations.
-                // Currently there are stalling problems when dealing with small
-                // amounts of rows.
-                //
-                Boolean batchingRowSet =
-                    ValueMetaString.convertStringToBoolean(
-                        System.getProperty(Const.HOP_BATCHING_ROWSET));
-                if (batchingRowSet != null && batchingRowSet.booleanValue()) {
-                  rowSet = new BlockingBatchingRowSet(rowSetSize);
+                if (isFusedHop(thisTransform, nextTransform)) {
+                  // Both transforms run in the same thread
+                  rowSet = new QueueRowSet();
                 } else {
-                  rowSet = new BlockingRowSet(rowSetSize);
+                  rowSet = createNormalRowSet();
                 }
                 break;
 
@@ -753,7 +828,7 @@ public abstract class Pipeline
           // distribution...
           for (int s = 0; s < thisCopies; s++) {
             for (int t = 0; t < nextCopies; t++) {
-              BlockingRowSet rowSet = new BlockingRowSet(rowSetSize);
+              IRowSet rowSet = createNormalRowSet();
               rowSet.setThreadNameFromToCopy(
                   thisTransform.getName(), s, nextTransform.getName(), t);
               rowsets.add(rowSet);
@@ -1060,6 +1135,7 @@ public abstract class Pipeline
           combi.data.setStatus(ComponentExecutionStatus.STATUS_STOPPED);
         }
       }
+      memoryManager.close();
 
       // Just for safety, fire the pipeline finished listeners...
       try {
@@ -1094,6 +1170,41 @@ public abstract class Pipeline
     setReadyToStart(true);
   }
 
+  /**
+   * Creates a row set for a hop in a normal (multi-threaded) pipeline. Each row set allocated in
+   * {@link #prepareExecution()} connects exactly one source transform copy with one target
+   * transform copy. That means that there is only one thread writing and one thread reading so we
+   * can use the lock-free ring buffer row set by default.
+   *
+   * @return a new row set with the configured size
+   */
+  protected IRowSet createNormalRowSet() {
+    // The batching row set hands over rows in batches and is used when asked for explicitly.
+    // Transforms which process batches already hand over whole batches through the ring buffer,
+    // the batching row set would split them up into rows again.
+    //
+    Boolean batchingRowSet =
+        ValueMetaString.convertStringToBoolean(System.getProperty(Const.HOP_BATCHING_ROWSET));
+    if (batchingRowSet != null && batchingRowSet.booleanValue()) {
+      return new BlockingBatchingRowSet(rowSetSize);
+    }
+    // Adaptive buffers can grow up to a few times the configured size.
+    //
+    int maxCapacity = adaptiveRowSets ? rowSetSize * RowSetSizeTuner.MAX_GROWTH : rowSetSize;
+
+    // Virtual threads should park rather than spin or poll: that frees up their carrier thread.
+    //
+    if (isRunningOnVirtualThreads()) {
+      return new RingBufferRowSet(rowSetSize, maxCapacity, true);
+    }
+    Boolean lockFreeRowSet =
+        ValueMetaString.convertStringToBoolean(System.getProperty(Const.HOP_LOCK_FREE_ROWSET, "Y"));
+    if (lockFreeRowSet == null || lockFreeRowSet.booleanValue()) {
+      return new RingBufferRowSet(rowSetSize, maxCapacity, false);
+    }
+    return new BlockingRowSet(rowSetSize);
+  }
+
   /**
    * Starts the threads prepared by prepareThreads(). Before you start the threads, you can add
    * RowListeners to them.
@@ -1131,6 +1242,7 @@ public abstract class Pipeline
                 // Grab the performance statistics one last time (if enabled)
                 //
                 addTransformPerformanceSnapShot();
+                updateBottleneckAnalysis();
 
                 // We're really done now.
                 //
@@ -1207,6 +1319,53 @@ public abstract class Pipeline
           timerTask, 100, pipelineMeta.getTransformPerformanceCapturingDelay());
     }
 
+    // Look for the transforms which limit the throughput at regular intervals...
+    //
+    long bottleneckAnalysisInterval =
+        Const.toLong(EnvUtil.getSystemProperty(Const.HOP_BOTTLENECK_ANALYSIS_INTERVAL), 1000L);
+    if (bottleneckAnalysisInterval > 0) {
+      bottleneckAnalyzer = new BottleneckAnalyzer(pipelineMeta, rowSetSize);
+      bottleneckAnalyzerTimer =
+          new Timer("bottleneckAnalyzer Timer: " + pipelineMeta.getName(), true);
+      bottleneckAnalyzerTimer.schedule(
+          new TimerTask() {
+            @Override
+            public void run() {
+              if (!isFinished()) {
+                updateBottleneckAnalysis();
+              }
+            }
+          },
+          bottleneckAnalysisInterval,
+          bottleneckAnalysisInterval);
+    }
+
+    // Resize the buffers of the hops based on the traffic on them...
+    //
+    if (adaptiveRowSets) {
+      long rowSetBudget =
+          rowSetMemoryBudget > 0 ? rowSetMemoryBudget : Runtime.getRuntime().maxMemory() / 10;
+      rowSetSizeTuner =
+          new RowSetSizeTuner(
+              rowsets,
+              rowSetSize,
+              rowSetBudget,
+              memoryManager.createReservation("Row sets", null),
+              log);
+      if (rowSetSizeTuner.hasBuffers()) {
+        rowSetSizeTunerTimer = new Timer("rowSetSizeTuner Timer: " + pipelineMeta.getName(), true);
+        rowSetSizeTunerTimer.schedule(
+            new TimerTask() {
+              @Override
+              public void run() {
+                rowSetSizeTuner.tune();
+              }
+            },
+            RowSetSizeTuner.TUNING_INTERVAL_MS,
+            RowSetSizeTuner.TUNING_INTERVAL_MS);
+      }
+    }
+
     // Now start a thread to monitor the running pipeline...
     //
     setFinished(false);
@@ -1233,10 +1392,20 @@ public abstract class Pipeline
               && transformPerformanceSnapShotTimer != null) {
             transformPerformanceSnapShotTimer.cancel();
           }
+          if (rowSetSizeTunerTimer != null) {
+            rowSetSizeTunerTimer.cancel();
+          }
+          if (bottleneckAnalyzerTimer != null) {
+            bottleneckAnalyzerTimer.cancel();
+          }
+          if (memoryManager != null) {
+            memoryManager.close();
+          }
 
           setFinished(true);
           setRunning(false); // no longer running
 
+          logCarrierThreadUsage();
           log.snap(Metrics.METRIC_PIPELINE_EXECUTION_STOP);
 
           // release unused vfs connections
@@ -1252,13 +1421,42 @@ public abstract class Pipeline
 
     switch (pipelineMeta.getPipelineType()) {
       case Normal:
+        carrierThreadUsageAtStart = null;
+        if (virtualThreads) {
+          if (VirtualThreads.isAvailable()) {
+            carrierThreadUsageAtStart = VirtualThreads.getCarrierThreadUsage();
+          } else {
+            log.logBasic(BaseMessages.getString(PKG, "Pipeline.Log.VirtualThreadsNotAvailable"));
+          }
+        }
+
+        // The first transform of a fused chain runs the whole chain
+        //
+        Map<String, TransformMetaDataCombi> firstCopies = new HashMap<>();
+        for (TransformMetaDataCombi combi : transforms) {
+          if (combi.copy == 0) {
+            firstCopies.put(combi.transformName, combi);
+          }
+        }
+        Map<TransformMetaDataCombi, List<TransformMetaDataCombi>> fusedChains = new HashMap<>();
+        Set<TransformMetaDataCombi> fusedFollowers = new HashSet<>();
+        for (List<TransformMeta> chain : fusedTransformChains) {
+          List<TransformMetaDataCombi> combis = new ArrayList<>();
+          for (TransformMeta transformMeta : chain) {
+            combis.add(firstCopies.get(transformMeta.getName()));
+          }
+          fusedChains.put(combis.get(0), combis);
+          fusedFollowers.addAll(combis.subList(1, combis.size()));
+        }
 
         // Now start all the threads...
         //
         for (final TransformMetaDataCombi combi : transforms) {
-          RunThread runThread = new RunThread(combi);
-          Thread thread = new Thread(runThread);
-          thread.setName(getName() + " - " + combi.transformName);
+          List<TransformMetaDataCombi> fusedChain = fusedChains.get(combi);
+          RunThread runThread =
+              fusedChain == null
+                  ? new RunThread(combi)
+                  : new FusedRunThread(fusedChain, rowSetSize);
           ExtensionPointHandler.callExtensionPoint(
               log, this, HopExtensionPoint.TransformBeforeStart.id, combi);
           // Call an extension point at the end of the transform
@@ -1274,7 +1472,9 @@ public abstract class Pipeline
                 }
               });
 
-          thread.start();
+          if (!fusedFollowers.contains(combi)) {
+            startRunThread(combi, runThread);
+          }
         }
         break;
 
@@ -1306,6 +1506,50 @@ public abstract class Pipeline
     }
   }
 
+  /**
+   * Start running a transform copy. By default every transform copy runs in a thread of its own.
+   * Engines which run the transforms in another way can override this method.
+   *
+   * @param combi the transform copy to run
+   * @param runThread the runnable which processes all the rows of the transform copy
+   * @throws HopException in case the transform can't be started
+   */
+  protected void startRunThread(TransformMetaDataCombi combi, RunThread runThread)
+      throws HopException {
+    Thread thread =
+        VirtualThreads.newThread(
+            getName() + " - " + combi.transformName, runThread, virtualThreads);
+    thread.start();
+  }
+
+  /** Report how busy the transforms kept the carrier threads if they ran on virtual threads. */
+  private void logCarrierThreadUsage() {
+    VirtualThreads.CarrierThreadUsage start = carrierThreadUsageAtStart;
+    if (start == null) {
+      return;
+    }
+    VirtualThreads.CarrierThreadUsage end = VirtualThreads.getCarrierThreadUsage();
+    int usage = end.getUsagePercentage(start);
+    long cpuTimeMs =
+        TimeUnit.NANOSECONDS.toMillis(
+            Math.max(0L, end.getCpuTimeNanos() - start.getCpuTimeNanos()));
+
+    log.snap(Metrics.METRIC_PIPELINE_VIRTUAL_THREADS, transforms.size());
+    log.snap(Metrics.METRIC_PIPELINE_CARRIER_THREADS, end.getNrCarrierThreads());
+    log.snap(Metrics.METRIC_PIPELINE_CARRIER_THREAD_CPU_TIME, cpuTimeMs);
+    log.snap(Metrics.METRIC_PIPELINE_CARRIER_THREAD_USAGE, usage);
+    if (log.isDetailed()) {
+      log.logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "Pipeline.Log.CarrierThreadUsage",
+              String.valueOf(transforms.size()),
+              String.valueOf(end.getNrCarrierThreads()),
+              String.valueOf(usage),
+              String.valueOf(cpuTimeMs)));
+    }
+  }
+
   /**
    * Make attempt to fire all registered finished listeners if possible.
    *
@@ -1444,6 +1688,15 @@ public abstract class Pipeline
     }
   }
 
+  /** Samples the buffers and timings of the transforms and refreshes the bottleneck analysis. */
+  protected void updateBottleneckAnalysis() {
+    if (bottleneckAnalyzer == null) {
+      return;
+    }
+    bottleneckAnalyzer.sample(transforms);
+    bottleneckAnalysis = bottleneckAnalyzer.analyze();
+  }
+
   /**
    * This method performs any cleanup operations, typically called after the pipeline has finished.
    */
@@ -1528,6 +1781,11 @@ public abstract class Pipeline
 
   protected void setFinished(boolean finished) {
     status.updateAndGet(v -> finished ? v | FINISHED.mask : (BIT_STATUS_SUM ^ FINISHED.mask) & v);
+    if (finished && log != null) {
+      // The logging registry can purge this pipeline and its transforms later on
+      //
+      LoggingRegistry.getInstance().markFinished(log.getLogChannelId());
+    }
   }
 
   public boolean isFinishedOrStopped() {
@@ -1992,6 +2250,179 @@ public abstract class Pipeline
     return safeModeEnabled;
   }
 
+  /**
+   * Let transforms which support it process and hand over whole batches of rows instead of single
+   * rows.
+   *
+   * @param batchProcessing true to enable batch processing
+   */
+  public void setBatchProcessing(boolean batchProcessing) {
+    this.batchProcessing = batchProcessing;
+  }
+
+  /**
+   * @return true if transforms which support it process whole batches of rows
+   */
+  public boolean isBatchProcessing() {
+    return batchProcessing;
+  }
+
+  /**
+   * Run every transform on a virtual thread instead of a platform thread. The row sets between the
+   * transforms then park waiting threads instead of spinning or polling. On Java runtimes without
+   * virtual threads the transforms keep running on platform threads.
+   *
+   * @param virtualThreads true to run the transforms on virtual threads
+   */
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * Run chains of fusable transforms together in a single thread, passing the rows from one
+   * transform to the next without synchronization. See {@link TransformFusionPlanner} for the
+   * conditions a chain needs to meet.
+   *
+   * @param fusingTransforms true to fuse chains of transforms
+   */
+  public void setFusingTransforms(boolean fusingTransforms) {
+    this.fusingTransforms = fusingTransforms;
+  }
+
+  /**
+   * @return true if chains of fusable transforms run together in a single thread
+   */
+  public boolean isFusingTransforms() {
+    return fusingTransforms;
+  }
+
+  /**
+   * Resize the buffers of the hops while the pipeline runs, based on the traffic on them. See
+   * {@link RowSetSizeTuner} for the rules which are applied.
+   *
+   * @param adaptiveRowSets true to resize the buffers of the hops
+   */
+  public void setAdaptiveRowSets(boolean adaptiveRowSets) {
+    this.adaptiveRowSets = adaptiveRowSets;
+  }
+
+  /**
+   * @return true if the buffers of the hops are resized while the pipeline runs
+   */
+  public boolean isAdaptiveRowSets() {
+    return adaptiveRowSets;
+  }
+
+  /**
+   * @param rowSetMemoryBudget the maximum number of bytes the adaptive buffers can take up, 0 to
+   *     use a tenth of the maximum heap size
+   */
+  public void setRowSetMemoryBudget(long rowSetMemoryBudget) {
+    this.rowSetMemoryBudget = rowSetMemoryBudget;
+  }
+
+  /**
+   * Gets rowSetMemoryBudget
+   *
+   * @return value of rowSetMemoryBudget
+   */
+  public long getRowSetMemoryBudget() {
+    return rowSetMemoryBudget;
+  }
+
+  /**
+   * @param memoryBudget the maximum number of bytes the transforms and hops of this pipeline can
+   *     reserve together, 0 for no limit other than the one shared by all pipelines in this JVM
+   */
+  public void setMemoryBudget(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * Gets memoryBudget
+   *
+   * @return value of memoryBudget
+   */
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * Gets the memory manager of the running pipeline. Transforms reserve the memory they buffer rows
+   * in from it.
+   *
+   * @return value of memoryManager, null before the execution is prepared
+   */
+  public PipelineMemoryManager getMemoryManager() {
+    return memoryManager;
+  }
+
+  /**
+   * Gets rowSetSizeTuner
+   *
+   * @return value of rowSetSizeTuner, null if the buffers are not resized
+   */
+  public RowSetSizeTuner getRowSetSizeTuner() {
+    return rowSetSizeTuner;
+  }
+
+  /**
+   * Gets the chains of transforms which run together in a single thread
+   *
+   * @return value of fusedTransformChains
+   */
+  public List<List<TransformMeta>> getFusedTransformChains() {
+    return fusedTransformChains;
+  }
+
+  private boolean isFusedHop(TransformMeta from, TransformMeta to) {
+    for (List<TransformMeta> chain : fusedTransformChains) {
+      int index = chain.indexOf(from);
+      if (index >= 0 && index + 1 < chain.size() && chain.get(index + 1).equals(to)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the transforms are asked to run on virtual threads
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * @return true if the transforms are running on virtual threads: asked for and available
+   */
+  public boolean isRunningOnVirtualThreads() {
+    return virtualThreads && VirtualThreads.isAvailable();
+  }
+
+  /**
+   * @return true if transforms waiting for rows should park on their input row set instead of
+   *     sleeping or polling with short timeouts
+   */
+  public boolean isParkingOnRowSets() {
+    return isRunningOnVirtualThreads();
+  }
+
+  /**
+   * Calculate how busy the transforms kept the carrier threads of the virtual threads so far.
+   * Please note that the carrier threads are shared with everything else which runs on virtual
+   * threads in this JVM.
+   *
+   * @return the carrier thread usage as a percentage or -1 if the transforms don't run on virtual
+   *     threads
+   */
+  public int getCarrierThreadUsagePercentage() {
+    VirtualThreads.CarrierThreadUsage start = carrierThreadUsageAtStart;
+    if (start == null) {
+      return -1;
+    }
+    return VirtualThreads.getCarrierThreadUsage().getUsagePercentage(start);
+  }
+
   /**
    * This adds a row producer to the pipeline that just got set up. It is preferable to run this
    * BEFORE execute() but after prepareExecution()
@@ -2482,6 +2913,15 @@ public abstract class Pipeline
     this.preview = preview;
   }
 
+  /**
+   * Gets the latest analysis of the transforms limiting the throughput of the pipeline.
+   *
+   * @return the bottleneck analysis or null if it's disabled or nothing was sampled yet
+   */
+  public BottleneckAnalysis getBottleneckAnalysis() {
+    return bottleneckAnalysis;
+  }
+
   /**
    * Gets a named list (map) of transform performance snapshots.
    *
@@ -3294,6 +3734,13 @@ public abstract class Pipeline
           "The number of rows in the transforms output buffers",
           "090",
           true);
+  public static final IEngineMetric METRIC_BUFFER_SIZE_OUT =
+      new EngineMetric(
+          METRIC_NAME_BUFFER_SIZE_OUT,
+          "Buffer Size Output",
+          "The capacity in rows of the transforms output buffers",
+          "095",
+          true);
 
   public static final IEngineMetric METRIC_INIT =
       new EngineMetric(
@@ -3309,12 +3756,59 @@ public abstract class Pipeline
           "The number of times a buffer flush occurred on a ",
           "100",
           true);
+  public static final IEngineMetric METRIC_BUSY_TIME =
+      new EngineMetric(
+          METRIC_NAME_BUSY_TIME,
+          "Busy (ms)",
+          "The estimated time spent processing rows, without waiting for rows, in ms",
+          "110",
+          true);
+  public static final IEngineMetric METRIC_INPUT_WAIT_TIME =
+      new EngineMetric(
+          METRIC_NAME_INPUT_WAIT_TIME,
+          "Input wait (ms)",
+          "The estimated time spent waiting for rows from the previous transforms, in ms",
+          "120",
+          true);
+  public static final IEngineMetric METRIC_OUTPUT_WAIT_TIME =
+      new EngineMetric(
+          METRIC_NAME_OUTPUT_WAIT_TIME,
+          "Output wait (ms)",
+          "The estimated time spent waiting for room in the output buffers, in ms",
+          "130",
+          true);
+  public static final IEngineMetric METRIC_ROW_TIME_P50 =
+      new EngineMetric(
+          METRIC_NAME_ROW_TIME_P50,
+          "Row time p50 (µs)",
+          "The median time to process a row, without waiting for rows, in microseconds",
+          "140",
+          true);
+  public static final IEngineMetric METRIC_ROW_TIME_P99 =
+      new EngineMetric(
+          METRIC_NAME_ROW_TIME_P99,
+          "Row time p99 (µs)",
+          "99% of the rows are processed within this time, without waiting for rows, in microseconds",
+          "150",
+          true);
 
   @Override
   public EngineMetrics getEngineMetrics() {
     return getEngineMetrics(null, -1);
   }
 
+  private static void addTransformTimingMetrics(
+      EngineMetrics metrics, ITransform transform, TransformTimings timings) {
+    metrics.setComponentMetric(transform, METRIC_BUSY_TIME, timings.getProcessingTimeMillis());
+    metrics.setComponentMetric(transform, METRIC_INPUT_WAIT_TIME, timings.getInputWaitTimeMillis());
+    metrics.setComponentMetric(
+        transform, METRIC_OUTPUT_WAIT_TIME, timings.getOutputWaitTimeMillis());
+    metrics.setComponentMetric(
+        transform, METRIC_ROW_TIME_P50, timings.getProcessingTimes().getPercentile(50) / 1000);
+    metrics.setComponentMetric(
+        transform, METRIC_ROW_TIME_P99, timings.getProcessingTimes().getPercentile(99) / 1000);
+  }
+
   @Override
   public synchronized EngineMetrics getEngineMetrics(String componentName, int copyNr) {
     EngineMetrics metrics = new EngineMetrics();
@@ -3338,18 +3832,20 @@ public abstract class Pipeline
 
             metrics.addComponent(combi.transform);
 
-            metrics.setComponentMetric(
-                combi.transform, METRIC_INPUT, combi.transform.getLinesInput());
+            // Read the counters downstream first: they never run ahead of the ones upstream
+            //
             metrics.setComponentMetric(
                 combi.transform, METRIC_OUTPUT, combi.transform.getLinesOutput());
             metrics.setComponentMetric(
-                combi.transform, METRIC_READ, combi.transform.getLinesRead());
+                combi.transform, METRIC_UPDATED, combi.transform.getLinesUpdated());
+            metrics.setComponentMetric(
+                combi.transform, METRIC_REJECTED, combi.transform.getLinesRejected());
             metrics.setComponentMetric(
                 combi.transform, METRIC_WRITTEN, combi.transform.getLinesWritten());
             metrics.setComponentMetric(
-                combi.transform, METRIC_UPDATED, combi.transform.getLinesUpdated());
+                combi.transform, METRIC_READ, combi.transform.getLinesRead());
             metrics.setComponentMetric(
-                combi.transform, METRIC_REJECTED, combi.transform.getLinesRejected());
+                combi.transform, METRIC_INPUT, combi.transform.getLinesInput());
             metrics.setComponentMetric(combi.transform, METRIC_ERROR, combi.transform.getErrors());
 
             long inputBufferSize = 0;
@@ -3362,6 +3858,21 @@ public abstract class Pipeline
               outputBufferSize += rowSet.size();
             }
             metrics.setComponentMetric(combi.transform, METRIC_BUFFER_OUT, outputBufferSize);
+            if (rowSetSizeTuner != null) {
+              long outputBufferCapacity = 0;
+              for (IRowSet rowSet : transform.getOutputRowSets()) {
+                if (rowSet instanceof RingBufferRowSet ringBufferRowSet) {
+                  outputBufferCapacity += ringBufferRowSet.getCapacity();
+                }
+              }
+              metrics.setComponentMetric(
+                  combi.transform, METRIC_BUFFER_SIZE_OUT, outputBufferCapacity);
+            }
+
+            TransformTimings timings = transform.getTransformTimings();
+            if (timings != null) {
+              addTransformTimingMetrics(metrics, transform, timings);
+            }
 
             TransformStatus transformStatus = new TransformStatus(combi.transform);
             metrics.setComponentSpeed(combi.transform, transformStatus.getSpeed());
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.RingBufferRowSet;
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.core.row.RowSizeEstimator;
+import org.apache.hop.pipeline.memory.MemoryReservation;
+
+/**
+ * Resizes the buffers of the hops in a running pipeline based on the traffic observed on them.
+ *
+ * <p>Every time the tuner runs it looks at what happened on each hop since the last time:
+ *
+ * <ul>
+ *   <li>If the producer waited for room and the consumer also waited for rows, the consumer
+ *       processes the rows in bursts. The buffer grows so that it can absorb the rows the producer
+ *       could have written while it was waiting.
+ *   <li>If only the consumer waited for rows and the buffer is mostly empty, the producer is the
+ *       slowest side. A large buffer doesn't help in that case so it shrinks.
+ *   <li>Otherwise the buffer keeps its size.
+ * </ul>
+ *
+ * <p>The memory all buffers can take up when they are full is estimated from the layout of the rows
+ * passing through them. When the total goes over the memory budget all buffers are scaled down
+ * proportionally. The memory is also reserved from the memory manager of the pipeline: when it has
+ * no memory to spare the buffers don't grow, when it asks to give back memory they are halved.
+ */
+public class RowSetSizeTuner {
+
+  /** How often the buffers are tuned */
+  public static final long TUNING_INTERVAL_MS = 500L;
+
+  /** How many times larger than the configured row set size a buffer can grow */
+  public static final int MAX_GROWTH = 4;
+
+  /** The smallest size a buffer shrinks to */
+  public static final int MIN_SIZE = 100;
+
+  /** The share of the time one side of a hop needs to be waiting before we react to it */
+  private static final double WAIT_THRESHOLD = 0.05;
+
+  private final List<HopBuffer> buffers;
+  private final long memoryBudget;
+  private final MemoryReservation reservation;
+  private final ILogChannel log;
+
+  /**
+   * @param rowSets the row sets of the pipeline: only the ones which can grow are tuned
+   * @param rowSetSize the configured row set size
+   * @param memoryBudget the maximum number of bytes all buffers can take up together, 0 or less for
+   *     no limit
+   * @param reservation the reservation to account for the memory of the buffers, can be null
+   * @param log the log channel to report changes on
+   */
+  public RowSetSizeTuner(
+      List<IRowSet> rowSets,
+      int rowSetSize,
+      long memoryBudget,
+      MemoryReservation reservation,
+      ILogChannel log) {
+    this.buffers = new ArrayList<>();
+    this.memoryBudget = memoryBudget;
+    this.reservation = reservation;
+    this.log = log;
+    int minSize = Math.max(1, Math.min(rowSetSize, MIN_SIZE));
+    for (IRowSet rowSet : rowSets) {
+      if (rowSet instanceof RingBufferRowSet ringBufferRowSet
+          && ringBufferRowSet.getMaxCapacity() > ringBufferRowSet.getCapacity()) {
+        buffers.add(new HopBuffer(ringBufferRowSet, minSize));
+      }
+    }
+  }
+
+  /**
+   * @return true if there are buffers to tune
+   */
+  public boolean hasBuffers() {
+    return !buffers.isEmpty();
+  }
+
+  /** Tune the buffers based on what happened since the previous time. */
+  public synchronized void tune() {
+    long now = System.nanoTime();
+    long totalBytes = 0L;
+    for (HopBuffer buffer : buffers) {
+      buffer.calculateDesiredCapacity(now);
+      totalBytes += buffer.getDesiredBytes();
+    }
+
+    double scale = 1.0;
+    if (memoryBudget > 0 && totalBytes > memoryBudget) {
+      scale = (double) memoryBudget / totalBytes;
+    }
+    if (reservation != null && reservation.isSpillRequested()) {
+      scale = Math.min(scale, 0.5);
+    }
+
+    long reservedBytes = 0L;
+    for (HopBuffer buffer : buffers) {
+      buffer.desiredCapacity = Math.max(buffer.minSize, (int) (buffer.desiredCapacity * scale));
+      reservedBytes += buffer.getDesiredBytes();
+    }
+    if (reservation != null && !reservation.resize(reservedBytes)) {
+      // There is no memory to spare: the buffers can shrink but not grow
+      //
+      reservedBytes = 0L;
+      for (HopBuffer buffer : buffers) {
+        buffer.desiredCapacity = Math.min(buffer.desiredCapacity, buffer.rowSet.getCapacity());
+        reservedBytes += buffer.getDesiredBytes();
+      }
+      reservation.resize(reservedBytes);
+    }
+
+    for (HopBuffer buffer : buffers) {
+      int capacity = buffer.desiredCapacity;
+      int previous = buffer.rowSet.getCapacity();
+      if (capacity != previous) {
+        buffer.rowSet.setCapacity(capacity);
+        if (log.isDebug()) {
+          log.logDebug(
+              "Buffer of hop "
+                  + buffer.rowSet
+                  + " resized from "
+                  + previous
+                  + " to "
+                  + buffer.rowSet.getCapacity()
+                  + " rows");
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of bytes all buffers take up when they are full, based on the estimated row
+   *     sizes
+   */
+  public synchronized long getEstimatedBytes() {
+    long total = 0L;
+    for (HopBuffer buffer : buffers) {
+      total += buffer.rowSet.getCapacity() * buffer.getRowSize();
+    }
+    return total;
+  }
+
+  /** What we know about the traffic on a single hop */
+  private static final class HopBuffer {
+    private final RingBufferRowSet rowSet;
+    private final int minSize;
+
+    private long lastTime;
+    private long lastNrRowsPut;
+    private long lastPutWaitNanos;
+    private long lastGetWaitNanos;
+
+    private int desiredCapacity;
+
+    private HopBuffer(RingBufferRowSet rowSet, int minSize) {
+      this.rowSet = rowSet;
+      this.minSize = minSize;
+      this.lastTime = System.nanoTime();
+      this.lastNrRowsPut = rowSet.getNrRowsPut();
+      this.lastPutWaitNanos = rowSet.getPutWaitNanos();
+      this.lastGetWaitNanos = rowSet.getGetWaitNanos();
+      this.desiredCapacity = rowSet.getCapacity();
+    }
+
+    private void calculateDesiredCapacity(long now) {
+      long elapsed = Math.max(1L, now - lastTime);
+      long nrRowsPut = rowSet.getNrRowsPut();
+      long putWaitNanos = rowSet.getPutWaitNanos();
+      long getWaitNanos = rowSet.getGetWaitNanos();
+
+      long rowsPut = nrRowsPut - lastNrRowsPut;
+      long putWait = Math.min(elapsed, putWaitNanos - lastPutWaitNanos);
+      long getWait = Math.min(elapsed, getWaitNanos - lastGetWaitNanos);
+      double putWaitShare = (double) putWait / elapsed;
+      double getWaitShare = (double) getWait / elapsed;
+
+      int capacity = rowSet.getCapacity();
+      desiredCapacity = capacity;
+      if (rowSet.isDone()) {
+        // No more rows are coming, release the memory
+        //
+        desiredCapacity = minSize;
+      } else if (putWaitShare > WAIT_THRESHOLD && getWaitShare > WAIT_THRESHOLD) {
+        // The consumer is bursty: make room for the rows the producer could have written while
+        // it was waiting, at least doubling the buffer.
+        //
+        long busy = Math.max(1L, elapsed - putWait);
+        long missedRows = (long) (rowsPut * ((double) putWait / busy));
+        desiredCapacity =
+            (int) Math.min(rowSet.getMaxCapacity(), Math.max(2L * capacity, capacity + missedRows));
+      } else if (getWaitShare > WAIT_THRESHOLD
+          && putWaitShare <= WAIT_THRESHOLD
+          && rowSet.size() < capacity / 4) {
+        // The producer is the slow side: a large buffer only takes up memory
+        //
+        desiredCapacity = Math.max(minSize, capacity / 2);
+      }
+
+      lastTime = now;
+      lastNrRowsPut = nrRowsPut;
+      lastPutWaitNanos = putWaitNanos;
+      lastGetWaitNanos = getWaitNanos;
+    }
+
+    private long getRowSize() {
+      return RowSizeEstimator.estimateRowSize(rowSet.getRowMeta());
+    }
+
+    private long getDesiredBytes() {
+      return desiredCapacity * getRowSize();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.pipeline.transform.ITransformMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+
+/**
+ * Finds the chains of transforms in a pipeline which can run fused together in a single thread. Two
+ * transforms are fused when:
+ *
+ * <ul>
+ *   <li>both are fusable (see {@link ITransformMeta#isFusable()})
+ *   <li>both run in a single copy and are not partitioned
+ *   <li>neither of them does error handling
+ *   <li>the first one only sends rows to the second one and the second one only receives rows from
+ *       the first one (not as an info stream)
+ * </ul>
+ */
+public class TransformFusionPlanner {
+
+  private final PipelineMeta pipelineMeta;
+  private final IVariables variables;
+
+  /**
+   * @param pipelineMeta the pipeline to plan
+   * @param variables to resolve the number of copies of the transforms
+   */
+  public TransformFusionPlanner(PipelineMeta pipelineMeta, IVariables variables) {
+    this.pipelineMeta = pipelineMeta;
+    this.variables = variables;
+  }
+
+  /**
+   * Find the chains of fused transforms. Every chain contains at least 2 transforms, in the order
+   * in which the rows pass through them. A transform is part of at most one chain.
+   *
+   * @param transforms the transforms to consider
+   * @return the chains of fused transforms
+   */
+  public List<List<TransformMeta>> findChains(List<TransformMeta> transforms) {
+    List<List<TransformMeta>> chains = new ArrayList<>();
+    Set<TransformMeta> fused = new HashSet<>();
+
+    for (TransformMeta transformMeta : transforms) {
+      if (fused.contains(transformMeta) || !isFusable(transformMeta)) {
+        continue;
+      }
+      // Only start a chain at the first transform of the chain
+      //
+      List<TransformMeta> previousTransforms = pipelineMeta.findPreviousTransforms(transformMeta);
+      if (previousTransforms.size() == 1
+          && canFuse(previousTransforms.get(0), transformMeta)
+          && !fused.contains(previousTransforms.get(0))) {
+        continue;
+      }
+
+      List<TransformMeta> chain = new ArrayList<>();
+      chain.add(transformMeta);
+      TransformMeta last = transformMeta;
+      while (true) {
+        List<TransformMeta> nextTransforms = pipelineMeta.findNextTransforms(last);
+        if (nextTransforms.size() != 1) {
+          break;
+        }
+        TransformMeta next = nextTransforms.get(0);
+        if (chain.contains(next) || fused.contains(next) || !canFuse(last, next)) {
+          break;
+        }
+        chain.add(next);
+        last = next;
+      }
+
+      if (chain.size() > 1) {
+        fused.addAll(chain);
+        chains.add(chain);
+      }
+    }
+    return chains;
+  }
+
+  /**
+   * See if the rows can go from one transform to the next without a thread switch.
+   *
+   * @param from the transform sending the rows
+   * @param to the transform receiving the rows
+   * @return true if both transforms can be fused
+   */
+  public boolean canFuse(TransformMeta from, TransformMeta to) {
+    if (!isFusable(from) || !isFusable(to)) {
+      return false;
+    }
+    List<TransformMeta> nextTransforms = pipelineMeta.findNextTransforms(from);
+    if (nextTransforms.size() != 1 || !nextTransforms.get(0).equals(to)) {
+      return false;
+    }
+    List<TransformMeta> previousTransforms = pipelineMeta.findPreviousTransforms(to, true);
+    if (previousTransforms.size() != 1 || !previousTransforms.get(0).equals(from)) {
+      return false;
+    }
+    return !pipelineMeta.isTransformInformative(to, from);
+  }
+
+  private boolean isFusable(TransformMeta transformMeta) {
+    ITransformMeta meta = transformMeta.getTransform();
+    return meta != null
+        && meta.isFusable()
+        && !transformMeta.isMapping()
+        && transformMeta.getCopies(variables) == 1
+        && !transformMeta.isPartitioned()
+        && transformMeta.getTargetTransformPartitioningMeta() == null
+        && !transformMeta.isDoingErrorHandling();
+  }
+}
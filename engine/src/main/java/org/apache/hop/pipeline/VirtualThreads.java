@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads which run the transforms of a pipeline. Virtual threads are used when they
+ * are asked for and when the Java runtime offers them (Java 21 and later). The virtual thread API
+ * is called through reflection so that Hop keeps running on older Java versions: there we fall back
+ * to platform threads.
+ *
+ * <p>Virtual threads are mounted on a small pool of carrier (platform) threads. The CPU time spent
+ * by those carrier threads tells how busy the pipeline keeps them, see {@link
+ * #getCarrierThreadUsage()}.
+ */
+public final class VirtualThreads {
+
+  /** The class name of the platform threads which carry the virtual threads */
+  private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_UNSTARTED;
+  private static final Method IS_VIRTUAL;
+
+  static {
+    Method ofVirtual = null;
+    Method builderName = null;
+    Method builderUnstarted = null;
+    Method isVirtual = null;
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      builderName = builderClass.getMethod("name", String.class);
+      builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+      isVirtual = Thread.class.getMethod("isVirtual");
+    } catch (ReflectiveOperationException e) {
+      // Virtual threads are not available in this Java runtime
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = builderName;
+    BUILDER_UNSTARTED = builderUnstarted;
+    IS_VIRTUAL = isVirtual;
+  }
+
+  private VirtualThreads() {
+    // Utility class
+  }
+
+  /**
+   * @return true if the Java runtime supports virtual threads
+   */
+  public static boolean isAvailable() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Create a new (unstarted) thread.
+   *
+   * @param name the name of the thread
+   * @param runnable the work to run in the thread
+   * @param virtual true to create a virtual thread if the Java runtime supports them
+   * @return a virtual thread if asked for and available, a platform thread otherwise
+   */
+  public static Thread newThread(String name, Runnable runnable, boolean virtual) {
+    if (virtual && isAvailable()) {
+      try {
+        Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+        return (Thread) BUILDER_UNSTARTED.invoke(builder, runnable);
+      } catch (ReflectiveOperationException e) {
+        // Fall back to a platform thread below
+      }
+    }
+    Thread thread = new Thread(runnable);
+    thread.setName(name);
+    return thread;
+  }
+
+  /**
+   * @param thread the thread to check
+   * @return true if the given thread is a virtual thread
+   */
+  public static boolean isVirtual(Thread thread) {
+    if (thread == null || IS_VIRTUAL == null) {
+      return false;
+    }
+    try {
+      return (Boolean) IS_VIRTUAL.invoke(thread);
+    } catch (ReflectiveOperationException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Take a snapshot of the carrier threads of the virtual thread scheduler. The carrier threads are
+   * shared by all virtual threads in the JVM so the numbers cover everything that runs on virtual
+   * threads, not just a single pipeline.
+   *
+   * @return the number of carrier threads and the CPU time they consumed so far
+   */
+  public static CarrierThreadUsage getCarrierThreadUsage() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    boolean cpuTimeSupported = threadMXBean.isThreadCpuTimeSupported();
+
+    int nrCarrierThreads = 0;
+    long cpuTimeNanos = 0L;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (CARRIER_THREAD_CLASS.equals(thread.getClass().getName())) {
+        nrCarrierThreads++;
+        if (cpuTimeSupported) {
+          cpuTimeNanos += Math.max(0L, threadMXBean.getThreadCpuTime(thread.getId()));
+        }
+      }
+    }
+    return new CarrierThreadUsage(nrCarrierThreads, cpuTimeNanos, System.nanoTime());
+  }
+
+  /**
+   * @return the maximum number of carrier threads the virtual thread scheduler uses at the same
+   *     time
+   */
+  public static int getCarrierThreadParallelism() {
+    String parallelism = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+    if (parallelism != null) {
+      try {
+        return Math.max(1, Integer.parseInt(parallelism.trim()));
+      } catch (NumberFormatException e) {
+        // Use the default below
+      }
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /** A snapshot of the carrier threads. */
+  public static final class CarrierThreadUsage {
+    private final int nrCarrierThreads;
+    private final long cpuTimeNanos;
+    private final long snapshotNanos;
+
+    /**
+     * @param nrCarrierThreads the number of carrier threads which are alive
+     * @param cpuTimeNanos the CPU time the live carrier threads consumed so far
+     * @param snapshotNanos the time of the snapshot, see {@link System#nanoTime()}
+     */
+    public CarrierThreadUsage(int nrCarrierThreads, long cpuTimeNanos, long snapshotNanos) {
+      this.nrCarrierThreads = nrCarrierThreads;
+      this.cpuTimeNanos = cpuTimeNanos;
+      this.snapshotNanos = snapshotNanos;
+    }
+
+    /**
+     * Calculate how busy the carrier threads were since an earlier snapshot.
+     *
+     * @param start the earlier snapshot
+     * @return the CPU time consumed by the carrier threads as a percentage of the time all carrier
+     *     threads could have been running
+     */
+    public int getUsagePercentage(CarrierThreadUsage start) {
+      long elapsed = snapshotNanos - start.snapshotNanos;
+      if (elapsed <= 0) {
+        return 0;
+      }
+      int parallelism = Math.max(nrCarrierThreads, getCarrierThreadParallelism());
+      long consumed = Math.max(0L, cpuTimeNanos - start.cpuTimeNanos);
+      return (int) Math.min(100L, consumed * 100L / (elapsed * parallelism));
+    }
+
+    /**
+     * Gets nrCarrierThreads
+     *
+     * @return value of nrCarrierThreads
+     */
+    public int getNrCarrierThreads() {
+      return nrCarrierThreads;
+    }
+
+    /**
+     * Gets cpuTimeNanos
+     *
+     * @return value of cpuTimeNanos
+     */
+    public long getCpuTimeNanos() {
+      return cpuTimeNanos;
+    }
+
+    /**
+     * Gets snapshotNanos
+     *
+     * @return value of snapshotNanos
+     */
+    public long getSnapshotNanos() {
+      return snapshotNanos;
+    }
+  }
+}
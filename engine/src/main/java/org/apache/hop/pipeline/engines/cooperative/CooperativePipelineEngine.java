@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.engines.cooperative;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.ManagedBlockingRowSet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.parameters.INamedParameters;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.config.IPipelineEngineRunConfiguration;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.apache.hop.pipeline.engine.PipelineEnginePlugin;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.RunThread;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
+
+/**
+ * Runs a pipeline locally without giving every transform copy a thread of its own. The transform
+ * copies are run slice by slice on a fixed number of worker threads, by default one per core. See
+ * {@link TransformScheduler} for the details.
+ */
+@PipelineEnginePlugin(
+    id = "Cooperative",
+    name = "Hop cooperative pipeline engine",
+    description =
+        "Executes your pipeline locally, running the transforms as tasks on a fixed number of threads")
+public class CooperativePipelineEngine extends LocalPipelineEngine
+    implements IPipelineEngine<PipelineMeta> {
+
+  private int nrWorkers;
+  private TransformScheduler scheduler;
+
+  public CooperativePipelineEngine() {
+    super();
+  }
+
+  public CooperativePipelineEngine(PipelineMeta pipelineMeta) {
+    super(pipelineMeta);
+  }
+
+  public CooperativePipelineEngine(
+      PipelineMeta pipelineMeta, IVariables variables, ILoggingObject parent) {
+    super(pipelineMeta, variables, parent);
+  }
+
+  public <Parent extends IVariables & INamedParameters> CooperativePipelineEngine(
+      Parent parent, String name, String filename, IHopMetadataProvider metadataProvider)
+      throws HopException {
+    super(parent, name, filename, metadataProvider);
+  }
+
+  @Override
+  public IPipelineEngineRunConfiguration createDefaultPipelineEngineRunConfiguration() {
+    return new CooperativePipelineRunConfiguration();
+  }
+
+  @Override
+  public void prepareExecution() throws HopException {
+    nrWorkers = Runtime.getRuntime().availableProcessors();
+    if (pipelineRunConfiguration.getEngineRunConfiguration()
+        instanceof CooperativePipelineRunConfiguration config) {
+      nrWorkers = Const.toInt(resolve(config.getWorkerThreads()), nrWorkers);
+    }
+    super.prepareExecution();
+  }
+
+  /** The row sets let the worker pool know when a transform blocks on them. */
+  @Override
+  protected IRowSet createNormalRowSet() {
+    return new ManagedBlockingRowSet(getRowSetSize());
+  }
+
+  /** Transforms waiting for rows never need to sleep: they're only scheduled when rows arrive. */
+  @Override
+  public boolean isParkingOnRowSets() {
+    return true;
+  }
+
+  @Override
+  public void startThreads() throws HopException {
+    scheduler = new TransformScheduler(getName(), nrWorkers, getLogChannel());
+    super.startThreads();
+    scheduler.start();
+  }
+
+  /** Instead of starting a thread we hand the transform copy to the scheduler. */
+  @Override
+  protected void startRunThread(TransformMetaDataCombi combi, RunThread runThread) {
+    scheduler.addTransform(combi, runThread);
+  }
+
+  /**
+   * Gets the scheduler which runs the transforms
+   *
+   * @return value of scheduler
+   */
+  public TransformScheduler getScheduler() {
+    return scheduler;
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.engines.cooperative;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.ManagedBlockingRowSet;
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.pipeline.transform.ITransform;
+import org.apache.hop.pipeline.transform.RunThread;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
+
+/**
+ * Runs the transform copies of a pipeline as tasks on a fixed size work-stealing thread pool.
+ *
+ * <p>A transform copy is only scheduled when it can make progress: it has rows waiting in one of
+ * its input row sets (or all of its input row sets are done) and there is room in all of its output
+ * row sets. Transforms without input are scheduled as long as there is room on the output. A
+ * scheduled transform processes a slice of at most {@link #SLICE_SIZE} rows after which it hands
+ * back the worker thread.
+ *
+ * <p>Whenever a slice finishes the transforms on the other side of its row sets are checked so that
+ * they get scheduled as soon as there is work for them. A sweeper thread periodically checks all
+ * idle transforms as well, for rows which arrive from outside the pipeline (a row producer for
+ * example) or transforms which are stopped.
+ */
+public class TransformScheduler {
+
+  /** The maximum number of rows (or batches) a transform processes before yielding its worker */
+  public static final int SLICE_SIZE = 1000;
+
+  /** How often the sweeper checks the idle transforms */
+  private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+  private static final int IDLE = 0;
+  private static final int SCHEDULED = 1;
+  private static final int FINISHED = 2;
+
+  private final String name;
+  private final int nrWorkers;
+  private final ILogChannel log;
+
+  private final List<TransformTask> tasks;
+  private final AtomicInteger nrUnfinished;
+  private final AtomicLong nrSlices;
+
+  private ForkJoinPool pool;
+  private Thread sweeper;
+
+  /**
+   * @param name the name of the pipeline, used to name the threads
+   * @param nrWorkers the number of worker threads
+   * @param log the log channel to report on
+   */
+  public TransformScheduler(String name, int nrWorkers, ILogChannel log) {
+    this.name = name;
+    this.nrWorkers = Math.max(1, nrWorkers);
+    this.log = log;
+    this.tasks = new ArrayList<>();
+    this.nrUnfinished = new AtomicInteger();
+    this.nrSlices = new AtomicLong();
+  }
+
+  /**
+   * Add a transform copy to run. This needs to happen before the scheduler is started.
+   *
+   * @param combi the transform copy
+   * @param runThread the runnable which drives the transform copy
+   */
+  public void addTransform(TransformMetaDataCombi combi, RunThread runThread) {
+    tasks.add(new TransformTask(combi, runThread));
+  }
+
+  /** Link the transforms to each other, start the worker threads and schedule the transforms. */
+  public void start() {
+    Map<String, TransformTask> taskMap = new HashMap<>();
+    for (TransformTask task : tasks) {
+      taskMap.put(task.combi.transformName + "." + task.combi.copy, task);
+    }
+    for (TransformTask task : tasks) {
+      task.link(taskMap);
+    }
+
+    nrUnfinished.set(tasks.size());
+    if (tasks.isEmpty()) {
+      return;
+    }
+
+    AtomicInteger workerNr = new AtomicInteger();
+    pool =
+        new ForkJoinPool(
+            nrWorkers,
+            forkJoinPool -> {
+              ForkJoinWorkerThread thread =
+                  ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+              thread.setName(name + " - worker " + workerNr.getAndIncrement());
+              return thread;
+            },
+            null,
+            true);
+
+    if (log.isDetailed()) {
+      log.logDetailed(
+          "Scheduling " + tasks.size() + " transform copies on " + nrWorkers + " worker threads");
+    }
+
+    for (TransformTask task : tasks) {
+      task.schedule();
+    }
+
+    sweeper = new Thread(this::sweep, name + " - scheduler");
+    sweeper.setDaemon(true);
+    sweeper.start();
+  }
+
+  /** Periodically schedule idle transforms which can make progress. */
+  private void sweep() {
+    while (nrUnfinished.get() > 0) {
+      for (TransformTask task : tasks) {
+        if (task.state.get() == IDLE && task.isReady()) {
+          task.schedule();
+        }
+      }
+      LockSupport.parkNanos(this, SWEEP_INTERVAL_NANOS);
+    }
+  }
+
+  private void taskFinished() {
+    if (nrUnfinished.decrementAndGet() == 0) {
+      pool.shutdown();
+      if (log.isDetailed()) {
+        log.logDetailed("All transforms finished after " + nrSlices.get() + " scheduled slices");
+      }
+    }
+  }
+
+  /**
+   * @return the number of worker threads
+   */
+  public int getNrWorkers() {
+    return nrWorkers;
+  }
+
+  /**
+   * @return the number of transform copies which didn't finish yet
+   */
+  public int getNrUnfinished() {
+    return nrUnfinished.get();
+  }
+
+  /**
+   * @return the number of slices the transforms processed so far
+   */
+  public long getNrSlices() {
+    return nrSlices.get();
+  }
+
+  /** A transform copy which runs slice by slice on the worker threads */
+  private final class TransformTask implements Runnable {
+    private final TransformMetaDataCombi combi;
+    private final ITransform transform;
+    private final RunThread runThread;
+    private final AtomicInteger state;
+
+    private final List<IRowSet> inputRowSets;
+    private final List<IRowSet> outputRowSets;
+    private final List<TransformTask> neighbours;
+
+    private boolean started;
+
+    private TransformTask(TransformMetaDataCombi combi, RunThread runThread) {
+      this.combi = combi;
+      this.transform = combi.transform;
+      this.runThread = runThread;
+      this.state = new AtomicInteger(IDLE);
+      this.inputRowSets = new ArrayList<>(transform.getInputRowSets());
+      this.outputRowSets = new ArrayList<>(transform.getOutputRowSets());
+      this.neighbours = new ArrayList<>();
+    }
+
+    /** Find the transform copies on the other side of our row sets */
+    private void link(Map<String, TransformTask> taskMap) {
+      for (IRowSet rowSet : inputRowSets) {
+        addNeighbour(
+            taskMap.get(rowSet.getOriginTransformName() + "." + rowSet.getOriginTransformCopy()));
+      }
+      for (IRowSet rowSet : outputRowSets) {
+        addNeighbour(
+            taskMap.get(
+                rowSet.getDestinationTransformName() + "." + rowSet.getDestinationTransformCopy()));
+      }
+    }
+
+    private void addNeighbour(TransformTask task) {
+      if (task != null && task != this && !neighbours.contains(task)) {
+        neighbours.add(task);
+      }
+    }
+
+    /**
+     * A transform can make progress if there is room in all output row sets and if there are rows
+     * waiting in one of the input row sets (or if all input row sets are done). A stopped transform
+     * needs to run one more time to clean up.
+     */
+    private boolean isReady() {
+      if (transform.isStopped()) {
+        return true;
+      }
+      for (IRowSet rowSet : outputRowSets) {
+        if (rowSet instanceof ManagedBlockingRowSet managedRowSet && managedRowSet.isFull()) {
+          return false;
+        }
+      }
+      if (inputRowSets.isEmpty()) {
+        return true;
+      }
+      boolean allDone = true;
+      for (IRowSet rowSet : inputRowSets) {
+        if (rowSet.size() > 0) {
+          return true;
+        }
+        allDone = allDone && rowSet.isDone();
+      }
+      return allDone;
+    }
+
+    private void schedule() {
+      if (state.compareAndSet(IDLE, SCHEDULED)) {
+        try {
+          pool.execute(this);
+        } catch (RejectedExecutionException e) {
+          state.set(IDLE);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      boolean more = false;
+      try {
+        if (!started) {
+          started = true;
+          runThread.startRunning();
+        }
+        nrSlices.incrementAndGet();
+        more = runThread.runSlice(SLICE_SIZE, this::isReady);
+      } finally {
+        if (more) {
+          state.set(IDLE);
+        } else {
+          // Count the transform as finished before it signals the pipeline that it stopped
+          //
+          state.set(FINISHED);
+          taskFinished();
+          runThread.stopRunning();
+        }
+      }
+
+      // Our slice probably produced rows for the next transforms or made room for the previous
+      // ones.
+      //
+      for (TransformTask neighbour : neighbours) {
+        if (neighbour.state.get() == IDLE && neighbour.isReady()) {
+          neighbour.schedule();
+        }
+      }
+      if (more && isReady()) {
+        schedule();
+      }
+    }
+  }
+}
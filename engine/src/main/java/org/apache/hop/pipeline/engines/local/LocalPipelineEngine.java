@@ -127,6 +127,13 @@ public class LocalPipelineEngine extends Pipeline implements IPipelineEngine<Pip
     setSafeModeEnabled(config.isSafeModeEnabled());
     setSortingTransformsTopologically(config.isSortingTransformsTopologically());
     setGatheringMetrics(config.isGatheringMetrics());
+    setBatchProcessing(config.isBatchProcessing());
+    setVirtualThreads(config.isVirtualThreads());
+    setFusingTransforms(config.isFusingTransforms());
+    setAdaptiveRowSets(config.isAdaptiveRowSets());
+    setRowSetMemoryBudget(
+        Const.toLong(resolve(config.getRowSetMemoryBudget()), 0L) * 1024L * 1024L);
+    setMemoryBudget(Const.toLong(resolve(config.getMemoryBudget()), 0L) * 1024L * 1024L);
     setFeedbackShown(config.isFeedbackShown());
     setFeedbackSize(Const.toInt(resolve(config.getFeedbackSize()), Const.ROWS_UPDATE));
 
@@ -143,6 +143,78 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   @HopMetadataProperty(key = "transactional")
   protected boolean transactional;
 
+  @GuiWidgetElement(
+      id = "batchProcessing",
+      order = "110",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.CHECKBOX,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.BatchProcessing.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.BatchProcessing.ToolTip")
+  @HopMetadataProperty(key = "batch_processing")
+  protected boolean batchProcessing;
+
+  @GuiWidgetElement(
+      id = "virtualThreads",
+      order = "120",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.CHECKBOX,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.VirtualThreads.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.VirtualThreads.ToolTip")
+  @HopMetadataProperty(key = "virtual_threads")
+  protected boolean virtualThreads;
+
+  @GuiWidgetElement(
+      id = "fusingTransforms",
+      order = "130",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.CHECKBOX,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.FusingTransforms.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.FusingTransforms.ToolTip")
+  @HopMetadataProperty(key = "fusing_transforms")
+  protected boolean fusingTransforms;
+
+  @GuiWidgetElement(
+      id = "adaptiveRowSets",
+      order = "140",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.CHECKBOX,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.AdaptiveRowSets.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.AdaptiveRowSets.ToolTip")
+  @HopMetadataProperty(key = "adaptive_row_sets")
+  protected boolean adaptiveRowSets;
+
+  @GuiWidgetElement(
+      id = "rowSetMemoryBudget",
+      order = "150",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.TEXT,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.RowSetMemoryBudget.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.RowSetMemoryBudget.ToolTip")
+  @HopMetadataProperty(key = "row_set_memory_budget")
+  protected String rowSetMemoryBudget;
+
+  @GuiWidgetElement(
+      id = "memoryBudget",
+      order = "160",
+      parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+      type = GuiElementType.TEXT,
+      label =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.MemoryBudget.Label",
+      toolTip =
+          "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.MemoryBudget.ToolTip")
+  @HopMetadataProperty(key = "memory_budget")
+  protected String memoryBudget;
+
   @SuppressWarnings("java:S115")
   public enum SampleType {
     None,
@@ -160,6 +232,12 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     this.sampleTypeInGui = SampleType.Last.name();
     this.sampleSize = "100";
     this.transactional = false;
+    this.batchProcessing = false;
+    this.virtualThreads = false;
+    this.fusingTransforms = false;
+    this.adaptiveRowSets = false;
+    this.rowSetMemoryBudget = "";
+    this.memoryBudget = "";
   }
 
   public LocalPipelineRunConfiguration(LocalPipelineRunConfiguration config) {
@@ -174,6 +252,12 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     this.sampleTypeInGui = config.sampleTypeInGui;
     this.sampleSize = config.sampleSize;
     this.transactional = config.transactional;
+    this.batchProcessing = config.batchProcessing;
+    this.virtualThreads = config.virtualThreads;
+    this.fusingTransforms = config.fusingTransforms;
+    this.adaptiveRowSets = config.adaptiveRowSets;
+    this.rowSetMemoryBudget = config.rowSetMemoryBudget;
+    this.memoryBudget = config.memoryBudget;
   }
 
   @Override
@@ -348,4 +432,100 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   public void setTransactional(boolean transactional) {
     this.transactional = transactional;
   }
+
+  /**
+   * Gets batchProcessing
+   *
+   * @return value of batchProcessing
+   */
+  public boolean isBatchProcessing() {
+    return batchProcessing;
+  }
+
+  /**
+   * @param batchProcessing The batchProcessing to set
+   */
+  public void setBatchProcessing(boolean batchProcessing) {
+    this.batchProcessing = batchProcessing;
+  }
+
+  /**
+   * Gets virtualThreads
+   *
+   * @return value of virtualThreads
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * @param virtualThreads The virtualThreads to set
+   */
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * Gets fusingTransforms
+   *
+   * @return value of fusingTransforms
+   */
+  public boolean isFusingTransforms() {
+    return fusingTransforms;
+  }
+
+  /**
+   * @param fusingTransforms The fusingTransforms to set
+   */
+  public void setFusingTransforms(boolean fusingTransforms) {
+    this.fusingTransforms = fusingTransforms;
+  }
+
+  /**
+   * Gets adaptiveRowSets
+   *
+   * @return value of adaptiveRowSets
+   */
+  public boolean isAdaptiveRowSets() {
+    return adaptiveRowSets;
+  }
+
+  /**
+   * @param adaptiveRowSets The adaptiveRowSets to set
+   */
+  public void setAdaptiveRowSets(boolean adaptiveRowSets) {
+    this.adaptiveRowSets = adaptiveRowSets;
+  }
+
+  /**
+   * Gets rowSetMemoryBudget
+   *
+   * @return value of rowSetMemoryBudget
+   */
+  public String getRowSetMemoryBudget() {
+    return rowSetMemoryBudget;
+  }
+
+  /**
+   * @param rowSetMemoryBudget The rowSetMemoryBudget to set
+   */
+  public void setRowSetMemoryBudget(String rowSetMemoryBudget) {
+    this.rowSetMemoryBudget = rowSetMemoryBudget;
+  }
+
+  /**
+   * Gets memoryBudget
+   *
+   * @return value of memoryBudget
+   */
+  public String getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * @param memoryBudget The memoryBudget to set
+   */
+  public void setMemoryBudget(String memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
 }
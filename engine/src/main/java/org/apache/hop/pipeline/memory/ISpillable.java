@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.memory;
+
+/** Something which holds a memory reservation and can give (part of) it back when asked. */
+public interface ISpillable {
+
+  /**
+   * The memory manager is running out of memory and asks to release the memory of the reservation
+   * by spilling rows to disk or by shrinking buffers.
+   *
+   * <p>This method is called from the thread which needs the memory, not from the thread owning the
+   * reservation. Implementations should only take note of the request and act on it the next time
+   * they handle a row.
+   */
+  void requestSpill();
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.memory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The memory a single transform, hop buffer or pipeline keeps hold of. The holder reserves memory
+ * before it buffers rows and releases it again when the rows are gone. When a reservation is denied
+ * the holder should spill to disk or stop growing its buffers.
+ *
+ * <p>A reservation is used by a single thread, except for the spill request which can be set by any
+ * thread.
+ */
+public class MemoryReservation implements AutoCloseable {
+  private final PipelineMemoryManager manager;
+  private final String name;
+  private final ISpillable spillable;
+  private final AtomicLong reservedBytes;
+  private volatile boolean spillRequested;
+
+  MemoryReservation(PipelineMemoryManager manager, String name, ISpillable spillable) {
+    this.manager = manager;
+    this.name = name;
+    this.spillable = spillable;
+    this.reservedBytes = new AtomicLong();
+  }
+
+  /**
+   * Reserve extra memory.
+   *
+   * @param bytes the number of bytes to add to the reservation
+   * @return true if the memory was reserved, false if the budget is used up
+   */
+  public boolean reserve(long bytes) {
+    if (bytes <= 0) {
+      return true;
+    }
+    if (!manager.reserve(this, bytes)) {
+      return false;
+    }
+    reservedBytes.addAndGet(bytes);
+    return true;
+  }
+
+  /**
+   * Give back part of the reserved memory. This also clears an outstanding spill request.
+   *
+   * @param bytes the number of bytes to give back
+   */
+  public void release(long bytes) {
+    spillRequested = false;
+    long released;
+    long reserved;
+    do {
+      reserved = reservedBytes.get();
+      released = Math.min(reserved, Math.max(0L, bytes));
+    } while (!reservedBytes.compareAndSet(reserved, reserved - released));
+    manager.release(released);
+  }
+
+  /** Give back all reserved memory. This also clears an outstanding spill request. */
+  public void releaseAll() {
+    spillRequested = false;
+    manager.release(reservedBytes.getAndSet(0L));
+  }
+
+  /**
+   * Grow or shrink the reservation to the given size.
+   *
+   * @param bytes the number of bytes which should be reserved
+   * @return true if the reservation has the given size, false if there was no memory to grow it
+   */
+  public boolean resize(long bytes) {
+    long delta = bytes - reservedBytes.get();
+    if (delta > 0) {
+      return reserve(delta);
+    }
+    release(-delta);
+    return true;
+  }
+
+  /** Ask the holder of this reservation to give back its memory. */
+  void requestSpill() {
+    spillRequested = true;
+    if (spillable != null) {
+      spillable.requestSpill();
+    }
+  }
+
+  /**
+   * @return true if the memory manager asked to give back the reserved memory
+   */
+  public boolean isSpillRequested() {
+    return spillRequested;
+  }
+
+  /**
+   * Gets name
+   *
+   * @return value of name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the number of bytes currently reserved
+   *
+   * @return value of reservedBytes
+   */
+  public long getReservedBytes() {
+    return reservedBytes.get();
+  }
+
+  /** Give back all reserved memory and stop using this reservation. */
+  @Override
+  public void close() {
+    releaseAll();
+    manager.removeReservation(this);
+  }
+
+  @Override
+  public String toString() {
+    return name + " (" + reservedBytes.get() + " bytes)";
+  }
+}
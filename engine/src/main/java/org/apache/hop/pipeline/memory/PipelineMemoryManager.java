@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hop.core.Const;
+import org.apache.hop.core.util.EnvUtil;
+
+/**
+ * Keeps track of the memory which the transforms and hop buffers of a pipeline hold on to.
+ *
+ * <p>Memory hungry transforms take a {@link MemoryReservation} and reserve memory before they
+ * buffer rows, based on the estimated size of the rows. When the budget is used up the reservation
+ * is denied and the largest other holders are asked to spill. The transform asking for memory is
+ * expected to spill itself or to stop growing its buffers.
+ *
+ * <p>The memory managers of all pipelines in a JVM reserve their memory from a shared server memory
+ * manager. Its budget is a percentage of the maximum heap size, see {@link
+ * Const#HOP_MEMORY_BUDGET_PERCENTAGE}. That way many pipelines running in a single Hop Server spill
+ * to disk rather than run out of memory together.
+ *
+ * <p>No locks are taken: the spill requests are only flags which the holders act upon the next time
+ * they handle a row.
+ */
+public class PipelineMemoryManager implements ISpillable {
+
+  private static final int DEFAULT_BUDGET_PERCENTAGE = 70;
+
+  private static PipelineMemoryManager serverMemoryManager;
+
+  private final String name;
+  private final long budget;
+  private final MemoryReservation parentReservation;
+  private final AtomicLong usedBytes;
+  private final Set<MemoryReservation> reservations;
+
+  /**
+   * @param name the name of the memory manager
+   * @param budget the maximum number of bytes which can be reserved, 0 or less for no limit other
+   *     than the one of the parent
+   * @param parent the memory manager to reserve the memory from as well, can be null
+   */
+  public PipelineMemoryManager(String name, long budget, PipelineMemoryManager parent) {
+    this.name = name;
+    this.budget = budget;
+    this.usedBytes = new AtomicLong();
+    this.reservations = ConcurrentHashMap.newKeySet();
+    this.parentReservation = parent == null ? null : parent.createReservation(name, this);
+  }
+
+  /**
+   * Gets the memory manager shared by all pipelines running in this JVM.
+   *
+   * @return the server memory manager
+   */
+  public static synchronized PipelineMemoryManager getServerMemoryManager() {
+    if (serverMemoryManager == null) {
+      int percentage =
+          Const.toInt(
+              EnvUtil.getSystemProperty(Const.HOP_MEMORY_BUDGET_PERCENTAGE),
+              DEFAULT_BUDGET_PERCENTAGE);
+      long budget = Runtime.getRuntime().maxMemory() / 100L * percentage;
+      serverMemoryManager = new PipelineMemoryManager("Server", budget, null);
+    }
+    return serverMemoryManager;
+  }
+
+  /**
+   * Create a new, empty reservation.
+   *
+   * @param name the name of the holder, used for logging
+   * @param spillable gets notified when the holder should give back its memory, can be null
+   * @return the new reservation
+   */
+  public MemoryReservation createReservation(String name, ISpillable spillable) {
+    MemoryReservation reservation = new MemoryReservation(this, name, spillable);
+    reservations.add(reservation);
+    return reservation;
+  }
+
+  boolean reserve(MemoryReservation reservation, long bytes) {
+    long used;
+    do {
+      used = usedBytes.get();
+      if (budget > 0 && used + bytes > budget) {
+        requestSpill(reservation, used + bytes - budget);
+        return false;
+      }
+    } while (!usedBytes.compareAndSet(used, used + bytes));
+
+    if (parentReservation != null && !parentReservation.reserve(bytes)) {
+      // The other pipelines were asked to spill, we do our part as well
+      //
+      usedBytes.addAndGet(-bytes);
+      requestSpill(reservation, bytes);
+      return false;
+    }
+    return true;
+  }
+
+  void release(long bytes) {
+    if (bytes <= 0) {
+      return;
+    }
+    usedBytes.addAndGet(-bytes);
+    if (parentReservation != null) {
+      parentReservation.release(bytes);
+    }
+  }
+
+  void removeReservation(MemoryReservation reservation) {
+    reservations.remove(reservation);
+  }
+
+  /**
+   * Ask the largest holders, other than the one asking for memory, to give back at least the given
+   * number of bytes.
+   */
+  private void requestSpill(MemoryReservation requester, long bytes) {
+    List<MemoryReservation> holders = new ArrayList<>(reservations);
+    holders.sort(Comparator.comparingLong(MemoryReservation::getReservedBytes).reversed());
+    long requested = 0L;
+    for (MemoryReservation holder : holders) {
+      long reserved = holder.getReservedBytes();
+      if (requested >= bytes || reserved <= 0) {
+        break;
+      }
+      if (holder != requester && !holder.isSpillRequested()) {
+        holder.requestSpill();
+        requested += reserved;
+      }
+    }
+  }
+
+  /** The parent memory manager asks this pipeline to give back memory: ask the largest holder. */
+  @Override
+  public void requestSpill() {
+    requestSpill(null, 1L);
+  }
+
+  /**
+   * Gets name
+   *
+   * @return value of name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets budget
+   *
+   * @return value of budget, 0 or less for no limit other than the one of the parent
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  /**
+   * Gets the number of bytes currently reserved
+   *
+   * @return value of usedBytes
+   */
+  public long getUsedBytes() {
+    return usedBytes.get();
+  }
+
+  /**
+   * Gets the reservations which are in use
+   *
+   * @return a copy of the list of reservations
+   */
+  public List<MemoryReservation> getReservations() {
+    return new ArrayList<>(reservations);
+  }
+
+  /** Release all reservations and give the memory back to the parent. */
+  public void close() {
+    for (MemoryReservation reservation : getReservations()) {
+      reservation.close();
+    }
+    if (parentReservation != null) {
+      parentReservation.close();
+    }
+  }
+}
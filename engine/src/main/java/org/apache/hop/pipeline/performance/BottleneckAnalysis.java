@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.performance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The outcome of a {@link BottleneckAnalyzer} run: how busy every transform was, which path through
+ * the pipeline limits its throughput and what adding copies of the slowest transform on that path
+ * would gain.
+ */
+public class BottleneckAnalysis {
+
+  public static final String DETAIL_BOTTLENECK = "bottleneck";
+  public static final String DETAIL_CRITICAL_PATH = "critical_path";
+  public static final String DETAIL_BOTTLENECK_SPEEDUP = "bottleneck_speedup";
+  public static final String DETAIL_BOTTLENECK_SUGGESTED_COPIES = "bottleneck_suggested_copies";
+  public static final String DETAIL_BOTTLENECK_REPORT = "bottleneck_report";
+
+  /** The observed load of all the copies of a single transform. */
+  public static class TransformLoad {
+    private final String transformName;
+    private final int copies;
+    private final double inputFill;
+    private final double outputFill;
+    private final long busyMillis;
+    private final double utilization;
+    private final boolean saturated;
+
+    public TransformLoad(
+        String transformName,
+        int copies,
+        double inputFill,
+        double outputFill,
+        long busyMillis,
+        double utilization,
+        boolean saturated) {
+      this.transformName = transformName;
+      this.copies = copies;
+      this.inputFill = inputFill;
+      this.outputFill = outputFill;
+      this.busyMillis = busyMillis;
+      this.utilization = utilization;
+      this.saturated = saturated;
+    }
+
+    /**
+     * Gets transformName
+     *
+     * @return value of transformName
+     */
+    public String getTransformName() {
+      return transformName;
+    }
+
+    /**
+     * Gets copies
+     *
+     * @return the number of copies of the transform
+     */
+    public int getCopies() {
+      return copies;
+    }
+
+    /**
+     * @return the average fill ratio (0-1) of the input buffers or NaN if there are none
+     */
+    public double getInputFill() {
+      return inputFill;
+    }
+
+    /**
+     * @return the average fill ratio (0-1) of the output buffers or NaN if there are none
+     */
+    public double getOutputFill() {
+      return outputFill;
+    }
+
+    /**
+     * @return the estimated time all copies together spent processing rows or -1 if unknown
+     */
+    public long getBusyMillis() {
+      return busyMillis;
+    }
+
+    /**
+     * @return the fraction (0-1) of the elapsed time the copies were busy or NaN if unknown
+     */
+    public double getUtilization() {
+      return utilization;
+    }
+
+    /**
+     * @return true if the input buffers were mostly full while the output buffers were mostly
+     *     empty: the transform couldn't keep up with the rows offered to it.
+     */
+    public boolean isSaturated() {
+      return saturated;
+    }
+  }
+
+  private final long elapsedMillis;
+  private final List<TransformLoad> transformLoads;
+  private final List<String> criticalPath;
+  private final String bottleneck;
+  private final double speedupWithExtraCopy;
+  private final int suggestedCopies;
+  private final double speedupWithSuggestedCopies;
+
+  public BottleneckAnalysis(
+      long elapsedMillis,
+      List<TransformLoad> transformLoads,
+      List<String> criticalPath,
+      String bottleneck,
+      double speedupWithExtraCopy,
+      int suggestedCopies,
+      double speedupWithSuggestedCopies) {
+    this.elapsedMillis = elapsedMillis;
+    this.transformLoads = Collections.unmodifiableList(new ArrayList<>(transformLoads));
+    this.criticalPath = Collections.unmodifiableList(new ArrayList<>(criticalPath));
+    this.bottleneck = bottleneck;
+    this.speedupWithExtraCopy = speedupWithExtraCopy;
+    this.suggestedCopies = suggestedCopies;
+    this.speedupWithSuggestedCopies = speedupWithSuggestedCopies;
+  }
+
+  /**
+   * Adds the outcome of the analysis to the details of an execution state.
+   *
+   * @param details the details to add to
+   */
+  public void addDetails(Map<String, String> details) {
+    details.put(DETAIL_CRITICAL_PATH, String.join(" -> ", criticalPath));
+    if (bottleneck != null) {
+      details.put(DETAIL_BOTTLENECK, bottleneck);
+    }
+    if (!Double.isNaN(speedupWithExtraCopy)) {
+      details.put(DETAIL_BOTTLENECK_SPEEDUP, formatSpeedup(speedupWithExtraCopy));
+      details.put(DETAIL_BOTTLENECK_SUGGESTED_COPIES, Integer.toString(suggestedCopies));
+    }
+    details.put(DETAIL_BOTTLENECK_REPORT, getReport());
+  }
+
+  /**
+   * @return a human readable summary of the analysis
+   */
+  public String getReport() {
+    StringBuilder report = new StringBuilder();
+    report.append(
+        String.format(
+            Locale.ROOT, "Bottleneck analysis after %.1fs:%n", elapsedMillis / 1000.0));
+    report.append(
+        String.format(
+            Locale.ROOT,
+            "  %-30s %6s %6s %8s %8s  %s%n",
+            "Transform",
+            "Copies",
+            "Busy",
+            "In fill",
+            "Out fill",
+            "Saturated"));
+    for (TransformLoad load : transformLoads) {
+      report.append(
+          String.format(
+              Locale.ROOT,
+              "  %-30s %6d %6s %8s %8s  %s%n",
+              load.getTransformName(),
+              load.getCopies(),
+              formatPercentage(load.getUtilization()),
+              formatPercentage(load.getInputFill()),
+              formatPercentage(load.getOutputFill()),
+              load.isSaturated() ? "Y" : "N"));
+    }
+    report.append("Critical path: ").append(String.join(" -> ", criticalPath));
+    if (bottleneck != null) {
+      report.append(String.format("%nBottleneck: ")).append(bottleneck);
+      if (!Double.isNaN(speedupWithExtraCopy)) {
+        report.append(
+            String.format(
+                Locale.ROOT,
+                ", estimated speedup with 1 extra copy: %s, with %d copies: %s",
+                formatSpeedup(speedupWithExtraCopy),
+                suggestedCopies,
+                formatSpeedup(speedupWithSuggestedCopies)));
+      }
+    }
+    return report.toString();
+  }
+
+  private static String formatPercentage(double ratio) {
+    if (Double.isNaN(ratio)) {
+      return "-";
+    }
+    return Math.round(ratio * 100) + "%";
+  }
+
+  private static String formatSpeedup(double speedup) {
+    return String.format(Locale.ROOT, "%.2fx", speedup);
+  }
+
+  /**
+   * Gets elapsedMillis
+   *
+   * @return the time the pipeline ran before the analysis
+   */
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  /**
+   * Gets transformLoads
+   *
+   * @return the load of every transform in the pipeline
+   */
+  public List<TransformLoad> getTransformLoads() {
+    return transformLoads;
+  }
+
+  /**
+   * Gets criticalPath
+   *
+   * @return the names of the transforms on the path limiting the throughput of the pipeline
+   */
+  public List<String> getCriticalPath() {
+    return criticalPath;
+  }
+
+  /**
+   * Gets bottleneck
+   *
+   * @return the name of the slowest transform on the critical path or null
+   */
+  public String getBottleneck() {
+    return bottleneck;
+  }
+
+  /**
+   * @return the estimated speedup of the pipeline when the bottleneck gets one extra copy or NaN if
+   *     the processing times of the transforms are not measured.
+   */
+  public double getSpeedupWithExtraCopy() {
+    return speedupWithExtraCopy;
+  }
+
+  /**
+   * @return the number of copies of the bottleneck after which another transform limits the
+   *     throughput.
+   */
+  public int getSuggestedCopies() {
+    return suggestedCopies;
+  }
+
+  /**
+   * @return the estimated speedup of the pipeline with the suggested number of copies of the
+   *     bottleneck or NaN if the processing times of the transforms are not measured.
+   */
+  public double getSpeedupWithSuggestedCopies() {
+    return speedupWithSuggestedCopies;
+  }
+}
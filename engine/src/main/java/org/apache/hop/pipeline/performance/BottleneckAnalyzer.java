@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.performance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.RingBufferRowSet;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.ITransform;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
+
+/**
+ * Finds the transforms which limit the throughput of a running pipeline.
+ *
+ * <p>The fill levels of the row sets are sampled at regular intervals. A transform with full input
+ * buffers and empty output buffers can't keep up with the rows offered to it: it is saturated. In a
+ * streaming pipeline all transforms run at the same time, so the transform which spends the most
+ * time per copy processing rows sets the pace for the whole pipeline. The critical path is the
+ * heaviest path from a source to a sink through that transform. Adding copies to the bottleneck
+ * spreads its work until the next slowest transform takes over; that gives the estimated speedup.
+ *
+ * <p>When the processing times are not measured (see {@link TransformTimings}) the fill levels of
+ * the buffers are used to rank the transforms and no speedup is estimated.
+ */
+public class BottleneckAnalyzer {
+
+  /** Input buffers filled beyond this ratio are considered full */
+  static final double FULL_BUFFER = 0.8;
+
+  /** Output buffers filled below this ratio are considered empty */
+  static final double EMPTY_BUFFER = 0.2;
+
+  private final Map<String, List<String>> nextTransforms;
+  private final Map<String, List<String>> previousTransforms;
+  private final int defaultRowSetCapacity;
+  private final int maxCopies;
+  private final long startTime;
+
+  private final Map<String, TransformSamples> samples = new HashMap<>();
+
+  /**
+   * @param pipelineMeta the pipeline to analyze
+   * @param defaultRowSetCapacity the capacity of row sets which don't report their capacity
+   */
+  public BottleneckAnalyzer(PipelineMeta pipelineMeta, int defaultRowSetCapacity) {
+    this(
+        getNextTransforms(pipelineMeta),
+        defaultRowSetCapacity,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  BottleneckAnalyzer(
+      Map<String, List<String>> nextTransforms, int defaultRowSetCapacity, int maxCopies) {
+    this.nextTransforms = nextTransforms;
+    this.previousTransforms = new HashMap<>();
+    for (Map.Entry<String, List<String>> entry : nextTransforms.entrySet()) {
+      for (String next : entry.getValue()) {
+        previousTransforms.computeIfAbsent(next, k -> new ArrayList<>()).add(entry.getKey());
+      }
+    }
+    this.defaultRowSetCapacity = Math.max(1, defaultRowSetCapacity);
+    this.maxCopies = maxCopies;
+    this.startTime = System.currentTimeMillis();
+  }
+
+  private static Map<String, List<String>> getNextTransforms(PipelineMeta pipelineMeta) {
+    Map<String, List<String>> graph = new LinkedHashMap<>();
+    for (TransformMeta transformMeta : pipelineMeta.getTransforms()) {
+      List<String> names = new ArrayList<>();
+      for (TransformMeta next : pipelineMeta.findNextTransforms(transformMeta)) {
+        names.add(next.getName());
+      }
+      graph.put(transformMeta.getName(), names);
+    }
+    return graph;
+  }
+
+  /**
+   * Samples the buffers and processing times of all the transform copies. The buffers of copies
+   * which are no longer running are not sampled.
+   *
+   * @param transforms the transform copies of the pipeline
+   */
+  public synchronized void sample(List<TransformMetaDataCombi> transforms) {
+    for (TransformMetaDataCombi combi : transforms) {
+      ITransform transform = combi.transform;
+      double inputFill = Double.NaN;
+      double outputFill = Double.NaN;
+      if (transform.isRunning()) {
+        inputFill = getFill(transform.getInputRowSets());
+        outputFill = getFill(transform.getOutputRowSets());
+      }
+      TransformTimings timings = transform.getTransformTimings();
+      long busyMillis = timings == null ? -1L : timings.getProcessingTimeMillis();
+
+      addSample(combi.transformMeta.getName(), combi.copy, inputFill, outputFill, busyMillis);
+    }
+  }
+
+  private double getFill(List<IRowSet> rowSets) {
+    if (rowSets.isEmpty()) {
+      return Double.NaN;
+    }
+    long size = 0;
+    long capacity = 0;
+    for (IRowSet rowSet : rowSets) {
+      size += rowSet.size();
+      if (rowSet instanceof RingBufferRowSet ringBufferRowSet) {
+        capacity += ringBufferRowSet.getCapacity();
+      } else {
+        capacity += defaultRowSetCapacity;
+      }
+    }
+    return Math.min(1.0, (double) size / capacity);
+  }
+
+  /**
+   * Records a sample of a single transform copy.
+   *
+   * @param transformName the name of the transform
+   * @param copy the copy number
+   * @param inputFill the fill ratio of the input buffers or NaN if not sampled
+   * @param outputFill the fill ratio of the output buffers or NaN if not sampled
+   * @param busyMillis the time the copy spent processing rows so far or -1 if unknown
+   */
+  synchronized void addSample(
+      String transformName, int copy, double inputFill, double outputFill, long busyMillis) {
+    TransformSamples transformSamples =
+        samples.computeIfAbsent(transformName, k -> new TransformSamples());
+    transformSamples.busyMillis.put(copy, busyMillis);
+    if (!Double.isNaN(inputFill)) {
+      transformSamples.inputFillSum += inputFill;
+      transformSamples.inputFillCount++;
+    }
+    if (!Double.isNaN(outputFill)) {
+      transformSamples.outputFillSum += outputFill;
+      transformSamples.outputFillCount++;
+    }
+  }
+
+  /**
+   * Analyzes the samples taken since the start of the pipeline.
+   *
+   * @return the analysis or null if nothing was sampled yet
+   */
+  public BottleneckAnalysis analyze() {
+    return analyze(System.currentTimeMillis() - startTime);
+  }
+
+  synchronized BottleneckAnalysis analyze(long elapsedMillis) {
+    if (samples.isEmpty()) {
+      return null;
+    }
+
+    // Calculate the load of every transform, in the order of the pipeline
+    //
+    List<BottleneckAnalysis.TransformLoad> loads = new ArrayList<>();
+    Map<String, BottleneckAnalysis.TransformLoad> loadMap = new HashMap<>();
+    boolean timed = true;
+    for (String transformName : nextTransforms.keySet()) {
+      TransformSamples transformSamples = samples.get(transformName);
+      if (transformSamples == null) {
+        continue;
+      }
+      BottleneckAnalysis.TransformLoad load =
+          calculateLoad(transformName, transformSamples, elapsedMillis);
+      timed &= load.getBusyMillis() >= 0;
+      loads.add(load);
+      loadMap.put(transformName, load);
+    }
+
+    // The cost of a transform is the time a copy spends processing rows.
+    // Without timings we fall back to the pressure on its buffers.
+    //
+    Map<String, Double> costs = new HashMap<>();
+    for (BottleneckAnalysis.TransformLoad load : loads) {
+      double cost;
+      if (timed) {
+        cost = (double) load.getBusyMillis() / load.getCopies();
+      } else {
+        cost = getPressure(load);
+      }
+      costs.put(load.getTransformName(), cost);
+    }
+
+    // The bottleneck is the transform with the highest cost, saturated transforms win ties.
+    //
+    String bottleneck = null;
+    double bottleneckCost = 0;
+    for (BottleneckAnalysis.TransformLoad load : loads) {
+      double cost = costs.get(load.getTransformName());
+      if (cost > bottleneckCost
+          || (cost > 0
+              && cost == bottleneckCost
+              && load.isSaturated()
+              && !loadMap.get(bottleneck).isSaturated())) {
+        bottleneck = load.getTransformName();
+        bottleneckCost = cost;
+      }
+    }
+
+    List<String> criticalPath = findCriticalPath(bottleneck, costs);
+
+    double speedupWithExtraCopy = Double.NaN;
+    int suggestedCopies = 0;
+    double speedupWithSuggestedCopies = Double.NaN;
+    if (timed && bottleneck != null) {
+      BottleneckAnalysis.TransformLoad load = loadMap.get(bottleneck);
+      int copies = load.getCopies();
+      double busy = load.getBusyMillis();
+      double nextCost = 0;
+      for (Map.Entry<String, Double> entry : costs.entrySet()) {
+        if (!entry.getKey().equals(bottleneck)) {
+          nextCost = Math.max(nextCost, entry.getValue());
+        }
+      }
+      speedupWithExtraCopy = bottleneckCost / Math.max(busy / (copies + 1), nextCost);
+
+      // Add copies until the next slowest transform sets the pace
+      //
+      suggestedCopies = copies + 1;
+      if (nextCost > 0) {
+        suggestedCopies = Math.max(suggestedCopies, (int) Math.ceil(busy / nextCost));
+      }
+      suggestedCopies = Math.min(suggestedCopies, Math.max(copies + 1, maxCopies));
+      speedupWithSuggestedCopies = bottleneckCost / Math.max(busy / suggestedCopies, nextCost);
+    }
+
+    return new BottleneckAnalysis(
+        elapsedMillis,
+        loads,
+        criticalPath,
+        bottleneck,
+        speedupWithExtraCopy,
+        suggestedCopies,
+        speedupWithSuggestedCopies);
+  }
+
+  private BottleneckAnalysis.TransformLoad calculateLoad(
+      String transformName, TransformSamples transformSamples, long elapsedMillis) {
+    int copies = transformSamples.busyMillis.size();
+    long busyMillis = 0;
+    for (long copyBusyMillis : transformSamples.busyMillis.values()) {
+      if (copyBusyMillis < 0) {
+        busyMillis = -1;
+        break;
+      }
+      busyMillis += copyBusyMillis;
+    }
+    double utilization = Double.NaN;
+    if (busyMillis >= 0 && elapsedMillis > 0) {
+      utilization = Math.min(1.0, (double) busyMillis / ((double) elapsedMillis * copies));
+    }
+    double inputFill =
+        transformSamples.inputFillCount == 0
+            ? Double.NaN
+            : transformSamples.inputFillSum / transformSamples.inputFillCount;
+    double outputFill =
+        transformSamples.outputFillCount == 0
+            ? Double.NaN
+            : transformSamples.outputFillSum / transformSamples.outputFillCount;
+
+    // Upstream waits for this transform while downstream starves
+    //
+    boolean saturated =
+        (!hasPrevious(transformName) || inputFill >= FULL_BUFFER)
+            && (!hasNext(transformName) || outputFill <= EMPTY_BUFFER);
+
+    return new BottleneckAnalysis.TransformLoad(
+        transformName, copies, inputFill, outputFill, busyMillis, utilization, saturated);
+  }
+
+  /** Full input buffers and empty output buffers put pressure on a transform. */
+  private double getPressure(BottleneckAnalysis.TransformLoad load) {
+    String transformName = load.getTransformName();
+    double inputPressure = 1.0;
+    if (hasPrevious(transformName)) {
+      inputPressure = Double.isNaN(load.getInputFill()) ? 0.0 : load.getInputFill();
+    }
+    double outputPressure = 1.0;
+    if (hasNext(transformName)) {
+      outputPressure = Double.isNaN(load.getOutputFill()) ? 0.0 : 1.0 - load.getOutputFill();
+    }
+    return inputPressure * outputPressure;
+  }
+
+  private boolean hasPrevious(String transformName) {
+    return previousTransforms.containsKey(transformName);
+  }
+
+  private boolean hasNext(String transformName) {
+    return !nextTransforms.getOrDefault(transformName, Collections.emptyList()).isEmpty();
+  }
+
+  /** The heaviest path from a source through the bottleneck to a sink. */
+  private List<String> findCriticalPath(String bottleneck, Map<String, Double> costs) {
+    List<String> path = new ArrayList<>();
+    if (bottleneck == null) {
+      return path;
+    }
+    Map<String, String> bestPrevious = new HashMap<>();
+    heaviestPath(
+        bottleneck, costs, previousTransforms, new HashMap<>(), bestPrevious, new HashSet<>());
+    Map<String, String> bestNext = new HashMap<>();
+    heaviestPath(bottleneck, costs, nextTransforms, new HashMap<>(), bestNext, new HashSet<>());
+
+    Set<String> onPath = new HashSet<>();
+    for (String name = bestPrevious.get(bottleneck);
+        name != null && onPath.add(name);
+        name = bestPrevious.get(name)) {
+      path.add(0, name);
+    }
+    onPath.add(bottleneck);
+    path.add(bottleneck);
+    for (String name = bestNext.get(bottleneck);
+        name != null && onPath.add(name);
+        name = bestNext.get(name)) {
+      path.add(name);
+    }
+    return path;
+  }
+
+  private static double heaviestPath(
+      String transformName,
+      Map<String, Double> costs,
+      Map<String, List<String>> graph,
+      Map<String, Double> heaviest,
+      Map<String, String> bestStep,
+      Set<String> visiting) {
+    Double known = heaviest.get(transformName);
+    if (known != null) {
+      return known;
+    }
+    if (!visiting.add(transformName)) {
+      return 0.0; // a loop
+    }
+    double max = 0.0;
+    String best = null;
+    for (String step : graph.getOrDefault(transformName, Collections.emptyList())) {
+      double weight = heaviestPath(step, costs, graph, heaviest, bestStep, visiting);
+      if (best == null || weight > max) {
+        max = weight;
+        best = step;
+      }
+    }
+    visiting.remove(transformName);
+    if (best != null) {
+      bestStep.put(transformName, best);
+    }
+    double weight = costs.getOrDefault(transformName, 0.0) + max;
+    heaviest.put(transformName, weight);
+    return weight;
+  }
+
+  private static final class TransformSamples {
+    /** The last known busy time per copy */
+    private final Map<Integer, Long> busyMillis = new TreeMap<>();
+
+    private double inputFillSum;
+    private int inputFillCount;
+    private double outputFillSum;
+    private int outputFillCount;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.performance;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A log-linear histogram of durations in nanoseconds. Every power of 2 is split in 16 linear
+ * buckets, so a recorded value is off by less than 1/16th (6.25%). Values from 0 up to about 9
+ * hours fit in 672 buckets, longer durations end up in the last bucket.
+ *
+ * <p>One thread records the values, any thread can read them. A reader sees every bucket as it was
+ * at some point while it reads, which is good enough to monitor a running transform.
+ */
+public class LatencyHistogram {
+
+  /** The number of bits of the linear buckets within a power of 2 */
+  private static final int SUB_BUCKET_BITS = 4;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** The highest power of 2 with buckets of its own: 2^44 ns is about 4.9 hours */
+  private static final int MAX_EXPONENT = 44;
+
+  private static final int NR_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(NR_BUCKETS);
+
+  // Only the recording thread writes, so lazySet() is enough to publish the values
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a duration. Only one thread at a time may record values.
+   *
+   * @param nanos the duration in nanoseconds, negative values count as 0
+   */
+  public void record(long nanos) {
+    long value = Math.max(0L, nanos);
+    int index = bucketIndex(value);
+    buckets.lazySet(index, buckets.get(index) + 1);
+    total.lazySet(total.get() + value);
+    if (value > max.get()) {
+      max.lazySet(value);
+    }
+    count.lazySet(count.get() + 1);
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return NR_BUCKETS - 1;
+    }
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /** The highest value which ends up in a bucket */
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = index % SUB_BUCKETS;
+    long lowerBound = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+  /**
+   * @param percentile the percentile, between 0 and 100
+   * @return the duration in nanoseconds below which the given percentage of the recorded values
+   *     fall, or 0 if nothing was recorded yet
+   */
+  public long getPercentile(double percentile) {
+    long[] counts = new long[NR_BUCKETS];
+    long recorded = 0;
+    for (int i = 0; i < NR_BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      recorded += counts[i];
+    }
+    if (recorded == 0) {
+      return 0L;
+    }
+    long rank = (long) Math.ceil(recorded * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+    long seen = 0;
+    for (int i = 0; i < NR_BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= Math.max(1L, rank)) {
+        return Math.min(bucketUpperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * @return The number of recorded values
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return The sum of the recorded values in nanoseconds
+   */
+  public long getTotal() {
+    return total.get();
+  }
+
+  /**
+   * @return The highest recorded value in nanoseconds
+   */
+  public long getMax() {
+    return max.get();
+  }
+}
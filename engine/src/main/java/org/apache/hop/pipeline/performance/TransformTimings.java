@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.performance;
+
+/**
+ * Measures where a transform copy spends its time: processing rows, waiting for rows to arrive on
+ * its input or waiting for room in its output buffers.
+ *
+ * <p>Reading the clock for every row would cost more than processing a row in the simplest
+ * transforms. That's why only one in every {@link #getSampleRate()} calls of processRow() is timed,
+ * together with the waits that happen during that call. The histograms hold the sampled calls, the
+ * total times are estimated from them.
+ *
+ * <p>The transform thread is the only one recording, any thread can read the results.
+ */
+public class TransformTimings {
+
+  private final int sampleRate;
+  private final long sampleMask;
+
+  private final LatencyHistogram processingTimes = new LatencyHistogram();
+  private final LatencyHistogram inputWaitTimes = new LatencyHistogram();
+  private final LatencyHistogram outputWaitTimes = new LatencyHistogram();
+
+  private long calls;
+  private boolean sampling;
+  private long sampleStart;
+  private long sampleWaited;
+
+  /**
+   * @param sampleRate time one in every this many calls, rounded up to a power of 2
+   */
+  public TransformTimings(int sampleRate) {
+    int rate = Integer.highestOneBit(Math.max(1, sampleRate));
+    if (rate < sampleRate) {
+      rate <<= 1;
+    }
+    this.sampleRate = rate;
+    this.sampleMask = rate - 1L;
+  }
+
+  /**
+   * Call this before every call of processRow().
+   *
+   * @return true if this call is timed: call {@link #endSample()} afterwards
+   */
+  public boolean startSample() {
+    if ((calls++ & sampleMask) != 0) {
+      return false;
+    }
+    sampling = true;
+    sampleWaited = 0L;
+    sampleStart = System.nanoTime();
+    return true;
+  }
+
+  /** Call this after a timed call of processRow(). */
+  public void endSample() {
+    long elapsed = System.nanoTime() - sampleStart;
+    processingTimes.record(elapsed - sampleWaited);
+    sampling = false;
+  }
+
+  /**
+   * @return true if the current call of processRow() is timed. Only then the waits are measured.
+   */
+  public boolean isSampling() {
+    return sampling;
+  }
+
+  /**
+   * @param nanos the time spent waiting for input rows during a timed call
+   */
+  public void recordInputWait(long nanos) {
+    inputWaitTimes.record(nanos);
+    sampleWaited += nanos;
+  }
+
+  /**
+   * @param nanos the time spent waiting for room in the output buffers during a timed call
+   */
+  public void recordOutputWait(long nanos) {
+    outputWaitTimes.record(nanos);
+    sampleWaited += nanos;
+  }
+
+  /**
+   * @return The estimated time spent processing rows, without waiting, in ms
+   */
+  public long getProcessingTimeMillis() {
+    return estimateMillis(processingTimes);
+  }
+
+  /**
+   * @return The estimated time spent waiting for input rows in ms
+   */
+  public long getInputWaitTimeMillis() {
+    return estimateMillis(inputWaitTimes);
+  }
+
+  /**
+   * @return The estimated time spent waiting for room in the output buffers in ms
+   */
+  public long getOutputWaitTimeMillis() {
+    return estimateMillis(outputWaitTimes);
+  }
+
+  private long estimateMillis(LatencyHistogram histogram) {
+    return histogram.getTotal() * sampleRate / 1000000L;
+  }
+
+  /**
+   * @return The time processRow() spends processing a row, without waiting, in ns
+   */
+  public LatencyHistogram getProcessingTimes() {
+    return processingTimes;
+  }
+
+  /**
+   * @return The time a row takes to arrive on the input, in ns
+   */
+  public LatencyHistogram getInputWaitTimes() {
+    return inputWaitTimes;
+  }
+
+  /**
+   * @return The time it takes to find room for a row in the output buffers, in ns
+   */
+  public LatencyHistogram getOutputWaitTimes() {
+    return outputWaitTimes;
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+}
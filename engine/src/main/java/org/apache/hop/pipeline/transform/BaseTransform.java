@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.lang.StringUtils;
@@ -41,6 +42,7 @@ import org.apache.hop.core.BlockingRowSet;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.IExtensionData;
 import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
 import org.apache.hop.core.ResultFile;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopRowException;
@@ -51,8 +53,10 @@ import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.logging.ILoggingObject;
 import org.apache.hop.core.logging.LogLevel;
 import org.apache.hop.core.logging.LoggingObjectType;
+import org.apache.hop.core.row.FrozenRowMeta;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.value.ValueMetaBase;
 import org.apache.hop.core.util.EnvUtil;
@@ -69,6 +73,8 @@ import org.apache.hop.pipeline.engine.EngineComponent.ComponentExecutionStatus;
 import org.apache.hop.pipeline.engine.IEngineComponent;
 import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.memory.MemoryReservation;
+import org.apache.hop.pipeline.performance.TransformTimings;
 
 /**
  * This class can be extended for the actual row processing of the implemented transform.
@@ -151,34 +157,36 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private final IPipelineEngine<PipelineMeta> pipeline;
 
-  private final Object statusCountersLock = new Object();
-
   protected Date initStartDate;
   protected Date executionStartDate;
   protected Date firstRowReadDate;
   protected Date lastRowWrittenDate;
   protected Date executionEndDate;
 
+  // The status counters are updated by the transform thread for every row and read by monitoring
+  // threads. Striped adders never make the transform thread wait for a reader or the other way
+  // around. Read the counters downstream first for a consistent view, see logSummary().
+  //
   /** Number of lines read from previous transform(s) */
-  private long linesRead;
+  private final LongAdder linesRead = new LongAdder();
 
   /** Number of lines written to next transform(s) */
-  private long linesWritten;
+  private final LongAdder linesWritten = new LongAdder();
 
   /** Number of lines read from file or database */
-  private long linesInput;
+  private final LongAdder linesInput = new LongAdder();
 
   /** Number of lines written to file or database */
-  private long linesOutput;
+  private final LongAdder linesOutput = new LongAdder();
 
   /** Number of updates in a database table or file */
-  private long linesUpdated;
+  private final LongAdder linesUpdated = new LongAdder();
 
   /** Number of lines skipped */
-  private long linesSkipped;
+  private final LongAdder linesSkipped = new LongAdder();
 
   /** Number of lines rejected to an error handling transform */
-  private long linesRejected;
+  private final LongAdder linesRejected = new LongAdder();
 
   private boolean distributed;
 
@@ -203,6 +211,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   private DynamicWaitTimes.SingleStreamStatus waitingTime;
 
+  /** The time spent processing rows and waiting for rows, null if it isn't measured */
+  private final TransformTimings transformTimings;
+
   private final ReadWriteLock outputRowSetsLock = new ReentrantReadWriteLock();
 
   /** the rowset for the error rows */
@@ -331,6 +342,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   private IRowHandler rowHandler;
 
+  /** Whether this transform processes batches of rows, decided when the transform starts to run */
+  private Boolean batchProcessing;
+
   private final AtomicBoolean markStopped;
 
   /**
@@ -377,6 +391,10 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     log = HopLogStore.getLogChannelFactory().create(this, pipeline);
 
+    int timingSampleRate =
+        Const.toInt(EnvUtil.getSystemProperty(Const.HOP_TRANSFORM_TIMING_SAMPLE_RATE), 64);
+    transformTimings = timingSampleRate > 0 ? new TransformTimings(timingSampleRate) : null;
+
     first = true;
 
     running = new AtomicBoolean(false);
@@ -386,15 +404,13 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     init = false;
 
-    synchronized (statusCountersLock) {
-      linesRead = 0L;
-      linesWritten = 0L;
-      linesUpdated = 0L;
-      linesSkipped = 0L;
-      linesRejected = 0L;
-      linesInput = 0L;
-      linesOutput = 0L;
-    }
+    linesRead.reset();
+    linesWritten.reset();
+    linesUpdated.reset();
+    linesSkipped.reset();
+    linesRejected.reset();
+    linesInput.reset();
+    linesOutput.reset();
 
     inputRowSets = new ArrayList<>();
     outputRowSets = new ArrayList<>();
@@ -642,9 +658,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesRead() {
-    synchronized (statusCountersLock) {
-      return linesRead;
-    }
+    return linesRead.sum();
   }
 
   /**
@@ -654,9 +668,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long incrementLinesRead() {
-    synchronized (statusCountersLock) {
-      return ++linesRead;
-    }
+    linesRead.increment();
+    return linesRead.sum();
   }
 
   /**
@@ -665,19 +678,29 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long decrementLinesRead() {
-    synchronized (statusCountersLock) {
-      return --linesRead;
-    }
+    linesRead.decrement();
+    return linesRead.sum();
   }
 
   /**
+   * Adds to the number of lines read from previous transforms, without adding up the new total.
+   *
+   * @param nrLines the number of lines to add, negative to subtract
+   */
+  public void addLinesRead(long nrLines) {
+    linesRead.add(nrLines);
+  }
+
+  /**
+   * Only set the counter from the thread which updates it: setting it isn't atomic with concurrent
+   * increments.
+   *
    * @param newLinesReadValue the new number of lines read from previous transforms
    * @see {@link #getLinesRead()}, {@link #incrementLinesRead()}, {@link #decrementLinesRead()}
    */
   public void setLinesRead(long newLinesReadValue) {
-    synchronized (statusCountersLock) {
-      linesRead = newLinesReadValue;
-    }
+    linesRead.reset();
+    linesRead.add(newLinesReadValue);
   }
 
   /**
@@ -686,9 +709,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesInput() {
-    synchronized (statusCountersLock) {
-      return linesInput;
-    }
+    return linesInput.sum();
   }
 
   /**
@@ -698,20 +719,30 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return the new incremented value
    */
   public long incrementLinesInput() {
-    synchronized (statusCountersLock) {
-      return ++linesInput;
-    }
+    linesInput.increment();
+    return linesInput.sum();
+  }
+
+  /**
+   * Adds to the number of lines read from an input source, without adding up the new total.
+   *
+   * @param nrLines the number of lines to add, negative to subtract
+   */
+  public void addLinesInput(long nrLines) {
+    linesInput.add(nrLines);
   }
 
   /**
+   * Only set the counter from the thread which updates it: setting it isn't atomic with concurrent
+   * increments.
+   *
    * @param newLinesInputValue the new number of lines read from an input source: database, file,
    *     socket, etc.
    * @see {@link #getLinesInput()} or {@link #incrementLinesInput()}
    */
   public void setLinesInput(long newLinesInputValue) {
-    synchronized (statusCountersLock) {
-      linesInput = newLinesInputValue;
-    }
+    linesInput.reset();
+    linesInput.add(newLinesInputValue);
   }
 
   /**
@@ -720,9 +751,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesOutput() {
-    synchronized (statusCountersLock) {
-      return linesOutput;
-    }
+    return linesOutput.sum();
   }
 
   /**
@@ -732,20 +761,30 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesOutput()}, {@link #setLinesOutput(long)}
    */
   public long incrementLinesOutput() {
-    synchronized (statusCountersLock) {
-      return ++linesOutput;
-    }
+    linesOutput.increment();
+    return linesOutput.sum();
+  }
+
+  /**
+   * Adds to the number of lines written to an output target, without adding up the new total.
+   *
+   * @param nrLines the number of lines to add, negative to subtract
+   */
+  public void addLinesOutput(long nrLines) {
+    linesOutput.add(nrLines);
   }
 
   /**
+   * Only set the counter from the thread which updates it: setting it isn't atomic with concurrent
+   * increments.
+   *
    * @param newLinesOutputValue the new number of lines written to an output target: database, file,
    *     socket, etc.
    * @see {@link #getLinesOutput()} or {@link #incrementLinesOutput()}
    */
   public void setLinesOutput(long newLinesOutputValue) {
-    synchronized (statusCountersLock) {
-      linesOutput = newLinesOutputValue;
-    }
+    linesOutput.reset();
+    linesOutput.add(newLinesOutputValue);
   }
 
   /**
@@ -756,9 +795,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesWritten() {
-    synchronized (statusCountersLock) {
-      return linesWritten;
-    }
+    return linesWritten.sum();
   }
 
   /**
@@ -768,9 +805,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long incrementLinesWritten() {
-    synchronized (statusCountersLock) {
-      return ++linesWritten;
-    }
+    linesWritten.increment();
+    return linesWritten.sum();
   }
 
   /**
@@ -780,22 +816,32 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return Returns the new value
    */
   public long decrementLinesWritten() {
-    synchronized (statusCountersLock) {
-      return --linesWritten;
-    }
+    linesWritten.decrement();
+    return linesWritten.sum();
+  }
+
+  /**
+   * Adds to the number of lines written to next transforms, without adding up the new total.
+   *
+   * @param nrLines the number of lines to add, negative to subtract
+   */
+  public void addLinesWritten(long nrLines) {
+    linesWritten.add(nrLines);
   }
 
   /**
    * Set the number of lines written to next transforms
    *
+   * <p>Only set the counter from the thread which updates it: setting it isn't atomic with
+   * concurrent increments.
+   *
    * @param newLinesWrittenValue the new number of lines written to next transforms
    * @see {@link #getLinesWritten()}, {@link #incrementLinesWritten()}, or {@link
    *     #decrementLinesWritten()}
    */
   public void setLinesWritten(long newLinesWrittenValue) {
-    synchronized (statusCountersLock) {
-      linesWritten = newLinesWrittenValue;
-    }
+    linesWritten.reset();
+    linesWritten.add(newLinesWrittenValue);
   }
 
   /**
@@ -804,9 +850,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesUpdated() {
-    synchronized (statusCountersLock) {
-      return linesUpdated;
-    }
+    return linesUpdated.sum();
   }
 
   /**
@@ -816,20 +860,30 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesUpdated()}, {@link #setLinesUpdated(long)}
    */
   public long incrementLinesUpdated() {
-    synchronized (statusCountersLock) {
-      return ++linesUpdated;
-    }
+    linesUpdated.increment();
+    return linesUpdated.sum();
   }
 
   /**
+   * Adds to the number of lines updated in an output target, without adding up the new total.
+   *
+   * @param nrLines the number of lines to add, negative to subtract
+   */
+  public void addLinesUpdated(long nrLines) {
+    linesUpdated.add(nrLines);
+  }
+
+  /**
+   * Only set the counter from the thread which updates it: setting it isn't atomic with concurrent
+   * increments.
+   *
    * @param newLinesUpdatedValue the new number of lines updated in an output target: database,
    *     file, socket, etc.
    * @see {@link #getLinesUpdated()}, {@link #incrementLinesUpdated()}
    */
   public void setLinesUpdated(long newLinesUpdatedValue) {
-    synchronized (statusCountersLock) {
-      linesUpdated = newLinesUpdatedValue;
-    }
+    linesUpdated.reset();
+    linesUpdated.add(newLinesUpdatedValue);
   }
 
   /**
@@ -840,9 +894,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    */
   @Override
   public long getLinesRejected() {
-    synchronized (statusCountersLock) {
-      return linesRejected;
-    }
+    return linesRejected.sum();
   }
 
   /**
@@ -852,20 +904,31 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @return the new incremented value
    */
   public long incrementLinesRejected() {
-    synchronized (statusCountersLock) {
-      return ++linesRejected;
-    }
+    linesRejected.increment();
+    return linesRejected.sum();
+  }
+
+  /**
+   * Adds to the number of lines rejected to an error handling transform, without adding up the new
+   * total.
+   *
+   * @param nrLines the number of lines to add, negative to subtract
+   */
+  public void addLinesRejected(long nrLines) {
+    linesRejected.add(nrLines);
   }
 
   /**
+   * Only set the counter from the thread which updates it: setting it isn't atomic with concurrent
+   * increments.
+   *
    * @param newLinesRejectedValue lines number of lines rejected to an error handling transform
    * @see {@link #getLinesRejected()}, {@link #incrementLinesRejected()}
    */
   @Override
   public void setLinesRejected(long newLinesRejectedValue) {
-    synchronized (statusCountersLock) {
-      linesRejected = newLinesRejectedValue;
-    }
+    linesRejected.reset();
+    linesRejected.add(newLinesRejectedValue);
   }
 
   /**
@@ -873,9 +936,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #setLinesSkipped(long)}, {@link #incrementLinesSkipped()}
    */
   public long getLinesSkipped() {
-    synchronized (statusCountersLock) {
-      return linesSkipped;
-    }
+    return linesSkipped.sum();
   }
 
   /**
@@ -885,19 +946,29 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
    * @see {@link #getLinesSkipped()}, {@link #setLinesSkipped(long)}
    */
   public long incrementLinesSkipped() {
-    synchronized (statusCountersLock) {
-      return ++linesSkipped;
-    }
+    linesSkipped.increment();
+    return linesSkipped.sum();
   }
 
   /**
+   * Adds to the number of lines skipped, without adding up the new total.
+   *
+   * @param nrLines the number of lines to add, negative to subtract
+   */
+  public void addLinesSkipped(long nrLines) {
+    linesSkipped.add(nrLines);
+  }
+
+  /**
+   * Only set the counter from the thread which updates it: setting it isn't atomic with concurrent
+   * increments.
+   *
    * @param newLinesSkippedValue lines number of lines skipped
    * @see {@link #getLinesSkipped()}, {@link #incrementLinesSkipped()}
    */
   public void setLinesSkipped(long newLinesSkippedValue) {
-    synchronized (statusCountersLock) {
-      linesSkipped = newLinesSkippedValue;
-    }
+    linesSkipped.reset();
+    linesSkipped.add(newLinesSkippedValue);
   }
 
   @Override
@@ -964,6 +1035,11 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     return transformMeta;
   }
 
+  @Override
+  public TransformTimings getTransformTimings() {
+    return transformTimings;
+  }
+
   /**
    * @return Returns the pipelineMeta.
    */
@@ -979,6 +1055,20 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     return pipeline;
   }
 
+  /**
+   * Create a reservation to account for the memory this transform buffers rows in. Reserve memory
+   * before buffering rows and spill to disk when a reservation is denied or when a spill is
+   * requested. Close the reservation in {@link #dispose()}.
+   *
+   * @return a new reservation or null if the pipeline doesn't keep track of its memory
+   */
+  public MemoryReservation createMemoryReservation() {
+    if (pipeline instanceof Pipeline localPipeline && localPipeline.getMemoryManager() != null) {
+      return localPipeline.getMemoryManager().createReservation(toString(), null);
+    }
+    return null;
+  }
+
   /**
    * putRow is used to copy a row, to the alternate rowset(s) This should get priority over
    * everything else! (synchronized) If distribute is true, a row is copied only once to the output
@@ -1081,7 +1171,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // No more output rowsets!
         // Still update the nr of lines written.
         //
-        incrementLinesWritten();
+        addLinesWritten(1);
 
         return; // we're done here!
       }
@@ -1161,7 +1251,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
         // Wait
         putRowToRowSet(selectedRowSet, rowMeta, row);
-        incrementLinesWritten();
+        addLinesWritten(1);
 
         if (log.isRowLevel()) {
           try {
@@ -1186,7 +1276,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // Plugin defined row distribution!
         //
         rowDistribution.distributeRow(rowMeta, row, this);
-        incrementLinesWritten();
+        addLinesWritten(1);
       } else {
         // ROUND ROBIN DISTRIBUTION:
         // --------------------------
@@ -1198,7 +1288,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
 
-        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped()) {
+        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() && isBackingOff(rs)) {
           try {
             Thread.sleep(0, 1);
           } catch (InterruptedException e) {
@@ -1209,7 +1299,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // Loop until we find room in the target rowset
         //
         putRowToRowSet(rs, rowMeta, row);
-        incrementLinesWritten();
+        addLinesWritten(1);
 
         // Now determine the next output rowset!
         // Only if we have more then one output...
@@ -1234,7 +1324,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
 
-        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped()) {
+        if (!rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() && isBackingOff(rs)) {
           try {
             Thread.sleep(0, 1);
           } catch (InterruptedException e) {
@@ -1246,7 +1336,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
           // Loop until we find room in the target rowset
           //
           putRowToRowSet(rs, rowMeta, rowMeta.cloneRow(row));
-          incrementLinesWritten();
+          addLinesWritten(1);
         } catch (HopValueException e) {
           throw new HopTransformException(
               "Unable to clone row while copying rows to multiple target transforms", e);
@@ -1257,7 +1347,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
       //
       IRowSet rs = outputRowSets.get(0);
       putRowToRowSet(rs, rowMeta, row);
-      incrementLinesWritten();
+      addLinesWritten(1);
     }
   }
 
@@ -1265,17 +1355,49 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     IRowMeta toBeSent;
     IRowMeta metaFromRs = rs.getRowMeta();
     if (metaFromRs == null) {
-      // IRowSet is not initialised so far
-      toBeSent = rowMeta.clone();
+      // IRowSet is not initialised so far: the layout of the rows on this hop is fixed from now on
+      toBeSent = FrozenRowMeta.freeze(rowMeta);
     } else {
       // use the existing
       toBeSent = metaFromRs;
     }
 
-    while (!rs.putRow(toBeSent, row)) {
-      if (isStopped() && !safeStopped.get()) {
-        return;
+    long waitStart = startOutputWait();
+    try {
+      while (!rs.putRow(toBeSent, row)) {
+        if (isStopped() && !safeStopped.get()) {
+          return;
+        }
       }
+    } finally {
+      endOutputWait(waitStart);
+    }
+  }
+
+  /**
+   * @return the start of a wait for room in the output buffers if the current row is timed, 0
+   *     otherwise
+   */
+  private long startOutputWait() {
+    return transformTimings != null && transformTimings.isSampling() ? System.nanoTime() : 0L;
+  }
+
+  private void endOutputWait(long waitStart) {
+    if (waitStart != 0L) {
+      transformTimings.recordOutputWait(System.nanoTime() - waitStart);
+    }
+  }
+
+  /**
+   * @return the start of a wait for input rows if the current row is timed, 0 otherwise
+   */
+  private long startInputWait() {
+    return transformTimings != null && transformTimings.isSampling() ? System.nanoTime() : 0L;
+  }
+
+  private void endInputWait(long waitStart) {
+    if (waitStart != 0L) {
+      transformTimings.recordInputWait(System.nanoTime() - waitStart);
     }
   }
 
@@ -1335,12 +1457,14 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
     // Don't distribute or anything, only go to this rowset!
     //
+    long waitStart = startOutputWait();
     while (!rowSet.putRow(rowMeta, row)) {
       if (isStopped()) {
         break;
       }
     }
-    incrementLinesWritten();
+    endOutputWait(waitStart);
+    addLinesWritten(1);
   }
 
   /**
@@ -1388,10 +1512,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     TransformErrorMeta transformErrorMeta = transformMeta.getTransformErrorMeta();
 
     if (errorRowMeta == null) {
-      errorRowMeta = rowMeta.clone();
-
-      IRowMeta add = transformErrorMeta.getErrorRowMeta(variables);
-      errorRowMeta.addRowMeta(add);
+      IRowMeta layout = rowMeta.clone();
+      layout.addRowMeta(transformErrorMeta.getErrorRowMeta(variables));
+      errorRowMeta = FrozenRowMeta.freeze(layout);
     }
 
     Object[] errorRowData = RowDataUtil.allocateRowData(errorRowMeta.size());
@@ -1414,7 +1537,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
           break;
         }
       }
-      incrementLinesRejected();
+      addLinesRejected(1);
     }
 
     verifyRejectionRates();
@@ -1578,18 +1701,25 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         }
         if (row != null) {
           obtainInputRowMeta(row, inputRowSet);
-          incrementLinesRead();
+          addLinesRead(1);
         }
       } else {
         // What's the current input stream?
         inputRowSet = currentInputStream();
       }
 
+      // Backing off and waiting for a row both count as waiting for input
+      //
+      long waitStart = startInputWait();
+
       // To reduce stress on the locking system we are going to allow
       // The buffer to grow beyond "a few" entries.
       // We'll only do that if the previous transform has not ended...
 
-      if (!inputRowSet.isDone() && inputRowSet.size() <= lowerBufferBoundary && !isStopped()) {
+      if (!inputRowSet.isDone()
+          && inputRowSet.size() <= lowerBufferBoundary
+          && !isStopped()
+          && isBackingOff(inputRowSet)) {
         try {
           Thread.sleep(0, 1);
         } catch (InterruptedException e) {
@@ -1616,7 +1746,9 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
             instanceof LocalPipelineRunConfiguration runconfig) {
           waitTime = Const.toInt(runconfig.getWaitTime(), waitTime);
         }
-        waitingTime = DynamicWaitTimes.build(inputRowSets, this::getCurrentInputRowSetNr, waitTime);
+        waitingTime =
+            DynamicWaitTimes.build(
+                inputRowSets, this::getCurrentInputRowSetNr, waitTime, isParkingInput());
       }
       while (row == null && !isStopped()) {
         // Get a row from the input in row set ...
@@ -1627,7 +1759,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         boolean timeout = false;
         if (row != null) {
           obtainInputRowMeta(row, inputRowSet);
-          incrementLinesRead();
+          addLinesRead(1);
           blockPointer++;
           waitingTime.reset();
         } else {
@@ -1662,7 +1794,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
               }
             } else {
               obtainInputRowMeta(row, inputRowSet);
-              incrementLinesRead();
+              addLinesRead(1);
             }
           } else {
             timeout = true;
@@ -1674,6 +1806,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
           waitingTime.adjust(timeout, inputRowSet);
         }
       }
+      endInputWait(waitStart);
 
       // This rowSet is perhaps no longer giving back rows?
       //
@@ -1763,6 +1896,258 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     }
   }
 
+  /**
+   * Checks whether this transform processes batches of rows during this execution. That is the case
+   * when the transform is an {@link IBatchTransform}, when batch processing is enabled for the
+   * pipeline and when the transform reads from a single input without safe mode, error handling or
+   * a custom row handler. The decision is taken the first time this method is called.
+   *
+   * @return true if this transform processes batches of rows
+   */
+  public boolean isBatchProcessing() {
+    if (batchProcessing == null) {
+      inputRowSetsLock.readLock().lock();
+      try {
+        batchProcessing =
+            this instanceof IBatchTransform
+                && pipeline instanceof Pipeline localPipeline
+                && localPipeline.isBatchProcessing()
+                && !localPipeline.isSafeModeEnabled()
+                && inputRowSets.size() == 1
+                && !transformMeta.isDoingErrorHandling()
+                && hasDefaultRowHandler();
+      } finally {
+        inputRowSetsLock.readLock().unlock();
+      }
+    }
+    return batchProcessing;
+  }
+
+  /**
+   * Read the next batch of rows from the single input row set. Rows which were not handed over as a
+   * batch are gathered into a new batch.
+   *
+   * @return the next batch of rows or null if there are no more rows to be expected.
+   * @throws HopException in case something goes wrong
+   */
+  public RowBatch getBatch() throws HopException {
+    // Are we pausing the transform? If so, stall forever...
+    //
+    while (paused.get() && !stopped.get()) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        throw new HopTransformException(e);
+      }
+    }
+
+    if (stopped.get()) {
+      if (log.isDebug()) {
+        logDebug(BaseMessages.getString(PKG, "BaseTransform.Log.StopLookingForMoreRows"));
+      }
+      stopAll();
+      return null;
+    }
+
+    waitUntilPipelineIsStarted();
+
+    IRowSet inputRowSet;
+    inputRowSetsLock.readLock().lock();
+    try {
+      if (inputRowSets.isEmpty()) {
+        return null;
+      }
+      inputRowSet = inputRowSets.get(0);
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+
+    RowBatch batch = null;
+    long waitStart = startInputWait();
+    while (batch == null && !isStopped()) {
+      batch =
+          inputRowSet.getBatchWait(
+              RowBatch.DEFAULT_MAX_SIZE, Const.TIMEOUT_GET_MILLIS, TimeUnit.MILLISECONDS);
+      if (batch == null && inputRowSet.isDone()) {
+        // Try once more: rows might have arrived right before the row set was flagged as done.
+        //
+        batch = inputRowSet.getBatchWait(RowBatch.DEFAULT_MAX_SIZE, 1, TimeUnit.MILLISECONDS);
+        if (batch == null) {
+          inputRowSetsLock.writeLock().lock();
+          try {
+            inputRowSets.remove(inputRowSet);
+          } finally {
+            inputRowSetsLock.writeLock().unlock();
+          }
+          return null;
+        }
+      }
+    }
+    endInputWait(waitStart);
+    if (batch == null) {
+      return null;
+    }
+
+    if (inputRowMeta == null) {
+      inputRowMeta = inputRowSet.getRowMeta();
+    }
+    addLinesRead(batch.size());
+    if (firstRowReadDate == null) {
+      firstRowReadDate = new Date();
+    }
+
+    // Row listeners still see the rows one by one
+    //
+    if (!rowListeners.isEmpty()) {
+      for (int r = 0; r < batch.size(); r++) {
+        Object[] row = batch.getRow(r);
+        for (IRowListener listener : rowListeners) {
+          listener.rowReadEvent(inputRowMeta, row);
+        }
+      }
+    }
+
+    verifyRejectionRates();
+
+    return batch;
+  }
+
+  /**
+   * Send a batch of rows to the next transform(s). The batch is handed over as a whole if there is
+   * a single output row set which can carry batches and if nothing needs to see the individual
+   * rows. Otherwise the rows are sent one by one with {@link #putRow(IRowMeta, Object[])}.
+   *
+   * @param rowMeta The metadata of the rows in the batch
+   * @param batch The batch of rows. Don't touch it after this call.
+   * @throws HopTransformException in case something goes wrong
+   */
+  public void putBatch(IRowMeta rowMeta, RowBatch batch) throws HopTransformException {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    IRowSet rowSet = null;
+    boolean rowByRow = true;
+    if (rowListeners.isEmpty()
+        && !terminator
+        && repartitioning == TransformPartitioningMeta.PARTITIONING_METHOD_NONE
+        && hasDefaultRowHandler()) {
+      outputRowSetsLock.readLock().lock();
+      try {
+        if (outputRowSets.isEmpty()) {
+          rowByRow = false;
+        } else if (outputRowSets.size() == 1 && outputRowSets.get(0).supportsBatches()) {
+          rowSet = outputRowSets.get(0);
+          rowByRow = false;
+        }
+      } finally {
+        outputRowSetsLock.readLock().unlock();
+      }
+    }
+
+    if (rowByRow) {
+      for (int r = 0; r < batch.size(); r++) {
+        putRow(rowMeta, batch.getRow(r));
+      }
+    } else if (rowSet == null) {
+      // No more output rowsets: still update the nr of lines written.
+      //
+      addLinesWritten(batch.size());
+    } else {
+      putBatchToRowSet(rowSet, rowMeta, batch);
+    }
+  }
+
+  /**
+   * Send a batch of rows to a specific row set. Just like {@link #putRowTo(IRowMeta, Object[],
+   * IRowSet)} this doesn't call the row listeners.
+   *
+   * @param rowMeta The metadata of the rows in the batch
+   * @param batch The batch of rows. Don't touch it after this call.
+   * @param rowSet The row set to put the rows into
+   * @throws HopTransformException in case something goes wrong
+   */
+  public void putBatchTo(IRowMeta rowMeta, RowBatch batch, IRowSet rowSet)
+      throws HopTransformException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    if (rowSet.supportsBatches() && !terminator && hasDefaultRowHandler()) {
+      putBatchToRowSet(rowSet, rowMeta, batch);
+    } else {
+      for (int r = 0; r < batch.size(); r++) {
+        putRowTo(rowMeta, batch.getRow(r), rowSet);
+      }
+    }
+  }
+
+  private void putBatchToRowSet(IRowSet rowSet, IRowMeta rowMeta, RowBatch batch)
+      throws HopTransformException {
+    // Are we pausing the transform? If so, stall forever...
+    //
+    while (paused.get() && !stopped.get()) {
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        throw new HopTransformException(e);
+      }
+    }
+
+    if (stopped.get() && !safeStopped.get()) {
+      if (log.isDebug()) {
+        logDebug(BaseMessages.getString(PKG, "BaseTransform.Log.StopPuttingARow"));
+      }
+      stopAll();
+      return;
+    }
+
+    IRowMeta toBeSent = rowSet.getRowMeta();
+    if (toBeSent == null) {
+      // IRowSet is not initialised so far: the layout of the rows on this hop is fixed from now on
+      toBeSent = FrozenRowMeta.freeze(rowMeta);
+    }
+
+    long waitStart = startOutputWait();
+    try {
+      while (!rowSet.putBatchWait(
+          toBeSent, batch, Const.TIMEOUT_PUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (isStopped() && !safeStopped.get()) {
+          return;
+        }
+      }
+    } finally {
+      endOutputWait(waitStart);
+    }
+    addLinesWritten(batch.size());
+
+    if (firstRowReadDate == null) {
+      firstRowReadDate = new Date();
+    }
+  }
+
+  /**
+   * On virtual threads (or cooperatively scheduled transforms) the row sets park a waiting reader
+   * or writer. Sleeping or polling with short timeouts only keeps the (carrier) thread busy in that
+   * case.
+   */
+  private boolean isParkingInput() {
+    return pipeline instanceof Pipeline localPipeline && localPipeline.isParkingOnRowSets();
+  }
+
+  /**
+   * Backing off for a moment when a row set is (almost) full or empty gives the other threads a
+   * chance to catch up. That doesn't make sense for the unsynchronized row sets between fused
+   * transforms since there is no other thread, nor for parking row sets.
+   */
+  private boolean isBackingOff(IRowSet rowSet) {
+    return !(rowSet instanceof QueueRowSet) && !isParkingInput();
+  }
+
+  private boolean hasDefaultRowHandler() {
+    return rowHandler == null || rowHandler instanceof BaseTransform<?, ?>.DefaultRowHandler;
+  }
+
+
   /**
    * IRowHandler controls how getRow/putRow are handled. The default IRowHandler will simply call
    * {@link #handleGetRow()} and {@link #handlePutRow(IRowMeta, Object[])}
@@ -1942,7 +2327,10 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
     // The buffer to grow beyond "a few" entries.
     // We'll only do that if the previous transform has not ended...
 
-    if (!rowSet.isDone() && rowSet.size() <= lowerBufferBoundary && !isStopped()) {
+    if (!rowSet.isDone()
+        && rowSet.size() <= lowerBufferBoundary
+        && !isStopped()
+        && isBackingOff(rowSet)) {
       try {
         Thread.sleep(0, 1);
       } catch (InterruptedException e) {
@@ -1988,7 +2376,8 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
         if (waitingTime == null) {
           waitingTime =
-              DynamicWaitTimes.build(inputRowSets, this::getCurrentInputRowSetNr, waitTime);
+              DynamicWaitTimes.build(
+                  inputRowSets, this::getCurrentInputRowSetNr, waitTime, isParkingInput());
         }
         // Must release the read lock before acquisition of the write lock to prevent deadlocks.
         //
@@ -2020,7 +2409,7 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         }
       }
     }
-    incrementLinesRead();
+    addLinesRead(1);
 
     // call all rowlisteners...
     //
@@ -2933,36 +3322,36 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
 
   /** Log summary. */
   public void logSummary() {
-    synchronized (statusCountersLock) {
-      long li = getLinesInput();
-      long lo = getLinesOutput();
-      long lr = getLinesRead();
-      long lw = getLinesWritten();
-      long lu = getLinesUpdated();
-      long lj = getLinesRejected();
-      if (li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || errors > 0) {
-        logBasic(
-            BaseMessages.getString(
-                PKG,
-                "BaseTransform.Log.SummaryInfo",
-                String.valueOf(li),
-                String.valueOf(lo),
-                String.valueOf(lr),
-                String.valueOf(lw),
-                String.valueOf(lw),
-                String.valueOf(errors + lj)));
-      } else {
-        logDetailed(
-            BaseMessages.getString(
-                PKG,
-                "BaseTransform.Log.SummaryInfo",
-                String.valueOf(li),
-                String.valueOf(lo),
-                String.valueOf(lr),
-                String.valueOf(lw),
-                String.valueOf(lw),
-                String.valueOf(errors + lj)));
-      }
+    // Read the counters downstream first: they never run ahead of the ones upstream
+    //
+    long lo = getLinesOutput();
+    long lu = getLinesUpdated();
+    long lj = getLinesRejected();
+    long lw = getLinesWritten();
+    long lr = getLinesRead();
+    long li = getLinesInput();
+    if (li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || errors > 0) {
+      logBasic(
+          BaseMessages.getString(
+              PKG,
+              "BaseTransform.Log.SummaryInfo",
+              String.valueOf(li),
+              String.valueOf(lo),
+              String.valueOf(lr),
+              String.valueOf(lw),
+              String.valueOf(lw),
+              String.valueOf(errors + lj)));
+    } else {
+      logDetailed(
+          BaseMessages.getString(
+              PKG,
+              "BaseTransform.Log.SummaryInfo",
+              String.valueOf(li),
+              String.valueOf(lo),
+              String.valueOf(lr),
+              String.valueOf(lw),
+              String.valueOf(lw),
+              String.valueOf(errors + lj)));
     }
   }
 
@@ -3297,6 +3686,22 @@ public class BaseTransform<Meta extends ITransformMeta, Data extends ITransformD
         && (lines % getPipeline().getFeedbackSize()) == 0;
   }
 
+  /**
+   * Feedback check for transforms which process batches of rows: the line counter jumps by the size
+   * of a batch.
+   *
+   * @param lines the current number of lines
+   * @param nrNewLines the number of lines added since the previous check
+   * @return true if the feedback size was crossed by the last lines
+   */
+  protected boolean checkFeedback(long lines, int nrNewLines) {
+    long feedbackSize = getPipeline().getFeedbackSize();
+    return getPipeline().isFeedbackShown()
+        && (lines > 0)
+        && (feedbackSize > 0)
+        && (lines / feedbackSize) != ((lines - nrNewLines) / feedbackSize);
+  }
+
   /**
    * @return the rowMeta
    */
@@ -434,6 +434,11 @@ public class BaseTransformMeta<Main extends ITransform, Data extends ITransformD
     return true;
   }
 
+  @Override
+  public boolean isFusable() {
+    return false;
+  }
+
   /** This method is added to exclude certain transforms from layout checking. */
   public boolean excludeFromRowLayoutVerification() {
     return false;
@@ -27,8 +27,17 @@ final class DynamicWaitTimes {
 
   static SingleStreamStatus build(
       List<IRowSet> rowSets, Supplier<Integer> supplier, Integer waitTime) {
+    return build(rowSets, supplier, waitTime, false);
+  }
+
+  /**
+   * @param parking true if the row sets park a waiting reader until a row arrives: a single stream
+   *     is then read with the full wait time right away.
+   */
+  static SingleStreamStatus build(
+      List<IRowSet> rowSets, Supplier<Integer> supplier, Integer waitTime, boolean parking) {
     if (rowSets.size() == 1) {
-      return new SingleStreamStatus(waitTime);
+      return parking ? new ParkingStreamStatus(waitTime) : new SingleStreamStatus(waitTime);
     }
     return new MultiStreamStatus(new ArrayList<>(rowSets), supplier, waitTime);
   }
@@ -77,6 +86,21 @@ final class DynamicWaitTimes {
     }
   }
 
+  /**
+   * There is no point in polling a single stream with short timeouts when the reader is woken up as
+   * soon as a row arrives.
+   */
+  private static class ParkingStreamStatus extends SingleStreamStatus {
+    ParkingStreamStatus(Integer waitTime) {
+      super(waitTime);
+    }
+
+    @Override
+    public long get() {
+      return super.waitTime;
+    }
+  }
+
   private static class MultiStreamStatus extends SingleStreamStatus {
     private final List<IRowSet> streamList;
     private final List<SingleStreamStatus> statusList;
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.apache.hop.core.IRowSet;
+
+/**
+ * Runs a chain of fused transforms in a single thread. The transforms in the chain are connected
+ * one to one by unsynchronized row sets: the first transform reads from its input row sets as
+ * usual, the other transforms only get to process a row when the transform before them handed one
+ * over. The last transform writes to its output row sets as usual.
+ *
+ * <p>Every transform keeps its own status, row counters and metrics and finishes on its own, the
+ * same way as it does in a thread of its own.
+ */
+public class FusedRunThread extends RunThread {
+
+  private final List<ITransform> transforms;
+  private final List<RunThread> runThreads;
+  private final List<IRowSet> links;
+  private final boolean[] finished;
+  private final int maxBuffered;
+
+  /**
+   * @param chain the transform copies to run, in the order in which the rows pass through them
+   * @param maxBuffered the number of rows a transform hands over before the next transform gets to
+   *     process them
+   */
+  public FusedRunThread(List<TransformMetaDataCombi> chain, int maxBuffered) {
+    super(chain.get(0));
+    this.transforms = new ArrayList<>();
+    this.runThreads = new ArrayList<>();
+    this.links = new ArrayList<>();
+    for (TransformMetaDataCombi combi : chain) {
+      transforms.add(combi.transform);
+      runThreads.add(new RunThread(combi));
+    }
+    for (int i = 1; i < chain.size(); i++) {
+      links.add(chain.get(i).transform.getInputRowSets().get(0));
+    }
+    this.finished = new boolean[chain.size()];
+    this.maxBuffered = Math.max(1, maxBuffered);
+  }
+
+  @Override
+  public void run() {
+    startRunning();
+    while (runSlice(Integer.MAX_VALUE, () -> true)) {
+      // Keep passing the rows down the chain
+    }
+    stopRunning();
+  }
+
+  @Override
+  public void startRunning() {
+    for (RunThread runThread : runThreads) {
+      runThread.startRunning();
+    }
+  }
+
+  /**
+   * Every iteration lets the first transform process the rows that are available (or wait for the
+   * next one) and then passes them down the chain as far as they go.
+   *
+   * @return true as long as one of the transforms in the chain didn't finish
+   */
+  @Override
+  public boolean runSlice(int maxIterations, BooleanSupplier canContinue) {
+    for (int i = 0; i < maxIterations; i++) {
+      if (i > 0 && !canContinue.getAsBoolean()) {
+        break;
+      }
+      if (!passRows()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Flag the transforms in the chain which didn't do so yet as finished. */
+  @Override
+  public void stopRunning() {
+    for (int i = 0; i < runThreads.size(); i++) {
+      finish(i);
+    }
+  }
+
+  private boolean passRows() {
+    boolean running = false;
+    for (int i = 0; i < transforms.size(); i++) {
+      if (finished[i]) {
+        continue;
+      }
+      if (i == 0 || hasRows(i)) {
+        final int index = i;
+        if (!runThreads.get(i).runSlice(Integer.MAX_VALUE, () -> canProcess(index))) {
+          finish(i);
+          continue;
+        }
+      }
+      running = true;
+    }
+    return running;
+  }
+
+  /**
+   * The first transform keeps processing as long as rows are waiting for it. The other transforms
+   * process the rows handed over by the transform before them. All of them give the next transform
+   * in line a turn once they handed over enough rows.
+   */
+  private boolean canProcess(int index) {
+    if (index < links.size() && links.get(index).size() >= maxBuffered) {
+      return false;
+    }
+    if (index > 0) {
+      return hasRows(index);
+    }
+    List<IRowSet> inputRowSets = transforms.get(0).getInputRowSets();
+    if (inputRowSets.isEmpty()) {
+      return true;
+    }
+    for (IRowSet rowSet : inputRowSets) {
+      if (rowSet.size() > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The input of a transform (other than the first) is the link with the transform before it. */
+  private boolean hasRows(int index) {
+    IRowSet link = links.get(index - 1);
+    return link.size() > 0 || link.isDone();
+  }
+
+  private void finish(int index) {
+    if (finished[index]) {
+      return;
+    }
+    finished[index] = true;
+    runThreads.get(index).stopRunning();
+
+    // A stopped transform doesn't always signal the end of its output.
+    // Make sure the next one in line doesn't wait for rows which never come.
+    //
+    if (index < links.size()) {
+      links.get(index).setDone();
+    }
+  }
+}
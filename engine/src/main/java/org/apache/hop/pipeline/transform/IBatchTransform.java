@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transform;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.RowBatch;
+
+/**
+ * A transform which can process whole batches of rows, column by column, next to processing rows
+ * one by one with {@link ITransform#processRow()}. Transforms extending {@link BaseTransform} only
+ * need to implement {@link #processBatch(RowBatch)}: they read and write batches with {@link
+ * BaseTransform#getBatch()} and {@link BaseTransform#putBatch(org.apache.hop.core.row.IRowMeta,
+ * RowBatch)}.
+ *
+ * <p>Batch processing is only used when it is enabled in the pipeline run configuration and when
+ * the transform setup allows it (see {@link #isBatchProcessing()}). Batches are handed over as a
+ * whole between batch capable transforms. Rows are converted one by one only at the edges where
+ * batch capable transforms meet row based ones.
+ */
+public interface IBatchTransform extends ITransform {
+
+  /**
+   * @return true if this transform processes batches of rows during this execution.
+   */
+  boolean isBatchProcessing();
+
+  /**
+   * Read the next batch of rows from the input.
+   *
+   * @return the next batch of rows or null if there are no more rows to be expected.
+   * @throws HopException in case something goes wrong reading the rows
+   */
+  RowBatch getBatch() throws HopException;
+
+  /**
+   * Process a batch of rows. The metadata of the rows is available with {@link
+   * BaseTransform#getInputRowMeta()}. The batch belongs to the transform: it can be modified in
+   * place and passed on.
+   *
+   * @param batch the batch of rows to process, never empty
+   * @throws HopException in case something goes wrong processing the rows
+   */
+  void processBatch(RowBatch batch) throws HopException;
+}
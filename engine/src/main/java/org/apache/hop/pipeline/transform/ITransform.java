@@ -36,6 +36,7 @@ import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.engine.EngineComponent.ComponentExecutionStatus;
 import org.apache.hop.pipeline.engine.IEngineComponent;
 import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.apache.hop.pipeline.performance.TransformTimings;
 
 /**
  * The interface that any pipeline transform or plugin needs to implement.
@@ -430,6 +431,14 @@ public interface ITransform extends IVariables, IHasLogChannel, IEngineComponent
     getOutputRowSets().add(rowSet);
   }
 
+  /**
+   * @return The time spent processing rows and waiting for rows, or null if the transform doesn't
+   *     measure it
+   */
+  default TransformTimings getTransformTimings() {
+    return null;
+  }
+
   /**
    * @return Returns the transform specific metadata.
    */
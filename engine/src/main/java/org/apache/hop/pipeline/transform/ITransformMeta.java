@@ -335,6 +335,16 @@ public interface ITransformMeta {
    */
   boolean supportsMultiCopyExecution();
 
+  /**
+   * A fusable transform only looks at the row it's processing: it keeps no state between rows and
+   * writes its output rows while it processes the input row. A chain of such transforms can run in
+   * a single thread, handing over rows without synchronization.
+   *
+   * @return true if this transform can be fused with the transforms before and after it. By default
+   *     return false.
+   */
+  boolean isFusable();
+
   /**
    * Get a list of all the resource dependencies that the transform is depending on.
    *
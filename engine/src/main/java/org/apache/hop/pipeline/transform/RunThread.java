@@ -19,13 +19,17 @@ package org.apache.hop.pipeline.transform;
 
 import java.util.Date;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.logging.HopLogStore;
 import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.logging.ILoggingObject;
 import org.apache.hop.core.logging.LoggingRegistry;
 import org.apache.hop.core.logging.Metrics;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.pipeline.performance.TransformTimings;
 
 public class RunThread implements Runnable {
 
@@ -33,112 +37,210 @@ public class RunThread implements Runnable {
 
   private final ITransform transform;
   private final ILogChannel log;
+  private final TransformTimings timings;
 
   public RunThread(TransformMetaDataCombi combi) {
     this.transform = combi.transform;
     this.log = transform.getLogChannel();
+    this.timings = transform.getTransformTimings();
   }
 
   @Override
   public void run() {
     try {
-      transform.setRunning(true);
-      transform.setExecutionStartDate(new Date());
-      transform.getLogChannel().snap(Metrics.METRIC_TRANSFORM_EXECUTION_START);
+      startRunning();
 
-      if (log.isDetailed()) {
-        log.logDetailed(BaseMessages.getString("System.Log.StartingToRun"));
+      if (transform instanceof IBatchTransform batchTransform
+          && batchTransform.isBatchProcessing()) {
+        processBatches(batchTransform);
+      } else {
+        // Wait
+        while (processRow()) {
+          if (transform.isStopped()) {
+            break;
+          }
+        }
       }
+    } catch (Throwable t) {
+      handleError(t);
+    } finally {
+      stopRunning();
+    }
+  }
+
+  /**
+   * Flag the transform as running. Call this once before {@link #runSlice(int, BooleanSupplier)}
+   * when the transform doesn't run in a thread of its own.
+   */
+  public void startRunning() {
+    transform.setRunning(true);
+    transform.setExecutionStartDate(new Date());
+    transform.getLogChannel().snap(Metrics.METRIC_TRANSFORM_EXECUTION_START);
 
-      // Wait
-      while (transform.processRow()) {
-        if (transform.isStopped()) {
+    if (log.isDetailed()) {
+      log.logDetailed(BaseMessages.getString("System.Log.StartingToRun"));
+    }
+  }
+
+  /**
+   * Let the transform process a limited number of rows (or batches of rows). This allows a
+   * scheduler to run many transforms on a few threads: every call processes a slice of the work
+   * after which the thread is free to run another transform.
+   *
+   * @param maxIterations the maximum number of rows (or batches) to process
+   * @param canContinue checked before every row after the first one: stop the slice early if it
+   *     returns false
+   * @return true if the transform has more work to do, false if it finished (or failed). Call
+   *     {@link #stopRunning()} once the transform finished.
+   */
+  public boolean runSlice(int maxIterations, BooleanSupplier canContinue) {
+    try {
+      boolean batches =
+          transform instanceof IBatchTransform batchTransform && batchTransform.isBatchProcessing();
+      for (int i = 0; i < maxIterations; i++) {
+        if (transform.isStopped() || (i > 0 && !canContinue.getAsBoolean())) {
           break;
         }
+        boolean more = batches ? processBatch((IBatchTransform) transform) : processRow();
+        if (!more) {
+          return false;
+        }
       }
+      return !transform.isStopped();
     } catch (Throwable t) {
-      try {
-        // check for OOME
-        if (t instanceof OutOfMemoryError) {
-          // Handle this different with as less overhead as possible to get an error message in the
-          // log.
-          // Otherwise it crashes likely with another OOME in Me$$ages.getString() and does not log
-          // nor call the setErrors() and stopAll() below.
-          log.logError("UnexpectedError: ", t);
-        } else {
-          t.printStackTrace();
-          log.logError(BaseMessages.getString("System.Log.UnexpectedError"), t);
-        }
+      handleError(t);
+      return false;
+    }
+  }
 
-        String logChannelId = log.getLogChannelId();
-        ILoggingObject loggingObject = LoggingRegistry.getInstance().getLoggingObject(logChannelId);
-        String parentLogChannelId = loggingObject.getParent().getLogChannelId();
-        List<String> logChannelChildren =
-            LoggingRegistry.getInstance().getLogChannelChildren(parentLogChannelId);
-        int childIndex = Const.indexOfString(log.getLogChannelId(), logChannelChildren);
-        if (log.isDebug()) {
-          log.logDebug(
-              "child index = "
-                  + childIndex
-                  + ", logging object : "
-                  + loggingObject
-                  + " parent="
-                  + parentLogChannelId);
-        }
-        HopLogStore.getAppender().getBuffer("2bcc6b3f-c660-4a8b-8b17-89e8cbd5b29b", false);
-      } catch (OutOfMemoryError e) {
-        e.printStackTrace();
-      } finally {
-        transform.setErrors(1);
-        transform.stopAll();
+  private void handleError(Throwable t) {
+    try {
+      // check for OOME
+      if (t instanceof OutOfMemoryError) {
+        // Handle this different with as less overhead as possible to get an error message in the
+        // log.
+        // Otherwise it crashes likely with another OOME in Me$$ages.getString() and does not log
+        // nor call the setErrors() and stopAll() below.
+        log.logError("UnexpectedError: ", t);
+      } else {
+        t.printStackTrace();
+        log.logError(BaseMessages.getString("System.Log.UnexpectedError"), t);
+      }
+
+      String logChannelId = log.getLogChannelId();
+      ILoggingObject loggingObject = LoggingRegistry.getInstance().getLoggingObject(logChannelId);
+      String parentLogChannelId = loggingObject.getParent().getLogChannelId();
+      List<String> logChannelChildren =
+          LoggingRegistry.getInstance().getLogChannelChildren(parentLogChannelId);
+      int childIndex = Const.indexOfString(log.getLogChannelId(), logChannelChildren);
+      if (log.isDebug()) {
+        log.logDebug(
+            "child index = "
+                + childIndex
+                + ", logging object : "
+                + loggingObject
+                + " parent="
+                + parentLogChannelId);
+      }
+      HopLogStore.getAppender().getBuffer("2bcc6b3f-c660-4a8b-8b17-89e8cbd5b29b", false);
+    } catch (OutOfMemoryError e) {
+      e.printStackTrace();
+    } finally {
+      transform.setErrors(1);
+      transform.stopAll();
+    }
+  }
+
+  /** Dispose of the transform, log a summary and flag that the transform finished. */
+  public void stopRunning() {
+    transform.dispose();
+    transform.setExecutionEndDate(new Date());
+    // If the transform was stopped it never flagged the last row
+    if (transform.getLastRowWrittenDate() == null) {
+      transform.setLastRowWrittenDate(transform.getExecutionEndDate());
+    }
+    transform.getLogChannel().snap(Metrics.METRIC_TRANSFORM_EXECUTION_STOP);
+    try {
+      long li = transform.getLinesInput();
+      long lo = transform.getLinesOutput();
+      long lr = transform.getLinesRead();
+      long lw = transform.getLinesWritten();
+      long lu = transform.getLinesUpdated();
+      long lj = transform.getLinesRejected();
+      long e = transform.getErrors();
+      if (li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || e > 0) {
+        log.logBasic(
+            BaseMessages.getString(
+                PKG,
+                "BaseTransform.Log.SummaryInfo",
+                String.valueOf(li),
+                String.valueOf(lo),
+                String.valueOf(lr),
+                String.valueOf(lw),
+                String.valueOf(lu),
+                String.valueOf(e + lj)));
+      } else {
+        log.logDetailed(
+            BaseMessages.getString(
+                PKG,
+                "BaseTransform.Log.SummaryInfo",
+                String.valueOf(li),
+                String.valueOf(lo),
+                String.valueOf(lr),
+                String.valueOf(lw),
+                String.valueOf(lu),
+                String.valueOf(e + lj)));
       }
+    } catch (Throwable t) {
+      //
+      // it's likely an OOME, so we don't want to introduce overhead by using
+      // BaseMessages.getString(), see above
+      //
+      log.logError("UnexpectedError: " + Const.getStackTracker(t));
+    } finally {
+      transform.markStop();
+    }
+  }
+
+  /** Let the transform process a row, timing one in every few calls. */
+  private boolean processRow() throws HopException {
+    if (timings == null || !timings.startSample()) {
+      return transform.processRow();
+    }
+    try {
+      return transform.processRow();
     } finally {
-      transform.dispose();
-      transform.setExecutionEndDate(new Date());
-      // If the transform was stopped it never flagged the last row
-      if (transform.getLastRowWrittenDate() == null) {
-        transform.setLastRowWrittenDate(transform.getExecutionEndDate());
+      timings.endSample();
+    }
+  }
+
+  /** Hand over whole batches of rows to the transform until there are no more rows. */
+  private void processBatches(IBatchTransform batchTransform) throws HopException {
+    while (!transform.isStopped()) {
+      if (!processBatch(batchTransform)) {
+        return;
       }
-      transform.getLogChannel().snap(Metrics.METRIC_TRANSFORM_EXECUTION_STOP);
-      try {
-        long li = transform.getLinesInput();
-        long lo = transform.getLinesOutput();
-        long lr = transform.getLinesRead();
-        long lw = transform.getLinesWritten();
-        long lu = transform.getLinesUpdated();
-        long lj = transform.getLinesRejected();
-        long e = transform.getErrors();
-        if (li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || e > 0) {
-          log.logBasic(
-              BaseMessages.getString(
-                  PKG,
-                  "BaseTransform.Log.SummaryInfo",
-                  String.valueOf(li),
-                  String.valueOf(lo),
-                  String.valueOf(lr),
-                  String.valueOf(lw),
-                  String.valueOf(lu),
-                  String.valueOf(e + lj)));
-        } else {
-          log.logDetailed(
-              BaseMessages.getString(
-                  PKG,
-                  "BaseTransform.Log.SummaryInfo",
-                  String.valueOf(li),
-                  String.valueOf(lo),
-                  String.valueOf(lr),
-                  String.valueOf(lw),
-                  String.valueOf(lu),
-                  String.valueOf(e + lj)));
-        }
-      } catch (Throwable t) {
-        //
-        // it's likely an OOME, so we don't want to introduce overhead by using
-        // BaseMessages.getString(), see above
-        //
-        log.logError("UnexpectedError: " + Const.getStackTracker(t));
-      } finally {
-        transform.markStop();
+    }
+  }
+
+  /**
+   * Hand over the next batch of rows to the transform.
+   *
+   * @return false if there are no more rows
+   */
+  private boolean processBatch(IBatchTransform batchTransform) throws HopException {
+    boolean timed = timings != null && timings.startSample();
+    try {
+      RowBatch batch = batchTransform.getBatch();
+      if (batch == null) {
+        transform.setOutputDone();
+        return false;
+      }
+      batchTransform.processBatch(batch);
+      return true;
+    } finally {
+      if (timed) {
+        timings.endSample();
       }
     }
   }
@@ -76,12 +76,15 @@ public class TransformStatus {
 
     this.transformName = component.getName();
     this.copy = component.getCopyNr();
-    this.linesRead = linesRead + component.getLinesRead();
-    this.linesWritten = linesWritten + component.getLinesWritten();
-    this.linesInput = linesInput + component.getLinesInput();
+    // The counters are read while the transform keeps on counting: read the ones downstream first
+    // so that they never run ahead of the ones upstream.
+    //
     this.linesOutput = linesOutput + component.getLinesOutput();
     this.linesUpdated = linesUpdated + component.getLinesUpdated();
     this.linesRejected = linesRejected + component.getLinesRejected();
+    this.linesWritten = linesWritten + component.getLinesWritten();
+    this.linesRead = linesRead + component.getLinesRead();
+    this.linesInput = linesInput + component.getLinesInput();
     this.errors = errors + component.getErrors();
     this.accumulatedRuntime = accumulatedRuntime + component.getExecutionDuration();
     this.statusDescription = component.getStatusDescription();
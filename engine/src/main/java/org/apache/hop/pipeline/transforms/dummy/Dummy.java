@@ -18,14 +18,16 @@
 package org.apache.hop.pipeline.transforms.dummy;
 
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.IBatchTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
 /** Do nothing. Pass all input data to the next transforms. */
-public class Dummy extends BaseTransform<DummyMeta, DummyData> {
+public class Dummy extends BaseTransform<DummyMeta, DummyData> implements IBatchTransform {
   private static final Class<?> PKG = DummyMeta.class; // For Translator
 
   public Dummy(
@@ -57,4 +59,16 @@ public class Dummy extends BaseTransform<DummyMeta, DummyData> {
 
     return true;
   }
+
+  @Override
+  public void processBatch(RowBatch batch) throws HopException {
+    int nrRows = batch.size();
+    putBatch(getInputRowMeta(), batch); // pass the whole batch on
+
+    if (checkFeedback(getLinesRead(), nrRows)) {
+      if (log.isBasic()) {
+        logBasic(BaseMessages.getString(PKG, "Dummy.Log.LineNumber") + getLinesRead());
+      }
+    }
+  }
 }
@@ -48,6 +48,11 @@ public class DummyMeta extends BaseTransformMeta<Dummy, DummyData> {
     super(); // allocate BaseTransformMeta
   }
 
+  @Override
+  public boolean isFusable() {
+    return true;
+  }
+
   @Override
   public void loadXml(Node transformNode, IHopMetadataProvider metadataProvider)
       throws HopXmlException {
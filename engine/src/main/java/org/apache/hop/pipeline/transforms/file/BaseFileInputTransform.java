@@ -373,10 +373,9 @@ public abstract class BaseFileInputTransform<
   private void rejectCurrentFile(String errorMsg) {
     if (StringUtils.isNotBlank(meta.errorHandling.fileErrorField)
         || StringUtils.isNotBlank(meta.errorHandling.fileErrorMessageField)) {
-      IRowMeta rowMeta = getInputRowMeta();
-      if (rowMeta == null) {
-        rowMeta = new RowMeta();
-      }
+      // The input row layout is shared with the previous transform and can't be changed.
+      //
+      IRowMeta rowMeta = getInputRowMeta() == null ? new RowMeta() : getInputRowMeta().clone();
 
       int errorFileIndex =
           (StringUtils.isBlank(meta.errorHandling.fileErrorField))
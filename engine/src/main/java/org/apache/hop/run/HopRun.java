@@ -54,11 +54,13 @@ import org.apache.hop.metadata.api.IHasHopMetadataProvider;
 import org.apache.hop.metadata.api.IHopMetadataSerializer;
 import org.apache.hop.metadata.serializer.multi.MultiMetadataProvider;
 import org.apache.hop.metadata.util.HopMetadataUtil;
+import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineExecutionConfiguration;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.config.PipelineRunConfiguration;
 import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.apache.hop.pipeline.engine.PipelineEngineFactory;
+import org.apache.hop.pipeline.performance.BottleneckAnalysis;
 import org.apache.hop.server.HopServer;
 import org.apache.hop.workflow.WorkflowExecutionConfiguration;
 import org.apache.hop.workflow.WorkflowMeta;
@@ -335,12 +337,22 @@ public class HopRun implements Runnable, IHasHopMetadataProvider {
       pipeline.prepareExecution();
       pipeline.startThreads();
       pipeline.waitUntilFinished();
+      logBottleneckAnalysis(log, pipeline);
       setFinishedWithoutError(pipeline.getResult().getNrErrors() == 0L);
     } catch (Exception e) {
       throw new ExecutionException(cmd, "Error running pipeline locally", e);
     }
   }
 
+  private void logBottleneckAnalysis(ILogChannel log, IPipelineEngine<PipelineMeta> pipeline) {
+    if (pipeline instanceof Pipeline localPipeline) {
+      BottleneckAnalysis bottleneckAnalysis = localPipeline.getBottleneckAnalysis();
+      if (bottleneckAnalysis != null) {
+        log.logBasic(bottleneckAnalysis.getReport());
+      }
+    }
+  }
+
   private void runWorkflow(CommandLine cmd, ILogChannel log) {
     try {
       calculateRealFilename();
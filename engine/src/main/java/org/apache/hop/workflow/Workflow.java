@@ -52,6 +52,7 @@ import org.apache.hop.core.logging.LogChannel;
 import org.apache.hop.core.logging.LogLevel;
 import org.apache.hop.core.logging.LoggingBuffer;
 import org.apache.hop.core.logging.LoggingObjectType;
+import org.apache.hop.core.logging.LoggingRegistry;
 import org.apache.hop.core.logging.Metrics;
 import org.apache.hop.core.parameters.DuplicateParamException;
 import org.apache.hop.core.parameters.INamedParameterDefinitions;
@@ -1088,6 +1089,11 @@ public abstract class Workflow extends Variables
             finished
                 ? v | BitMaskStatus.FINISHED.mask
                 : (BitMaskStatus.BIT_STATUS_SUM ^ BitMaskStatus.FINISHED.mask) & v);
+    if (finished) {
+      // The logging registry can purge this workflow and its actions later on
+      //
+      LoggingRegistry.getInstance().markFinished(getLogChannelId());
+    }
   }
 
   @Override
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import org.apache.hop.core.compress.gzip.GzipCompressionProvider;
 import org.apache.hop.core.compress.hadoopsnappy.HadoopSnappyCompressionProvider;
+import org.apache.hop.core.compress.lz4.Lz4CompressionProvider;
 import org.apache.hop.core.compress.snappy.SnappyCompressionProvider;
 import org.apache.hop.core.compress.zip.ZipCompressionProvider;
 import org.apache.hop.core.plugins.PluginRegistry;
@@ -87,6 +88,12 @@ public class CompressionProviderFactoryTest {
     assertTrue(provider.getClass().isAssignableFrom(HadoopSnappyCompressionProvider.class));
     assertEquals("Hadoop-snappy", provider.getName());
     assertEquals("Hadoop Snappy compression", provider.getDescription());
+
+    provider = factory.createCompressionProviderInstance("LZ4");
+    assertNotNull(provider);
+    assertTrue(provider.getClass().isAssignableFrom(Lz4CompressionProvider.class));
+    assertEquals("LZ4", provider.getName());
+    assertEquals("LZ4 compression", provider.getDescription());
   }
 
   /**
@@ -103,6 +110,7 @@ public class CompressionProviderFactoryTest {
             put("GZip", false);
             put("Snappy", false);
             put("Hadoop-snappy", false);
+            put("LZ4", false);
           }
         };
 
@@ -132,6 +140,7 @@ public class CompressionProviderFactoryTest {
             put("GZip", false);
             put("Snappy", false);
             put("Hadoop-snappy", false);
+            put("LZ4", false);
           }
         };
 
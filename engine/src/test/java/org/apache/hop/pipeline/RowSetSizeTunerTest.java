@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.RingBufferRowSet;
+import org.apache.hop.core.logging.LogChannel;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.engine.EngineMetrics;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RowSetSizeTunerTest {
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  private static IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    return rowMeta;
+  }
+
+  /** Let both sides of the row set wait on each other, like with a bursty consumer. */
+  private static void waitOnBothSides(RingBufferRowSet rowSet, IRowMeta rowMeta) {
+    while (rowSet.putRow(rowMeta, new Object[] {1L})) {
+      // Fill it up
+    }
+    assertFalse(rowSet.putRowWait(rowMeta, new Object[] {1L}, 20, TimeUnit.MILLISECONDS));
+    while (rowSet.getRow() != null) {
+      // Drain it
+    }
+    assertNull(rowSet.getRowWait(20, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testGrowAndShrink() {
+    IRowMeta rowMeta = createRowMeta();
+    RingBufferRowSet rowSet = new RingBufferRowSet(200, 800, false);
+    RowSetSizeTuner tuner =
+        new RowSetSizeTuner(List.of(rowSet), 200, 0L, null, new LogChannel("RowSetSizeTunerTest"));
+    assertTrue(tuner.hasBuffers());
+
+    waitOnBothSides(rowSet, rowMeta);
+    tuner.tune();
+    assertTrue(rowSet.getCapacity() >= 400);
+    assertTrue(tuner.getEstimatedBytes() > 0);
+
+    // Only the consumer waits on an empty buffer: it shrinks
+    //
+    int grown = rowSet.getCapacity();
+    assertNull(rowSet.getRowWait(20, TimeUnit.MILLISECONDS));
+    tuner.tune();
+    assertEquals(grown / 2, rowSet.getCapacity());
+
+    // No more rows are coming: release the memory
+    //
+    rowSet.setDone();
+    tuner.tune();
+    assertEquals(RowSetSizeTuner.MIN_SIZE, rowSet.getCapacity());
+  }
+
+  @Test
+  public void testMemoryBudget() {
+    IRowMeta rowMeta = createRowMeta();
+    RingBufferRowSet rowSet = new RingBufferRowSet(200, 800, false);
+    RowSetSizeTuner tuner =
+        new RowSetSizeTuner(
+            List.of(rowSet), 200, 1024L, null, new LogChannel("RowSetSizeTunerTest"));
+
+    waitOnBothSides(rowSet, rowMeta);
+    tuner.tune();
+    assertEquals(RowSetSizeTuner.MIN_SIZE, rowSet.getCapacity());
+  }
+
+  @Test
+  public void testFixedSizeRowSetsAreIgnored() {
+    List<IRowSet> rowSets = List.of(new RingBufferRowSet(200));
+    RowSetSizeTuner tuner =
+        new RowSetSizeTuner(rowSets, 200, 0L, null, new LogChannel("RowSetSizeTunerTest"));
+    assertFalse(tuner.hasBuffers());
+  }
+
+  @Test
+  public void testAdaptivePipeline() throws Exception {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("adaptive");
+    TransformMeta injector = new TransformMeta("Injector", new InjectorMeta());
+    TransformMeta dummy = new TransformMeta("Dummy", new DummyMeta());
+    pipelineMeta.addTransform(injector);
+    pipelineMeta.addTransform(dummy);
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(injector, dummy));
+
+    LocalPipelineEngine pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    LocalPipelineRunConfiguration config =
+        (LocalPipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
+    config.setAdaptiveRowSets(true);
+    config.setRowSetMemoryBudget("16");
+    config.setRowSetSize("1000");
+    pipeline.prepareExecution();
+
+    assertEquals(16L * 1024L * 1024L, pipeline.getRowSetMemoryBudget());
+    RingBufferRowSet rowSet =
+        (RingBufferRowSet) pipeline.findRunThread("Dummy").getInputRowSets().get(0);
+    assertEquals(1000, rowSet.getCapacity());
+    assertEquals(1000 * RowSetSizeTuner.MAX_GROWTH, rowSet.getMaxCapacity());
+
+    RowProducer producer = pipeline.addRowProducer("Injector", 0);
+    IRowMeta rowMeta = createRowMeta();
+    pipeline.startThreads();
+    assertNotNull(pipeline.getRowSetSizeTuner());
+    for (long i = 0; i < 10_000; i++) {
+      producer.putRow(rowMeta, new Object[] {i});
+    }
+    producer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    EngineMetrics metrics = pipeline.getEngineMetrics();
+    assertNotNull(
+        metrics.getComponentMetric(
+            pipeline.findComponent("Injector", 0), Pipeline.METRIC_BUFFER_SIZE_OUT));
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.pipeline.engine.EngineMetrics;
+import org.apache.hop.pipeline.engine.IEngineComponent;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.transform.ITransform;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TransformFusionTest {
+  private static final int NR_OF_ROWS = 10_000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  /** Injector - Dummy 1 - ... - Dummy n */
+  private PipelineMeta createChain(int nrDummies) {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("fusion");
+
+    TransformMeta previous = new TransformMeta("Injector", new InjectorMeta());
+    pipelineMeta.addTransform(previous);
+    for (int i = 1; i <= nrDummies; i++) {
+      TransformMeta dummy = new TransformMeta("Dummy " + i, new DummyMeta());
+      pipelineMeta.addTransform(dummy);
+      pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, dummy));
+      previous = dummy;
+    }
+    return pipelineMeta;
+  }
+
+  @Test
+  public void testFindChains() {
+    PipelineMeta pipelineMeta = createChain(6);
+
+    // Two copies break the chain in two
+    //
+    pipelineMeta.findTransform("Dummy 3").setCopiesString("2");
+
+    // Dummy 5 also sends rows to another dummy
+    //
+    TransformMeta extra = new TransformMeta("Extra", new DummyMeta());
+    pipelineMeta.addTransform(extra);
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(pipelineMeta.findTransform("Dummy 5"), extra));
+
+    TransformFusionPlanner planner = new TransformFusionPlanner(pipelineMeta, new Variables());
+    List<List<TransformMeta>> chains =
+        planner.findChains(pipelineMeta.getPipelineHopTransforms(false));
+
+    assertEquals(2, chains.size());
+    assertEquals(
+        List.of(pipelineMeta.findTransform("Dummy 1"), pipelineMeta.findTransform("Dummy 2")),
+        chains.get(0));
+    assertEquals(
+        List.of(pipelineMeta.findTransform("Dummy 4"), pipelineMeta.findTransform("Dummy 5")),
+        chains.get(1));
+
+    // The injector isn't fusable
+    //
+    assertFalse(
+        planner.canFuse(
+            pipelineMeta.findTransform("Injector"), pipelineMeta.findTransform("Dummy 1")));
+  }
+
+  @Test
+  public void testRunFusedChain() throws Exception {
+    PipelineMeta pipelineMeta = createChain(5);
+
+    LocalPipelineEngine pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    LocalPipelineRunConfiguration config =
+        (LocalPipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
+    config.setFusingTransforms(true);
+    config.setRowSetSize("100");
+    pipeline.prepareExecution();
+
+    assertEquals(1, pipeline.getFusedTransformChains().size());
+    assertEquals(5, pipeline.getFusedTransformChains().get(0).size());
+    for (int i = 2; i <= 5; i++) {
+      List<IRowSet> inputRowSets = pipeline.findRunThread("Dummy " + i).getInputRowSets();
+      assertEquals(1, inputRowSets.size());
+      assertTrue(inputRowSets.get(0) instanceof QueueRowSet);
+    }
+    assertFalse(pipeline.findRunThread("Dummy 1").getInputRowSets().get(0) instanceof QueueRowSet);
+
+    AtomicLong sum = new AtomicLong();
+    pipeline
+        .findRunThread("Dummy 5")
+        .addRowListener(
+            new RowAdapter() {
+              @Override
+              public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+                sum.addAndGet((Long) row[0]);
+              }
+            });
+    RowProducer producer = pipeline.addRowProducer("Injector", 0);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    pipeline.startThreads();
+    for (long i = 0; i < NR_OF_ROWS; i++) {
+      producer.putRow(rowMeta, new Object[] {i});
+    }
+    producer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    assertTrue(pipeline.isFinished());
+    assertEquals((long) NR_OF_ROWS * (NR_OF_ROWS - 1) / 2, sum.get());
+
+    // Every fused transform keeps its own metrics
+    //
+    EngineMetrics metrics = pipeline.getEngineMetrics();
+    for (int i = 1; i <= 5; i++) {
+      ITransform dummy = pipeline.findRunThread("Dummy " + i);
+      // The pipeline finishes while the last transform is still wrapping up
+      //
+      for (int wait = 0; wait < 500 && dummy.isRunning(); wait++) {
+        Thread.sleep(10);
+      }
+      assertFalse(dummy.isRunning());
+      IEngineComponent component = pipeline.findComponent("Dummy " + i, 0);
+      assertEquals(
+          Long.valueOf(NR_OF_ROWS), metrics.getComponentMetric(component, Pipeline.METRIC_READ));
+      assertEquals(
+          Long.valueOf(NR_OF_ROWS), metrics.getComponentMetric(component, Pipeline.METRIC_WRITTEN));
+    }
+  }
+}
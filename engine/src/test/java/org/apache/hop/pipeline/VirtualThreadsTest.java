@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.transform.ITransform;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class VirtualThreadsTest {
+  private static final int NR_OF_ROWS = 10_000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Test
+  public void testNewThread() throws Exception {
+    AtomicBoolean ran = new AtomicBoolean(false);
+    Thread thread = VirtualThreads.newThread("virtual-test", () -> ran.set(true), true);
+
+    assertEquals("virtual-test", thread.getName());
+    assertEquals(VirtualThreads.isAvailable(), VirtualThreads.isVirtual(thread));
+    thread.start();
+    thread.join();
+    assertTrue(ran.get());
+
+    Thread platform = VirtualThreads.newThread("platform-test", () -> {}, false);
+    assertFalse(VirtualThreads.isVirtual(platform));
+  }
+
+  @Test
+  public void testCarrierThreadUsage() {
+    VirtualThreads.CarrierThreadUsage start = new VirtualThreads.CarrierThreadUsage(2, 0L, 0L);
+    VirtualThreads.CarrierThreadUsage end =
+        new VirtualThreads.CarrierThreadUsage(2, 1_000_000L, 1_000_000L);
+
+    int parallelism = Math.max(2, VirtualThreads.getCarrierThreadParallelism());
+    assertEquals(100 / parallelism, end.getUsagePercentage(start));
+    assertEquals(0, start.getUsagePercentage(end));
+  }
+
+  @Test
+  public void testPipelineOnVirtualThreads() throws Exception {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("virtual-threads");
+
+    TransformMeta previous = new TransformMeta("Injector", new InjectorMeta());
+    pipelineMeta.addTransform(previous);
+    for (int i = 1; i <= 3; i++) {
+      TransformMeta dummy = new TransformMeta("Dummy " + i, new DummyMeta());
+      pipelineMeta.addTransform(dummy);
+      pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, dummy));
+      previous = dummy;
+    }
+
+    LocalPipelineEngine pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    ((LocalPipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration())
+        .setVirtualThreads(true);
+    pipeline.prepareExecution();
+    assertTrue(pipeline.isVirtualThreads());
+
+    AtomicLong sum = new AtomicLong();
+    pipeline
+        .findRunThread("Dummy 3")
+        .addRowListener(
+            new RowAdapter() {
+              @Override
+              public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+                sum.addAndGet((Long) row[0]);
+              }
+            });
+    RowProducer producer = pipeline.addRowProducer("Injector", 0);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    pipeline.startThreads();
+    for (long i = 0; i < NR_OF_ROWS; i++) {
+      producer.putRow(rowMeta, new Object[] {i});
+    }
+    producer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    assertEquals((long) NR_OF_ROWS * (NR_OF_ROWS - 1) / 2, sum.get());
+    for (int i = 1; i <= 3; i++) {
+      ITransform dummy = pipeline.findRunThread("Dummy " + i);
+      assertEquals(NR_OF_ROWS, dummy.getLinesWritten());
+    }
+    assertEquals(
+        VirtualThreads.isAvailable() ? 0 : -1,
+        Math.min(0, pipeline.getCarrierThreadUsagePercentage()));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.engines.cooperative;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.RowProducer;
+import org.apache.hop.pipeline.transform.ITransform;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CooperativePipelineEngineTest {
+  private static final int NR_OF_ROWS = 20_000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  private CooperativePipelineEngine createPipeline(PipelineMeta pipelineMeta, int nrWorkers)
+      throws Exception {
+    CooperativePipelineEngine pipeline = new CooperativePipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    CooperativePipelineRunConfiguration config =
+        (CooperativePipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration();
+    config.setWorkerThreads(Integer.toString(nrWorkers));
+    config.setRowSetSize("100");
+    pipeline.prepareExecution();
+    return pipeline;
+  }
+
+  private long runPipeline(CooperativePipelineEngine pipeline, String lastTransform)
+      throws Exception {
+    AtomicLong sum = new AtomicLong();
+    pipeline
+        .findRunThread(lastTransform)
+        .addRowListener(
+            new RowAdapter() {
+              @Override
+              public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+                sum.addAndGet((Long) row[0]);
+              }
+            });
+    RowProducer producer = pipeline.addRowProducer("Injector", 0);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    pipeline.startThreads();
+    for (long i = 0; i < NR_OF_ROWS; i++) {
+      producer.putRow(rowMeta, new Object[] {i});
+    }
+    producer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    return sum.get();
+  }
+
+  @Test
+  public void testManyTransformsOnFewThreads() throws Exception {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("cooperative-chain");
+
+    TransformMeta previous = new TransformMeta("Injector", new InjectorMeta());
+    pipelineMeta.addTransform(previous);
+    for (int i = 1; i <= 200; i++) {
+      TransformMeta dummy = new TransformMeta("Dummy " + i, new DummyMeta());
+      pipelineMeta.addTransform(dummy);
+      pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, dummy));
+      previous = dummy;
+    }
+
+    CooperativePipelineEngine pipeline = createPipeline(pipelineMeta, 2);
+    long sum = runPipeline(pipeline, "Dummy 200");
+
+    assertEquals((long) NR_OF_ROWS * (NR_OF_ROWS - 1) / 2, sum);
+    assertEquals(2, pipeline.getScheduler().getNrWorkers());
+    assertEquals(0, pipeline.getScheduler().getNrUnfinished());
+    assertTrue(pipeline.isFinished());
+    for (int i = 1; i <= 200; i++) {
+      ITransform dummy = pipeline.findRunThread("Dummy " + i);
+      assertEquals(NR_OF_ROWS, dummy.getLinesWritten());
+    }
+  }
+
+  @Test
+  public void testMultipleInputs() throws Exception {
+    // Injector distributes rows over two copies of a dummy which both feed the last dummy
+    //
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("cooperative-multiple-inputs");
+
+    TransformMeta injector = new TransformMeta("Injector", new InjectorMeta());
+    pipelineMeta.addTransform(injector);
+    TransformMeta left = new TransformMeta("Left", new DummyMeta());
+    pipelineMeta.addTransform(left);
+    TransformMeta right = new TransformMeta("Right", new DummyMeta());
+    right.setCopiesString("2");
+    pipelineMeta.addTransform(right);
+    TransformMeta merge = new TransformMeta("Merge", new DummyMeta());
+    pipelineMeta.addTransform(merge);
+
+    injector.setDistributes(true);
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(injector, left));
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(injector, right));
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(left, merge));
+    pipelineMeta.addPipelineHop(new PipelineHopMeta(right, merge));
+
+    CooperativePipelineEngine pipeline = createPipeline(pipelineMeta, 1);
+    long sum = runPipeline(pipeline, "Merge");
+
+    assertEquals((long) NR_OF_ROWS * (NR_OF_ROWS - 1) / 2, sum);
+    assertEquals(NR_OF_ROWS, pipeline.findRunThread("Merge").getLinesWritten());
+  }
+}
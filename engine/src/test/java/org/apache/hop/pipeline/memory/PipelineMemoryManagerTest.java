@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class PipelineMemoryManagerTest {
+
+  @Test
+  public void testReserveAndRelease() {
+    PipelineMemoryManager manager = new PipelineMemoryManager("test", 1000L, null);
+    MemoryReservation sort = manager.createReservation("Sort", null);
+    MemoryReservation group = manager.createReservation("Group", null);
+
+    assertTrue(sort.reserve(600L));
+    assertTrue(group.reserve(300L));
+    assertEquals(900L, manager.getUsedBytes());
+
+    // Over budget: the largest other holder is asked to spill
+    //
+    assertFalse(group.reserve(200L));
+    assertEquals(300L, group.getReservedBytes());
+    assertTrue(sort.isSpillRequested());
+    assertFalse(group.isSpillRequested());
+
+    // Spilling gives the memory back
+    //
+    sort.releaseAll();
+    assertFalse(sort.isSpillRequested());
+    assertTrue(group.reserve(200L));
+    assertEquals(500L, manager.getUsedBytes());
+
+    assertTrue(group.resize(100L));
+    assertEquals(100L, manager.getUsedBytes());
+
+    manager.close();
+    assertEquals(0L, manager.getUsedBytes());
+    assertTrue(manager.getReservations().isEmpty());
+  }
+
+  @Test
+  public void testSharedBudget() {
+    PipelineMemoryManager server = new PipelineMemoryManager("server", 1000L, null);
+    PipelineMemoryManager first = new PipelineMemoryManager("first", 0L, server);
+    PipelineMemoryManager second = new PipelineMemoryManager("second", 0L, server);
+
+    MemoryReservation firstSort = first.createReservation("Sort", null);
+    MemoryReservation secondSort = second.createReservation("Sort", null);
+
+    assertTrue(firstSort.reserve(800L));
+    assertEquals(800L, server.getUsedBytes());
+
+    // The other pipeline holds the memory: it's asked to spill
+    //
+    assertFalse(secondSort.reserve(400L));
+    assertTrue(firstSort.isSpillRequested());
+    assertEquals(0L, second.getUsedBytes());
+    assertEquals(800L, server.getUsedBytes());
+
+    // A finished pipeline gives back all its memory
+    //
+    first.close();
+    assertEquals(0L, server.getUsedBytes());
+    assertTrue(secondSort.reserve(400L));
+    assertEquals(400L, server.getUsedBytes());
+  }
+
+  @Test
+  public void testSpillable() {
+    AtomicInteger spillRequests = new AtomicInteger();
+    PipelineMemoryManager manager = new PipelineMemoryManager("test", 100L, null);
+    MemoryReservation buffers =
+        manager.createReservation("Buffers", spillRequests::incrementAndGet);
+    MemoryReservation sort = manager.createReservation("Sort", null);
+
+    assertTrue(buffers.reserve(100L));
+    assertFalse(sort.reserve(1L));
+    assertEquals(1, spillRequests.get());
+
+    // The spill request is outstanding, don't repeat it
+    //
+    assertFalse(sort.reserve(1L));
+    assertEquals(1, spillRequests.get());
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class BottleneckAnalyzerTest {
+
+  private static Map<String, List<String>> chain(String... names) {
+    Map<String, List<String>> graph = new LinkedHashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      graph.put(
+          names[i],
+          i + 1 < names.length ? Collections.singletonList(names[i + 1]) : Collections.emptyList());
+    }
+    return graph;
+  }
+
+  @Test
+  public void testNothingSampled() {
+    BottleneckAnalyzer analyzer = new BottleneckAnalyzer(chain("A", "B"), 10000, 8);
+    assertNull(analyzer.analyze(1000L));
+  }
+
+  @Test
+  public void testSaturatedTransformIsBottleneck() {
+    BottleneckAnalyzer analyzer = new BottleneckAnalyzer(chain("A", "B", "C"), 10000, 8);
+    analyzer.addSample("A", 0, Double.NaN, 0.9, 200L);
+    analyzer.addSample("B", 0, 0.95, 0.05, 900L);
+    analyzer.addSample("C", 0, 0.05, Double.NaN, 300L);
+
+    BottleneckAnalysis analysis = analyzer.analyze(1000L);
+    assertEquals("B", analysis.getBottleneck());
+    assertEquals(Arrays.asList("A", "B", "C"), analysis.getCriticalPath());
+
+    BottleneckAnalysis.TransformLoad load = analysis.getTransformLoads().get(1);
+    assertTrue(load.isSaturated());
+    assertEquals(0.9, load.getUtilization(), 0.0001);
+    assertFalse(analysis.getTransformLoads().get(0).isSaturated());
+    assertFalse(analysis.getTransformLoads().get(2).isSaturated());
+
+    // 2 copies halve the 900ms of B, C then needs 300ms: 900/450
+    assertEquals(2.0, analysis.getSpeedupWithExtraCopy(), 0.0001);
+    // 3 copies bring B down to the 300ms of C
+    assertEquals(3, analysis.getSuggestedCopies());
+    assertEquals(3.0, analysis.getSpeedupWithSuggestedCopies(), 0.0001);
+
+    Map<String, String> details = new HashMap<>();
+    analysis.addDetails(details);
+    assertEquals("B", details.get(BottleneckAnalysis.DETAIL_BOTTLENECK));
+    assertEquals("A -> B -> C", details.get(BottleneckAnalysis.DETAIL_CRITICAL_PATH));
+    assertEquals("3", details.get(BottleneckAnalysis.DETAIL_BOTTLENECK_SUGGESTED_COPIES));
+    assertTrue(details.get(BottleneckAnalysis.DETAIL_BOTTLENECK_REPORT).contains("Bottleneck: B"));
+  }
+
+  @Test
+  public void testCopiesShareTheLoad() {
+    BottleneckAnalyzer analyzer = new BottleneckAnalyzer(chain("A", "B"), 10000, 8);
+    analyzer.addSample("A", 0, Double.NaN, 0.5, 600L);
+    analyzer.addSample("B", 0, 0.5, Double.NaN, 500L);
+    analyzer.addSample("B", 1, 0.5, Double.NaN, 500L);
+
+    BottleneckAnalysis analysis = analyzer.analyze(1000L);
+    assertEquals("A", analysis.getBottleneck());
+    assertEquals(2, analysis.getTransformLoads().get(1).getCopies());
+    assertEquals(0.5, analysis.getTransformLoads().get(1).getUtilization(), 0.0001);
+    assertEquals(600.0 / 500.0, analysis.getSpeedupWithExtraCopy(), 0.0001);
+  }
+
+  @Test
+  public void testCriticalPathFollowsHeaviestBranch() {
+    Map<String, List<String>> graph = new LinkedHashMap<>();
+    graph.put("Input", Arrays.asList("Fast", "Slow"));
+    graph.put("Fast", Collections.singletonList("Output"));
+    graph.put("Slow", Collections.singletonList("Lookup"));
+    graph.put("Lookup", Collections.singletonList("Output"));
+    graph.put("Output", Collections.emptyList());
+
+    BottleneckAnalyzer analyzer = new BottleneckAnalyzer(graph, 10000, 8);
+    analyzer.addSample("Input", 0, Double.NaN, 0.9, 100L);
+    analyzer.addSample("Fast", 0, 0.1, 0.1, 50L);
+    analyzer.addSample("Slow", 0, 0.9, 0.9, 300L);
+    analyzer.addSample("Lookup", 0, 0.9, 0.1, 800L);
+    analyzer.addSample("Output", 0, 0.1, Double.NaN, 200L);
+
+    BottleneckAnalysis analysis = analyzer.analyze(1000L);
+    assertEquals("Lookup", analysis.getBottleneck());
+    assertEquals(
+        Arrays.asList("Input", "Slow", "Lookup", "Output"), analysis.getCriticalPath());
+  }
+
+  @Test
+  public void testBufferPressureWithoutTimings() {
+    BottleneckAnalyzer analyzer = new BottleneckAnalyzer(chain("A", "B", "C"), 10000, 8);
+    analyzer.addSample("A", 0, Double.NaN, 0.9, -1L);
+    analyzer.addSample("B", 0, 0.9, 0.1, -1L);
+    analyzer.addSample("C", 0, 0.1, Double.NaN, -1L);
+
+    BottleneckAnalysis analysis = analyzer.analyze(1000L);
+    assertEquals("B", analysis.getBottleneck());
+    assertTrue(Double.isNaN(analysis.getSpeedupWithExtraCopy()));
+    assertTrue(Double.isNaN(analysis.getTransformLoads().get(1).getUtilization()));
+
+    Map<String, String> details = new HashMap<>();
+    analysis.addDetails(details);
+    assertNull(details.get(BottleneckAnalysis.DETAIL_BOTTLENECK_SPEEDUP));
+  }
+}
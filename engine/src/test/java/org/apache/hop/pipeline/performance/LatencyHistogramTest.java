@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverAllValues() {
+    int previous = -1;
+    for (long value = 0; value < 100000; value++) {
+      int index = LatencyHistogram.bucketIndex(value);
+      assertTrue(index == previous || index == previous + 1);
+      assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+      previous = index;
+    }
+    assertEquals(
+        LatencyHistogram.bucketIndex(Long.MAX_VALUE), LatencyHistogram.bucketIndex(1L << 50));
+  }
+
+  @Test
+  public void testPercentilesWithinRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 10000; value++) {
+      histogram.record(value * 1000);
+    }
+    assertEquals(10000, histogram.getCount());
+    assertEquals(10000000L, histogram.getMax());
+
+    long p50 = histogram.getPercentile(50);
+    long p99 = histogram.getPercentile(99);
+    assertTrue(p50 >= 5000000L && p50 <= 5000000L * 17 / 16);
+    assertTrue(p99 >= 9900000L && p99 <= 9900000L * 17 / 16);
+    assertEquals(10000000L, histogram.getPercentile(100));
+  }
+
+  @Test
+  public void testEmptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0L, histogram.getPercentile(99));
+    histogram.record(-5);
+    assertEquals(0L, histogram.getPercentile(99));
+    assertEquals(1L, histogram.getCount());
+  }
+
+  @Test
+  public void testTimingsSampleOneInEveryRate() {
+    TransformTimings timings = new TransformTimings(10);
+    assertEquals(16, timings.getSampleRate());
+
+    int sampled = 0;
+    for (int i = 0; i < 64; i++) {
+      if (timings.startSample()) {
+        sampled++;
+        timings.recordInputWait(1000L);
+        timings.endSample();
+      }
+      assertTrue(!timings.isSampling());
+    }
+    assertEquals(4, sampled);
+    assertEquals(4, timings.getProcessingTimes().getCount());
+    assertEquals(4, timings.getInputWaitTimes().getCount());
+    assertEquals(0, timings.getOutputWaitTimes().getCount());
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transform;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -456,4 +457,44 @@ public class BaseTransformTest {
     verify(mockHelper.pipelineMeta, times(1))
         .checkRowMixingStatically(any(IVariables.class), any(TransformMeta.class), eq(null));
   }
+
+  @Test
+  public void testLineCounters() {
+    BaseTransform baseTransform =
+        new BaseTransform(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            mockHelper.iTransformData,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+
+    // The increments still give back the new total
+    //
+    assertEquals(1L, baseTransform.incrementLinesRead());
+    assertEquals(2L, baseTransform.incrementLinesRead());
+    assertEquals(1L, baseTransform.decrementLinesRead());
+    assertEquals(1L, baseTransform.incrementLinesWritten());
+    assertEquals(1L, baseTransform.incrementLinesInput());
+    assertEquals(1L, baseTransform.incrementLinesOutput());
+    assertEquals(1L, baseTransform.incrementLinesUpdated());
+    assertEquals(1L, baseTransform.incrementLinesRejected());
+    assertEquals(1L, baseTransform.incrementLinesSkipped());
+
+    baseTransform.addLinesRead(10);
+    baseTransform.addLinesWritten(-1);
+    baseTransform.addLinesInput(2);
+    baseTransform.addLinesOutput(3);
+    baseTransform.addLinesUpdated(4);
+    baseTransform.addLinesRejected(5);
+    baseTransform.addLinesSkipped(6);
+
+    assertEquals(11L, baseTransform.getLinesRead());
+    assertEquals(0L, baseTransform.getLinesWritten());
+    assertEquals(3L, baseTransform.getLinesInput());
+    assertEquals(4L, baseTransform.getLinesOutput());
+    assertEquals(5L, baseTransform.getLinesUpdated());
+    assertEquals(6L, baseTransform.getLinesRejected());
+    assertEquals(7L, baseTransform.getLinesSkipped());
+  }
 }
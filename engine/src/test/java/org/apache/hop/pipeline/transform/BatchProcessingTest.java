@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.RowProducer;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.engines.local.LocalPipelineRunConfiguration;
+import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Runs rows through a chain of batch capable transforms. */
+public class BatchProcessingTest {
+  private static final int NR_OF_ROWS = 25_000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    HopEnvironment.init();
+  }
+
+  private LocalPipelineEngine createPipeline(boolean batchProcessing) throws Exception {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("batch-processing");
+
+    TransformMeta previous = new TransformMeta("Injector", new InjectorMeta());
+    pipelineMeta.addTransform(previous);
+    for (int i = 1; i <= 3; i++) {
+      TransformMeta dummy = new TransformMeta("Dummy " + i, new DummyMeta());
+      pipelineMeta.addTransform(dummy);
+      pipelineMeta.addPipelineHop(new PipelineHopMeta(previous, dummy));
+      previous = dummy;
+    }
+
+    LocalPipelineEngine pipeline = new LocalPipelineEngine(pipelineMeta);
+    pipeline.setLogLevel(LogLevel.MINIMAL);
+    ((LocalPipelineRunConfiguration)
+            pipeline.getPipelineRunConfiguration().getEngineRunConfiguration())
+        .setBatchProcessing(batchProcessing);
+    pipeline.prepareExecution();
+    return pipeline;
+  }
+
+  private List<Object[]> runPipeline(LocalPipelineEngine pipeline) throws Exception {
+    List<Object[]> rows = Collections.synchronizedList(new ArrayList<>());
+    pipeline
+        .findRunThread("Dummy 3")
+        .addRowListener(
+            new RowAdapter() {
+              @Override
+              public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+                rows.add(row);
+              }
+            });
+    RowProducer producer = pipeline.addRowProducer("Injector", 0);
+
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+
+    pipeline.startThreads();
+    for (long i = 0; i < NR_OF_ROWS; i++) {
+      producer.putRow(rowMeta, new Object[] {i, i % 10 == 0 ? null : "row" + i});
+    }
+    producer.finished();
+    pipeline.waitUntilFinished();
+
+    assertEquals(0, pipeline.getErrors());
+    return rows;
+  }
+
+  @Test
+  public void testBatchProcessing() throws Exception {
+    LocalPipelineEngine pipeline = createPipeline(true);
+    List<Object[]> rows = runPipeline(pipeline);
+
+    // The first and second dummy hand over batches, the last one sends rows to the listener
+    //
+    assertTrue(((BaseTransform<?, ?>) pipeline.findRunThread("Dummy 2")).isBatchProcessing());
+
+    assertEquals(NR_OF_ROWS, rows.size());
+    for (int i = 0; i < NR_OF_ROWS; i++) {
+      Object[] row = rows.get(i);
+      assertEquals((long) i, row[0]);
+      assertEquals(i % 10 == 0 ? null : "row" + i, row[1]);
+    }
+    for (int i = 1; i <= 3; i++) {
+      ITransform dummy = pipeline.findRunThread("Dummy " + i);
+      assertEquals(NR_OF_ROWS, dummy.getLinesRead());
+      assertEquals(NR_OF_ROWS, dummy.getLinesWritten());
+    }
+  }
+
+  @Test
+  public void testRowProcessing() throws Exception {
+    LocalPipelineEngine pipeline = createPipeline(false);
+    List<Object[]> rows = runPipeline(pipeline);
+
+    assertFalse(((BaseTransform<?, ?>) pipeline.findRunThread("Dummy 2")).isBatchProcessing());
+    assertEquals(NR_OF_ROWS, rows.size());
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.hop.pipeline.transforms.calculator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import org.apache.hop.core.exception.HopException;
@@ -26,6 +27,7 @@ import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.ValueDataUtil;
 import org.apache.hop.core.util.Utils;
@@ -33,11 +35,13 @@ import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.IBatchTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transforms.calculator.CalculatorMetaFunction.CalculationType;
 
 /** Calculate new field values using pre-defined functions. */
-public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
+public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData>
+    implements IBatchTransform {
 
   private static final Class<?> PKG = CalculatorMeta.class; // For Translator
 
@@ -70,96 +74,7 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
 
     if (first) {
       first = false;
-      data.setOutputRowMeta(getInputRowMeta().clone());
-      meta.getFields(
-          data.getOutputRowMeta(), getTransformName(), null, null, this, metadataProvider);
-
-      // get all metadata, including source rows and temporary fields.
-      data.setCalcRowMeta(meta.getAllFields(getInputRowMeta()));
-
-      data.setFieldIndexes(new FieldIndexes[meta.getFunctions().size()]);
-      List<Integer> tempIndexes = new ArrayList<>();
-
-      // Calculate the indexes of the values and arguments in the target data or temporary data
-      // We do this in advance to save time later on.
-      //
-      for (int i = 0; i < meta.getFunctions().size(); i++) {
-        CalculatorMetaFunction function = meta.getFunctions().get(i);
-        data.getFieldIndexes()[i] = new FieldIndexes();
-
-        if (!Utils.isEmpty(function.getFieldName())) {
-          data.getFieldIndexes()[i].indexName =
-              data.getCalcRowMeta().indexOfValue(function.getFieldName());
-          if (data.getFieldIndexes()[i].indexName < 0) {
-            // Nope: throw an exception
-            throw new HopTransformException(
-                BaseMessages.getString(
-                    PKG,
-                    "Calculator.Error.UnableFindField",
-                    function.getFieldName(),
-                    "" + (i + 1)));
-          }
-        } else {
-          throw new HopTransformException(
-              BaseMessages.getString(PKG, "Calculator.Error.NoNameField", "" + (i + 1)));
-        }
-
-        if (!Utils.isEmpty(function.getFieldA())) {
-          if (function.getCalcType() != CalculationType.CONSTANT) {
-            data.getFieldIndexes()[i].indexA =
-                data.getCalcRowMeta().indexOfValue(function.getFieldA());
-            if (data.getFieldIndexes()[i].indexA < 0) {
-              // Nope: throw an exception
-              throw new HopTransformException(
-                  "Unable to find the first argument field '"
-                      + function.getFieldName()
-                      + " for calculation #"
-                      + (i + 1));
-            }
-          } else {
-            data.getFieldIndexes()[i].indexA = -1;
-          }
-        } else {
-          throw new HopTransformException(
-              "There is no first argument specified for calculated field #" + (i + 1));
-        }
-
-        if (!Utils.isEmpty(function.getFieldB())) {
-          data.getFieldIndexes()[i].indexB =
-              data.getCalcRowMeta().indexOfValue(function.getFieldB());
-          if (data.getFieldIndexes()[i].indexB < 0) {
-            // Nope: throw an exception
-            throw new HopTransformException(
-                "Unable to find the second argument field '"
-                    + function.getFieldName()
-                    + " for calculation #"
-                    + (i + 1));
-          }
-        }
-        data.getFieldIndexes()[i].indexC = -1;
-        if (!Utils.isEmpty(function.getFieldC())) {
-          data.getFieldIndexes()[i].indexC =
-              data.getCalcRowMeta().indexOfValue(function.getFieldC());
-          if (data.getFieldIndexes()[i].indexC < 0) {
-            // Nope: throw an exception
-            throw new HopTransformException(
-                "Unable to find the third argument field '"
-                    + function.getFieldName()
-                    + " for calculation #"
-                    + (i + 1));
-          }
-        }
-
-        if (function.isRemovedFromResult()) {
-          tempIndexes.add(getInputRowMeta().size() + i);
-        }
-      }
-
-      // Convert temp indexes to int[]
-      data.setTempIndexes(new int[tempIndexes.size()]);
-      for (int i = 0; i < data.getTempIndexes().length; i++) {
-        data.getTempIndexes()[i] = tempIndexes.get(i);
-      }
+      initialize();
     }
 
     if (log.isRowLevel()) {
@@ -198,6 +113,211 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
     return true;
   }
 
+  @Override
+  public void processBatch(RowBatch batch) throws HopException {
+    if (first) {
+      first = false;
+      initialize();
+    }
+
+    IRowMeta inputRowMeta = getInputRowMeta();
+    int nrInputColumns = inputRowMeta.size();
+    int nrFunctions = meta.getFunctions().size();
+    int nrRows = batch.size();
+
+    // The calculated fields which are not removed become new columns
+    //
+    int[] resultColumns = new int[nrFunctions];
+    for (int i = 0; i < nrFunctions; i++) {
+      if (meta.getFunctions().get(i).isRemovedFromResult()) {
+        resultColumns[i] = -1;
+      } else {
+        resultColumns[i] = batch.addColumn();
+      }
+    }
+
+    // Calculate row by row in a single re-usable row
+    //
+    Object[] calcData = new Object[data.getCalcRowMeta().size()];
+    boolean[] selection = null;
+    for (int r = 0; r < nrRows; r++) {
+      if (log.isRowLevel()) {
+        logRowlevel(
+            BaseMessages.getString(PKG, "Calculator.Log.ReadRow")
+                + (getLinesRead() - nrRows + r + 1)
+                + " : "
+                + inputRowMeta.getString(batch.getRow(r)));
+      }
+
+      Arrays.fill(calcData, null);
+      for (int c = 0; c < nrInputColumns; c++) {
+        calcData[c] = batch.getValue(c, r);
+      }
+      try {
+        calculate(inputRowMeta, calcData);
+      } catch (HopFileNotFoundException e) {
+        if (meta.isFailIfNoFile()) {
+          logError(BaseMessages.getString(PKG, "Calculator.Log.NoFile") + " : " + e.getFilepath());
+          setErrors(getErrors() + 1);
+
+          // Just like processRow(): the rows before this one are passed on and the transform ends
+          //
+          selection = removeRows(selection, nrRows, r, nrRows);
+          batch.filter(selection);
+          putBatch(data.getOutputRowMeta(), batch);
+          setStopped(true);
+          return;
+        }
+        // The row is dropped, just like in processRow()
+        //
+        selection = removeRows(selection, nrRows, r, r + 1);
+        continue;
+      } catch (HopException e) {
+        logError(
+            BaseMessages.getString(
+                PKG, "Calculator.ErrorInTransformRunning" + " : " + e.getMessage()));
+        throw new HopTransformException(
+            BaseMessages.getString(PKG, "Calculator.ErrorInTransformRunning"), e);
+      }
+      for (int i = 0; i < nrFunctions; i++) {
+        if (resultColumns[i] >= 0) {
+          batch.setValue(resultColumns[i], r, calcData[nrInputColumns + i]);
+        }
+      }
+    }
+
+    if (selection != null) {
+      batch.filter(selection);
+    }
+    if (log.isRowLevel()) {
+      // The batch is handed over as a whole: log the rows before they're gone
+      //
+      for (int r = 0; r < batch.size(); r++) {
+        logRowlevel(
+            "Wrote row #"
+                + (getLinesWritten() + r + 1)
+                + " : "
+                + inputRowMeta.getString(batch.getRow(r)));
+      }
+    }
+    putBatch(data.getOutputRowMeta(), batch);
+
+    if (checkFeedback(getLinesRead(), nrRows)) {
+      if (log.isBasic()) {
+        logBasic(BaseMessages.getString(PKG, "Calculator.Log.Linenr", "" + getLinesRead()));
+      }
+    }
+  }
+
+  /**
+   * Flags the rows from start (inclusive) to end (exclusive) as rows to remove from the batch.
+   *
+   * @param selection the current selection or null if all rows are kept so far
+   * @param nrRows the number of rows in the batch
+   * @param start the first row to remove
+   * @param end the row after the last row to remove
+   * @return the selection: true for the rows to keep
+   */
+  private static boolean[] removeRows(boolean[] selection, int nrRows, int start, int end) {
+    if (selection == null) {
+      selection = new boolean[nrRows];
+      Arrays.fill(selection, true);
+    }
+    Arrays.fill(selection, start, end, false);
+    return selection;
+  }
+
+  /**
+   * Calculate the indexes of the values and arguments in the target data or temporary data. We do
+   * this in advance to save time later on.
+   */
+  private void initialize() throws HopException {
+    data.setOutputRowMeta(getInputRowMeta().clone());
+    meta.getFields(data.getOutputRowMeta(), getTransformName(), null, null, this, metadataProvider);
+
+    // get all metadata, including source rows and temporary fields.
+    data.setCalcRowMeta(meta.getAllFields(getInputRowMeta()));
+
+    data.setFieldIndexes(new FieldIndexes[meta.getFunctions().size()]);
+    List<Integer> tempIndexes = new ArrayList<>();
+
+    // Calculate the indexes of the values and arguments in the target data or temporary data
+    // We do this in advance to save time later on.
+    //
+    for (int i = 0; i < meta.getFunctions().size(); i++) {
+      CalculatorMetaFunction function = meta.getFunctions().get(i);
+      data.getFieldIndexes()[i] = new FieldIndexes();
+
+      if (!Utils.isEmpty(function.getFieldName())) {
+        data.getFieldIndexes()[i].indexName =
+            data.getCalcRowMeta().indexOfValue(function.getFieldName());
+        if (data.getFieldIndexes()[i].indexName < 0) {
+          // Nope: throw an exception
+          throw new HopTransformException(
+              BaseMessages.getString(
+                  PKG, "Calculator.Error.UnableFindField", function.getFieldName(), "" + (i + 1)));
+        }
+      } else {
+        throw new HopTransformException(
+            BaseMessages.getString(PKG, "Calculator.Error.NoNameField", "" + (i + 1)));
+      }
+
+      if (!Utils.isEmpty(function.getFieldA())) {
+        if (function.getCalcType() != CalculationType.CONSTANT) {
+          data.getFieldIndexes()[i].indexA =
+              data.getCalcRowMeta().indexOfValue(function.getFieldA());
+          if (data.getFieldIndexes()[i].indexA < 0) {
+            // Nope: throw an exception
+            throw new HopTransformException(
+                "Unable to find the first argument field '"
+                    + function.getFieldName()
+                    + " for calculation #"
+                    + (i + 1));
+          }
+        } else {
+          data.getFieldIndexes()[i].indexA = -1;
+        }
+      } else {
+        throw new HopTransformException(
+            "There is no first argument specified for calculated field #" + (i + 1));
+      }
+
+      if (!Utils.isEmpty(function.getFieldB())) {
+        data.getFieldIndexes()[i].indexB = data.getCalcRowMeta().indexOfValue(function.getFieldB());
+        if (data.getFieldIndexes()[i].indexB < 0) {
+          // Nope: throw an exception
+          throw new HopTransformException(
+              "Unable to find the second argument field '"
+                  + function.getFieldName()
+                  + " for calculation #"
+                  + (i + 1));
+        }
+      }
+      data.getFieldIndexes()[i].indexC = -1;
+      if (!Utils.isEmpty(function.getFieldC())) {
+        data.getFieldIndexes()[i].indexC = data.getCalcRowMeta().indexOfValue(function.getFieldC());
+        if (data.getFieldIndexes()[i].indexC < 0) {
+          // Nope: throw an exception
+          throw new HopTransformException(
+              "Unable to find the third argument field '"
+                  + function.getFieldName()
+                  + " for calculation #"
+                  + (i + 1));
+        }
+      }
+
+      if (function.isRemovedFromResult()) {
+        tempIndexes.add(getInputRowMeta().size() + i);
+      }
+    }
+
+    // Convert temp indexes to int[]
+    data.setTempIndexes(new int[tempIndexes.size()]);
+    for (int i = 0; i < data.getTempIndexes().length; i++) {
+      data.getTempIndexes()[i] = tempIndexes.get(i);
+    }
+  }
+
   /**
    * @param inputRowMeta the input row metadata
    * @param r the input row (data)
@@ -209,6 +329,24 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
     // First copy the input data to the new result...
     Object[] calcData = RowDataUtil.resizeArray(r, data.getCalcRowMeta().size());
 
+    calculate(inputRowMeta, calcData);
+
+    // OK, now we should refrain from adding the temporary fields to the result.
+    // So we remove them.
+    //
+    return RowDataUtil.removeItems(calcData, data.getTempIndexes());
+  }
+
+  /**
+   * Calculate all the fields.
+   *
+   * @param inputRowMeta the input row metadata
+   * @param calcData the input data followed by room for all calculated fields
+   * @throws HopValueException in case there is a calculation error.
+   */
+  private void calculate(IRowMeta inputRowMeta, Object[] calcData)
+      throws HopValueException, HopFileNotFoundException {
+
     for (int i = 0, index = inputRowMeta.size() + i; i < meta.getFunctions().size(); i++, index++) {
       CalculatorMetaFunction fn = meta.getFunctions().get(i);
       if (!Utils.isEmpty(fn.getFieldName())) {
@@ -691,10 +829,5 @@ public class Calculator extends BaseTransform<CalculatorMeta, CalculatorData> {
         }
       }
     }
-
-    // OK, now we should refrain from adding the temporary fields to the result.
-    // So we remove them.
-    //
-    return RowDataUtil.removeItems(calcData, data.getTempIndexes());
   }
 }
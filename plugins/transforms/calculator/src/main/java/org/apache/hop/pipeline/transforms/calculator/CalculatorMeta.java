@@ -64,6 +64,11 @@ public class CalculatorMeta extends BaseTransformMeta<Calculator, CalculatorData
     this.functions = new ArrayList<>();
   }
 
+  @Override
+  public boolean isFusable() {
+    return true;
+  }
+
   @Override
   public CalculatorMeta clone() {
     CalculatorMeta meta = new CalculatorMeta();
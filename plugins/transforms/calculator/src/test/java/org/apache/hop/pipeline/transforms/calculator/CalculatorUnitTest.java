@@ -17,7 +17,10 @@
 
 package org.apache.hop.pipeline.transforms.calculator;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -26,8 +29,11 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.file.Files;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -41,6 +47,7 @@ import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.logging.ILoggingObject;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.value.ValueMetaBigNumber;
 import org.apache.hop.core.row.value.ValueMetaDate;
@@ -65,6 +72,7 @@ import org.junit.Test;
  */
 public class CalculatorUnitTest {
   private static final Class<?> PKG = CalculatorUnitTest.class; // For Translator
+  private static final String ABC_MD5 = "900150983cd24fb0d6963f7d28e17f72";
   private TransformMockHelper<CalculatorMeta, CalculatorData> smh;
 
   @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
@@ -129,6 +137,88 @@ public class CalculatorUnitTest {
     assertFalse(processed);
   }
 
+  @Test
+  public void testMissingFileInBatchFails() throws Exception {
+    List<Object[]> output = new ArrayList<>();
+    Calculator calculator = createMd5BatchCalculator(true, output);
+
+    calculator.processBatch(createMd5Batch());
+
+    // The rows before the missing file are passed on, just like when processing row by row
+    //
+    assertEquals(1, output.size());
+    assertEquals(ABC_MD5, output.get(0)[1]);
+    assertEquals(1, calculator.getErrors());
+    assertTrue(calculator.isStopped());
+  }
+
+  @Test
+  public void testMissingFileInBatchIgnored() throws Exception {
+    List<Object[]> output = new ArrayList<>();
+    Calculator calculator = createMd5BatchCalculator(false, output);
+
+    calculator.processBatch(createMd5Batch());
+
+    assertEquals(3, output.size());
+    assertEquals(ABC_MD5, output.get(0)[1]);
+    assertNull(output.get(1)[1]);
+    assertEquals(ABC_MD5, output.get(2)[1]);
+    assertEquals(0, calculator.getErrors());
+    assertFalse(calculator.isStopped());
+  }
+
+  private Calculator createMd5BatchCalculator(boolean failIfNoFile, List<Object[]> output)
+      throws HopException {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("Path"));
+
+    CalculatorMeta meta = new CalculatorMeta();
+    meta.getFunctions()
+        .add(
+            new CalculatorMetaFunction(
+                "md5",
+                CalculationType.MD5,
+                "Path",
+                null,
+                null,
+                "String",
+                0,
+                0,
+                "",
+                "",
+                "",
+                "",
+                false));
+    meta.setFailIfNoFile(failIfNoFile);
+
+    Calculator calculator =
+        new Calculator(
+            smh.transformMeta, meta, new CalculatorData(), 0, smh.pipelineMeta, smh.pipeline);
+    calculator.setInputRowMeta(inputRowMeta);
+    calculator.init();
+    calculator.addRowListener(
+        new RowAdapter() {
+          @Override
+          public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+            output.add(row);
+          }
+        });
+    return calculator;
+  }
+
+  /** A batch with a missing file in the middle row */
+  private RowBatch createMd5Batch() throws IOException {
+    File file = File.createTempFile("calculator", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "abc");
+
+    RowBatch batch = new RowBatch(1, 3);
+    batch.addRow(new Object[] {file.getAbsolutePath()});
+    batch.addRow(new Object[] {file.getAbsolutePath() + ".missing"});
+    batch.addRow(new Object[] {file.getAbsolutePath()});
+    return batch;
+  }
+
   @Test
   public void testAddSeconds() throws HopException {
     RowMeta inputRowMeta = new RowMeta();
@@ -29,6 +29,7 @@ import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.value.ValueMetaFactory;
@@ -37,10 +38,11 @@ import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.IBatchTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
 /** Generates a number of (empty or the same) rows */
-public class Constant extends BaseTransform<ConstantMeta, ConstantData> {
+public class Constant extends BaseTransform<ConstantMeta, ConstantData> implements IBatchTransform {
   private static final Class<?> PKG = ConstantMeta.class; // For Translator
 
   public Constant(
@@ -249,12 +251,8 @@ public class Constant extends BaseTransform<ConstantMeta, ConstantData> {
     }
 
     if (data.firstRow) {
-      // The output meta is the original input meta + the
-      // additional constant fields.
-
       data.firstRow = false;
-      data.outputMeta = getInputRowMeta().clone();
-      meta.getFields(data.outputMeta, getTransformName(), null, null, this, metadataProvider);
+      determineOutputMeta();
     }
 
     // Add the constant data to the end of the row.
@@ -279,6 +277,34 @@ public class Constant extends BaseTransform<ConstantMeta, ConstantData> {
     return true;
   }
 
+  @Override
+  public void processBatch(RowBatch batch) throws HopException {
+    if (data.firstRow) {
+      data.firstRow = false;
+      determineOutputMeta();
+    }
+
+    // Add the constant data as extra columns: every row refers to the same values.
+    //
+    for (Object value : data.getConstants().getData()) {
+      batch.addColumn(value);
+    }
+    int nrRows = batch.size();
+
+    putBatch(data.outputMeta, batch);
+
+    if (checkFeedback(getLinesWritten(), nrRows) && log.isBasic()) {
+      logBasic(
+          BaseMessages.getString(PKG, "Constant.Log.LineNr", Long.toString(getLinesWritten())));
+    }
+  }
+
+  /** The output meta is the original input meta + the additional constant fields. */
+  private void determineOutputMeta() throws HopException {
+    data.outputMeta = getInputRowMeta().clone();
+    meta.getFields(data.outputMeta, getTransformName(), null, null, this, metadataProvider);
+  }
+
   @Override
   public boolean init() {
 
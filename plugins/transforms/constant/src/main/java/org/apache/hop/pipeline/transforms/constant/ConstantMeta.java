@@ -68,6 +68,11 @@ public class ConstantMeta extends BaseTransformMeta<Constant, ConstantData> {
     this.fields = new ArrayList<>();
   }
 
+  @Override
+  public boolean isFusable() {
+    return true;
+  }
+
   @Override
   public Object clone() {
     return (ConstantMeta) super.clone();
@@ -17,17 +17,23 @@
 
 package org.apache.hop.pipeline.transforms.constant;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.exception.HopPluginException;
 import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.row.value.ValueMetaPluginType;
 import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
 import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
@@ -36,6 +42,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class ConstantTest {
@@ -87,6 +94,30 @@ public class ConstantTest {
     assertTrue(success);
   }
 
+  @Test
+  public void testProcessBatch() throws Exception {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaInteger("id"));
+    doReturn(inputRowMeta).when(constantSpy).getInputRowMeta();
+    doReturn(new Object[] {"constant", null}).when(rowMetaAndData).getData();
+    doNothing().when(constantSpy).putBatch(any(), any(RowBatch.class));
+
+    RowBatch batch = new RowBatch(1, 10);
+    for (long i = 0; i < 10; i++) {
+      batch.addRow(new Object[] {i});
+    }
+    constantSpy.processBatch(batch);
+
+    ArgumentCaptor<RowBatch> captor = ArgumentCaptor.forClass(RowBatch.class);
+    verify(constantSpy).putBatch(any(), captor.capture());
+    RowBatch output = captor.getValue();
+    assertEquals(3, output.getNrColumns());
+    assertEquals(10, output.size());
+    assertEquals(9L, output.getValue(0, 9));
+    assertEquals("constant", output.getValue(1, 9));
+    assertTrue(output.isNull(2, 9));
+  }
+
   @Test
   public void testProcessRow_fail() throws Exception {
 
@@ -22,6 +22,8 @@ import java.util.BitSet;
 import java.util.List;
 import java.util.PriorityQueue;
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.hash.ILongHashIndex;
+import org.apache.hop.core.hash.LongOpenHashIndex;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.transforms.databaselookup.DatabaseLookupData;
@@ -48,6 +50,11 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
   // such structure was chosen not to introduce separate data-container class
   private final int[][] otherConditions;
 
+  // when the only condition is the equality of an integer key, the first row of every key is
+  // found with a primitive hash index instead of searching the indexes
+  private final ILongHashIndex firstRowByKey;
+  private final int firstRowWithNullKey;
+
   ReadAllCache(
       DatabaseLookupData transformData, Object[][] keys, IRowMeta keysMeta, Object[][] data) {
     this.transformData = transformData;
@@ -58,6 +65,31 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
     Object[] pair = createIndexes(transformData, keysMeta, keys);
     indexes = (Index[]) pair[0];
     otherConditions = (int[][]) pair[1];
+
+    if (isIntegerKeyEquality(transformData.conditions, keysMeta)) {
+      firstRowByKey = new LongOpenHashIndex(keys.length);
+      int nullKeyRow = -1;
+      for (int row = 0; row < keys.length; row++) {
+        Long key = (Long) keys[row][0];
+        if (key != null) {
+          firstRowByKey.putIfAbsent(key, row);
+        } else if (nullKeyRow < 0) {
+          nullKeyRow = row;
+        }
+      }
+      firstRowWithNullKey = nullKeyRow;
+    } else {
+      firstRowByKey = null;
+      firstRowWithNullKey = -1;
+    }
+  }
+
+  private static boolean isIntegerKeyEquality(int[] conditions, IRowMeta keysMeta) {
+    if (conditions.length != 1 || conditions[0] != DatabaseLookupMeta.CONDITION_EQ) {
+      return false;
+    }
+    IValueMeta keyMeta = keysMeta.getValueMeta(0);
+    return keyMeta.getType() == IValueMeta.TYPE_INTEGER && keyMeta.isStorageNormal();
   }
 
   private static Object[] createIndexes(
@@ -122,6 +154,17 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
       return null;
     }
 
+    if (firstRowByKey != null) {
+      Object lookupValue = lookupRow[0];
+      if (lookupValue == null) {
+        return firstRowWithNullKey < 0 ? null : data[firstRowWithNullKey];
+      }
+      if (lookupValue instanceof Long key) {
+        int row = (int) firstRowByKey.get(key, -1L);
+        return row < 0 ? null : data[row];
+      }
+    }
+
     SearchingContext context = new SearchingContext();
     context.init(keys.length);
 
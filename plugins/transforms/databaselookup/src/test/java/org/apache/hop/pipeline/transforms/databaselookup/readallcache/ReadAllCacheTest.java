@@ -177,6 +177,36 @@ public class ReadAllCacheTest {
     return builder.build();
   }
 
+  @Test
+  public void lookup_Finds_FirstMatching_WithIntegerKeyEquality() throws Exception {
+    transformData.conditions = new int[1];
+    ReadAllCache cache = buildCache("=");
+    assertArrayEquals(
+        data[3], cache.getRowFromCache(keysMeta.clone(), new Object[] {1L, null, null, null}));
+    assertArrayEquals(
+        data[0], cache.getRowFromCache(keysMeta.clone(), new Object[] {0L, null, null, null}));
+    assertNull(cache.getRowFromCache(keysMeta.clone(), new Object[] {5L, null, null, null}));
+    assertNull(cache.getRowFromCache(keysMeta.clone(), new Object[] {null, null, null, null}));
+  }
+
+  @Test
+  public void lookup_Finds_NullKey_WithIntegerKeyEquality() throws Exception {
+    transformData = new DatabaseLookupData();
+    transformData.conditions = new int[] {DatabaseLookupMeta.CONDITION_EQ};
+
+    ReadAllCache.Builder builder = new ReadAllCache.Builder(transformData, 3);
+    RowMeta keysMeta = new RowMeta();
+    keysMeta.addValueMeta(new ValueMetaInteger());
+    builder.setKeysMeta(keysMeta);
+    builder.add(new Object[] {1L}, new Object[] {"one"});
+    builder.add(new Object[] {null}, new Object[] {"null"});
+    builder.add(new Object[] {null}, new Object[] {"another null"});
+    ReadAllCache cache = builder.build();
+
+    assertArrayEquals(new Object[] {"null"}, cache.getRowFromCache(keysMeta, new Object[] {null}));
+    assertArrayEquals(new Object[] {"one"}, cache.getRowFromCache(keysMeta, new Object[] {1L}));
+  }
+
   @Test
   public void lookup_HandlesAbsenceOfLookupValue() throws Exception {
     transformData = new DatabaseLookupData();
@@ -21,17 +21,20 @@ import java.util.List;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineHopMeta;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.IBatchTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transform.stream.IStream;
 
 /** Filters input rows base on conditions. */
-public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
+public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData>
+    implements IBatchTransform {
 
   private static final Class<?> PKG = FilterRowsMeta.class; // For Translator
 
@@ -71,51 +74,7 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
 
     if (first) {
       first = false;
-
-      data.outputRowMeta = getInputRowMeta().clone();
-      meta.getFields(getInputRowMeta(), getTransformName(), null, null, this, metadataProvider);
-
-      // if filter refers to non-existing fields, throw exception
-      checkNonExistingFields();
-
-      // Cache the position of the IRowSet for the output.
-      //
-      if (data.chosesTargetTransforms) {
-        List<IStream> targetStreams = meta.getTransformIOMeta().getTargetStreams();
-        if (!Utils.isEmpty(targetStreams.get(0).getTransformName())) {
-          TransformMeta to = targetStreams.get(0).getTransformMeta();
-          PipelineHopMeta hop = getPipelineMeta().findPipelineHop(getTransformMeta(), to);
-          if (hop != null && hop.isEnabled()) {
-            data.trueRowSet = findOutputRowSet(getTransformName(), getCopy(), to.getName(), 0);
-            if (data.trueRowSet == null) {
-              throw new HopException(
-                  BaseMessages.getString(
-                      PKG,
-                      "FilterRows.Log.TargetTransformInvalid",
-                      targetStreams.get(0).getTransformName()));
-            }
-          }
-        } else {
-          data.trueRowSet = null;
-        }
-
-        if (!Utils.isEmpty(targetStreams.get(1).getTransformName())) {
-          TransformMeta to = targetStreams.get(1).getTransformMeta();
-          PipelineHopMeta hop = getPipelineMeta().findPipelineHop(getTransformMeta(), to);
-          if (hop != null && hop.isEnabled()) {
-            data.falseRowSet = findOutputRowSet(getTransformName(), getCopy(), to.getName(), 0);
-            if (data.falseRowSet == null) {
-              throw new HopException(
-                  BaseMessages.getString(
-                      PKG,
-                      "FilterRows.Log.TargetTransformInvalid",
-                      targetStreams.get(1).getTransformName()));
-            }
-          }
-        } else {
-          data.falseRowSet = null;
-        }
-      }
+      initialize();
     }
 
     boolean keep = keepRow(getInputRowMeta(), r); // Keep this row?
@@ -158,6 +117,91 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> {
     return true;
   }
 
+  @Override
+  public void processBatch(RowBatch batch) throws HopException {
+    if (first) {
+      first = false;
+      initialize();
+    }
+
+    // Evaluate the condition row by row in a single re-usable row
+    //
+    int nrRows = batch.size();
+    boolean[] selection = new boolean[nrRows];
+    Object[] row = new Object[Math.max(getInputRowMeta().size(), batch.getNrColumns())];
+    for (int r = 0; r < nrRows; r++) {
+      batch.getRow(r, row);
+      selection[r] = keepRow(getInputRowMeta(), row);
+    }
+
+    if (!data.chosesTargetTransforms) {
+      batch.filter(selection);
+      putBatch(data.outputRowMeta, batch);
+    } else {
+      RowBatch rejected = batch.split(selection);
+      if (data.trueRowSet != null) {
+        putBatchTo(data.outputRowMeta, batch, data.trueRowSet);
+      }
+      if (data.falseRowSet != null) {
+        putBatchTo(data.outputRowMeta, rejected, data.falseRowSet);
+      }
+    }
+
+    if (checkFeedback(getLinesRead(), nrRows)) {
+      if (log.isBasic()) {
+        logBasic(BaseMessages.getString(PKG, "FilterRows.Log.LineNumber") + getLinesRead());
+      }
+    }
+  }
+
+  /** Determine the output metadata and look up the target row sets on the first row. */
+  private void initialize() throws HopException {
+    data.outputRowMeta = getInputRowMeta().clone();
+    meta.getFields(getInputRowMeta(), getTransformName(), null, null, this, metadataProvider);
+
+    // if filter refers to non-existing fields, throw exception
+    checkNonExistingFields();
+
+    // Cache the position of the IRowSet for the output.
+    //
+    if (data.chosesTargetTransforms) {
+      List<IStream> targetStreams = meta.getTransformIOMeta().getTargetStreams();
+      if (!Utils.isEmpty(targetStreams.get(0).getTransformName())) {
+        TransformMeta to = targetStreams.get(0).getTransformMeta();
+        PipelineHopMeta hop = getPipelineMeta().findPipelineHop(getTransformMeta(), to);
+        if (hop != null && hop.isEnabled()) {
+          data.trueRowSet = findOutputRowSet(getTransformName(), getCopy(), to.getName(), 0);
+          if (data.trueRowSet == null) {
+            throw new HopException(
+                BaseMessages.getString(
+                    PKG,
+                    "FilterRows.Log.TargetTransformInvalid",
+                    targetStreams.get(0).getTransformName()));
+          }
+        }
+      } else {
+        data.trueRowSet = null;
+      }
+
+      if (!Utils.isEmpty(targetStreams.get(1).getTransformName())) {
+        TransformMeta to = targetStreams.get(1).getTransformMeta();
+        PipelineHopMeta hop = getPipelineMeta().findPipelineHop(getTransformMeta(), to);
+        if (hop != null && hop.isEnabled()) {
+          data.falseRowSet = findOutputRowSet(getTransformName(), getCopy(), to.getName(), 0);
+          if (data.falseRowSet == null) {
+            throw new HopException(
+                BaseMessages.getString(
+                    PKG,
+                    "FilterRows.Log.TargetTransformInvalid",
+                    targetStreams.get(1).getTransformName()));
+          }
+        }
+      } else {
+        data.falseRowSet = null;
+      }
+    }
+  }
+
   @Override
   public boolean init() {
 
@@ -83,6 +83,11 @@ public class FilterRowsMeta extends BaseTransformMeta<FilterRows, FilterRowsData
     compare = new FRCompare();
   }
 
+  @Override
+  public boolean isFusable() {
+    return true;
+  }
+
   public FilterRowsMeta(FilterRowsMeta m) {
     this.compare = m.compare == null ? new FRCompare() : new FRCompare(m.compare);
     this.setTrueTransformName(m.getTrueTransformName());
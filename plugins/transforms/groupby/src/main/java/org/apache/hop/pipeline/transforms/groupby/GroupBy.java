@@ -17,13 +17,10 @@
 
 package org.apache.hop.pipeline.transforms.groupby;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -42,7 +39,9 @@ import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.RowSizeEstimator;
 import org.apache.hop.core.row.ValueDataUtil;
+import org.apache.hop.core.row.codec.RowCodec;
 import org.apache.hop.core.row.value.ValueMetaFactory;
 import org.apache.hop.core.row.value.ValueMetaInteger;
 import org.apache.hop.core.row.value.ValueMetaNone;
@@ -61,6 +60,15 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
   private static final Class<?> PKG = GroupByMeta.class; // For Translator
 
+  /** The number of rows we reserve memory for at once */
+  private static final int RESERVATION_ROWS = 1000;
+
+  /**
+   * The number of rows of a group kept in memory before they're appended to the temporary file, if
+   * the pipeline doesn't manage memory
+   */
+  private static final int BUFFER_ROWS = 5000;
+
   private boolean allNullsAreZero = false;
   private boolean minNullIsValued = false;
 
@@ -107,6 +115,7 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
       data.outputRowMeta = data.inputRowMeta.clone();
       meta.getFields(data.outputRowMeta, getTransformName(), null, null, this, metadataProvider);
+      data.rowSize = RowSizeEstimator.estimateRowSize(data.inputRowMeta);
 
       // Do all the work we can beforehand
       // Calculate indexes, loop up fields, etc.
@@ -203,21 +212,38 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       return false;
     }
 
-    if (first || data.newBatch) {
-      first = false;
-      data.newBatch = false;
+    if (!meta.isPassAllRows()) {
+      // Aggregate every row as it comes in: only the aggregates of the group are kept
+      //
+      if (first || data.newBatch) {
+        first = false;
+        data.newBatch = false;
+      } else if (!sameGroup(data.previous, r)) {
+        Object[] result = buildResult(data.previous);
+        if (result != null) {
+          putRow(data.groupAggMeta, result); // copy row to possible alternate rowset(s).
+        }
+        newAggregate(r); // Create a new group aggregate (init)
+      }
+      calcAggregate(r);
 
-      data.previous = data.inputRowMeta.cloneRow(r); // copy the row to previous
+      // No need to clone the row: when rows are copied to several transforms the previous
+      // transform sends each of them a clone, so nobody else changes it.
+      // We only read it until the result of its group is sent.
+      //
+      data.previous = r;
     } else {
-      calcAggregate(data.previous);
+      if (first || data.newBatch) {
+        first = false;
+        data.newBatch = false;
 
-      if (meta.isPassAllRows()) {
+        data.previous = data.inputRowMeta.cloneRow(r); // copy the row to previous
+      } else {
+        calcAggregate(data.previous);
         addToBuffer(data.previous);
       }
-    }
 
-    if (!sameGroup(data.previous, r)) {
-      if (meta.isPassAllRows()) {
+      if (!sameGroup(data.previous, r)) {
         // Not the same group: close output (if any)
         closeOutput();
         // Get all rows from the buffer!
@@ -245,16 +271,11 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
           row = getRowFromBuffer();
         }
         closeInput();
-      } else {
-        Object[] result = buildResult(data.previous);
-        if (result != null) {
-          putRow(data.groupAggMeta, result); // copy row to possible alternate rowset(s).
-        }
+        newAggregate(r); // Create a new group aggregate (init)
       }
-      newAggregate(r); // Create a new group aggregate (init)
-    }
 
-    data.previous = data.inputRowMeta.cloneRow(r);
+      data.previous = data.inputRowMeta.cloneRow(r);
+    }
 
     if (checkFeedback(getLinesRead()) && log.isBasic()) {
       logBasic(BaseMessages.getString(PKG, "GroupBy.LineNumber") + getLinesRead());
@@ -271,6 +292,7 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
         calcAggregate(data.previous);
         addToBuffer(data.previous);
       }
+      closeOutput();
       data.groupResult = getAggregateResult();
 
       Object[] row = getRowFromBuffer();
@@ -295,12 +317,7 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       }
       closeInput();
     } else {
-      // JUST THE GROUP + AGGREGATE
-
-      // Don't forget the last set of rows...
-      if (data.previous != null) {
-        calcAggregate(data.previous);
-      }
+      // JUST THE GROUP + AGGREGATE, all rows are aggregated already
       Object[] result = buildResult(data.previous);
       if (result != null) {
         putRow(data.groupAggMeta, result);
@@ -821,27 +838,67 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
   // Method is defined as package-protected in order to be accessible by unit tests
   void addToBuffer(Object[] row) throws HopFileException {
     data.bufferList.add(row);
-    if (data.bufferList.size() > 5000 && data.rowsOnFile == 0) {
-      String pathToTmp = resolve(getMeta().getDirectory());
-      try {
-        File ioFile = new File(pathToTmp);
-        if (!ioFile.exists()) {
-          // try to resolve as Apache VFS file
-          pathToTmp = retrieveVfsPath(pathToTmp);
+    if (data.memoryReservation != null) {
+      // Keep the rows in memory for as long as the memory manager has room for them
+      //
+      data.unreservedRows++;
+      if (data.unreservedRows >= RESERVATION_ROWS) {
+        boolean reserved = data.memoryReservation.reserve(data.unreservedRows * data.rowSize);
+        data.unreservedRows = 0;
+        if (!reserved || data.memoryReservation.isSpillRequested()) {
+          if (log.isDetailed()) {
+            logDetailed(
+                BaseMessages.getString(
+                    PKG, "GroupBy.Detailed.OutOfMemoryBudget", data.bufferList.size()));
+          }
+          spillBuffer();
         }
-        data.tempFile = File.createTempFile(getMeta().getPrefix(), ".tmp", new File(pathToTmp));
-        data.fosToTempFile = new FileOutputStream(data.tempFile);
-        data.dosToTempFile = new DataOutputStream(data.fosToTempFile);
-        data.firstRead = true;
-      } catch (IOException e) {
-        throw new HopFileException(
-            BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCreateTemporaryFile"), e);
       }
-      // OK, save the oldest rows to disk!
-      Object[] oldest = data.bufferList.get(0);
-      data.inputRowMeta.writeData(data.dosToTempFile, oldest);
-      data.bufferList.remove(0);
-      data.rowsOnFile++;
+    } else if (data.bufferList.size() >= BUFFER_ROWS) {
+      spillBuffer();
+    }
+  }
+
+  /** Move all rows in the buffer to the temporary file, after the rows which are already there. */
+  private void spillBuffer() throws HopFileException {
+    if (data.rowWriterToTempFile == null) {
+      openTempFile();
+    }
+    for (Object[] row : data.bufferList) {
+      data.rowWriterToTempFile.writeRow(row);
+    }
+    data.rowsOnFile += data.bufferList.size();
+    data.bufferList.clear();
+    if (data.memoryReservation != null) {
+      data.memoryReservation.releaseAll();
+    }
+  }
+
+  private void openTempFile() throws HopFileException {
+    // The file of a previous group was read completely
+    //
+    if (data.tempFile != null && data.rowsOnFile == 0) {
+      closeInput();
+      if (!data.tempFile.delete() && log.isDetailed()) {
+        logDetailed(
+            BaseMessages.getString(
+                PKG, "GroupBy.Exception.UnableToDeleteTemporaryFile", data.tempFile.getPath()));
+      }
+    }
+    String pathToTmp = resolve(getMeta().getDirectory());
+    try {
+      File ioFile = new File(pathToTmp);
+      if (!ioFile.exists()) {
+        // try to resolve as Apache VFS file
+        pathToTmp = retrieveVfsPath(pathToTmp);
+      }
+      data.tempFile = File.createTempFile(getMeta().getPrefix(), ".tmp", new File(pathToTmp));
+      data.rowWriterToTempFile =
+          RowCodec.createWriter(data.inputRowMeta, new FileOutputStream(data.tempFile));
+      data.firstRead = true;
+    } catch (IOException e) {
+      throw new HopFileException(
+          BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCreateTemporaryFile"), e);
     }
   }
 
@@ -857,8 +914,8 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       if (data.firstRead) {
         // Open the inputstream first...
         try {
-          data.fisToTmpFile = new FileInputStream(data.tempFile);
-          data.disToTmpFile = new DataInputStream(data.fisToTmpFile);
+          data.rowReaderFromTempFile =
+              RowCodec.createReader(data.inputRowMeta, new FileInputStream(data.tempFile));
           data.firstRead = false;
         } catch (IOException e) {
           throw new HopFileException(
@@ -868,21 +925,21 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
       }
 
       // Read one row from the file!
-      Object[] row;
-      try {
-        row = data.inputRowMeta.readData(data.disToTmpFile);
-      } catch (SocketTimeoutException e) {
-        throw new HopFileException(e); // Shouldn't happen on files
-      }
+      Object[] row = data.rowReaderFromTempFile.readRow();
       data.rowsOnFile--;
 
       return row;
     } else {
-      if (!data.bufferList.isEmpty()) {
-        Object[] row = data.bufferList.get(0);
-        data.bufferList.remove(0);
-        return row;
+      // The rows in memory come after the rows on file
+      if (data.bufferIndex < data.bufferList.size()) {
+        return data.bufferList.get(data.bufferIndex++);
       } else {
+        data.bufferList.clear();
+        data.bufferIndex = 0;
+        if (data.memoryReservation != null) {
+          data.memoryReservation.releaseAll();
+          data.unreservedRows = 0;
+        }
         return null; // Nothing left!
       }
     }
@@ -890,16 +947,12 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
   private void closeOutput() throws HopFileException {
     try {
-      if (data.dosToTempFile != null) {
-        data.dosToTempFile.close();
-        data.dosToTempFile = null;
-      }
-      if (data.fosToTempFile != null) {
-        data.fosToTempFile.close();
-        data.fosToTempFile = null;
+      if (data.rowWriterToTempFile != null) {
+        data.rowWriterToTempFile.close();
+        data.rowWriterToTempFile = null;
       }
       data.firstRead = true;
-    } catch (IOException e) {
+    } catch (HopFileException e) {
       throw new HopFileException(
           BaseMessages.getString(
               PKG, "GroupBy.Exception.UnableToCloseInputStream", data.tempFile.getPath()),
@@ -909,15 +962,11 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
 
   private void closeInput() throws HopFileException {
     try {
-      if (data.fisToTmpFile != null) {
-        data.fisToTmpFile.close();
-        data.fisToTmpFile = null;
-      }
-      if (data.disToTmpFile != null) {
-        data.disToTmpFile.close();
-        data.disToTmpFile = null;
+      if (data.rowReaderFromTempFile != null) {
+        data.rowReaderFromTempFile.close();
+        data.rowReaderFromTempFile = null;
       }
-    } catch (IOException e) {
+    } catch (HopFileException e) {
       throw new HopFileException(
           BaseMessages.getString(
               PKG, "GroupBy.Exception.UnableToCloseInputStream", data.tempFile.getPath()),
@@ -931,8 +980,11 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
     if (super.init()) {
       data.bufferList = new ArrayList<>();
 
+      data.bufferIndex = 0;
       data.rowsOnFile = 0;
 
+      data.memoryReservation = createMemoryReservation();
+
       return true;
     }
     return false;
@@ -957,6 +1009,10 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData> {
                 PKG, "GroupBy.Exception.UnableToDeleteTemporaryFile", data.tempFile.getPath()));
       }
     }
+    if (data.memoryReservation != null) {
+      data.memoryReservation.close();
+      data.memoryReservation = null;
+    }
 
     super.dispose();
   }
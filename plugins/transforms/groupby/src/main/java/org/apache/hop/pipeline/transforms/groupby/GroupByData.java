@@ -17,16 +17,15 @@
 
 package org.apache.hop.pipeline.transforms.groupby;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.codec.IRowReader;
+import org.apache.hop.core.row.codec.IRowWriter;
+import org.apache.hop.pipeline.memory.MemoryReservation;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
@@ -54,18 +53,24 @@ public class GroupByData extends BaseTransformData implements ITransformData {
 
   public ArrayList<Object[]> bufferList;
 
-  public File tempFile;
+  /** The position of the next row to read back from the buffer */
+  public int bufferIndex;
+
+  /** The memory reserved for the rows in the buffer, null if the pipeline doesn't manage memory */
+  public MemoryReservation memoryReservation;
 
-  public FileOutputStream fosToTempFile;
+  public long rowSize;
+  public int unreservedRows;
+
+  public File tempFile;
 
-  public DataOutputStream dosToTempFile;
+  public IRowWriter rowWriterToTempFile;
 
   public int rowsOnFile;
 
   public boolean firstRead;
 
-  public FileInputStream fisToTmpFile;
-  public DataInputStream disToTmpFile;
+  public IRowReader rowReaderFromTempFile;
 
   public Object[] groupResult;
 
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.groupby;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.memory.PipelineMemoryManager;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+/** Runs rows through the Group By transform, with and without passing all rows. */
+public class GroupByTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  private TransformMockHelper<GroupByMeta, GroupByData> smh;
+  private GroupByMeta meta;
+  private GroupByData data;
+  private List<Object[]> output;
+
+  @BeforeClass
+  public static void init() throws HopException {
+    HopEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    smh = new TransformMockHelper<>("Group By", GroupByMeta.class, GroupByData.class);
+    when(smh.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(smh.iLogChannel);
+    when(smh.pipeline.isRunning()).thenReturn(true);
+
+    meta = new GroupByMeta();
+    meta.setDefault();
+    meta.setDirectory(System.getProperty("java.io.tmpdir"));
+    meta.setPrefix("grp-test");
+    meta.setGroupingFields(new ArrayList<>(List.of(new GroupingField("group"))));
+    data = new GroupByData();
+    output = new ArrayList<>();
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  @Test
+  public void testAggregatesAcrossGroups() throws HopException {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("group"));
+    inputRowMeta.addValueMeta(new ValueMetaNumber("value"));
+    inputRowMeta.addValueMeta(new ValueMetaString("name"));
+
+    setAggregations(
+        aggregation("sum", "value", Aggregation.TYPE_GROUP_SUM, null),
+        aggregation("avg", "value", Aggregation.TYPE_GROUP_AVERAGE, null),
+        aggregation("median", "value", Aggregation.TYPE_GROUP_MEDIAN, null),
+        aggregation("min", "value", Aggregation.TYPE_GROUP_MIN, null),
+        aggregation("max", "value", Aggregation.TYPE_GROUP_MAX, null),
+        aggregation("countAll", "value", Aggregation.TYPE_GROUP_COUNT_ALL, null),
+        aggregation("countDistinct", "value", Aggregation.TYPE_GROUP_COUNT_DISTINCT, null),
+        aggregation("countAny", null, Aggregation.TYPE_GROUP_COUNT_ANY, null),
+        aggregation("stdDev", "value", Aggregation.TYPE_GROUP_STANDARD_DEVIATION, null),
+        aggregation("concatComma", "name", Aggregation.TYPE_GROUP_CONCAT_COMMA, null),
+        aggregation("concatString", "name", Aggregation.TYPE_GROUP_CONCAT_STRING, "|"),
+        aggregation("concatDistinct", "name", Aggregation.TYPE_GROUP_CONCAT_DISTINCT, "/"));
+
+    GroupBy groupBy =
+        createGroupBy(
+            inputRowMeta,
+            new Object[] {"a", 1.0, "p"},
+            new Object[] {"a", 2.0, "q"},
+            new Object[] {"a", 3.0, "p"},
+            new Object[] {"a", 6.0, "r"},
+            new Object[] {"b", 10.0, "s"},
+            new Object[] {"b", 10.0, "s"},
+            new Object[] {"c", 5.0, "t"});
+    processAllRows(groupBy);
+
+    assertEquals(3, output.size());
+    assertRow(
+        output.get(0),
+        "a",
+        12.0,
+        3.0,
+        2.5,
+        1.0,
+        6.0,
+        4L,
+        4L,
+        4L,
+        Math.sqrt(3.5),
+        "p, q, p, r",
+        "p|q|p|r",
+        "p/q/r");
+    assertRow(
+        output.get(1), "b", 20.0, 10.0, 10.0, 10.0, 10.0, 2L, 1L, 2L, 0.0, "s, s", "s|s", "s");
+    assertRow(output.get(2), "c", 5.0, 5.0, 5.0, 5.0, 5.0, 1L, 1L, 1L, 0.0, "t", "t", "t");
+  }
+
+  @Test
+  public void testFirstAndLastWithNulls() throws HopException {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("group"));
+    inputRowMeta.addValueMeta(new ValueMetaString("name"));
+
+    setAggregations(
+        aggregation("first", "name", Aggregation.TYPE_GROUP_FIRST, null),
+        aggregation("last", "name", Aggregation.TYPE_GROUP_LAST, null),
+        aggregation("firstInclNull", "name", Aggregation.TYPE_GROUP_FIRST_INCL_NULL, null),
+        aggregation("lastInclNull", "name", Aggregation.TYPE_GROUP_LAST_INCL_NULL, null));
+
+    GroupBy groupBy =
+        createGroupBy(
+            inputRowMeta,
+            new Object[] {"a", null},
+            new Object[] {"a", "x"},
+            new Object[] {"a", "y"},
+            new Object[] {"a", null},
+            new Object[] {"b", "z"},
+            new Object[] {"b", null},
+            new Object[] {"c", null});
+    processAllRows(groupBy);
+
+    assertEquals(3, output.size());
+    assertRow(output.get(0), "a", "x", "y", null, null);
+    assertRow(output.get(1), "b", "z", "z", "z", null);
+    assertRow(output.get(2), "c", null, null, null, null);
+  }
+
+  @Test
+  public void testPassAllRowsSpillsToTemporaryFile() throws HopException {
+    int groupSize = 12345;
+    List<Object[]> rows = new ArrayList<>();
+    for (long id = 1; id <= groupSize; id++) {
+      rows.add(new Object[] {"a", id});
+    }
+    for (long id = 1; id <= 3; id++) {
+      rows.add(new Object[] {"b", id});
+    }
+
+    GroupBy groupBy = createPassAllRowsGroupBy(rows);
+
+    // The first row is only buffered when the second one comes in
+    //
+    for (int i = 0; i < groupSize; i++) {
+      assertTrue(groupBy.processRow());
+    }
+    assertNull(data.memoryReservation);
+    assertNotNull(data.tempFile);
+    assertEquals(10000, data.rowsOnFile);
+    assertEquals(2344, data.bufferList.size());
+    assertTrue(output.isEmpty());
+
+    processAllRows(groupBy);
+    groupBy.dispose();
+
+    assertPassedAllRows(rows, groupSize, 3);
+    assertFalse(data.tempFile.exists());
+  }
+
+  @Test
+  public void testPassAllRowsSpillsWhenOutOfMemoryBudget() throws HopException {
+    PipelineMemoryManager memoryManager = new PipelineMemoryManager("test", 1L, null);
+    doReturn(memoryManager).when(smh.pipeline).getMemoryManager();
+
+    int groupSize = 2501;
+    List<Object[]> rows = new ArrayList<>();
+    for (long id = 1; id <= groupSize; id++) {
+      rows.add(new Object[] {"a", id});
+    }
+    rows.add(new Object[] {"b", 1L});
+
+    GroupBy groupBy = createPassAllRowsGroupBy(rows);
+
+    // Every reservation fails so the buffer is moved to the file after each 1000 rows
+    //
+    for (int i = 0; i < groupSize; i++) {
+      assertTrue(groupBy.processRow());
+    }
+    assertNotNull(data.memoryReservation);
+    assertEquals(2000, data.rowsOnFile);
+    assertEquals(500, data.bufferList.size());
+    assertEquals(0L, memoryManager.getUsedBytes());
+
+    processAllRows(groupBy);
+    groupBy.dispose();
+
+    assertPassedAllRows(rows, groupSize, 1);
+    assertEquals(0L, memoryManager.getUsedBytes());
+    assertTrue(memoryManager.getReservations().isEmpty());
+  }
+
+  private GroupBy createPassAllRowsGroupBy(List<Object[]> rows) throws HopException {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("group"));
+    inputRowMeta.addValueMeta(new ValueMetaInteger("id"));
+
+    meta.setPassAllRows(true);
+    meta.setAddingLineNrInGroup(true);
+    meta.setLineNrInGroupField("lineNr");
+    setAggregations(
+        aggregation("count", "id", Aggregation.TYPE_GROUP_COUNT_ALL, null),
+        aggregation("sum", "id", Aggregation.TYPE_GROUP_SUM, null));
+
+    return createGroupBy(inputRowMeta, rows.toArray(new Object[0][]));
+  }
+
+  /** Every input row comes out in the same order, followed by the result of its group. */
+  private void assertPassedAllRows(List<Object[]> rows, long... groupSizes) {
+    assertEquals(rows.size(), output.size());
+    int index = 0;
+    for (long groupSize : groupSizes) {
+      for (long lineNr = 1; lineNr <= groupSize; lineNr++, index++) {
+        Object[] input = rows.get(index);
+        long sum = groupSize * (groupSize + 1) / 2;
+        assertRow(output.get(index), input[0], input[1], groupSize, sum, lineNr);
+      }
+    }
+  }
+
+  private GroupBy createGroupBy(IRowMeta inputRowMeta, Object[]... rows) {
+    IRowSet inputRowSet = smh.getMockInputRowSet(rows);
+
+    GroupBy groupBy = new GroupBy(smh.transformMeta, meta, data, 0, smh.pipelineMeta, smh.pipeline);
+    groupBy.addRowSetToInputRowSets(inputRowSet);
+    groupBy.setInputRowMeta(inputRowMeta);
+    groupBy.addRowListener(
+        new RowAdapter() {
+          @Override
+          public void rowWrittenEvent(IRowMeta rowMeta, Object[] row) {
+            output.add(row);
+          }
+        });
+    assertTrue(groupBy.init());
+    return groupBy;
+  }
+
+  private void processAllRows(GroupBy groupBy) throws HopException {
+    while (groupBy.processRow()) {
+      // Keep going until the last group is sent
+    }
+  }
+
+  private void setAggregations(Aggregation... aggregations) {
+    meta.setAggregations(new ArrayList<>(Arrays.asList(aggregations)));
+  }
+
+  private static Aggregation aggregation(String field, String subject, int type, String value) {
+    return new Aggregation(field, subject, Aggregation.getTypeDescLongFromCode(type), value);
+  }
+
+  private static void assertRow(Object[] row, Object... expected) {
+    assertArrayEquals(expected, Arrays.copyOf(row, expected.length));
+  }
+}
@@ -28,6 +28,7 @@ import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowBatch;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.util.EnvUtil;
 import org.apache.hop.core.util.Utils;
@@ -35,10 +36,12 @@ import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
 import org.apache.hop.pipeline.transform.BaseTransform;
+import org.apache.hop.pipeline.transform.IBatchTransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
 /** Select, re-order, remove or change the meta-data of the fields in the inputstreams. */
-public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesData> {
+public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesData>
+    implements IBatchTransform {
 
   private static final Class<?> PKG = SelectValuesMeta.class; // For Translator
 
@@ -69,77 +72,8 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
       throws HopValueException {
     if (data.firstselect) {
       data.firstselect = false;
-
-      // We need to create a new meta-data row to drive the output
-      // We also want to know the indexes of the selected fields in the source row.
-      //
-      data.fieldnrs = new int[meta.getSelectFields().length];
-      for (int i = 0; i < data.fieldnrs.length; i++) {
-        data.fieldnrs[i] = rowMeta.indexOfValue(meta.getSelectFields()[i].getName());
-        if (data.fieldnrs[i] < 0) {
-          logError(
-              BaseMessages.getString(
-                  PKG, "SelectValues.Log.CouldNotFindField", meta.getSelectFields()[i].getName()));
-          setErrors(1);
-          stopAll();
-          return null;
-        }
-      }
-
-      // Check for doubles in the selected fields... AFTER renaming!!
-      //
-      int[] cnt = new int[meta.getSelectFields().length];
-      for (int i = 0; i < meta.getSelectFields().length; i++) {
-        cnt[i] = 0;
-        for (int j = 0; j < meta.getSelectFields().length; j++) {
-          String one =
-              Const.NVL(meta.getSelectFields()[i].getRename(), meta.getSelectFields()[i].getName());
-          String two =
-              Const.NVL(meta.getSelectFields()[j].getRename(), meta.getSelectFields()[j].getName());
-          if (one.equals(two)) {
-            cnt[i]++;
-          }
-
-          if (cnt[i] > 1) {
-            logError(
-                BaseMessages.getString(
-                    PKG, "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice", one));
-            setErrors(1);
-            stopAll();
-            return null;
-          }
-        }
-      }
-
-      // See if we need to include (and sort) the non-specified fields as well...
-      //
-      if (meta.isSelectingAndSortingUnspecifiedFields()) {
-        // Select the unspecified fields.
-        // Sort the fields
-        // Add them after the specified fields...
-        //
-        List<String> extra = new ArrayList<>();
-        ArrayList<Integer> unspecifiedKeyNrs = new ArrayList<>();
-        for (int i = 0; i < rowMeta.size(); i++) {
-          String fieldName = rowMeta.getValueMeta(i).getName();
-          if (Const.indexOfString(fieldName, meta.getSelectName()) < 0) {
-            extra.add(fieldName);
-          }
-        }
-        Collections.sort(extra);
-        for (String fieldName : extra) {
-          int index = rowMeta.indexOfValue(fieldName);
-          unspecifiedKeyNrs.add(index);
-        }
-
-        // Create the extra field list...
-        //
-        data.extraFieldnrs = new int[unspecifiedKeyNrs.size()];
-        for (int i = 0; i < data.extraFieldnrs.length; i++) {
-          data.extraFieldnrs[i] = unspecifiedKeyNrs.get(i);
-        }
-      } else {
-        data.extraFieldnrs = new int[] {};
+      if (!initSelect(rowMeta)) {
+        return null;
       }
     }
 
@@ -194,44 +128,9 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
   private synchronized Object[] removeValues(IRowMeta rowMeta, Object[] rowData) {
     if (data.firstdeselect) {
       data.firstdeselect = false;
-
-      data.removenrs = new int[meta.getDeleteName().length];
-      for (int i = 0; i < data.removenrs.length; i++) {
-        data.removenrs[i] = rowMeta.indexOfValue(meta.getDeleteName()[i]);
-        if (data.removenrs[i] < 0) {
-          logError(
-              BaseMessages.getString(
-                  PKG, "SelectValues.Log.CouldNotFindField", meta.getDeleteName()[i]));
-          setErrors(1);
-          stopAll();
-          return null;
-        }
+      if (!initRemove(rowMeta)) {
+        return null;
       }
-
-      // Check for doubles in the selected fields...
-      int[] cnt = new int[meta.getDeleteName().length];
-      for (int i = 0; i < meta.getDeleteName().length; i++) {
-        cnt[i] = 0;
-        for (int j = 0; j < meta.getDeleteName().length; j++) {
-          if (meta.getDeleteName()[i].equals(meta.getDeleteName()[j])) {
-            cnt[i]++;
-          }
-
-          if (cnt[i] > 1) {
-            logError(
-                BaseMessages.getString(
-                    PKG,
-                    "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice2",
-                    meta.getDeleteName()[i]));
-            setErrors(1);
-            stopAll();
-            return null;
-          }
-        }
-      }
-
-      // Sort removenrs descending. So that we can delete in ascending order...
-      Arrays.sort(data.removenrs);
     }
 
     /*
@@ -257,69 +156,8 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
   synchronized Object[] metadataValues(IRowMeta rowMeta, Object[] rowData) throws HopException {
     if (data.firstmetadata) {
       data.firstmetadata = false;
-
-      data.metanrs = new int[meta.getMeta().length];
-      for (int i = 0; i < data.metanrs.length; i++) {
-        data.metanrs[i] = rowMeta.indexOfValue(meta.getMeta()[i].getName());
-        if (data.metanrs[i] < 0) {
-          logError(
-              BaseMessages.getString(
-                  PKG, "SelectValues.Log.CouldNotFindField", meta.getMeta()[i].getName()));
-          setErrors(1);
-          stopAll();
-          return null;
-        }
-      }
-
-      // Check for doubles in the selected fields...
-      int[] cnt = new int[meta.getMeta().length];
-      for (int i = 0; i < meta.getMeta().length; i++) {
-        cnt[i] = 0;
-        for (int j = 0; j < meta.getMeta().length; j++) {
-          if (meta.getMeta()[i].getName().equals(meta.getMeta()[j].getName())) {
-            cnt[i]++;
-          }
-
-          if (cnt[i] > 1) {
-            logError(
-                BaseMessages.getString(
-                    PKG,
-                    "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice2",
-                    meta.getMeta()[i].getName()));
-            setErrors(1);
-            stopAll();
-            return null;
-          }
-        }
-      }
-
-      // Also apply the metadata on the row meta to allow us to convert the data correctly, with the
-      // correct mask.
-      //
-      for (int i = 0; i < data.metanrs.length; i++) {
-        SelectMetadataChange change = meta.getMeta()[i];
-        IValueMeta valueMeta = rowMeta.getValueMeta(data.metanrs[i]);
-        if (!Utils.isEmpty(change.getConversionMask())) {
-          valueMeta.setConversionMask(change.getConversionMask());
-        }
-
-        valueMeta.setDateFormatLenient(change.isDateFormatLenient());
-        valueMeta.setDateFormatLocale(EnvUtil.createLocale(change.getDateFormatLocale()));
-        valueMeta.setDateFormatTimeZone(EnvUtil.createTimeZone(change.getDateFormatTimeZone()));
-        valueMeta.setLenientStringToNumber(change.isLenientStringToNumber());
-
-        if (!Utils.isEmpty(change.getEncoding())) {
-          valueMeta.setStringEncoding(change.getEncoding());
-        }
-        if (!Utils.isEmpty(change.getDecimalSymbol())) {
-          valueMeta.setDecimalSymbol(change.getDecimalSymbol());
-        }
-        if (!Utils.isEmpty(change.getGroupingSymbol())) {
-          valueMeta.setGroupingSymbol(change.getGroupingSymbol());
-        }
-        if (!Utils.isEmpty(change.getCurrencySymbol())) {
-          valueMeta.setCurrencySymbol(change.getCurrencySymbol());
-        }
+      if (!initMetadata(rowMeta)) {
+        return null;
       }
     }
 
@@ -354,6 +192,205 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
     return rowData;
   }
 
+  /**
+   * Look up the indexes of the selected fields and the fields which are dragged along on the first
+   * row.
+   *
+   * @return false if we need to stop because of an error
+   */
+  private boolean initSelect(IRowMeta rowMeta) {
+    // We need to create a new meta-data row to drive the output
+    // We also want to know the indexes of the selected fields in the source row.
+    //
+    data.fieldnrs = new int[meta.getSelectFields().length];
+    for (int i = 0; i < data.fieldnrs.length; i++) {
+      data.fieldnrs[i] = rowMeta.indexOfValue(meta.getSelectFields()[i].getName());
+      if (data.fieldnrs[i] < 0) {
+        logError(
+            BaseMessages.getString(
+                PKG, "SelectValues.Log.CouldNotFindField", meta.getSelectFields()[i].getName()));
+        setErrors(1);
+        stopAll();
+        return false;
+      }
+    }
+
+    // Check for doubles in the selected fields... AFTER renaming!!
+    //
+    int[] cnt = new int[meta.getSelectFields().length];
+    for (int i = 0; i < meta.getSelectFields().length; i++) {
+      cnt[i] = 0;
+      for (int j = 0; j < meta.getSelectFields().length; j++) {
+        String one =
+            Const.NVL(meta.getSelectFields()[i].getRename(), meta.getSelectFields()[i].getName());
+        String two =
+            Const.NVL(meta.getSelectFields()[j].getRename(), meta.getSelectFields()[j].getName());
+        if (one.equals(two)) {
+          cnt[i]++;
+        }
+
+        if (cnt[i] > 1) {
+          logError(
+              BaseMessages.getString(
+                  PKG, "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice", one));
+          setErrors(1);
+          stopAll();
+          return false;
+        }
+      }
+    }
+
+    // See if we need to include (and sort) the non-specified fields as well...
+    //
+    if (meta.isSelectingAndSortingUnspecifiedFields()) {
+      // Select the unspecified fields.
+      // Sort the fields
+      // Add them after the specified fields...
+      //
+      List<String> extra = new ArrayList<>();
+      ArrayList<Integer> unspecifiedKeyNrs = new ArrayList<>();
+      for (int i = 0; i < rowMeta.size(); i++) {
+        String fieldName = rowMeta.getValueMeta(i).getName();
+        if (Const.indexOfString(fieldName, meta.getSelectName()) < 0) {
+          extra.add(fieldName);
+        }
+      }
+      Collections.sort(extra);
+      for (String fieldName : extra) {
+        int index = rowMeta.indexOfValue(fieldName);
+        unspecifiedKeyNrs.add(index);
+      }
+
+      // Create the extra field list...
+      //
+      data.extraFieldnrs = new int[unspecifiedKeyNrs.size()];
+      for (int i = 0; i < data.extraFieldnrs.length; i++) {
+        data.extraFieldnrs[i] = unspecifiedKeyNrs.get(i);
+      }
+    } else {
+      data.extraFieldnrs = new int[] {};
+    }
+    return true;
+  }
+
+  /**
+   * Look up the indexes of the removed fields on the first row.
+   *
+   * @return false if we need to stop because of an error
+   */
+  private boolean initRemove(IRowMeta rowMeta) {
+    data.removenrs = new int[meta.getDeleteName().length];
+    for (int i = 0; i < data.removenrs.length; i++) {
+      data.removenrs[i] = rowMeta.indexOfValue(meta.getDeleteName()[i]);
+      if (data.removenrs[i] < 0) {
+        logError(
+            BaseMessages.getString(
+                PKG, "SelectValues.Log.CouldNotFindField", meta.getDeleteName()[i]));
+        setErrors(1);
+        stopAll();
+        return false;
+      }
+    }
+
+    // Check for doubles in the selected fields...
+    int[] cnt = new int[meta.getDeleteName().length];
+    for (int i = 0; i < meta.getDeleteName().length; i++) {
+      cnt[i] = 0;
+      for (int j = 0; j < meta.getDeleteName().length; j++) {
+        if (meta.getDeleteName()[i].equals(meta.getDeleteName()[j])) {
+          cnt[i]++;
+        }
+
+        if (cnt[i] > 1) {
+          logError(
+              BaseMessages.getString(
+                  PKG,
+                  "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice2",
+                  meta.getDeleteName()[i]));
+          setErrors(1);
+          stopAll();
+          return false;
+        }
+      }
+    }
+
+    // Sort removenrs descending. So that we can delete in ascending order...
+    Arrays.sort(data.removenrs);
+    return true;
+  }
+
+  /**
+   * Look up the indexes of the changed fields and apply the metadata changes on the first row.
+   *
+   * @return false if we need to stop because of an error
+   */
+  private boolean initMetadata(IRowMeta rowMeta) {
+    data.metanrs = new int[meta.getMeta().length];
+    for (int i = 0; i < data.metanrs.length; i++) {
+      data.metanrs[i] = rowMeta.indexOfValue(meta.getMeta()[i].getName());
+      if (data.metanrs[i] < 0) {
+        logError(
+            BaseMessages.getString(
+                PKG, "SelectValues.Log.CouldNotFindField", meta.getMeta()[i].getName()));
+        setErrors(1);
+        stopAll();
+        return false;
+      }
+    }
+
+    // Check for doubles in the selected fields...
+    int[] cnt = new int[meta.getMeta().length];
+    for (int i = 0; i < meta.getMeta().length; i++) {
+      cnt[i] = 0;
+      for (int j = 0; j < meta.getMeta().length; j++) {
+        if (meta.getMeta()[i].getName().equals(meta.getMeta()[j].getName())) {
+          cnt[i]++;
+        }
+
+        if (cnt[i] > 1) {
+          logError(
+              BaseMessages.getString(
+                  PKG,
+                  "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice2",
+                  meta.getMeta()[i].getName()));
+          setErrors(1);
+          stopAll();
+          return false;
+        }
+      }
+    }
+
+    // Also apply the metadata on the row meta to allow us to convert the data correctly, with the
+    // correct mask.
+    //
+    for (int i = 0; i < data.metanrs.length; i++) {
+      SelectMetadataChange change = meta.getMeta()[i];
+      IValueMeta valueMeta = rowMeta.getValueMeta(data.metanrs[i]);
+      if (!Utils.isEmpty(change.getConversionMask())) {
+        valueMeta.setConversionMask(change.getConversionMask());
+      }
+
+      valueMeta.setDateFormatLenient(change.isDateFormatLenient());
+      valueMeta.setDateFormatLocale(EnvUtil.createLocale(change.getDateFormatLocale()));
+      valueMeta.setDateFormatTimeZone(EnvUtil.createTimeZone(change.getDateFormatTimeZone()));
+      valueMeta.setLenientStringToNumber(change.isLenientStringToNumber());
+
+      if (!Utils.isEmpty(change.getEncoding())) {
+        valueMeta.setStringEncoding(change.getEncoding());
+      }
+      if (!Utils.isEmpty(change.getDecimalSymbol())) {
+        valueMeta.setDecimalSymbol(change.getDecimalSymbol());
+      }
+      if (!Utils.isEmpty(change.getGroupingSymbol())) {
+        valueMeta.setGroupingSymbol(change.getGroupingSymbol());
+      }
+      if (!Utils.isEmpty(change.getCurrencySymbol())) {
+        valueMeta.setCurrencySymbol(change.getCurrencySymbol());
+      }
+    }
+    return true;
+  }
+
   @Override
   public boolean processRow() throws HopException {
     Object[] rowData = getRow(); // get row from rowset, wait for our turn, indicate busy!
@@ -376,13 +413,7 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
 
     if (first) {
       first = false;
-
-      data.selectRowMeta = getInputRowMeta().clone();
-      meta.getSelectFields(data.selectRowMeta, getTransformName());
-      data.deselectRowMeta = data.selectRowMeta.clone();
-      meta.getDeleteFields(data.deselectRowMeta);
-      data.metadataRowMeta = data.deselectRowMeta.clone();
-      meta.getMetadataFields(data.metadataRowMeta, getTransformName(), this);
+      determineOutputMeta();
     }
 
     try {
@@ -434,6 +465,144 @@ public class SelectValues extends BaseTransform<SelectValuesMeta, SelectValuesDa
     return true;
   }
 
+  @Override
+  public void processBatch(RowBatch batch) throws HopException {
+    if (first) {
+      first = false;
+      determineOutputMeta();
+    }
+    int nrRows = batch.size();
+
+    // Selecting, re-ordering and removing fields only moves whole columns around
+    //
+    if (data.select) {
+      if (data.firstselect) {
+        data.firstselect = false;
+        if (!initSelect(getInputRowMeta())) {
+          return;
+        }
+      }
+      selectColumns(getInputRowMeta(), batch);
+    }
+    if (data.deselect) {
+      if (data.firstdeselect) {
+        data.firstdeselect = false;
+        if (!initRemove(data.selectRowMeta)) {
+          return;
+        }
+      }
+      removeColumns(batch);
+    }
+    if (data.metadata) {
+      if (data.firstmetadata) {
+        data.firstmetadata = false;
+        if (!initMetadata(data.deselectRowMeta)) {
+          return;
+        }
+      }
+      metadataColumns(data.deselectRowMeta, batch);
+    }
+
+    putBatch(data.metadataRowMeta, batch);
+
+    if (checkFeedback(getLinesRead(), nrRows)) {
+      logBasic(BaseMessages.getString(PKG, "SelectValues.Log.LineNumber") + getLinesRead());
+    }
+  }
+
+  /** The output metadata of the 3 stages: select, remove and change metadata. */
+  private void determineOutputMeta() throws HopException {
+    data.selectRowMeta = getInputRowMeta().clone();
+    meta.getSelectFields(data.selectRowMeta, getTransformName());
+    data.deselectRowMeta = data.selectRowMeta.clone();
+    meta.getDeleteFields(data.deselectRowMeta);
+    data.metadataRowMeta = data.deselectRowMeta.clone();
+    meta.getMetadataFields(data.metadataRowMeta, getTransformName(), this);
+  }
+
+  /**
+   * Select the fields in a batch. Just like for single rows, a field which is selected more than
+   * once gets a copy of the values.
+   */
+  private void selectColumns(IRowMeta rowMeta, RowBatch batch) throws HopValueException {
+    int[] columns = new int[data.fieldnrs.length + data.extraFieldnrs.length];
+    System.arraycopy(data.fieldnrs, 0, columns, 0, data.fieldnrs.length);
+    System.arraycopy(
+        data.extraFieldnrs, 0, columns, data.fieldnrs.length, data.extraFieldnrs.length);
+    batch.selectColumns(columns);
+
+    boolean[] selected = new boolean[rowMeta.size()];
+    for (int c = 0; c < data.fieldnrs.length; c++) {
+      int index = data.fieldnrs[c];
+      if (selected[index]) {
+        IValueMeta valueMeta = rowMeta.getValueMeta(index);
+        Object[] values = batch.getColumn(c);
+        for (int r = 0; r < batch.size(); r++) {
+          values[r] = valueMeta.cloneValueData(values[r]);
+        }
+      }
+      selected[index] = true;
+    }
+  }
+
+  /** Remove the fields from a batch */
+  private void removeColumns(RowBatch batch) {
+    int nrColumns = batch.getNrColumns();
+    boolean[] removed = new boolean[nrColumns];
+    int nrRemoved = 0;
+    for (int index : data.removenrs) {
+      if (index < nrColumns && !removed[index]) {
+        removed[index] = true;
+        nrRemoved++;
+      }
+    }
+    int[] columns = new int[nrColumns - nrRemoved];
+    for (int c = 0, i = 0; c < nrColumns; c++) {
+      if (!removed[c]) {
+        columns[i++] = c;
+      }
+    }
+    batch.selectColumns(columns);
+  }
+
+  /** Change the data of a batch, one column at a time. */
+  private void metadataColumns(IRowMeta rowMeta, RowBatch batch) throws HopException {
+    for (int i = 0; i < data.metanrs.length; i++) {
+      int index = data.metanrs[i];
+      IValueMeta fromMeta = rowMeta.getValueMeta(index);
+      IValueMeta toMeta = data.metadataRowMeta.getValueMeta(index);
+
+      boolean toNative =
+          fromMeta.isStorageBinaryString()
+              && meta.getMeta()[i].getStorageType() == IValueMeta.STORAGE_TYPE_NORMAL;
+      boolean convert =
+          meta.getMeta()[i].getType() != IValueMeta.TYPE_NONE
+              && fromMeta.getType() != toMeta.getType();
+      if (!toNative && !convert) {
+        continue;
+      }
+
+      Object[] values = batch.getColumn(index);
+      for (int r = 0; r < batch.size(); r++) {
+        try {
+          if (toNative) {
+            values[r] = fromMeta.convertBinaryStringToNativeType((byte[]) values[r]);
+          }
+          if (convert) {
+            values[r] = toMeta.convertData(fromMeta, values[r]);
+          }
+        } catch (HopValueException e) {
+          throw new HopConversionException(
+              e.getMessage(),
+              Collections.singletonList(e),
+              Collections.singletonList(toMeta),
+              batch.getRow(r));
+        }
+      }
+      batch.updateNulls(index);
+    }
+  }
+
   @Override
   public boolean init() {
 
@@ -86,6 +86,11 @@ public class SelectValuesMeta extends BaseTransformMeta<SelectValues, SelectValu
     super(); // allocate BaseTransformMeta
   }
 
+  @Override
+  public boolean isFusable() {
+    return true;
+  }
+
   /**
    * @return Returns the deleteName.
    */
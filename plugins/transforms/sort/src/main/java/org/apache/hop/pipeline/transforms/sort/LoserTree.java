@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A tournament tree of losers to merge sorted sources. Every internal node remembers the source
+ * which lost the match at that node, the overall winner is kept separately. Replacing the winner
+ * with the next element of its source only replays the matches on the path to the root: log2(k)
+ * comparisons per element for k sources. An exhausted source has a null element, which loses
+ * against everything.
+ *
+ * @param <T> the type of the elements
+ */
+public class LoserTree<T> {
+  private final Comparator<? super T> comparator;
+  private final Object[] heads;
+  private final int[] losers;
+  private int winner;
+
+  /**
+   * @param heads the first element of every source, null for an empty source
+   * @param comparator the order of the elements
+   */
+  public LoserTree(List<T> heads, Comparator<? super T> comparator) {
+    this.comparator = comparator;
+    this.heads = heads.toArray();
+    this.losers = new int[Math.max(1, this.heads.length)];
+    this.winner = this.heads.length == 0 ? -1 : play(1);
+  }
+
+  /** Play the matches below the given node, returns the winning source */
+  private int play(int node) {
+    int size = heads.length;
+    if (node >= size) {
+      return node - size;
+    }
+    int left = play(node * 2);
+    int right = play(node * 2 + 1);
+    if (beats(left, right)) {
+      losers[node] = right;
+      return left;
+    }
+    losers[node] = left;
+    return right;
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean beats(int source1, int source2) {
+    T head1 = (T) heads[source1];
+    T head2 = (T) heads[source2];
+    if (head1 == null || head2 == null) {
+      return head2 == null && (head1 != null || source1 < source2);
+    }
+    int cmp = comparator.compare(head1, head2);
+    // Equal elements come out in the order of the sources
+    return cmp < 0 || (cmp == 0 && source1 < source2);
+  }
+
+  /**
+   * @return the smallest element of all sources, null if all sources are exhausted
+   */
+  @SuppressWarnings("unchecked")
+  public T peek() {
+    return winner < 0 ? null : (T) heads[winner];
+  }
+
+  /**
+   * @return the source of the smallest element
+   */
+  public int peekSource() {
+    return winner;
+  }
+
+  /**
+   * @return true if all sources are exhausted
+   */
+  public boolean isEmpty() {
+    return peek() == null;
+  }
+
+  /**
+   * Replace the smallest element with the next element of the same source.
+   *
+   * @param next the next element of the source or null if the source is exhausted
+   */
+  public void replaceTop(T next) {
+    heads[winner] = next;
+    int source = winner;
+    for (int node = (source + heads.length) / 2; node > 0; node /= 2) {
+      if (beats(losers[node], source)) {
+        int loser = losers[node];
+        losers[node] = source;
+        source = loser;
+      }
+    }
+    winner = source;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.row.codec.IRowReader;
+
+/**
+ * Reads the rows of another reader ahead, in blocks, on the threads of an executor. While the
+ * rows of one block are consumed the next block is read and decoded (and decompressed) in the
+ * background. The reader itself is meant to be used by a single thread.
+ */
+public class ReadAheadRowReader implements IRowReader {
+  private final IRowReader rowReader;
+  private final ExecutorService executor;
+  private final int blockSize;
+
+  private Object[][] block;
+  private int position;
+  private Future<Object[][]> nextBlock;
+  private boolean closed;
+
+  /**
+   * Create the reader and start reading the first block.
+   *
+   * @param rowReader the reader to read the rows from, closed when this reader is closed
+   * @param executor the executor to read the blocks with
+   * @param blockSize the number of rows to read at once
+   */
+  public ReadAheadRowReader(IRowReader rowReader, ExecutorService executor, int blockSize) {
+    this.rowReader = rowReader;
+    this.executor = executor;
+    this.blockSize = blockSize;
+    this.block = new Object[0][];
+    this.nextBlock = executor.submit(this::readBlock);
+  }
+
+  private Object[][] readBlock() throws HopFileException {
+    List<Object[]> rows = new ArrayList<>(blockSize);
+    Object[] row;
+    while (rows.size() < blockSize && (row = rowReader.readRow()) != null) {
+      rows.add(row);
+    }
+    return rows.toArray(new Object[0][]);
+  }
+
+  @Override
+  public Object[] readRow() throws HopFileException {
+    if (position == block.length) {
+      if (nextBlock == null) {
+        return null;
+      }
+      block = waitForBlock();
+      position = 0;
+
+      // A short block means the end of the rows was reached
+      if (block.length < blockSize) {
+        nextBlock = null;
+      } else {
+        nextBlock = executor.submit(this::readBlock);
+      }
+      if (block.length == 0) {
+        return null;
+      }
+    }
+    return block[position++];
+  }
+
+  private Object[][] waitForBlock() throws HopFileException {
+    try {
+      return nextBlock.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopFileException("Interrupted while reading rows ahead", e);
+    } catch (ExecutionException e) {
+      nextBlock = null;
+      throw new HopFileException("Error reading rows ahead", e.getCause());
+    }
+  }
+
+  /** Wait for the block which is being read, then close the underlying reader. */
+  @Override
+  public void close() throws HopFileException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (nextBlock != null) {
+      try {
+        waitForBlock();
+      } catch (HopFileException e) {
+        // The rows aren't needed anymore
+      }
+      nextBlock = null;
+    }
+    block = new Object[0][];
+    position = 0;
+    rowReader.close();
+  }
+}
@@ -19,27 +19,34 @@ package org.apache.hop.pipeline.transforms.sort;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionInputStream;
+import org.apache.hop.core.compress.CompressionOutputStream;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopValueException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowSizeEstimator;
+import org.apache.hop.core.row.codec.IRowReader;
+import org.apache.hop.core.row.codec.IRowWriter;
+import org.apache.hop.core.row.codec.RowCodec;
+import org.apache.hop.core.row.codec.SortKeyEncoder;
+import org.apache.hop.core.util.Utils;
 import org.apache.hop.core.vfs.HopVfs;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -52,6 +59,21 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
 
   private static final Class<?> PKG = SortRows.class; // For Translator
 
+  /** The number of rows we reserve memory for at once */
+  private static final int RESERVATION_ROWS = 1000;
+
+  /** Buffers with at least this many rows are sorted using all available cores */
+  private static final int PARALLEL_SORT_THRESHOLD = 50000;
+
+  /** The compression of the temporary files if no compression type is specified */
+  private static final String DEFAULT_COMPRESSION_TYPE = "GZip";
+
+  /** The size of the I/O buffers of the temporary files */
+  private static final int FILE_BUFFER_SIZE = 256 * 1024;
+
+  /** The number of rows read ahead at once from every temporary file during the merge */
+  private static final int READ_AHEAD_ROWS = 1000;
+
   public SortRows(
       TransformMeta transformMeta,
       SortRowsMeta meta,
@@ -71,6 +93,12 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
       }
     }
 
+    // Only the first rows are kept, they never go to disk
+    if (data.topRows != null) {
+      data.topRows.add(new RowTempFile(r, encodeKey(r), 0));
+      return;
+    }
+
     // Save row
     data.buffer.add(r);
 
@@ -100,6 +128,7 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
         data.freeMemoryPctLimit > 0
             && data.freeMemoryPct < data.freeMemoryPctLimit
             && data.buffer.size() >= data.minSortSize;
+    doSort |= !reserveMemory();
     if (log.isDebug()) {
       this.logDebug(
           BaseMessages.getString(
@@ -111,117 +140,203 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     }
   }
 
+  /**
+   * Reserve memory for the rows in the buffer with the memory manager of the pipeline.
+   *
+   * @return false if the buffer should be written to disk to free up memory
+   */
+  private boolean reserveMemory() {
+    if (data.memoryReservation == null) {
+      return true;
+    }
+    data.unreservedRows++;
+    if (data.unreservedRows < RESERVATION_ROWS) {
+      return true;
+    }
+    boolean reserved = data.memoryReservation.reserve(data.unreservedRows * data.rowSize);
+    data.unreservedRows = 0;
+    if (!reserved || data.memoryReservation.isSpillRequested()) {
+      if (log.isDetailed()) {
+        logDetailed(
+            BaseMessages.getString(PKG, "SortRows.Detailed.OutOfMemoryBudget", data.buffer.size()));
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private void releaseMemory() {
+    if (data.memoryReservation != null) {
+      data.memoryReservation.releaseAll();
+      data.unreservedRows = 0;
+    }
+  }
+
   // dump sorted rows from in-memory buffer to fs file
   // clean current buffer
   void sortExternalRows() throws HopException {
+    sortExternalRows(false);
+  }
+
+  private void sortExternalRows(boolean wait) throws HopException {
+    // Only one buffer is written in the background at a time
+    waitForSpill();
+
     // we just recently dump buffer - but there is no new rows came.
     if (data.buffer.isEmpty()) {
       return;
     }
 
+    FileObject fileObject = createTempFile();
+    data.files.add(fileObject); // Remember the files!
+
+    List<Object[]> rows = data.buffer;
+    if (data.sortSize < 0 && rows.size() > data.minSortSize) {
+      data.minSortSize = rows.size(); // if we did it once, we can do
+      // it again.
+
+      // Memory usage goes up over time, even with garbage collection
+      // We need pointers, file handles, etc.
+      // As such, we're going to lower the min sort size a bit
+      //
+      data.minSortSize = (int) Math.round(data.minSortSize * 0.90);
+    }
+
+    if (data.spillExecutor != null && !wait) {
+      // Sort and write the full buffer in the background while we fill the next one.
+      // The memory reserved for it is given back once it's written.
+      //
+      long reservedBytes =
+          data.memoryReservation == null ? 0L : data.memoryReservation.getReservedBytes();
+      data.buffer = new ArrayList<>(rows.size());
+      data.unreservedRows = 0;
+      data.pendingSpill =
+          data.spillExecutor.submit(
+              () -> {
+                int nrRows = writeSortedRows(fileObject, rows);
+                if (data.memoryReservation != null) {
+                  data.memoryReservation.release(reservedBytes);
+                }
+                return nrRows;
+              });
+    } else {
+      // How many records do we have left?
+      data.bufferSizes.add(writeSortedRows(fileObject, rows));
+
+      // Clear the list
+      data.buffer.clear();
+      releaseMemory();
+    }
+
+    // How much memory do we have left?
+    //
+    data.freeMemoryPct = Const.getPercentageFreeMemory();
+    data.freeCounter = 0;
+    if (data.sortSize <= 0 && log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct));
+    }
+
+    data.getBufferIndex = 0;
+  }
+
+  /**
+   * Sort the rows and write them to a temporary file.
+   *
+   * @return the number of rows written, duplicates are left out when only unique rows are passed
+   */
+  private int writeSortedRows(FileObject fileObject, List<Object[]> rows) throws HopException {
     // First sort the rows in buffer[]
-    quickSort(data.buffer);
+    quickSort(rows);
 
     // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
-    int p;
-
     try {
-      FileObject fileObject =
-          HopVfs.createTempFile(meta.getPrefix(), ".tmp", resolve(meta.getDirectory()), variables);
-
-      data.files.add(fileObject); // Remember the files!
-      OutputStream outputStream = HopVfs.getOutputStream(fileObject, false);
-      if (data.compressFiles) {
-        gzos = new GZIPOutputStream(new BufferedOutputStream(outputStream));
-        dos = new DataOutputStream(gzos);
-      } else {
-        dos = new DataOutputStream(new BufferedOutputStream(outputStream, 500000));
-        gzos = null;
-      }
+      IRowWriter rowWriter = RowCodec.createWriter(data.outputRowMeta, openOutput(fileObject));
 
       // Just write the data, nothing else
-      List<Integer> duplicates = new ArrayList<>();
+      int nrRows = 0;
       Object[] previousRow = null;
-      if (meta.isOnlyPassingUniqueRows()) {
-        int index = 0;
-        while (index < data.buffer.size()) {
-          Object[] row = data.buffer.get(index);
-          if (previousRow != null) {
-            int result = data.outputRowMeta.compare(row, previousRow, data.fieldnrs);
-            if (result == 0) {
-              duplicates.add(index);
-              if (log.isRowLevel()) {
-                logRowlevel(
-                    BaseMessages.getString(
-                        PKG,
-                        "SortRows.RowLevel.DuplicateRowRemoved",
-                        data.outputRowMeta.getString(row)));
-              }
-            }
+      for (Object[] row : rows) {
+        if (meta.isOnlyPassingUniqueRows()
+            && previousRow != null
+            && data.outputRowMeta.compare(row, previousRow, data.fieldnrs) == 0) {
+          if (log.isRowLevel()) {
+            logRowlevel(
+                BaseMessages.getString(
+                    PKG,
+                    "SortRows.RowLevel.DuplicateRowRemoved",
+                    data.outputRowMeta.getString(row)));
           }
-          index++;
-          previousRow = row;
-        }
-      }
-
-      // How many records do we have left?
-      data.bufferSizes.add(data.buffer.size() - duplicates.size());
-
-      int duplicatesIndex = 0;
-      for (p = 0; p < data.buffer.size(); p++) {
-        boolean skip = false;
-        if (duplicatesIndex < duplicates.size() && p == duplicates.get(duplicatesIndex)) {
-          skip = true;
-          duplicatesIndex++;
-        }
-        if (!skip) {
-          data.outputRowMeta.writeData(dos, data.buffer.get(p));
+        } else {
+          rowWriter.writeRow(row);
+          nrRows++;
         }
+        previousRow = row;
       }
 
-      if (data.sortSize < 0 && data.buffer.size() > data.minSortSize) {
-        data.minSortSize = data.buffer.size(); // if we did it once, we can do
-        // it again.
-
-        // Memory usage goes up over time, even with garbage collection
-        // We need pointers, file handles, etc.
-        // As such, we're going to lower the min sort size a bit
-        //
-        data.minSortSize = (int) Math.round(data.minSortSize * 0.90);
-      }
-
-      // Clear the list
-      data.buffer.clear();
-
       // Close temp-file
-      dos.close(); // close data stream
-      if (gzos != null) {
-        gzos.close(); // close gzip stream
-      }
-      outputStream.close(); // close file stream
+      rowWriter.close();
 
-      // How much memory do we have left?
-      //
-      data.freeMemoryPct = Const.getPercentageFreeMemory();
-      data.freeCounter = 0;
-      if (data.sortSize <= 0 && log.isDetailed()) {
-        logDetailed(
-            BaseMessages.getString(PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct));
-      }
+      return nrRows;
+    } catch (Exception e) {
+      throw new HopException("Error processing temp-file!", e);
+    }
+  }
 
+  private FileObject createTempFile() throws HopException {
+    try {
+      return HopVfs.createTempFile(
+          meta.getPrefix(), ".tmp", resolve(meta.getDirectory()), variables);
     } catch (Exception e) {
       throw new HopException("Error processing temp-file!", e);
     }
+  }
 
-    data.getBufferIndex = 0;
+  private OutputStream openOutput(FileObject fileObject) throws IOException, HopFileException {
+    OutputStream outputStream =
+        new BufferedOutputStream(HopVfs.getOutputStream(fileObject, false), FILE_BUFFER_SIZE);
+    if (data.compressionProvider == null) {
+      return outputStream;
+    }
+    CompressionOutputStream compressionOutputStream =
+        data.compressionProvider.createOutputStream(outputStream);
+    compressionOutputStream.addEntry(fileObject.getName().getBaseName(), null);
+    return compressionOutputStream;
   }
 
-  private DataInputStream getDataInputStream(GZIPInputStream gzipInputStream) {
-    DataInputStream result = new DataInputStream(gzipInputStream);
-    data.gzis.add(gzipInputStream);
-    return result;
+  private InputStream openInput(FileObject fileObject) throws IOException, HopFileException {
+    InputStream inputStream =
+        new BufferedInputStream(HopVfs.getInputStream(fileObject), FILE_BUFFER_SIZE);
+    if (data.compressionProvider == null) {
+      return inputStream;
+    }
+    CompressionInputStream compressionInputStream =
+        data.compressionProvider.createInputStream(inputStream);
+    compressionInputStream.nextEntry();
+    return compressionInputStream;
+  }
+
+  /** Wait until the buffer which is written in the background is on disk. */
+  private void waitForSpill() throws HopException {
+    if (data.pendingSpill == null) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    try {
+      data.bufferSizes.add(data.pendingSpill.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while writing a temp-file", e);
+    } catch (ExecutionException e) {
+      throw new HopException("Error processing temp-file!", e.getCause());
+    } finally {
+      data.pendingSpill = null;
+    }
+    if (log.isDetailed()) {
+      long waited = System.currentTimeMillis() - start;
+      logDetailed(
+          BaseMessages.getString(PKG, "SortRows.Detailed.WaitingForBackgroundSort", waited));
+    }
   }
 
   // get sorted rows from available files in iterative manner.
@@ -231,48 +346,29 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     Object[] retval;
 
     // Open all files at once and read one row from each file...
-    if (CollectionUtils.isNotEmpty(data.files) && (data.dis.isEmpty() || data.fis.isEmpty())) {
-      if (log.isBasic()) {
-        logBasic(BaseMessages.getString(PKG, "SortRows.Basic.OpeningTempFiles", data.files.size()));
-      }
-
+    if (CollectionUtils.isNotEmpty(data.files) && data.mergeTree == null) {
       try {
-        for (int f = 0; f < data.files.size() && !isStopped(); f++) {
-          FileObject fileObject = data.files.get(f);
-          String filename = HopVfs.getFilename(fileObject);
-          if (log.isDetailed()) {
-            logDetailed(BaseMessages.getString(PKG, "SortRows.Detailed.OpeningTempFile", filename));
-          }
-          InputStream fi = HopVfs.getInputStream(fileObject);
-          DataInputStream di;
-          data.fis.add(fi);
-          if (data.compressFiles) {
-            di = getDataInputStream(new GZIPInputStream(new BufferedInputStream(fi)));
-          } else {
-            di = new DataInputStream(new BufferedInputStream(fi, 50000));
-          }
-          data.dis.add(di);
-
-          // How long is the buffer?
-          int buffersize = data.bufferSizes.get(f);
-
-          if (log.isDetailed()) {
-            logDetailed(
-                BaseMessages.getString(
-                    PKG, "SortRows.Detailed.FromFileExpectingRows", filename, buffersize));
-          }
-
-          if (buffersize > 0) {
-            Object[] row = data.outputRowMeta.readData(di);
-            data.rowbuffer.add(row); // new row from input stream
-            data.tempRows.add(new RowTempFile(row, f));
+        // Stay within the number of files we can read at once
+        int start = 0;
+        while (data.files.size() > data.maxMergeFiles && !isStopped()) {
+          int nrFiles = Math.min(data.maxMergeFiles, data.files.size() - data.maxMergeFiles + 1);
+          if (start + nrFiles > data.files.size()) {
+            start = 0;
           }
+          mergeTempFiles(start, nrFiles);
+          start++;
         }
 
-        // Sort the data row buffer
-        Collections.sort(data.tempRows, data.comparator);
+        if (log.isBasic()) {
+          logBasic(
+              BaseMessages.getString(PKG, "SortRows.Basic.OpeningTempFiles", data.files.size()));
+        }
+        data.mergeTree = openTempFiles(data.files, data.bufferSizes, data.rowReaders);
       } catch (Exception e) {
         logError(BaseMessages.getString(PKG, "SortRows.Error.ErrorReadingBackTempFiles"), e);
+        setErrors(1);
+        stopAll();
+        return null;
       }
     }
 
@@ -288,50 +384,44 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     } else {
       // read from disk processing
 
-      if (data.rowbuffer.isEmpty()) {
+      if (data.mergeTree.isEmpty()) {
         retval = null;
       } else {
-        // We now have "filenr" rows waiting: which one is the smallest?
+        // The tree knows which of the files holds the smallest row
         //
-        if (log.isRowLevel()) {
-          for (int i = 0; i < data.rowbuffer.size() && !isStopped(); i++) {
-            Object[] b = data.rowbuffer.get(i);
-            logRowlevel(
-                BaseMessages.getString(
-                    PKG, "SortRows.RowLevel.PrintRow", i, data.outputRowMeta.getString(b)));
-          }
-        }
-
-        RowTempFile rowTempFile = data.tempRows.remove(0);
+        RowTempFile rowTempFile = data.mergeTree.peek();
         retval = rowTempFile.row;
         int smallest = rowTempFile.fileNumber;
 
-        // now get another Row for position smallest
+        if (log.isRowLevel()) {
+          logRowlevel(
+              BaseMessages.getString(
+                  PKG,
+                  "SortRows.RowLevel.PrintRow",
+                  smallest,
+                  data.outputRowMeta.getString(retval)));
+        }
 
-        FileObject file = data.files.get(smallest);
-        DataInputStream di = data.dis.get(smallest);
-        InputStream fi = data.fis.get(smallest);
+        // now get another Row for position smallest
 
+        IRowReader rowReader = data.rowReaders.get(smallest);
+        Object[] row2;
         try {
-          Object[] row2 = data.outputRowMeta.readData(di);
-          RowTempFile extra = new RowTempFile(row2, smallest);
-
-          int index = Collections.binarySearch(data.tempRows, extra, data.comparator);
-          if (index < 0) {
-            data.tempRows.add(index * (-1) - 1, extra);
-          } else {
-            data.tempRows.add(index, extra);
-          }
-        } catch (HopFileException fe) { // empty file or EOF mostly
-          GZIPInputStream gzfi = (data.compressFiles) ? data.gzis.get(smallest) : null;
+          row2 = rowReader.readRow();
+        } catch (HopFileException e) {
+          throw new HopValueException(e);
+        }
+        if (row2 != null) {
+          data.mergeTree.replaceTop(new RowTempFile(row2, encodeKey(row2), smallest));
+        } else {
+          // All rows of the file were read
+          //
+          data.mergeTree.replaceTop(null);
+          FileObject file = data.files.get(smallest);
           try {
-            di.close();
-            fi.close();
-            if (gzfi != null) {
-              gzfi.close();
-            }
+            rowReader.close();
             file.delete();
-          } catch (IOException e) {
+          } catch (HopFileException | IOException e) {
             logError(
                 BaseMessages.getString(
                     PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString()));
@@ -339,29 +429,98 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
             stopAll();
             return null;
           }
+        }
+      }
+    }
+    return retval;
+  }
+
+  /**
+   * Open the temporary files to merge and read the first row of every file.
+   *
+   * @param files the files to open
+   * @param bufferSizes the number of rows in every file
+   * @param rowReaders receives the readers of the files, in the same order
+   * @return the merge of the rows of all files
+   */
+  private LoserTree<RowTempFile> openTempFiles(
+      List<FileObject> files, List<Integer> bufferSizes, List<IRowReader> rowReaders)
+      throws HopException, IOException {
+    // Start reading ahead in all files before we wait for the first rows
+    for (int f = 0; f < files.size() && !isStopped(); f++) {
+      FileObject fileObject = files.get(f);
+      if (log.isDetailed()) {
+        String filename = HopVfs.getFilename(fileObject);
+        logDetailed(BaseMessages.getString(PKG, "SortRows.Detailed.OpeningTempFile", filename));
+        logDetailed(
+            BaseMessages.getString(
+                PKG, "SortRows.Detailed.FromFileExpectingRows", filename, bufferSizes.get(f)));
+      }
+      IRowReader rowReader = RowCodec.createReader(data.outputRowMeta, openInput(fileObject));
+      rowReaders.add(new ReadAheadRowReader(rowReader, data.readAheadExecutor, READ_AHEAD_ROWS));
+    }
 
-          data.files.remove(smallest);
-          data.dis.remove(smallest);
-          data.fis.remove(smallest);
+    List<RowTempFile> heads = new ArrayList<>(rowReaders.size());
+    for (int f = 0; f < rowReaders.size(); f++) {
+      Object[] row = bufferSizes.get(f) > 0 ? rowReaders.get(f).readRow() : null;
+      heads.add(row == null ? null : new RowTempFile(row, encodeKey(row), f));
+    }
+    return new LoserTree<>(heads, data.comparator);
+  }
 
-          if (gzfi != null) {
-            data.gzis.remove(smallest);
-          }
+  /**
+   * Merge consecutive temporary files into a new one which takes their place, so rows with equal
+   * keys keep their order.
+   *
+   * @param start the index of the first file to merge
+   * @param nrFiles the number of files to merge
+   */
+  private void mergeTempFiles(int start, int nrFiles) throws HopException, IOException {
+    if (log.isDetailed()) {
+      logDetailed(
+          BaseMessages.getString(
+              PKG, "SortRows.Detailed.MergingTempFiles", nrFiles, data.files.size()));
+    }
+    List<FileObject> files = data.files.subList(start, start + nrFiles);
+    List<Integer> bufferSizes = data.bufferSizes.subList(start, start + nrFiles);
 
-          // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
-          //
-          for (RowTempFile rtf : data.tempRows) {
-            if (rtf.fileNumber > smallest) {
-              rtf.fileNumber--;
-            }
-          }
-        } catch (SocketTimeoutException e) {
-          throw new HopValueException(e); // should never happen on local files
+    FileObject fileObject = createTempFile();
+    int nrRows = 0;
+    List<IRowReader> rowReaders = new ArrayList<>(nrFiles);
+    try {
+      try (IRowWriter rowWriter =
+          RowCodec.createWriter(data.outputRowMeta, openOutput(fileObject))) {
+        LoserTree<RowTempFile> mergeTree = openTempFiles(files, bufferSizes, rowReaders);
+        while (!mergeTree.isEmpty() && !isStopped()) {
+          RowTempFile rowTempFile = mergeTree.peek();
+          rowWriter.writeRow(rowTempFile.row);
+          nrRows++;
+
+          Object[] row = rowReaders.get(rowTempFile.fileNumber).readRow();
+          mergeTree.replaceTop(
+              row == null ? null : new RowTempFile(row, encodeKey(row), rowTempFile.fileNumber));
+        }
+      } finally {
+        for (IRowReader rowReader : rowReaders) {
+          rowReader.close();
         }
       }
+    } catch (HopException | IOException | RuntimeException e) {
+      fileObject.delete();
+      throw e;
     }
-    return retval;
+
+    for (FileObject file : files) {
+      file.delete();
+    }
+    files.clear();
+    bufferSizes.clear();
+    data.files.add(start, fileObject);
+    data.bufferSizes.add(start, nrRows);
+  }
+
+  private byte[] encodeKey(Object[] row) throws HopValueException {
+    return data.keyEncoder == null ? null : data.keyEncoder.encode(row);
   }
 
   @Override
@@ -417,6 +576,7 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
       // Metadata
       data.outputRowMeta = inputRowMeta.clone();
       meta.getFields(data.outputRowMeta, getTransformName(), null, null, this, metadataProvider);
+      data.rowSize = RowSizeEstimator.estimateRowSize(data.outputRowMeta);
       data.comparator = new RowTemapFileComparator(data.outputRowMeta, data.fieldnrs);
 
       for (int i = 0; i < meta.getSortFields().size(); i++) {
@@ -442,6 +602,33 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
         i++;
       }
       data.rowComparator = new RowObjectArrayComparator(data.outputRowMeta, data.fieldnrs);
+
+      // Compare normalized keys unless a key field has a type or collation we can't encode
+      if (meta.isNormalizedKeys()) {
+        data.keyEncoder = SortKeyEncoder.create(data.outputRowMeta, data.fieldnrs);
+        if (data.keyEncoder == null && log.isDetailed()) {
+          logDetailed(BaseMessages.getString(PKG, "SortRows.Detailed.RowComparison"));
+        }
+      }
+
+      // With a limit we only keep the first rows of every group
+      if (data.limit > 0) {
+        Comparator<RowTempFile> groupComparator = null;
+        if (data.limitGroupFields > 0) {
+          RowObjectArrayComparator groupRowComparator =
+              new RowObjectArrayComparator(
+                  data.outputRowMeta, Arrays.copyOf(data.fieldnrs, data.limitGroupFields));
+          groupComparator = (o1, o2) -> groupRowComparator.compare(o1.row, o2.row);
+        }
+        data.topRows =
+            new TopRows<>(
+                data.limit, meta.isOnlyPassingUniqueRows(), data.comparator, groupComparator);
+        if (log.isDetailed()) {
+          logDetailed(
+              BaseMessages.getString(
+                  PKG, "SortRows.Detailed.KeepingFirstRows", data.limit, data.limitGroupFields));
+        }
+      }
     } // end if first
 
     // it is not first row and it is null
@@ -567,45 +754,109 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
     //
     data.buffer = new ArrayList<>(5000);
 
-    // Buffer for reading from disk
-    //
-    data.rowbuffer = new ArrayList<>(5000);
-
     data.compressFiles =
         getVariableBoolean(meta.getCompressFilesVariable(), meta.isCompressFiles());
+    if (data.compressFiles) {
+      String compressionType = resolve(meta.getCompressionType());
+      if (Utils.isEmpty(compressionType)) {
+        compressionType = DEFAULT_COMPRESSION_TYPE;
+      }
+      data.compressionProvider =
+          CompressionProviderFactory.getInstance()
+              .createCompressionProviderInstance(compressionType);
+      if (data.compressionProvider == null) {
+        logError(
+            BaseMessages.getString(PKG, "SortRows.Error.UnknownCompressionType", compressionType));
+        return false;
+      }
+    }
 
-    data.tempRows = new ArrayList<>();
+    data.maxMergeFiles = Math.max(2, Const.toInt(getVariable(Const.HOP_SORT_MAX_MERGE_FILES), 128));
+
+    data.limit = Const.toInt(resolve(meta.getLimit()), 0);
+    data.limitGroupFields = Const.toInt(resolve(meta.getLimitGroupFields()), 0);
+    if (data.limitGroupFields < 0 || data.limitGroupFields > meta.getSortFields().size()) {
+      logError(
+          BaseMessages.getString(
+              PKG,
+              "SortRows.Error.InvalidLimitGroupFields",
+              data.limitGroupFields,
+              meta.getSortFields().size()));
+      return false;
+    }
 
     data.minSortSize = 5000;
 
+    data.memoryReservation = createMemoryReservation();
+
+    String threadName = "Sort Rows: " + getTransformName() + "." + getCopy();
+    data.parallelSort = meta.isParallelSort();
+    if (meta.isParallelSort()) {
+      data.spillExecutor =
+          Executors.newSingleThreadExecutor(runnable -> newThread(runnable, threadName));
+    }
+
+    // The threads are only started when temporary files are merged
+    int nrReadAheadThreads =
+        Math.min(data.maxMergeFiles, Runtime.getRuntime().availableProcessors());
+    data.readAheadExecutor =
+        Executors.newFixedThreadPool(
+            nrReadAheadThreads, runnable -> newThread(runnable, threadName + " read-ahead"));
+
     return true;
   }
 
+  private static Thread newThread(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
   @Override
   public void dispose() {
     clearBuffers();
+    if (data.spillExecutor != null) {
+      data.spillExecutor.shutdownNow();
+      data.spillExecutor = null;
+    }
+    if (data.readAheadExecutor != null) {
+      data.readAheadExecutor.shutdownNow();
+      data.readAheadExecutor = null;
+    }
+    if (data.memoryReservation != null) {
+      data.memoryReservation.close();
+      data.memoryReservation = null;
+    }
     super.dispose();
   }
 
   private void clearBuffers() {
 
+    // Let the background sort finish before removing its file
+    if (data.pendingSpill != null) {
+      try {
+        waitForSpill();
+      } catch (HopException e) {
+        // Ignore errors, the file is removed anyway
+      }
+    }
+
     // Clean out the sort buffer
     data.buffer.clear();
+    releaseMemory();
     data.getBufferIndex = 0;
-    data.rowbuffer.clear();
+    data.mergeTree = null;
 
-    // close any open DataInputStream objects
-    if (CollectionUtils.isNotEmpty(data.dis)) {
-      for (DataInputStream dis : data.dis) {
-        BaseTransform.closeQuietly(dis);
-      }
-    }
-    // close any open InputStream objects
-    if (CollectionUtils.isNotEmpty(data.fis)) {
-      for (InputStream is : data.fis) {
-        BaseTransform.closeQuietly(is);
+    // close any open temporary files
+    for (IRowReader rowReader : data.rowReaders) {
+      try {
+        rowReader.close();
+      } catch (HopFileException e) {
+        // Ignore errors on close
       }
     }
+    data.rowReaders.clear();
+    data.bufferSizes.clear();
     // remove temp files
     for (int f = 0; f < data.files.size(); f++) {
       FileObject fileToDelete = data.files.get(f);
@@ -617,12 +868,40 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
         logError(e.getLocalizedMessage(), e);
       }
     }
+    data.files.clear();
   }
 
   /** Sort the entire vector, if it is not empty. */
-  void quickSort(List<Object[]> elements) {
+  void quickSort(List<Object[]> elements) throws HopValueException {
     if (CollectionUtils.isNotEmpty(elements)) {
-      Collections.sort(elements, data.rowComparator);
+      boolean parallel = data.parallelSort && elements.size() >= PARALLEL_SORT_THRESHOLD;
+      if (data.keyEncoder != null) {
+        // Encode the keys once and sort on plain byte comparisons
+        //
+        KeyedRow[] keyedRows = new KeyedRow[elements.size()];
+        for (int i = 0; i < keyedRows.length; i++) {
+          Object[] row = elements.get(i);
+          keyedRows[i] = new KeyedRow(data.keyEncoder.encode(row), row);
+        }
+        if (parallel) {
+          Arrays.parallelSort(keyedRows);
+        } else {
+          Arrays.sort(keyedRows);
+        }
+        for (int i = 0; i < keyedRows.length; i++) {
+          elements.set(i, keyedRows[i].row);
+        }
+      } else if (parallel) {
+        // A parallel merge sort using all available cores
+        //
+        Object[][] rows = elements.toArray(new Object[0][]);
+        Arrays.parallelSort(rows, data.rowComparator);
+        for (int i = 0; i < rows.length; i++) {
+          elements.set(i, rows[i]);
+        }
+      } else {
+        Collections.sort(elements, data.rowComparator);
+      }
 
       long nrConversions = 0L;
       for (IValueMeta valueMeta : data.outputRowMeta.getValueMetaList()) {
@@ -663,9 +942,14 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
   }
 
   private void preSortBeforeFlush() throws HopException {
-    if (data.files.size() > 0) {
+    if (data.topRows != null) {
+      // The first rows are kept in sort order
+      for (RowTempFile rowTempFile : data.topRows.removeAll()) {
+        data.buffer.add(rowTempFile.row);
+      }
+    } else if (data.files.size() > 0) {
       // dump to dist and then read from disk
-      sortExternalRows();
+      sortExternalRows(true);
     } else {
       // sort in memory
       quickSort(data.buffer);
@@ -707,6 +991,9 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
 
     @Override
     public int compare(RowTempFile o1, RowTempFile o2) {
+      if (o1.key != null && o2.key != null) {
+        return SortKeyEncoder.compare(o1.key, o2.key);
+      }
       try {
         return rowMeta.compare(o1.row, o2.row, fieldNrs);
       } catch (HopValueException e) {
@@ -732,4 +1019,20 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> {
       }
     }
   }
+
+  /** A row with its normalized sort key */
+  private static final class KeyedRow implements Comparable<KeyedRow> {
+    private final byte[] key;
+    private final Object[] row;
+
+    KeyedRow(byte[] key, Object[] row) {
+      this.key = key;
+      this.row = row;
+    }
+
+    @Override
+    public int compareTo(KeyedRow other) {
+      return SortKeyEncoder.compare(key, other.key);
+    }
+  }
 }
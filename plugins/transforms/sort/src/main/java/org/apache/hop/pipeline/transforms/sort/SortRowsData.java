@@ -17,14 +17,17 @@
 
 package org.apache.hop.pipeline.transforms.sort;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.ICompressionProvider;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.codec.IRowReader;
+import org.apache.hop.core.row.codec.SortKeyEncoder;
+import org.apache.hop.pipeline.memory.MemoryReservation;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
@@ -34,32 +37,70 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
   public List<Object[]> buffer;
   public int getBufferIndex;
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
-  public List<Object[]> rowbuffer;
+  /** The readers of the temporary files, in the same order as the files */
+  public List<IRowReader> rowReaders;
+
   public List<Integer> bufferSizes;
 
-  // To store rows and file references
-  public List<RowTempFile> tempRows;
+  /** Merges the rows of the temporary files, null if they're not being merged */
+  public LoserTree<RowTempFile> mergeTree;
+
+  /** Reads the rows of the temporary files ahead while they're merged */
+  public ExecutorService readAheadExecutor;
+
+  /** The maximum number of temporary files to merge at once */
+  public int maxMergeFiles;
 
   public int[] fieldnrs; // the corresponding field numbers
   public FileObject fil;
   public IRowMeta outputRowMeta;
   public int sortSize;
   public boolean compressFiles;
+
+  /** Compresses the temporary files, null if they're not compressed */
+  public ICompressionProvider compressionProvider;
+
+  /** The maximum number of rows to pass per group, 0 if there's no limit */
+  public int limit;
+
+  /** The number of leading sort fields which form the groups the limit applies to */
+  public int limitGroupFields;
+
+  /** Keeps the first rows in memory if there's a limit, null otherwise */
+  public TopRows<RowTempFile> topRows;
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
   Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
 
+  /**
+   * Encodes the sort keys into normalized keys, null if they can't be encoded. It's used by one
+   * thread at a time: the background sort is finished before the temporary files are merged.
+   */
+  public SortKeyEncoder keyEncoder;
+
   public int freeCounter;
   public int freeMemoryPct;
   public int minSortSize;
   public int freeMemoryPctLimit;
   public int memoryReporting;
 
+  /** The memory reserved for the rows in the buffer, null if the pipeline doesn't manage memory */
+  public MemoryReservation memoryReservation;
+
+  public long rowSize;
+  public int unreservedRows;
+
+  /** Use a parallel merge sort for large buffers */
+  public boolean parallelSort;
+
+  /** Sorts and writes full buffers to disk in the background, null if not enabled */
+  public ExecutorService spillExecutor;
+
+  /** The number of rows written to the last temporary file, while it's still being written */
+  public Future<Integer> pendingSpill;
+
   /*
    * Group Fields Implementation heroic
    */
@@ -71,9 +112,7 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
     super();
 
     files = new ArrayList<>();
-    fis = new ArrayList<>();
-    gzis = new ArrayList<>();
-    dis = new ArrayList<>();
+    rowReaders = new ArrayList<>();
     bufferSizes = new ArrayList<>();
 
     previous = null; // Heroic
@@ -20,6 +20,7 @@ package org.apache.hop.pipeline.transforms.sort;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.util.Utils;
@@ -33,6 +34,7 @@ import org.apache.hop.ui.core.dialog.BaseDialog;
 import org.apache.hop.ui.core.dialog.ErrorDialog;
 import org.apache.hop.ui.core.widget.CheckBoxVar;
 import org.apache.hop.ui.core.widget.ColumnInfo;
+import org.apache.hop.ui.core.widget.ComboVar;
 import org.apache.hop.ui.core.widget.TableView;
 import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
@@ -66,8 +68,17 @@ public class SortRowsDialog extends BaseTransformDialog {
 
   private CheckBoxVar wCompress;
 
+  private ComboVar wCompressionType;
+
   private Button wUniqueRows;
 
+  private Button wParallelSort;
+  private Button wNormalizedKeys;
+
+  private TextVar wLimit;
+
+  private TextVar wLimitGroupFields;
+
   private TableView wFields;
 
   private final SortRowsMeta input;
@@ -236,14 +247,36 @@ public class SortRowsDialog extends BaseTransformDialog {
           }
         });
 
-    // Using compression for temporary files?
+    // Which compression for temporary files?
+    Label wlCompressionType = new Label(shell, SWT.RIGHT);
+    wlCompressionType.setText(BaseMessages.getString(PKG, "SortRowsDialog.CompressionType.Label"));
+    PropsUi.setLook(wlCompressionType);
+    FormData fdlCompressionType = new FormData();
+    fdlCompressionType.left = new FormAttachment(0, 0);
+    fdlCompressionType.right = new FormAttachment(middle, -margin);
+    fdlCompressionType.top = new FormAttachment(wCompress, margin);
+    wlCompressionType.setLayoutData(fdlCompressionType);
+    wCompressionType = new ComboVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wCompressionType.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.CompressionType.Tooltip"));
+    wCompressionType.setItems(
+        CompressionProviderFactory.getInstance().getCompressionProviderNames());
+    PropsUi.setLook(wCompressionType);
+    wCompressionType.addModifyListener(lsMod);
+    FormData fdCompressionType = new FormData();
+    fdCompressionType.left = new FormAttachment(middle, 0);
+    fdCompressionType.top = new FormAttachment(wlCompressionType, 0, SWT.CENTER);
+    fdCompressionType.right = new FormAttachment(100, 0);
+    wCompressionType.setLayoutData(fdCompressionType);
+
+    // Only pass unique rows?
     Label wlUniqueRows = new Label(shell, SWT.RIGHT);
     wlUniqueRows.setText(BaseMessages.getString(PKG, "SortRowsDialog.UniqueRows.Label"));
     PropsUi.setLook(wlUniqueRows);
     FormData fdlUniqueRows = new FormData();
     fdlUniqueRows.left = new FormAttachment(0, 0);
     fdlUniqueRows.right = new FormAttachment(middle, -margin);
-    fdlUniqueRows.top = new FormAttachment(wCompress, margin);
+    fdlUniqueRows.top = new FormAttachment(wCompressionType, margin);
     wlUniqueRows.setLayoutData(fdlUniqueRows);
     wUniqueRows = new Button(shell, SWT.CHECK);
     wUniqueRows.setToolTipText(BaseMessages.getString(PKG, "SortRowsDialog.UniqueRows.Tooltip"));
@@ -255,6 +288,86 @@ public class SortRowsDialog extends BaseTransformDialog {
     wUniqueRows.setLayoutData(fdUniqueRows);
     wUniqueRows.addSelectionListener(new ComponentSelectionListener(input));
 
+    // Sort and write temporary files in the background?
+    Label wlParallelSort = new Label(shell, SWT.RIGHT);
+    wlParallelSort.setText(BaseMessages.getString(PKG, "SortRowsDialog.ParallelSort.Label"));
+    PropsUi.setLook(wlParallelSort);
+    FormData fdlParallelSort = new FormData();
+    fdlParallelSort.left = new FormAttachment(0, 0);
+    fdlParallelSort.right = new FormAttachment(middle, -margin);
+    fdlParallelSort.top = new FormAttachment(wUniqueRows, margin);
+    wlParallelSort.setLayoutData(fdlParallelSort);
+    wParallelSort = new Button(shell, SWT.CHECK);
+    wParallelSort.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.ParallelSort.Tooltip"));
+    PropsUi.setLook(wParallelSort);
+    FormData fdParallelSort = new FormData();
+    fdParallelSort.left = new FormAttachment(middle, 0);
+    fdParallelSort.top = new FormAttachment(wlParallelSort, 0, SWT.CENTER);
+    fdParallelSort.right = new FormAttachment(100, 0);
+    wParallelSort.setLayoutData(fdParallelSort);
+    wParallelSort.addSelectionListener(new ComponentSelectionListener(input));
+
+    // Compare binary keys encoded from the sort fields?
+    Label wlNormalizedKeys = new Label(shell, SWT.RIGHT);
+    wlNormalizedKeys.setText(BaseMessages.getString(PKG, "SortRowsDialog.NormalizedKeys.Label"));
+    PropsUi.setLook(wlNormalizedKeys);
+    FormData fdlNormalizedKeys = new FormData();
+    fdlNormalizedKeys.left = new FormAttachment(0, 0);
+    fdlNormalizedKeys.right = new FormAttachment(middle, -margin);
+    fdlNormalizedKeys.top = new FormAttachment(wParallelSort, margin);
+    wlNormalizedKeys.setLayoutData(fdlNormalizedKeys);
+    wNormalizedKeys = new Button(shell, SWT.CHECK);
+    wNormalizedKeys.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.NormalizedKeys.Tooltip"));
+    PropsUi.setLook(wNormalizedKeys);
+    FormData fdNormalizedKeys = new FormData();
+    fdNormalizedKeys.left = new FormAttachment(middle, 0);
+    fdNormalizedKeys.top = new FormAttachment(wlNormalizedKeys, 0, SWT.CENTER);
+    fdNormalizedKeys.right = new FormAttachment(100, 0);
+    wNormalizedKeys.setLayoutData(fdNormalizedKeys);
+    wNormalizedKeys.addSelectionListener(new ComponentSelectionListener(input));
+
+    // Only pass the first rows?
+    Label wlLimit = new Label(shell, SWT.RIGHT);
+    wlLimit.setText(BaseMessages.getString(PKG, "SortRowsDialog.Limit.Label"));
+    PropsUi.setLook(wlLimit);
+    FormData fdlLimit = new FormData();
+    fdlLimit.left = new FormAttachment(0, 0);
+    fdlLimit.right = new FormAttachment(middle, -margin);
+    fdlLimit.top = new FormAttachment(wNormalizedKeys, margin * 2);
+    wlLimit.setLayoutData(fdlLimit);
+    wLimit = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wLimit.setToolTipText(BaseMessages.getString(PKG, "SortRowsDialog.Limit.Tooltip"));
+    PropsUi.setLook(wLimit);
+    wLimit.addModifyListener(lsMod);
+    FormData fdLimit = new FormData();
+    fdLimit.left = new FormAttachment(middle, 0);
+    fdLimit.top = new FormAttachment(wNormalizedKeys, margin * 2);
+    fdLimit.right = new FormAttachment(100, 0);
+    wLimit.setLayoutData(fdLimit);
+
+    // The first rows of every group of the leading sort fields
+    Label wlLimitGroupFields = new Label(shell, SWT.RIGHT);
+    wlLimitGroupFields.setText(
+        BaseMessages.getString(PKG, "SortRowsDialog.LimitGroupFields.Label"));
+    PropsUi.setLook(wlLimitGroupFields);
+    FormData fdlLimitGroupFields = new FormData();
+    fdlLimitGroupFields.left = new FormAttachment(0, 0);
+    fdlLimitGroupFields.right = new FormAttachment(middle, -margin);
+    fdlLimitGroupFields.top = new FormAttachment(wLimit, margin * 2);
+    wlLimitGroupFields.setLayoutData(fdlLimitGroupFields);
+    wLimitGroupFields = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    wLimitGroupFields.setToolTipText(
+        BaseMessages.getString(PKG, "SortRowsDialog.LimitGroupFields.Tooltip"));
+    PropsUi.setLook(wLimitGroupFields);
+    wLimitGroupFields.addModifyListener(lsMod);
+    FormData fdLimitGroupFields = new FormData();
+    fdLimitGroupFields.left = new FormAttachment(middle, 0);
+    fdLimitGroupFields.top = new FormAttachment(wLimit, margin * 2);
+    fdLimitGroupFields.right = new FormAttachment(100, 0);
+    wLimitGroupFields.setLayoutData(fdLimitGroupFields);
+
     wOk = new Button(shell, SWT.PUSH);
     wOk.setText(BaseMessages.getString(PKG, "System.Button.OK"));
     wOk.addListener(SWT.Selection, e -> ok());
@@ -272,7 +385,7 @@ public class SortRowsDialog extends BaseTransformDialog {
     PropsUi.setLook(wlFields);
     FormData fdlFields = new FormData();
     fdlFields.left = new FormAttachment(0, 0);
-    fdlFields.top = new FormAttachment(wUniqueRows, margin);
+    fdlFields.top = new FormAttachment(wLimitGroupFields, margin);
     wlFields.setLayoutData(fdlFields);
 
     final int FieldsRows = input.getSortFields().size();
@@ -399,7 +512,12 @@ public class SortRowsDialog extends BaseTransformDialog {
     wFreeMemory.setText(Const.NVL(input.getFreeMemoryLimit(), ""));
     wCompress.setSelection(input.isCompressFiles());
     wCompress.setVariableName(input.getCompressFilesVariable());
+    wCompressionType.setText(Const.NVL(input.getCompressionType(), ""));
     wUniqueRows.setSelection(input.isOnlyPassingUniqueRows());
+    wParallelSort.setSelection(input.isParallelSort());
+    wNormalizedKeys.setSelection(input.isNormalizedKeys());
+    wLimit.setText(Const.NVL(input.getLimit(), ""));
+    wLimitGroupFields.setText(Const.NVL(input.getLimitGroupFields(), ""));
 
     Table table = wFields.table;
     if (input.getSortFields().size() > 0) {
@@ -465,7 +583,12 @@ public class SortRowsDialog extends BaseTransformDialog {
     log.logDetailed("Sort rows", "Compression is set to " + wCompress.getSelection());
     input.setCompressFiles(wCompress.getSelection());
     input.setCompressFilesVariable(wCompress.getVariableName());
+    input.setCompressionType(wCompressionType.getText());
     input.setOnlyPassingUniqueRows(wUniqueRows.getSelection());
+    input.setParallelSort(wParallelSort.getSelection());
+    input.setNormalizedKeys(wNormalizedKeys.getSelection());
+    input.setLimit(wLimit.getText());
+    input.setLimitGroupFields(wLimitGroupFields.getText());
 
     int nrFields = wFields.nrNonEmpty();
 
@@ -91,6 +91,29 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData>
   @HopMetadataProperty(key = "compress_variables", injectionKey = "COMPRESS_VARIABLE")
   private String compressFilesVariable;
 
+  /** The name of the compression provider for the temporary files, GZip if not set */
+  @HopMetadataProperty(key = "compression_type", injectionKey = "COMPRESSION_TYPE")
+  private String compressionType;
+
+  /**
+   * Sort and write full buffers to temporary files on a background thread while the next buffer is
+   * filled. Large buffers are sorted with a parallel merge sort.
+   */
+  @HopMetadataProperty(key = "parallel_sort", injectionKey = "PARALLEL_SORT")
+  private boolean parallelSort;
+
+  /** Encode the sort fields of every row into a binary key and compare the keys byte by byte */
+  @HopMetadataProperty(key = "normalized_keys", injectionKey = "NORMALIZED_KEYS")
+  private boolean normalizedKeys;
+
+  /** Only pass this many rows, per group if limit group fields are set. No limit if empty or 0 */
+  @HopMetadataProperty(key = "limit", injectionKey = "LIMIT")
+  private String limit;
+
+  /** The number of leading sort fields which form the groups the limit applies to */
+  @HopMetadataProperty(key = "limit_group_fields", injectionKey = "LIMIT_GROUP_FIELDS")
+  private String limitGroupFields;
+
   private List<SortRowsField> groupFields;
 
   public SortRowsMeta() {
@@ -148,7 +171,12 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData>
     freeMemoryLimit = null;
     compressFiles = false;
     compressFilesVariable = null;
+    compressionType = "LZ4";
     onlyPassingUniqueRows = false;
+    parallelSort = false;
+    normalizedKeys = false;
+    limit = null;
+    limitGroupFields = null;
 
     int nrFields = 0;
   }
@@ -378,6 +406,77 @@ public class SortRowsMeta extends BaseTransformMeta<SortRows, SortRowsData>
     this.compressFilesVariable = compressFilesVariable;
   }
 
+  /**
+   * @return the name of the compression provider for the temporary files
+   */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /**
+   * @param compressionType the name of the compression provider for the temporary files
+   */
+  public void setCompressionType(String compressionType) {
+    this.compressionType = compressionType;
+  }
+
+  /**
+   * @return true if full buffers are sorted and written to disk in the background
+   */
+  public boolean isParallelSort() {
+    return parallelSort;
+  }
+
+  /**
+   * @param parallelSort true to sort and write full buffers to disk in the background
+   */
+  public void setParallelSort(boolean parallelSort) {
+    this.parallelSort = parallelSort;
+  }
+
+  /**
+   * @return true if the rows are compared on binary keys encoded from the sort fields
+   */
+  public boolean isNormalizedKeys() {
+    return normalizedKeys;
+  }
+
+  /**
+   * @param normalizedKeys true to compare the rows on binary keys encoded from the sort fields
+   */
+  public void setNormalizedKeys(boolean normalizedKeys) {
+    this.normalizedKeys = normalizedKeys;
+  }
+
+  /**
+   * @return the maximum number of rows to pass, per group if limit group fields are set
+   */
+  public String getLimit() {
+    return limit;
+  }
+
+  /**
+   * @param limit the maximum number of rows to pass, per group if limit group fields are set
+   */
+  public void setLimit(String limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * @return the number of leading sort fields which form the groups the limit applies to
+   */
+  public String getLimitGroupFields() {
+    return limitGroupFields;
+  }
+
+  /**
+   * @param limitGroupFields the number of leading sort fields which form the groups the limit
+   *     applies to
+   */
+  public void setLimitGroupFields(String limitGroupFields) {
+    this.limitGroupFields = limitGroupFields;
+  }
+
   /**
    * @return the freeMemoryLimit
    */
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps the first rows in sort order of every group in memory, a bounded number per group. Rows
+ * which can't make it into the first rows are dropped right away, so memory use doesn't depend on
+ * the number of rows added.
+ *
+ * @param <T> the type of the rows
+ */
+public class TopRows<T> {
+
+  private final int limit;
+  private final boolean unique;
+  private final Comparator<? super T> comparator;
+  private final Comparator<Entry<T>> entryComparator;
+
+  /** The first rows of a single group, null if there are groups */
+  private TreeSet<Entry<T>> rows;
+
+  /** The first rows of every group by the first row of the group, null if there are no groups */
+  private final TreeMap<T, TreeSet<Entry<T>>> groups;
+
+  /** The number of rows added so far, equal rows are kept in this order */
+  private long sequence;
+
+  /**
+   * @param limit the maximum number of rows to keep per group
+   * @param unique only keep the first row of equal rows
+   * @param comparator the sort order of the rows
+   * @param groupComparator compares the groups of rows, null to keep the first rows of all rows
+   */
+  public TopRows(
+      int limit,
+      boolean unique,
+      Comparator<? super T> comparator,
+      Comparator<? super T> groupComparator) {
+    this.limit = limit;
+    this.unique = unique;
+    this.comparator = comparator;
+    this.entryComparator =
+        Comparator.<Entry<T>, T>comparing(entry -> entry.row, comparator)
+            .thenComparingLong(entry -> entry.sequence);
+    this.groups = groupComparator == null ? null : new TreeMap<>(groupComparator);
+  }
+
+  /**
+   * Add a row, the row is only kept if it's one of the first rows of its group.
+   *
+   * @param row the row to add
+   */
+  public void add(T row) {
+    TreeSet<Entry<T>> first;
+    if (groups == null) {
+      if (rows == null) {
+        rows = new TreeSet<>(entryComparator);
+      }
+      first = rows;
+    } else {
+      first = groups.computeIfAbsent(row, group -> new TreeSet<>(entryComparator));
+    }
+
+    // Most rows don't make it once the group is full
+    //
+    if (first.size() >= limit && comparator.compare(row, first.last().row) >= 0) {
+      return;
+    }
+    Entry<T> entry = new Entry<>(row, sequence++);
+    if (unique) {
+      Entry<T> previous = first.lower(entry);
+      if (previous != null && comparator.compare(previous.row, row) == 0) {
+        return;
+      }
+    }
+    first.add(entry);
+    if (first.size() > limit) {
+      first.pollLast();
+    }
+  }
+
+  /**
+   * Remove all rows.
+   *
+   * @return the rows which were kept, in sort order and by group
+   */
+  public List<T> removeAll() {
+    List<T> result = new ArrayList<>();
+    if (groups == null) {
+      if (rows != null) {
+        addRows(result, rows);
+      }
+    } else {
+      for (TreeSet<Entry<T>> group : groups.values()) {
+        addRows(result, group);
+      }
+    }
+    rows = null;
+    if (groups != null) {
+      groups.clear();
+    }
+    return result;
+  }
+
+  private static <T> void addRows(List<T> result, Collection<Entry<T>> entries) {
+    for (Entry<T> entry : entries) {
+      result.add(entry.row);
+    }
+  }
+
+  private static final class Entry<T> {
+    private final T row;
+    private final long sequence;
+
+    Entry(T row, long sequence) {
+      this.row = row;
+      this.sequence = sequence;
+    }
+  }
+}
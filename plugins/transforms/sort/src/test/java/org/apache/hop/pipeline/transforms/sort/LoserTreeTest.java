@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class LoserTreeTest {
+
+  @Test
+  public void testMergeSortedLists() {
+    Random random = new Random(42);
+    for (int nrLists = 1; nrLists <= 17; nrLists++) {
+      List<List<Integer>> lists = new ArrayList<>();
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < nrLists; i++) {
+        List<Integer> list = new ArrayList<>();
+        int size = random.nextInt(20);
+        for (int j = 0; j < size; j++) {
+          list.add(random.nextInt(50));
+        }
+        list.sort(Comparator.naturalOrder());
+        lists.add(list);
+        expected.addAll(list);
+      }
+      expected.sort(Comparator.naturalOrder());
+
+      assertEquals(expected, merge(lists));
+    }
+  }
+
+  @Test
+  public void testEqualValuesKeepSourceOrder() {
+    List<int[]> heads = Arrays.asList(new int[] {1, 0}, new int[] {1, 1}, new int[] {0, 2});
+    LoserTree<int[]> tree = new LoserTree<>(heads, Comparator.comparingInt(value -> value[0]));
+
+    assertEquals(2, tree.peekSource());
+    tree.replaceTop(null);
+    assertEquals(0, tree.peekSource());
+    tree.replaceTop(null);
+    assertEquals(1, tree.peekSource());
+    tree.replaceTop(null);
+    assertTrue(tree.isEmpty());
+    assertNull(tree.peek());
+  }
+
+  @Test
+  public void testEmptySources() {
+    LoserTree<Integer> tree = new LoserTree<>(Arrays.asList(null, null), Integer::compare);
+
+    assertTrue(tree.isEmpty());
+  }
+
+  private static List<Integer> merge(List<List<Integer>> lists) {
+    List<Integer> heads = new ArrayList<>();
+    int[] positions = new int[lists.size()];
+    for (List<Integer> list : lists) {
+      heads.add(list.isEmpty() ? null : list.get(0));
+    }
+    LoserTree<Integer> tree = new LoserTree<>(heads, Integer::compare);
+
+    List<Integer> merged = new ArrayList<>();
+    while (!tree.isEmpty()) {
+      merged.add(tree.peek());
+      int source = tree.peekSource();
+      List<Integer> list = lists.get(source);
+      positions[source]++;
+      tree.replaceTop(positions[source] < list.size() ? list.get(positions[source]) : null);
+    }
+    return merged;
+  }
+}
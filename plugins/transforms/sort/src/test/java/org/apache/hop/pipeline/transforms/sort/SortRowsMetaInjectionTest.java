@@ -52,6 +52,11 @@ public class SortRowsMetaInjectionTest extends BaseMetadataInjectionTest<SortRow
     check("COLLATOR_ENABLED", () -> meta.getSortFields().get(0).isCollatorEnabled());
     check("COLLATOR_STRENGTH", () -> meta.getSortFields().get(0).getCollatorStrength());
     check("COMPRESS_VARIABLE", () -> meta.getCompressFilesVariable());
+    check("COMPRESSION_TYPE", () -> meta.getCompressionType());
+    check("PARALLEL_SORT", () -> meta.isParallelSort());
+    check("NORMALIZED_KEYS", () -> meta.isNormalizedKeys());
+    check("LIMIT", () -> meta.getLimit());
+    check("LIMIT_GROUP_FIELDS", () -> meta.getLimitGroupFields());
     //    check("NAME", () -> meta.getFieldName()[0]);
     //    check("SORT_ASCENDING", () -> meta.getAscending()[0]);
     //    check("IGNORE_CASE", () -> meta.getCaseSensitive()[0]);
@@ -55,7 +55,11 @@ public class SortRowsMetaTest {
             "FreeMemoryLimit",
             "CompressFiles",
             "CompressFilesVariable",
+            "CompressionType",
             "OnlyPassingUniqueRows",
+            "NormalizedKeys",
+            "Limit",
+            "LimitGroupFields",
             "SortFields");
 
     Map<String, String> getterMap = new HashMap<>();
@@ -72,7 +76,11 @@ public class SortRowsMetaTest {
     fieldLoadSaveValidatorAttributeMap.put("FreeMemoryLimit", stringFieldLoadSaveValidator);
     fieldLoadSaveValidatorAttributeMap.put("CompressFiles", booleanFieldLoadSaveValidator);
     fieldLoadSaveValidatorAttributeMap.put("CompressFilesVariable", stringFieldLoadSaveValidator);
+    fieldLoadSaveValidatorAttributeMap.put("CompressionType", stringFieldLoadSaveValidator);
     fieldLoadSaveValidatorAttributeMap.put("OnlyPassingUniqueRows", booleanFieldLoadSaveValidator);
+    fieldLoadSaveValidatorAttributeMap.put("NormalizedKeys", booleanFieldLoadSaveValidator);
+    fieldLoadSaveValidatorAttributeMap.put("Limit", stringFieldLoadSaveValidator);
+    fieldLoadSaveValidatorAttributeMap.put("LimitGroupFields", stringFieldLoadSaveValidator);
 
     LoadSaveTester<SortRowsMeta> loadSaveTester =
         new LoadSaveTester<>(
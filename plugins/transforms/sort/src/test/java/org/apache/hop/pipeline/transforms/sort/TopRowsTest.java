@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TopRowsTest {
+
+  @Test
+  public void testFirstRows() {
+    Random random = new Random(42);
+    List<Integer> rows = new ArrayList<>();
+    TopRows<Integer> topRows = new TopRows<>(10, false, Integer::compare, null);
+    for (int i = 0; i < 1000; i++) {
+      int row = random.nextInt(100);
+      rows.add(row);
+      topRows.add(row);
+    }
+    rows.sort(Comparator.naturalOrder());
+
+    assertEquals(rows.subList(0, 10), topRows.removeAll());
+    assertTrue(topRows.removeAll().isEmpty());
+  }
+
+  @Test
+  public void testEqualRowsKeepTheirOrder() {
+    // Compare the first value only, the second one is the order of the rows
+    TopRows<int[]> topRows =
+        new TopRows<>(3, false, Comparator.comparingInt(row -> row[0]), null);
+    topRows.add(new int[] {2, 0});
+    topRows.add(new int[] {1, 1});
+    topRows.add(new int[] {2, 2});
+    topRows.add(new int[] {1, 3});
+    topRows.add(new int[] {2, 4});
+
+    List<int[]> first = topRows.removeAll();
+
+    assertEquals(3, first.size());
+    assertEquals(1, first.get(0)[1]);
+    assertEquals(3, first.get(1)[1]);
+    assertEquals(0, first.get(2)[1]);
+  }
+
+  @Test
+  public void testUniqueRows() {
+    TopRows<Integer> topRows = new TopRows<>(3, true, Integer::compare, null);
+    for (int row : new int[] {5, 1, 1, 4, 1, 2, 5}) {
+      topRows.add(row);
+    }
+
+    assertEquals(Arrays.asList(1, 2, 4), topRows.removeAll());
+  }
+
+  @Test
+  public void testFirstRowsPerGroup() {
+    // Group on the tens, sort on the whole number
+    TopRows<Integer> topRows =
+        new TopRows<>(2, false, Integer::compare, Comparator.comparingInt(row -> row / 10));
+    for (int row : new int[] {35, 12, 31, 17, 33, 11, 20, 14}) {
+      topRows.add(row);
+    }
+
+    assertEquals(Arrays.asList(11, 12, 20, 31, 33), topRows.removeAll());
+  }
+}
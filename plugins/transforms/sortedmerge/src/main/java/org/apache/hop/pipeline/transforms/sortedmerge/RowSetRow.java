@@ -24,6 +24,7 @@ public class RowSetRow {
   private IRowSet rowSet;
   private IRowMeta rowMeta;
   private Object[] rowData;
+  private byte[] key;
 
   /**
    * @param rowSet
@@ -36,6 +37,17 @@ public class RowSetRow {
     this.rowData = rowData;
   }
 
+  /**
+   * @param rowSet
+   * @param rowMeta
+   * @param rowData
+   * @param key the normalized sort key of the row or null to compare the key fields
+   */
+  public RowSetRow(IRowSet rowSet, IRowMeta rowMeta, Object[] rowData, byte[] key) {
+    this(rowSet, rowMeta, rowData);
+    this.key = key;
+  }
+
   /**
    * @return the rowSet
    */
@@ -77,4 +89,18 @@ public class RowSetRow {
   public void setRowMeta(IRowMeta rowMeta) {
     this.rowMeta = rowMeta;
   }
+
+  /**
+   * @return the normalized sort key of the row or null if the key fields are compared
+   */
+  public byte[] getKey() {
+    return key;
+  }
+
+  /**
+   * @param key the normalized sort key to set
+   */
+  public void setKey(byte[] key) {
+    this.key = key;
+  }
 }
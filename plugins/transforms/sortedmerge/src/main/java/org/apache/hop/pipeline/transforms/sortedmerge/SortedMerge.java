@@ -19,11 +19,14 @@ package org.apache.hop.pipeline.transforms.sortedmerge;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.codec.SortKeyEncoder;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
@@ -61,6 +64,7 @@ public class SortedMerge extends BaseTransform<SortedMergeMeta, SortedMergeData>
       //
       data.sortedBuffer = new ArrayList<>();
       data.rowMeta = null;
+      data.keyEncoders = meta.isNormalizedKeys() ? new HashMap<>() : null;
 
       // If one of the inputRowSets holds a null row (the input yields
       // 0 rows), then the null rowSet is removed from the InputRowSet buffer..
@@ -74,10 +78,6 @@ public class SortedMerge extends BaseTransform<SortedMergeMeta, SortedMergeData>
         IRowSet rowSet = inputRowSets.get(i);
         Object[] row = getRowFrom(rowSet);
         if (row != null) {
-          // Add this row to the sortedBuffer...
-          // Which is not yet sorted, we'll get to that later.
-          //
-          data.sortedBuffer.add(new RowSetRow(rowSet, rowSet.getRowMeta(), row));
           if (data.rowMeta == null) {
             data.rowMeta = rowSet.getRowMeta().clone();
           }
@@ -105,10 +105,21 @@ public class SortedMerge extends BaseTransform<SortedMergeMeta, SortedMergeData>
                   .setSortedDescending(!meta.getAscending()[f]);
             }
           }
+
+          createKeyEncoder(rowSet);
+
+          // Add this row to the sortedBuffer...
+          // Which is not yet sorted, we'll get to that later.
+          //
+          data.sortedBuffer.add(
+              new RowSetRow(rowSet, rowSet.getRowMeta(), row, encodeKey(rowSet, row)));
         }
 
         data.comparator =
             (o1, o2) -> {
+              if (o1.getKey() != null && o2.getKey() != null) {
+                return SortKeyEncoder.compare(o1.getKey(), o2.getKey());
+              }
               try {
                 return o1.getRowMeta().compare(o1.getRowData(), o2.getRowData(), data.fieldIndices);
               } catch (HopValueException e) {
@@ -146,8 +157,9 @@ public class SortedMerge extends BaseTransform<SortedMergeMeta, SortedMergeData>
     if (extraRow != null) {
       // Add this one to the sortedBuffer
       //
+      IRowSet rowSet = smallestRow.getRowSet();
       RowSetRow add =
-          new RowSetRow(smallestRow.getRowSet(), smallestRow.getRowSet().getRowMeta(), extraRow);
+          new RowSetRow(rowSet, rowSet.getRowMeta(), extraRow, encodeKey(rowSet, extraRow));
       int index = Collections.binarySearch(data.sortedBuffer, add, data.comparator);
       if (index < 0) {
         data.sortedBuffer.add(-index - 1, add);
@@ -170,6 +182,40 @@ public class SortedMerge extends BaseTransform<SortedMergeMeta, SortedMergeData>
     return outputRowData;
   }
 
+  /**
+   * Create the normalized key encoder for the rows of an input. If the keys of one input can't be
+   * encoded, the rows of all inputs are compared field by field.
+   */
+  private void createKeyEncoder(IRowSet rowSet) {
+    if (data.keyEncoders == null) {
+      return;
+    }
+    IRowMeta sortRowMeta = rowSet.getRowMeta().clone();
+    for (int f = 0; f < data.fieldIndices.length; f++) {
+      sortRowMeta.getValueMeta(data.fieldIndices[f]).setSortedDescending(!meta.getAscending()[f]);
+    }
+    SortKeyEncoder keyEncoder = SortKeyEncoder.create(sortRowMeta, data.fieldIndices);
+    if (keyEncoder != null) {
+      data.keyEncoders.put(rowSet, keyEncoder);
+      return;
+    }
+
+    data.keyEncoders = null;
+    for (RowSetRow rowSetRow : data.sortedBuffer) {
+      rowSetRow.setKey(null);
+    }
+    if (log.isDetailed()) {
+      logDetailed(BaseMessages.getString(PKG, "SortedMerge.Detailed.RowComparison"));
+    }
+  }
+
+  private byte[] encodeKey(IRowSet rowSet, Object[] row) throws HopValueException {
+    if (data.keyEncoders == null) {
+      return null;
+    }
+    return data.keyEncoders.get(rowSet).encode(row);
+  }
+
   @Override
   public boolean processRow() throws HopException {
 
@@ -19,7 +19,10 @@ package org.apache.hop.pipeline.transforms.sortedmerge;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.codec.SortKeyEncoder;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
@@ -30,6 +33,9 @@ public class SortedMergeData extends BaseTransformData implements ITransformData
   public List<RowSetRow> sortedBuffer;
   public Comparator<RowSetRow> comparator;
 
+  /** The normalized key encoder per input, null if the rows are compared field by field */
+  public Map<IRowSet, SortKeyEncoder> keyEncoders;
+
   public SortedMergeData() {
     super();
   }
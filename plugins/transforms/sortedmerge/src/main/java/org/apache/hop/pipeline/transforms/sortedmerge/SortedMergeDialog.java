@@ -35,6 +35,7 @@ import org.apache.hop.ui.core.dialog.MessageDialogWithToggle;
 import org.apache.hop.ui.core.widget.ColumnInfo;
 import org.apache.hop.ui.core.widget.TableView;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
+import org.apache.hop.ui.pipeline.transform.ComponentSelectionListener;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.layout.FormAttachment;
@@ -54,6 +55,8 @@ public class SortedMergeDialog extends BaseTransformDialog {
 
   private TableView wFields;
 
+  private Button wNormalizedKeys;
+
   private final SortedMergeMeta input;
 
   private final List<String> inputFields = new ArrayList<>();
@@ -119,12 +122,33 @@ public class SortedMergeDialog extends BaseTransformDialog {
 
     setButtonPositions(new Button[] {wOk, wCancel, wGet}, margin, null);
 
+    // Compare binary keys encoded from the key fields?
+    Label wlNormalizedKeys = new Label(shell, SWT.RIGHT);
+    wlNormalizedKeys.setText(
+        BaseMessages.getString(PKG, "SortedMergeDialog.NormalizedKeys.Label"));
+    PropsUi.setLook(wlNormalizedKeys);
+    FormData fdlNormalizedKeys = new FormData();
+    fdlNormalizedKeys.left = new FormAttachment(0, 0);
+    fdlNormalizedKeys.right = new FormAttachment(middle, -margin);
+    fdlNormalizedKeys.top = new FormAttachment(wTransformName, margin);
+    wlNormalizedKeys.setLayoutData(fdlNormalizedKeys);
+    wNormalizedKeys = new Button(shell, SWT.CHECK);
+    wNormalizedKeys.setToolTipText(
+        BaseMessages.getString(PKG, "SortedMergeDialog.NormalizedKeys.Tooltip"));
+    PropsUi.setLook(wNormalizedKeys);
+    FormData fdNormalizedKeys = new FormData();
+    fdNormalizedKeys.left = new FormAttachment(middle, 0);
+    fdNormalizedKeys.top = new FormAttachment(wlNormalizedKeys, 0, SWT.CENTER);
+    fdNormalizedKeys.right = new FormAttachment(100, 0);
+    wNormalizedKeys.setLayoutData(fdNormalizedKeys);
+    wNormalizedKeys.addSelectionListener(new ComponentSelectionListener(input));
+
     Label wlFields = new Label(shell, SWT.NONE);
     wlFields.setText(BaseMessages.getString(PKG, "SortedMergeDialog.Fields.Label"));
     PropsUi.setLook(wlFields);
     FormData fdlFields = new FormData();
     fdlFields.left = new FormAttachment(0, 0);
-    fdlFields.top = new FormAttachment(wTransformName, margin);
+    fdlFields.top = new FormAttachment(wNormalizedKeys, margin);
     wlFields.setLayoutData(fdlFields);
 
     final int FieldsCols = 2;
@@ -225,6 +249,8 @@ public class SortedMergeDialog extends BaseTransformDialog {
     wFields.setRowNums();
     wFields.optWidth(true);
 
+    wNormalizedKeys.setSelection(input.isNormalizedKeys());
+
     wTransformName.selectAll();
     wTransformName.setFocus();
   }
@@ -252,6 +278,7 @@ public class SortedMergeDialog extends BaseTransformDialog {
       input.getAscending()[i] =
           !BaseMessages.getString(PKG, "System.Combo.No").equalsIgnoreCase(ti.getText(2));
     }
+    input.setNormalizedKeys(wNormalizedKeys.getSelection());
 
     // Show a warning (optional)
     //
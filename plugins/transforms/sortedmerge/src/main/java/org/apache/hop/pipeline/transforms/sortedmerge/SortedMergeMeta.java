@@ -62,6 +62,10 @@ public class SortedMergeMeta extends BaseTransformMeta<SortedMerge, SortedMergeD
   @Injection(name = "ASCENDING", group = "FIELDS")
   private boolean[] ascending;
 
+  /** Encode the key fields of every row into a binary key and compare the keys byte by byte */
+  @Injection(name = "NORMALIZED_KEYS")
+  private boolean normalizedKeys;
+
   @Override
   public void loadXml(Node transformNode, IHopMetadataProvider metadataProvider)
       throws HopXmlException {
@@ -76,6 +80,7 @@ public class SortedMergeMeta extends BaseTransformMeta<SortedMerge, SortedMergeD
   @Override
   public void setDefault() {
     int nrFields = 0;
+    normalizedKeys = false;
 
     allocate(nrFields);
 
@@ -115,6 +120,9 @@ public class SortedMergeMeta extends BaseTransformMeta<SortedMerge, SortedMergeD
           ascending[i] = false;
         }
       }
+
+      normalizedKeys =
+          "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "normalized_keys"));
     } catch (Exception e) {
       throw new HopXmlException("Unable to load transform info from XML", e);
     }
@@ -132,6 +140,7 @@ public class SortedMergeMeta extends BaseTransformMeta<SortedMerge, SortedMergeD
       retval.append("        </field>" + Const.CR);
     }
     retval.append("      </fields>" + Const.CR);
+    retval.append("    " + XmlHandler.addTagValue("normalized_keys", normalizedKeys));
 
     return retval.toString();
   }
@@ -269,6 +278,20 @@ public class SortedMergeMeta extends BaseTransformMeta<SortedMerge, SortedMergeD
     this.fieldName = fieldName;
   }
 
+  /**
+   * @return true if the rows are compared on binary keys encoded from the key fields
+   */
+  public boolean isNormalizedKeys() {
+    return normalizedKeys;
+  }
+
+  /**
+   * @param normalizedKeys true to compare the rows on binary keys encoded from the key fields
+   */
+  public void setNormalizedKeys(boolean normalizedKeys) {
+    this.normalizedKeys = normalizedKeys;
+  }
+
   @Override
   public PipelineType[] getSupportedPipelineTypes() {
     return new PipelineType[] {
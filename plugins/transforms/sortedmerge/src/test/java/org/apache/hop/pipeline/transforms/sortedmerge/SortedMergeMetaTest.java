@@ -38,15 +38,17 @@ public class SortedMergeMetaTest {
 
   @Test
   public void testRoundTrips() throws HopException {
-    List<String> attributes = Arrays.asList("name", "ascending");
+    List<String> attributes = Arrays.asList("name", "ascending", "normalizedKeys");
 
     Map<String, String> getterMap = new HashMap<>();
     getterMap.put("name", "getFieldName");
     getterMap.put("ascending", "getAscending");
+    getterMap.put("normalizedKeys", "isNormalizedKeys");
 
     Map<String, String> setterMap = new HashMap<>();
     setterMap.put("name", "setFieldName");
     setterMap.put("ascending", "setAscending");
+    setterMap.put("normalizedKeys", "setNormalizedKeys");
 
     Map<String, IFieldLoadSaveValidator<?>> fieldLoadSaveValidatorAttributeMap = new HashMap<>();
     IFieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
@@ -56,6 +58,7 @@ public class SortedMergeMetaTest {
 
     fieldLoadSaveValidatorAttributeMap.put("name", stringArrayLoadSaveValidator);
     fieldLoadSaveValidatorAttributeMap.put("ascending", booleanArrayLoadSaveValidator);
+    fieldLoadSaveValidatorAttributeMap.put("normalizedKeys", new BooleanLoadSaveValidator());
 
     LoadSaveTester loadSaveTester =
         new LoadSaveTester(
@@ -19,13 +19,11 @@ package org.apache.hop.pipeline.transforms.streamlookup;
 
 import java.math.BigDecimal;
 import java.text.DateFormat;
-import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import org.apache.hop.core.IRowSet;
-import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
-import org.apache.hop.core.hash.ByteArrayHashIndex;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
@@ -141,13 +139,74 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
 
     int[] keyNrs = new int[meta.getKeylookup().length];
     int[] valueNrs = new int[meta.getValue().length];
-    boolean firstRun = true;
+
+    // All the copies of this transform can fill a single index
+    //
+    boolean addingRows = true;
+    int copies = getTransformMeta().getCopies(this);
+    if (meta.isUsingSharedIndex() && copies > 1) {
+      data.sharedIndex =
+          StreamLookupSharedIndex.getInstance(
+              getPipeline().getExtensionDataMap(), getTransformName(), copies);
+
+      // When the info transform sends all its rows to every copy, the first copy adds them
+      //
+      TransformMeta infoTransformMeta = data.infoStream.getTransformMeta();
+      boolean rowsCopied =
+          !infoTransformMeta.isDistributes()
+              && !getTransformMeta().isPartitioned()
+              && infoTransformMeta.getCopies(this) != copies;
+      addingRows = !rowsCopied || getCopy() == 0;
+    }
 
     // Which row set do we read from?
     //
     IRowSet rowSet = findInputRowSet(data.infoStream.getTransformName());
+    try {
+      readLookupRows(rowSet, keyNrs, valueNrs, addingRows);
+    } finally {
+      if (data.sharedIndex != null) {
+        data.sharedIndex.finishedBuilding();
+      }
+    }
+
+    if (data.sharedIndex != null) {
+      // Lookups can only start when all copies have added their rows
+      //
+      try {
+        while (!data.sharedIndex.awaitBuilt(100, TimeUnit.MILLISECONDS)) {
+          if (isStopped()) {
+            return true;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new HopException(e);
+      }
+      if (data.sharedIndex.hasLookupRows()) {
+        data.hasLookupRows = true;
+        data.keyTypes = data.sharedIndex.getKeyTypes().clone();
+        data.cacheKeyMeta = data.sharedIndex.getKeyMeta();
+        data.cacheValueMeta = data.sharedIndex.getValueMeta();
+        data.infoMeta = data.sharedIndex.getInfoMeta().clone();
+      }
+    }
+
+    return true;
+  }
+
+  private void readLookupRows(IRowSet rowSet, int[] keyNrs, int[] valueNrs, boolean addingRows)
+      throws HopException {
+    boolean firstRun = true;
     Object[] rowData = getRowFrom(rowSet); // rows are originating from "lookup_from"
     while (rowData != null) {
+      if (!addingRows) {
+        // Another copy adds the same rows to the shared index
+        //
+        rowData = getRowFrom(rowSet);
+        continue;
+      }
+
       if (log.isRowLevel()) {
         logRowlevel(
             BaseMessages.getString(PKG, "StreamLookup.Log.ReadLookupRow")
@@ -194,6 +253,13 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
 
         data.cacheKeyMeta = cacheKeyMeta;
         data.cacheValueMeta = cacheValueMeta;
+
+        if (data.sharedIndex != null) {
+          data.sharedIndex.initialize(
+              meta, data.keyTypes, cacheKeyMeta, cacheValueMeta, data.infoMeta);
+        } else {
+          data.index = new StreamLookupIndex(meta, cacheKeyMeta, cacheValueMeta);
+        }
       }
 
       Object[] keyData = new Object[keyNrs.length];
@@ -209,12 +275,10 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
         valueData[i] = rowData[valueNrs[i]];
       }
 
-      addToCache(data.cacheKeyMeta, keyData, data.cacheValueMeta, valueData);
+      addToCache(keyData, valueData);
 
       rowData = getRowFrom(rowSet);
     }
-
-    return true;
   }
 
   private Object[] lookupValues(IRowMeta rowMeta, Object[] row) throws HopException {
@@ -275,7 +339,7 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     if (data.hasLookupRows) {
       try {
         if (meta.getKeystream().length > 0) {
-          add = getFromCache(data.cacheKeyMeta, lu);
+          add = getFromCache(lu);
         } else {
           // Just take the first element in the hashtable...
           throw new HopTransformException(
@@ -293,88 +357,19 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     return RowDataUtil.addRowData(row, rowMeta.size(), add);
   }
 
-  private void addToCache(
-      IRowMeta keyMeta, Object[] keyData, IRowMeta valueMeta, Object[] valueData)
-      throws HopValueException {
-    if (meta.isMemoryPreservationActive()) {
-      if (meta.isUsingSortedList()) {
-        KeyValue keyValue = new KeyValue(keyData, valueData);
-        int idx = Collections.binarySearch(data.list, keyValue, data.comparator);
-        if (idx < 0) {
-          int index = -idx - 1; // this is the insertion point
-          data.list.add(index, keyValue); // insert to keep sorted.
-        } else {
-          data.list.set(idx, keyValue); // Overwrite to simulate Hashtable behaviour
-        }
-      } else {
-        if (meta.isUsingIntegerPair()) {
-          if (!data.metadataVerifiedIntegerPair) {
-            data.metadataVerifiedIntegerPair = true;
-            if (keyMeta.size() != 1
-                || valueMeta.size() != 1
-                || !keyMeta.getValueMeta(0).isInteger()
-                || !valueMeta.getValueMeta(0).isInteger()) {
-
-              throw new HopValueException(
-                  BaseMessages.getString(
-                      PKG, "StreamLookup.Exception.CanNotUseIntegerPairAlgorithm"));
-            }
-          }
-
-          Long key = keyMeta.getInteger(keyData, 0);
-          Long value = valueMeta.getInteger(valueData, 0);
-          data.longIndex.put(key, value);
-        } else {
-          if (data.hashIndex == null) {
-            data.hashIndex = new ByteArrayHashIndex(keyMeta);
-          }
-          data.hashIndex.put(
-              RowMeta.extractData(keyMeta, keyData), RowMeta.extractData(valueMeta, valueData));
-        }
-      }
+  private void addToCache(Object[] keyData, Object[] valueData) throws HopValueException {
+    if (data.sharedIndex != null) {
+      data.sharedIndex.add(keyData, valueData);
     } else {
-      // We can't just put Object[] in the map The compare function is not in it.
-      // We need to wrap in and use that. Let's use RowMetaAndData for this one.
-      data.look.put(new RowMetaAndData(keyMeta, keyData), valueData);
+      data.index.add(keyData, valueData);
     }
   }
 
-  private Object[] getFromCache(IRowMeta keyMeta, Object[] keyData) throws HopValueException {
-    if (meta.isMemoryPreservationActive()) {
-      if (meta.isUsingSortedList()) {
-        KeyValue keyValue = new KeyValue(keyData, null);
-        int idx = Collections.binarySearch(data.list, keyValue, data.comparator);
-        if (idx < 0) {
-          return null; // nothing found
-        }
-
-        keyValue = data.list.get(idx);
-        return keyValue.getValue();
-      } else {
-        if (meta.isUsingIntegerPair()) {
-          Long value = data.longIndex.get(keyMeta.getInteger(keyData, 0));
-          if (value == null) {
-            return null;
-          }
-          return new Object[] {
-            value,
-          };
-        } else {
-          try {
-            byte[] value = data.hashIndex.get(RowMeta.extractData(keyMeta, keyData));
-            if (value == null) {
-              return null;
-            }
-            return RowMeta.getRow(data.cacheValueMeta, value);
-          } catch (Exception e) {
-            logError("Oops", e);
-            throw new RuntimeException(e);
-          }
-        }
-      }
-    } else {
-      return data.look.get(new RowMetaAndData(keyMeta, keyData));
+  private Object[] getFromCache(Object[] keyData) throws HopValueException {
+    if (data.sharedIndex != null) {
+      return data.sharedIndex.get(keyData);
     }
+    return data.index.get(keyData);
   }
 
   @Override
@@ -494,10 +489,11 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
   public void dispose() {
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
-    data.look = null;
-    data.list = null;
-    data.hashIndex = null;
-    data.longIndex = null;
+    data.index = null;
+    if (data.sharedIndex != null) {
+      StreamLookupSharedIndex.release(getPipeline().getExtensionDataMap(), getTransformName());
+      data.sharedIndex = null;
+    }
 
     super.dispose();
   }
@@ -17,15 +17,6 @@
 
 package org.apache.hop.pipeline.transforms.streamlookup;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import org.apache.hop.core.RowMetaAndData;
-import org.apache.hop.core.exception.HopValueException;
-import org.apache.hop.core.hash.ByteArrayHashIndex;
-import org.apache.hop.core.hash.LongHashIndex;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
@@ -33,10 +24,11 @@ import org.apache.hop.pipeline.transform.stream.IStream;
 
 @SuppressWarnings("java:S1104")
 public class StreamLookupData extends BaseTransformData implements ITransformData {
-  /** used to store values in used to look up things */
-  public Map<RowMetaAndData, Object[]> look;
+  /** The lookup data of this copy */
+  StreamLookupIndex index;
 
-  public List<KeyValue> list;
+  /** The lookup data shared by all copies of the transform */
+  StreamLookupSharedIndex sharedIndex;
 
   /** nrs of keys-values in row. */
   public int[] keynrs;
@@ -60,19 +52,12 @@ public class StreamLookupData extends BaseTransformData implements ITransformDat
 
   public IRowMeta cacheValueMeta;
 
-  public Comparator<KeyValue> comparator;
-
-  public ByteArrayHashIndex hashIndex;
-  public LongHashIndex longIndex;
-
   public IRowMeta lookupMeta;
 
   public IRowMeta infoMeta;
 
   public int[] lookupColumnIndex;
 
-  public boolean metadataVerifiedIntegerPair;
-
   /** See if we need to convert the keys to a native data type */
   public boolean[] convertKeysToNative;
 
@@ -83,20 +68,6 @@ public class StreamLookupData extends BaseTransformData implements ITransformDat
 
   public StreamLookupData() {
     super();
-    look = new HashMap<>();
-    hashIndex = null;
-    longIndex = new LongHashIndex();
-    list = new ArrayList<>();
-    metadataVerifiedIntegerPair = false;
     hasLookupRows = false;
-
-    comparator =
-        (k1, k2) -> {
-          try {
-            return cacheKeyMeta.compare(k1.getKey(), k2.getKey());
-          } catch (HopValueException e) {
-            throw new RuntimeException("Stream Lookup comparator error", e);
-          }
-        };
   }
 }
@@ -64,6 +64,10 @@ public class StreamLookupDialog extends BaseTransformDialog {
 
   private Button wIntegerPair;
 
+  private Button wOffHeapIndex;
+
+  private Button wSharedIndex;
+
   private final StreamLookupMeta input;
 
   private ColumnInfo[] ciKey;
@@ -211,12 +215,51 @@ public class StreamLookupDialog extends BaseTransformDialog {
     fdKey.bottom = new FormAttachment(wlKey, (int) (props.getZoomFactor() * 120));
     wKey.setLayoutData(fdKey);
 
+    Label wlSharedIndex = new Label(shell, SWT.RIGHT);
+    wlSharedIndex.setText(BaseMessages.getString(PKG, "StreamLookupDialog.SharedIndex.Label"));
+    wlSharedIndex.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.SharedIndex.Tooltip"));
+    PropsUi.setLook(wlSharedIndex);
+    FormData fdlSharedIndex = new FormData();
+    fdlSharedIndex.left = new FormAttachment(0, 0);
+    fdlSharedIndex.bottom = new FormAttachment(wOk, -2 * margin);
+    fdlSharedIndex.right = new FormAttachment(middle, -margin);
+    wlSharedIndex.setLayoutData(fdlSharedIndex);
+    wSharedIndex = new Button(shell, SWT.CHECK);
+    PropsUi.setLook(wSharedIndex);
+    FormData fdSharedIndex = new FormData();
+    fdSharedIndex.left = new FormAttachment(middle, 0);
+    fdSharedIndex.top = new FormAttachment(wlSharedIndex, 0, SWT.CENTER);
+    fdSharedIndex.right = new FormAttachment(100, 0);
+    wSharedIndex.setLayoutData(fdSharedIndex);
+    wSharedIndex.addListener(SWT.Selection, e -> input.setChanged());
+
+    Label wlOffHeapIndex = new Label(shell, SWT.RIGHT);
+    wlOffHeapIndex.setText(BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapIndex.Label"));
+    wlOffHeapIndex.setToolTipText(
+        BaseMessages.getString(PKG, "StreamLookupDialog.OffHeapIndex.Tooltip"));
+    PropsUi.setLook(wlOffHeapIndex);
+    FormData fdlOffHeapIndex = new FormData();
+    fdlOffHeapIndex.left = new FormAttachment(0, 0);
+    fdlOffHeapIndex.bottom = new FormAttachment(wlSharedIndex, -margin);
+    fdlOffHeapIndex.right = new FormAttachment(middle, -margin);
+    wlOffHeapIndex.setLayoutData(fdlOffHeapIndex);
+    wOffHeapIndex = new Button(shell, SWT.CHECK);
+    wOffHeapIndex.setEnabled(false);
+    PropsUi.setLook(wOffHeapIndex);
+    FormData fdOffHeapIndex = new FormData();
+    fdOffHeapIndex.left = new FormAttachment(middle, 0);
+    fdOffHeapIndex.top = new FormAttachment(wlOffHeapIndex, 0, SWT.CENTER);
+    fdOffHeapIndex.right = new FormAttachment(100, 0);
+    wOffHeapIndex.setLayoutData(fdOffHeapIndex);
+    wOffHeapIndex.addListener(SWT.Selection, e -> input.setChanged());
+
     Label wlSortedList = new Label(shell, SWT.RIGHT);
     wlSortedList.setText(BaseMessages.getString(PKG, "StreamLookupDialog.SortedList.Label"));
     PropsUi.setLook(wlSortedList);
     FormData fdlSortedList = new FormData();
     fdlSortedList.left = new FormAttachment(0, 0);
-    fdlSortedList.bottom = new FormAttachment(wOk, -2 * margin);
+    fdlSortedList.bottom = new FormAttachment(wlOffHeapIndex, -margin);
     fdlSortedList.right = new FormAttachment(middle, -margin);
     wlSortedList.setLayoutData(fdlSortedList);
     wSortedList = new Button(shell, SWT.RADIO);
@@ -272,6 +315,7 @@ public class StreamLookupDialog extends BaseTransformDialog {
           boolean selection = wPreserveMemory.getSelection();
           wSortedList.setEnabled(selection);
           wIntegerPair.setEnabled(selection);
+          wOffHeapIndex.setEnabled(selection);
         });
 
     // THE UPDATE/INSERT TABLE
@@ -440,12 +484,15 @@ public class StreamLookupDialog extends BaseTransformDialog {
     if (isPreserveMemory) {
       wSortedList.setEnabled(true);
       wIntegerPair.setEnabled(true);
+      wOffHeapIndex.setEnabled(true);
     }
     // usually this is sorted list or integer pair
     // for backward compatibility they can be set both
     // but user will be forced to choose only one option later.
     wSortedList.setSelection(input.isUsingSortedList());
     wIntegerPair.setSelection(input.isUsingIntegerPair());
+    wOffHeapIndex.setSelection(input.isUsingOffHeapIndex());
+    wSharedIndex.setSelection(input.isUsingSharedIndex());
 
     wKey.setRowNums();
     wKey.optWidth(true);
@@ -473,6 +520,8 @@ public class StreamLookupDialog extends BaseTransformDialog {
     input.setMemoryPreservationActive(wPreserveMemory.getSelection());
     input.setUsingSortedList(wSortedList.getSelection());
     input.setUsingIntegerPair(wIntegerPair.getSelection());
+    input.setUsingOffHeapIndex(wOffHeapIndex.getSelection());
+    input.setUsingSharedIndex(wSharedIndex.getSelection());
 
     if (log.isDebug()) {
       logDebug(BaseMessages.getString(PKG, "StreamLookupDialog.Log.FoundKeys", nrkeys + ""));
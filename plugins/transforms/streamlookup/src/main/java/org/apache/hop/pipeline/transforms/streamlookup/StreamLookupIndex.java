@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.streamlookup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.hop.core.RowMetaAndData;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.hash.ByteArrayOpenHashIndex;
+import org.apache.hop.core.hash.ILongHashIndex;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.codec.BinaryRowDecoder;
+import org.apache.hop.core.row.codec.BinaryRowEncoder;
+import org.apache.hop.i18n.BaseMessages;
+
+/**
+ * The lookup data of a Stream Lookup transform, stored the way the options of the transform ask
+ * for: a hash map of rows, a sorted list, a primitive index of integer pairs or a hash index of
+ * encoded rows.
+ *
+ * <p>Adding rows isn't thread-safe. Once all rows are added, any number of threads can look up keys
+ * at the same time: lookups only read the index and every thread encodes keys with its own
+ * encoders.
+ */
+class StreamLookupIndex {
+  private static final Class<?> PKG = StreamLookupMeta.class; // For Translator
+
+  private final IRowMeta keyMeta;
+  private final IRowMeta valueMeta;
+  private final boolean memoryPreservationActive;
+  private final boolean usingSortedList;
+  private final boolean usingIntegerPair;
+  private final boolean usingOffHeapIndex;
+
+  /** used to store values in used to look up things */
+  private Map<RowMetaAndData, Object[]> look;
+
+  private List<KeyValue> list;
+  private Comparator<KeyValue> comparator;
+  private ILongHashIndex longIndex;
+  private ByteArrayOpenHashIndex hashIndex;
+
+  /** The row encoders aren't thread-safe: every thread gets its own */
+  private final ThreadLocal<Codecs> codecs;
+
+  /**
+   * Create an empty index for the lookup data
+   *
+   * @param meta the options of the transform
+   * @param keyMeta the metadata of the keys, in normal storage
+   * @param valueMeta the metadata of the values
+   * @throws HopValueException in case the integer pair algorithm is used with other keys or values
+   *     than a single integer
+   */
+  StreamLookupIndex(StreamLookupMeta meta, IRowMeta keyMeta, IRowMeta valueMeta)
+      throws HopValueException {
+    this.keyMeta = keyMeta;
+    this.valueMeta = valueMeta;
+    this.memoryPreservationActive = meta.isMemoryPreservationActive();
+    this.usingSortedList = meta.isUsingSortedList();
+    this.usingIntegerPair = meta.isUsingIntegerPair();
+    this.usingOffHeapIndex = meta.isUsingOffHeapIndex();
+    this.codecs = ThreadLocal.withInitial(() -> new Codecs(keyMeta, valueMeta));
+
+    if (!memoryPreservationActive) {
+      look = new HashMap<>();
+    } else if (usingSortedList) {
+      list = new ArrayList<>();
+      comparator =
+          (k1, k2) -> {
+            try {
+              return keyMeta.compare(k1.getKey(), k2.getKey());
+            } catch (HopValueException e) {
+              throw new RuntimeException("Stream Lookup comparator error", e);
+            }
+          };
+    } else if (usingIntegerPair) {
+      if (keyMeta.size() != 1
+          || valueMeta.size() != 1
+          || !keyMeta.getValueMeta(0).isInteger()
+          || !valueMeta.getValueMeta(0).isInteger()) {
+        throw new HopValueException(
+            BaseMessages.getString(PKG, "StreamLookup.Exception.CanNotUseIntegerPairAlgorithm"));
+      }
+    }
+  }
+
+  /**
+   * Add a row of lookup data. The last value added for a key is kept.
+   *
+   * @param keyData the key values, in normal storage
+   * @param valueData the values to return for the key
+   * @throws HopValueException in case the row can't be stored
+   */
+  void add(Object[] keyData, Object[] valueData) throws HopValueException {
+    if (!memoryPreservationActive) {
+      // We can't just put Object[] in the map The compare function is not in it.
+      // We need to wrap in and use that. Let's use RowMetaAndData for this one.
+      look.put(new RowMetaAndData(keyMeta, keyData), valueData);
+    } else if (usingSortedList) {
+      KeyValue keyValue = new KeyValue(keyData, valueData);
+      int idx = Collections.binarySearch(list, keyValue, comparator);
+      if (idx < 0) {
+        int index = -idx - 1; // this is the insertion point
+        list.add(index, keyValue); // insert to keep sorted.
+      } else {
+        list.set(idx, keyValue); // Overwrite to simulate Hashtable behaviour
+      }
+    } else if (usingIntegerPair) {
+      Long key = keyMeta.getInteger(keyData, 0);
+      Long value = valueMeta.getInteger(valueData, 0);
+      if (key == null) {
+        // A null key never matches
+        return;
+      }
+      if (value == null) {
+        throw new HopValueException(
+            BaseMessages.getString(PKG, "StreamLookup.Exception.NullValueInIntegerPair", key));
+      }
+      if (longIndex == null) {
+        longIndex = ILongHashIndex.create(0, usingOffHeapIndex);
+      }
+      longIndex.put(key, value);
+    } else {
+      if (hashIndex == null) {
+        hashIndex = new ByteArrayOpenHashIndex(0, usingOffHeapIndex);
+      }
+      Codecs rowCodecs = codecs.get();
+      try {
+        hashIndex.put(
+            rowCodecs.keyEncoder.encodeRow(keyData), rowCodecs.valueEncoder.encodeRow(valueData));
+      } catch (HopFileException e) {
+        throw new HopValueException(e);
+      }
+    }
+  }
+
+  /**
+   * Look up the values of a key
+   *
+   * @param keyData the key values, in normal storage
+   * @return the values stored for the key or null if the key isn't found
+   * @throws HopValueException in case the key or the values can't be converted
+   */
+  Object[] get(Object[] keyData) throws HopValueException {
+    if (!memoryPreservationActive) {
+      return look.get(new RowMetaAndData(keyMeta, keyData));
+    } else if (usingSortedList) {
+      KeyValue keyValue = new KeyValue(keyData, null);
+      int idx = Collections.binarySearch(list, keyValue, comparator);
+      if (idx < 0) {
+        return null; // nothing found
+      }
+      return list.get(idx).getValue();
+    } else if (usingIntegerPair) {
+      Long key = keyMeta.getInteger(keyData, 0);
+      if (key == null || longIndex == null) {
+        return null;
+      }
+      long value = longIndex.get(key, Long.MIN_VALUE);
+      if (value == Long.MIN_VALUE && !longIndex.containsKey(key)) {
+        return null;
+      }
+      return new Object[] {
+        value,
+      };
+    } else {
+      if (hashIndex == null) {
+        return null;
+      }
+      Codecs rowCodecs = codecs.get();
+      try {
+        byte[] value = hashIndex.get(rowCodecs.keyEncoder.encodeRow(keyData));
+        if (value == null) {
+          return null;
+        }
+        return rowCodecs.valueDecoder.decodeRow(value);
+      } catch (HopFileException e) {
+        throw new HopValueException(e);
+      }
+    }
+  }
+
+  /** The encoders of the keys and values stored in the hash index, used by a single thread */
+  private static final class Codecs {
+    private final BinaryRowEncoder keyEncoder;
+    private final BinaryRowEncoder valueEncoder;
+    private final BinaryRowDecoder valueDecoder;
+
+    private Codecs(IRowMeta keyMeta, IRowMeta valueMeta) {
+      keyEncoder = new BinaryRowEncoder(keyMeta, false);
+      valueEncoder = new BinaryRowEncoder(valueMeta, false);
+      valueDecoder = new BinaryRowDecoder(valueMeta, false);
+    }
+  }
+}
@@ -96,6 +96,14 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
   @Injection(name = "INTEGER_PAIR")
   private boolean usingIntegerPair;
 
+  /** Store the lookup index outside of the Java heap */
+  @Injection(name = "OFF_HEAP_INDEX")
+  private boolean usingOffHeapIndex;
+
+  /** All copies of the transform share a single index of the lookup data */
+  @Injection(name = "SHARED_INDEX")
+  private boolean usingSharedIndex;
+
   public StreamLookupMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -163,6 +171,10 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "sorted_list")));
       setUsingIntegerPair(
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "integer_pair")));
+      setUsingOffHeapIndex(
+          "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "off_heap_index")));
+      setUsingSharedIndex(
+          "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "shared_index")));
 
       Node lookup = XmlHandler.getSubNode(transformNode, "lookup");
       nrkeys = XmlHandler.countNodes(lookup, "key");
@@ -211,6 +223,8 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
     setMemoryPreservationActive(true);
     setUsingSortedList(false);
     setUsingIntegerPair(false);
+    setUsingOffHeapIndex(false);
+    setUsingSharedIndex(false);
 
     allocate(0, 0);
   }
@@ -264,6 +278,8 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
         .append(XmlHandler.addTagValue("preserve_memory", isMemoryPreservationActive()));
     retval.append("    ").append(XmlHandler.addTagValue("sorted_list", isUsingSortedList()));
     retval.append("    ").append(XmlHandler.addTagValue("integer_pair", isUsingIntegerPair()));
+    retval.append("    ").append(XmlHandler.addTagValue("off_heap_index", isUsingOffHeapIndex()));
+    retval.append("    ").append(XmlHandler.addTagValue("shared_index", isUsingSharedIndex()));
 
     retval.append("    <lookup>").append(Const.CR);
     for (int i = 0; i < getKeystream().length; i++) {
@@ -657,6 +673,36 @@ public class StreamLookupMeta extends BaseTransformMeta<StreamLookup, StreamLook
     this.usingIntegerPair = usingIntegerPair;
   }
 
+  /**
+   * @return true if the hash index of the lookup data is stored outside of the Java heap
+   */
+  public boolean isUsingOffHeapIndex() {
+    return usingOffHeapIndex;
+  }
+
+  /**
+   * @param usingOffHeapIndex true to store the hash index of the lookup data outside of the Java
+   *     heap
+   */
+  public void setUsingOffHeapIndex(boolean usingOffHeapIndex) {
+    this.usingOffHeapIndex = usingOffHeapIndex;
+  }
+
+  /**
+   * @return true if all copies of the transform fill and read a single index of the lookup data
+   */
+  public boolean isUsingSharedIndex() {
+    return usingSharedIndex;
+  }
+
+  /**
+   * @param usingSharedIndex true if all copies of the transform fill and read a single index of the
+   *     lookup data
+   */
+  public void setUsingSharedIndex(boolean usingSharedIndex) {
+    this.usingSharedIndex = usingSharedIndex;
+  }
+
   /**
    * If we use injection we can have different arrays lengths. We need synchronize them for
    * consistency behavior with UI
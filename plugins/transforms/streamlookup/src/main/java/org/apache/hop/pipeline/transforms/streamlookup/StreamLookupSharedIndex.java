@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.streamlookup;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+
+/**
+ * The lookup data of all the copies of a Stream Lookup transform in a pipeline. The copies fill the
+ * index at the same time with the info rows they receive. The index is split in shards by the hash
+ * code of the key and a copy only locks the shard it adds a row to, so the copies rarely wait for
+ * each other.
+ *
+ * <p>Once every copy has finished adding rows, the index is read-only: lookups don't take any lock.
+ * The {@link CountDownLatch} every copy waits for makes the rows added by the other copies visible.
+ */
+class StreamLookupSharedIndex {
+
+  /** The prefix of the key of the shared index in the extension data map of the pipeline */
+  static final String EXTENSION_DATA_PREFIX = "StreamLookup.SharedIndex.";
+
+  private static final int SHARD_COUNT = 64;
+
+  private final CountDownLatch building;
+  private int users;
+
+  private StreamLookupIndex[] shards;
+  private IRowMeta keyTypes;
+  private IRowMeta keyMeta;
+  private IRowMeta valueMeta;
+  private IRowMeta infoMeta;
+
+  /**
+   * @param copies the number of copies filling the index
+   */
+  StreamLookupSharedIndex(int copies) {
+    this.building = new CountDownLatch(copies);
+    this.users = copies;
+  }
+
+  /**
+   * Get the index shared by the copies of a transform, create it for the first copy asking.
+   *
+   * @param extensionDataMap the extension data map of the pipeline
+   * @param transformName the name of the transform
+   * @param copies the number of copies of the transform
+   * @return the shared index
+   */
+  static StreamLookupSharedIndex getInstance(
+      Map<String, Object> extensionDataMap, String transformName, int copies) {
+    synchronized (extensionDataMap) {
+      return (StreamLookupSharedIndex)
+          extensionDataMap.computeIfAbsent(
+              EXTENSION_DATA_PREFIX + transformName, key -> new StreamLookupSharedIndex(copies));
+    }
+  }
+
+  /**
+   * A copy of the transform no longer uses the shared index. The last copy removes it from the
+   * pipeline so that the memory can be recovered.
+   *
+   * @param extensionDataMap the extension data map of the pipeline
+   * @param transformName the name of the transform
+   */
+  static void release(Map<String, Object> extensionDataMap, String transformName) {
+    synchronized (extensionDataMap) {
+      String key = EXTENSION_DATA_PREFIX + transformName;
+      StreamLookupSharedIndex index = (StreamLookupSharedIndex) extensionDataMap.get(key);
+      if (index != null && --index.users <= 0) {
+        extensionDataMap.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Set up the index with the metadata of the info rows. Only the first call has an effect: the
+   * copies all read the same info transform.
+   *
+   * @param meta the options of the transform
+   * @param keyTypes the data types of the keys in the info rows
+   * @param keyMeta the metadata of the keys, in normal storage
+   * @param valueMeta the metadata of the values
+   * @param infoMeta the metadata of the info rows
+   * @throws HopValueException in case the options don't work with the keys or values
+   */
+  synchronized void initialize(
+      StreamLookupMeta meta,
+      IRowMeta keyTypes,
+      IRowMeta keyMeta,
+      IRowMeta valueMeta,
+      IRowMeta infoMeta)
+      throws HopValueException {
+    if (shards != null) {
+      return;
+    }
+    StreamLookupIndex[] newShards = new StreamLookupIndex[SHARD_COUNT];
+    for (int i = 0; i < newShards.length; i++) {
+      newShards[i] = new StreamLookupIndex(meta, keyMeta, valueMeta);
+    }
+    this.keyTypes = keyTypes;
+    this.keyMeta = keyMeta;
+    this.valueMeta = valueMeta;
+    this.infoMeta = infoMeta;
+    this.shards = newShards;
+  }
+
+  private StreamLookupIndex shardOf(Object[] keyData) throws HopValueException {
+    int hash = keyMeta.hashCode(keyData);
+    return shards[(hash ^ (hash >>> 16)) & (SHARD_COUNT - 1)];
+  }
+
+  /**
+   * Add a row of lookup data while the index is being built. Which value is kept when copies add
+   * the same key isn't determined.
+   *
+   * @param keyData the key values, in normal storage
+   * @param valueData the values to return for the key
+   * @throws HopValueException in case the row can't be stored
+   */
+  void add(Object[] keyData, Object[] valueData) throws HopValueException {
+    StreamLookupIndex shard = shardOf(keyData);
+    synchronized (shard) {
+      shard.add(keyData, valueData);
+    }
+  }
+
+  /** A copy of the transform has added all its rows to the index */
+  void finishedBuilding() {
+    building.countDown();
+  }
+
+  /**
+   * Wait for all copies to finish building the index. The wait is reported to the fork/join pool
+   * when the copy runs in one, so that the pool can run the other copies in the meantime.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if the index is complete
+   * @throws InterruptedException in case the wait is interrupted
+   */
+  boolean awaitBuilt(long timeout, TimeUnit unit) throws InterruptedException {
+    if (building.getCount() == 0) {
+      return true;
+    }
+    long nanos = unit.toNanos(timeout);
+    ForkJoinPool.managedBlock(
+        new ForkJoinPool.ManagedBlocker() {
+          @Override
+          public boolean block() throws InterruptedException {
+            building.await(nanos, TimeUnit.NANOSECONDS);
+            return true;
+          }
+
+          @Override
+          public boolean isReleasable() {
+            return building.getCount() == 0;
+          }
+        });
+    return building.getCount() == 0;
+  }
+
+  /**
+   * Look up the values of a key once the index is complete.
+   *
+   * @param keyData the key values, in normal storage
+   * @return the values stored for the key or null if the key isn't found
+   * @throws HopValueException in case the key or the values can't be converted
+   */
+  Object[] get(Object[] keyData) throws HopValueException {
+    if (shards == null) {
+      return null;
+    }
+    return shardOf(keyData).get(keyData);
+  }
+
+  /**
+   * @return true if any copy added lookup rows
+   */
+  boolean hasLookupRows() {
+    return shards != null;
+  }
+
+  IRowMeta getKeyTypes() {
+    return keyTypes;
+  }
+
+  IRowMeta getKeyMeta() {
+    return keyMeta;
+  }
+
+  IRowMeta getValueMeta() {
+    return valueMeta;
+  }
+
+  IRowMeta getInfoMeta() {
+    return infoMeta;
+  }
+}
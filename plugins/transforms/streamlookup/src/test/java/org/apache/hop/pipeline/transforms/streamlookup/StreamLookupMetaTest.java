@@ -59,6 +59,8 @@ public class StreamLookupMetaTest implements IInitializer<ITransformMeta> {
             "memoryPreservationActive",
             "usingSortedList",
             "usingIntegerPair",
+            "usingOffHeapIndex",
+            "usingSharedIndex",
             "keystream",
             "keylookup",
             "value",
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.streamlookup;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamLookupSharedIndexTest {
+
+  private static final int COPIES = 4;
+  private static final int ROWS = 20_000;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(COPIES);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static IRowMeta rowMeta(boolean integer, String name) {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(integer ? new ValueMetaInteger(name) : new ValueMetaString(name));
+    return rowMeta;
+  }
+
+  private static Object[] key(boolean integer, long i) {
+    return new Object[] {integer ? (Object) i : "key" + i};
+  }
+
+  private static Object[] value(boolean integer, long i) {
+    return new Object[] {integer ? (Object) (i * 10) : "value" + i};
+  }
+
+  /** Every copy adds its share of the rows, then all copies look up all keys at the same time. */
+  private void buildAndProbe(StreamLookupMeta meta, boolean integer) throws Exception {
+    IRowMeta keyMeta = rowMeta(integer, "key");
+    IRowMeta valueMeta = rowMeta(integer, "value");
+    StreamLookupSharedIndex index = new StreamLookupSharedIndex(COPIES);
+
+    List<Future<Integer>> copies = new ArrayList<>();
+    for (int copy = 0; copy < COPIES; copy++) {
+      int copyNr = copy;
+      copies.add(
+          executor.submit(
+              () -> {
+                try {
+                  index.initialize(meta, keyMeta, keyMeta, valueMeta, keyMeta);
+                  for (long i = copyNr; i < ROWS; i += COPIES) {
+                    index.add(key(integer, i), value(integer, i));
+                  }
+                } finally {
+                  index.finishedBuilding();
+                }
+                while (!index.awaitBuilt(100, TimeUnit.MILLISECONDS)) {
+                  // Wait for the other copies
+                }
+                int found = 0;
+                for (long i = 0; i < ROWS; i++) {
+                  Object[] result = index.get(key(integer, i));
+                  assertArrayEquals(value(integer, i), result);
+                  found++;
+                }
+                assertNull(index.get(key(integer, ROWS + 1L)));
+                return found;
+              }));
+    }
+    for (Future<Integer> copy : copies) {
+      assertEquals(ROWS, (int) copy.get(60, TimeUnit.SECONDS));
+    }
+    assertTrue(index.hasLookupRows());
+  }
+
+  private static StreamLookupMeta meta(boolean memoryPreservation, boolean integerPair) {
+    StreamLookupMeta meta = new StreamLookupMeta();
+    meta.setDefault();
+    meta.setMemoryPreservationActive(memoryPreservation);
+    meta.setUsingIntegerPair(integerPair);
+    meta.setUsingSharedIndex(true);
+    return meta;
+  }
+
+  @Test
+  public void testHashIndex() throws Exception {
+    buildAndProbe(meta(true, false), false);
+  }
+
+  @Test
+  public void testIntegerPair() throws Exception {
+    buildAndProbe(meta(true, true), true);
+  }
+
+  @Test
+  public void testRowMap() throws Exception {
+    buildAndProbe(meta(false, false), false);
+  }
+
+  @Test
+  public void testSharedByCopies() throws Exception {
+    Map<String, Object> extensionData = new HashMap<>();
+    StreamLookupSharedIndex index = StreamLookupSharedIndex.getInstance(extensionData, "Lookup", 2);
+    assertSame(index, StreamLookupSharedIndex.getInstance(extensionData, "Lookup", 2));
+    assertFalse(index == StreamLookupSharedIndex.getInstance(extensionData, "Other", 2));
+
+    // Nothing was added: the copies have no lookup rows
+    //
+    index.finishedBuilding();
+    assertFalse(index.awaitBuilt(10, TimeUnit.MILLISECONDS));
+    index.finishedBuilding();
+    assertTrue(index.awaitBuilt(10, TimeUnit.MILLISECONDS));
+    assertFalse(index.hasLookupRows());
+    assertNull(index.get(new Object[] {"key"}));
+
+    // The last copy removes the index from the pipeline
+    //
+    StreamLookupSharedIndex.release(extensionData, "Lookup");
+    assertTrue(extensionData.containsKey(StreamLookupSharedIndex.EXTENSION_DATA_PREFIX + "Lookup"));
+    StreamLookupSharedIndex.release(extensionData, "Lookup");
+    assertFalse(
+        extensionData.containsKey(StreamLookupSharedIndex.EXTENSION_DATA_PREFIX + "Lookup"));
+  }
+}
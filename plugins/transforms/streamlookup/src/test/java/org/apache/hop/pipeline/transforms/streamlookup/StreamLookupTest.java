@@ -63,6 +63,8 @@ public class StreamLookupTest {
     when(smh.pipeline.isRunning()).thenReturn(true);
   }
 
+  private boolean usingOffHeapIndex;
+
   @After
   public void cleanUp() {
     smh.cleanUp();
@@ -149,6 +151,7 @@ public class StreamLookupTest {
     doReturn(memoryPreservationActive).when(meta).isMemoryPreservationActive();
     doReturn(false).when(meta).isUsingSortedList();
     doReturn(false).when(meta).isUsingIntegerPair();
+    doReturn(usingOffHeapIndex).when(meta).isUsingOffHeapIndex();
     doReturn(new int[] {-1}).when(meta).getValueDefaultType();
     doReturn(new String[] {""}).when(meta).getValueDefault();
     doReturn(new String[] {"Value"}).when(meta).getValueName();
@@ -256,4 +259,10 @@ public class StreamLookupTest {
   public void testMemoryPreservationWithBinaryStreams() throws HopException {
     doTest(true, false, true);
   }
+
+  @Test
+  public void testMemoryPreservationWithOffHeapIndex() throws HopException {
+    usingOffHeapIndex = true;
+    doTest(true, true, true);
+  }
 }
@@ -227,6 +227,11 @@ public class StringOperationsMeta
     super(); // allocate BaseTransformMeta
   }
 
+  @Override
+  public boolean isFusable() {
+    return true;
+  }
+
   /**
    * @return Returns the fieldInStream.
    */
@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.fileinput;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.io.BufferedInputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
@@ -1416,7 +1417,8 @@ public class TextFileInput extends BaseTransform<TextFileInputMeta, TextFileInpu
    * @param errorMsg Message to send to rejected row if enabled
    * @return If should stop processing after having problems with a file
    */
-  private boolean failAfterBadFile(String errorMsg) {
+  @VisibleForTesting
+  boolean failAfterBadFile(String errorMsg) {
 
     if (getTransformMeta().isDoingErrorHandling()
         && data.filename != null
@@ -1436,10 +1438,9 @@ public class TextFileInput extends BaseTransform<TextFileInputMeta, TextFileInpu
   private void rejectCurrentFile(String errorMsg) {
     if (StringUtils.isNotBlank(meta.getFileErrorField())
         || StringUtils.isNotBlank(meta.getFileErrorMessageField())) {
-      IRowMeta rowMeta = getInputRowMeta();
-      if (rowMeta == null) {
-        rowMeta = new RowMeta();
-      }
+      // The input row layout is shared with the previous transform and can't be changed.
+      //
+      IRowMeta rowMeta = getInputRowMeta() == null ? new RowMeta() : getInputRowMeta().clone();
 
       int errorFileIndex =
           (StringUtils.isBlank(meta.getFileErrorField()))
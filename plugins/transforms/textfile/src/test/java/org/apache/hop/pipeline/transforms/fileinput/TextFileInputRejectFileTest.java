@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hop.pipeline.transforms.fileinput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.row.FrozenRowMeta;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowDataUtil;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.transforms.fileinput.text.TransformMockUtil;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class TextFileInputRejectFileTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  private TransformMockHelper<TextFileInputMeta, TextFileInputData> mockHelper;
+
+  @BeforeClass
+  public static void initHop() throws Exception {
+    HopEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    mockHelper =
+        TransformMockUtil.getTransformMockHelper(
+            TextFileInputMeta.class, TextFileInputData.class, "TextFileInputRejectFileTest");
+    when(mockHelper.transformMeta.isDoingErrorHandling()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  /** The input rows arrive with a frozen layout: the error fields go on a copy of it. */
+  @Test
+  public void testRejectFileWithFrozenInputRowMeta() throws Exception {
+    TextFileInputMeta meta = new TextFileInputMeta();
+    meta.setFileErrorField("error_file");
+    meta.setFileErrorMessageField("error_message");
+
+    TextFileInputData data = new TextFileInputData();
+    data.filename = "bad-file.txt";
+
+    TextFileInput input =
+        spy(
+            new TextFileInput(
+                mockHelper.transformMeta,
+                meta,
+                data,
+                0,
+                mockHelper.pipelineMeta,
+                mockHelper.pipeline));
+
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta(new ValueMetaString("name"));
+    input.setInputRowMeta(FrozenRowMeta.freeze(inputRowMeta));
+
+    Object[] inputRow = RowDataUtil.allocateRowData(1);
+    inputRow[0] = "value";
+    doReturn(inputRow).when(input).getRow();
+    doNothing().when(input).putError(any(), any(), anyLong(), any(), any(), any());
+
+    input.failAfterBadFile("Unable to read the file");
+
+    ArgumentCaptor<IRowMeta> rowMeta = ArgumentCaptor.forClass(IRowMeta.class);
+    ArgumentCaptor<Object[]> row = ArgumentCaptor.forClass(Object[].class);
+    verify(input).putError(rowMeta.capture(), row.capture(), anyLong(), any(), any(), any());
+
+    assertArrayEquals(
+        new String[] {"name", "error_file", "error_message"}, rowMeta.getValue().getFieldNames());
+    assertEquals("value", row.getValue()[0]);
+    assertEquals("bad-file.txt", row.getValue()[1]);
+    assertEquals("Unable to read the file", row.getValue()[2]);
+
+    // The layout of the input rows is left alone
+    //
+    assertEquals(1, input.getInputRowMeta().size());
+  }
+}
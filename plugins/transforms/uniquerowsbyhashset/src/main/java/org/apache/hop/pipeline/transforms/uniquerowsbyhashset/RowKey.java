@@ -27,16 +27,7 @@ class RowKey {
   private Object[] storedFieldValues;
 
   public RowKey(Object[] row, UniqueRowsByHashSetData sdi) {
-    Object[] keyFields;
-    // If we are keying on the entire row
-    if (sdi.fieldnrs.length == 0) {
-      keyFields = row;
-    } else {
-      keyFields = new Object[sdi.fieldnrs.length];
-      for (int i = 0; i < sdi.fieldnrs.length; i++) {
-        keyFields[i] = row[sdi.fieldnrs[i]];
-      }
-    }
+    Object[] keyFields = getKeyFields(row, sdi);
     hash = calculateHashCode(keyFields);
 
     this.storeValues = sdi.storeValues;
@@ -45,7 +36,30 @@ class RowKey {
     }
   }
 
-  private int calculateHashCode(Object[] keyFields) {
+  private static Object[] getKeyFields(Object[] row, UniqueRowsByHashSetData sdi) {
+    // If we are keying on the entire row
+    if (sdi.fieldnrs.length == 0) {
+      return row;
+    }
+    Object[] keyFields = new Object[sdi.fieldnrs.length];
+    for (int i = 0; i < sdi.fieldnrs.length; i++) {
+      keyFields[i] = row[sdi.fieldnrs[i]];
+    }
+    return keyFields;
+  }
+
+  /**
+   * Calculate the hash code of the key fields of a row without keeping a key.
+   *
+   * @param row the row
+   * @param sdi the data of the transform
+   * @return the hash code of a key of the row
+   */
+  static int calculateHashCode(Object[] row, UniqueRowsByHashSetData sdi) {
+    return calculateHashCode(getKeyFields(row, sdi));
+  }
+
+  private static int calculateHashCode(Object[] keyFields) {
     // deep used because Binary type is a native byte[]
     return Arrays.deepHashCode(keyFields);
   }
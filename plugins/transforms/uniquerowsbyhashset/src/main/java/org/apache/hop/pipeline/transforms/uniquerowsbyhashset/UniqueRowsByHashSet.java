@@ -18,6 +18,8 @@
 package org.apache.hop.pipeline.transforms.uniquerowsbyhashset;
 
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.hash.LongOpenHashIndex;
+import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.util.Utils;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -40,7 +42,35 @@ public class UniqueRowsByHashSet
   }
 
   private boolean isUniqueRow(Object[] row) {
-    return data.seen.add(new RowKey(row, data));
+    if (data.seenKeys == null) {
+      return data.seen.add(new RowKey(row, data));
+    }
+    if (!data.storeValues) {
+      // Rows with the same hash code are considered equal
+      return data.seenKeys.putIfAbsent(RowKey.calculateHashCode(row, data), 0L);
+    }
+    Long key = (Long) row[data.fieldnrs[0]];
+    if (key == null) {
+      boolean unique = !data.seenNullKey;
+      data.seenNullKey = true;
+      return unique;
+    }
+    return data.seenKeys.putIfAbsent(key, 0L);
+  }
+
+  /**
+   * Keys which fit in a long are kept in a primitive hash index instead of a hash set: the hash
+   * codes of the rows if the values are not stored, or the values of a single integer field.
+   */
+  private boolean isUsingPrimitiveKeys() {
+    if (!data.storeValues) {
+      return true;
+    }
+    if (data.fieldnrs.length != 1) {
+      return false;
+    }
+    IValueMeta valueMeta = getInputRowMeta().getValueMeta(data.fieldnrs[0]);
+    return valueMeta.getType() == IValueMeta.TYPE_INTEGER && valueMeta.isStorageNormal();
   }
 
   @Override
@@ -88,6 +118,9 @@ public class UniqueRowsByHashSet
       if (data.sendDuplicateRows && !Utils.isEmpty(meta.getErrorDescription())) {
         data.realErrorDescription = resolve(meta.getErrorDescription());
       }
+      if (isUsingPrimitiveKeys()) {
+        data.seenKeys = new LongOpenHashIndex();
+      }
     }
 
     if (isUniqueRow(r)) {
@@ -18,6 +18,7 @@
 package org.apache.hop.pipeline.transforms.uniquerowsbyhashset;
 
 import java.util.HashSet;
+import org.apache.hop.core.hash.ILongHashIndex;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
@@ -34,6 +35,15 @@ public class UniqueRowsByHashSetData extends BaseTransformData implements ITrans
 
   public HashSet<RowKey> seen = new HashSet<>();
 
+  /**
+   * The keys seen so far when they fit in a long: the hash codes of the rows when the values are
+   * not stored, or the value of a single integer field. Null when the hash set is used.
+   */
+  public ILongHashIndex seenKeys;
+
+  /** Whether we saw a null value for the single integer field */
+  public boolean seenNullKey;
+
   public UniqueRowsByHashSetData() {
     super();
   }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.uniquerowsbyhashset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.QueueRowSet;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UniqueRowsByHashSetTest {
+
+  private TransformMockHelper<UniqueRowsByHashSetMeta, UniqueRowsByHashSetData> mockHelper;
+
+  @Before
+  public void setUp() {
+    mockHelper =
+        new TransformMockHelper<>(
+            "Unique rows", UniqueRowsByHashSetMeta.class, UniqueRowsByHashSetData.class);
+    when(mockHelper.logChannelFactory.create(any(), any(ILoggingObject.class)))
+        .thenReturn(mockHelper.iLogChannel);
+    when(mockHelper.pipeline.isRunning()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  private List<Object[]> runTransform(boolean storeValues, String... compareFields)
+      throws HopException {
+    when(mockHelper.iTransformMeta.getStoreValues()).thenReturn(storeValues);
+    when(mockHelper.iTransformMeta.getCompareFields()).thenReturn(compareFields);
+    UniqueRowsByHashSetData data = new UniqueRowsByHashSetData();
+
+    UniqueRowsByHashSet transform =
+        new UniqueRowsByHashSet(
+            mockHelper.transformMeta,
+            mockHelper.iTransformMeta,
+            data,
+            0,
+            mockHelper.pipelineMeta,
+            mockHelper.pipeline);
+    transform.init();
+
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaInteger("id"));
+    rowMeta.addValueMeta(new ValueMetaString("name"));
+    IRowSet inputRowSet =
+        mockHelper.getMockInputRowSet(
+            new Object[] {1L, "a"},
+            new Object[] {2L, "b"},
+            new Object[] {1L, "c"},
+            new Object[] {null, "d"},
+            new Object[] {null, "e"});
+    when(inputRowSet.getRowMeta()).thenReturn(rowMeta);
+    transform.addRowSetToInputRowSets(inputRowSet);
+    IRowSet outputRowSet = new QueueRowSet();
+    transform.addRowSetToOutputRowSets(outputRowSet);
+
+    while (transform.processRow()) {
+      // Process all rows
+    }
+    List<Object[]> rows = new ArrayList<>();
+    for (Object[] row = outputRowSet.getRow(); row != null; row = outputRowSet.getRow()) {
+      rows.add(row);
+    }
+    if (storeValues && compareFields.length == 1 && "id".equals(compareFields[0])) {
+      assertNotNull("A single integer key should use the primitive index", data.seenKeys);
+    }
+    return rows;
+  }
+
+  @Test
+  public void testSingleIntegerKey() throws Exception {
+    List<Object[]> rows = runTransform(true, "id");
+    assertEquals(3, rows.size());
+    assertEquals("a", rows.get(0)[1]);
+    assertEquals("b", rows.get(1)[1]);
+    assertEquals("d", rows.get(2)[1]);
+  }
+
+  @Test
+  public void testHashCodesOnly() throws Exception {
+    List<Object[]> rows = runTransform(false, "id");
+    assertEquals(3, rows.size());
+    assertEquals("d", rows.get(2)[1]);
+  }
+
+  @Test
+  public void testOtherKeys() throws Exception {
+    assertEquals(5, runTransform(true, "name").size());
+    assertEquals(3, runTransform(true, "id", "id").size());
+    assertNull(new UniqueRowsByHashSetData().seenKeys);
+  }
+}